@@ -2,6 +2,10 @@ package com.adriangraczyk.employeeservice.config;
 
 import org.springframework.boot.context.properties.ConfigurationProperties;
 
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
 /**
  * Properties specific to Employeeservice.
  * <p>
@@ -10,4 +14,370 @@ import org.springframework.boot.context.properties.ConfigurationProperties;
  */
 @ConfigurationProperties(prefix = "application", ignoreUnknownFields = false)
 public class ApplicationProperties {
+
+    private final Pagination pagination = new Pagination();
+
+    private final Addresses addresses = new Addresses();
+
+    private final Batch batch = new Batch();
+
+    private final WriteCoalescing writeCoalescing = new WriteCoalescing();
+
+    private final OrphanSweeper orphanSweeper = new OrphanSweeper();
+
+    private final UpdateByFilter updateByFilter = new UpdateByFilter();
+
+    private final EntityCache entityCache = new EntityCache();
+
+    private final ReadCoalescing readCoalescing = new ReadCoalescing();
+
+    private final JsonCache jsonCache = new JsonCache();
+
+    private final PageCache pageCache = new PageCache();
+
+    public Pagination getPagination() {
+        return pagination;
+    }
+
+    public Addresses getAddresses() {
+        return addresses;
+    }
+
+    public Batch getBatch() {
+        return batch;
+    }
+
+    public WriteCoalescing getWriteCoalescing() {
+        return writeCoalescing;
+    }
+
+    public OrphanSweeper getOrphanSweeper() {
+        return orphanSweeper;
+    }
+
+    public UpdateByFilter getUpdateByFilter() {
+        return updateByFilter;
+    }
+
+    public EntityCache getEntityCache() {
+        return entityCache;
+    }
+
+    public ReadCoalescing getReadCoalescing() {
+        return readCoalescing;
+    }
+
+    public JsonCache getJsonCache() {
+        return jsonCache;
+    }
+
+    public PageCache getPageCache() {
+        return pageCache;
+    }
+
+    public static class Pagination {
+
+        private CountStrategy countStrategy = CountStrategy.EXACT;
+
+        private Duration countCacheTimeToLive = Duration.ofSeconds(30);
+
+        public CountStrategy getCountStrategy() {
+            return countStrategy;
+        }
+
+        public void setCountStrategy(CountStrategy countStrategy) {
+            this.countStrategy = countStrategy;
+        }
+
+        public Duration getCountCacheTimeToLive() {
+            return countCacheTimeToLive;
+        }
+
+        public void setCountCacheTimeToLive(Duration countCacheTimeToLive) {
+            this.countCacheTimeToLive = countCacheTimeToLive;
+        }
+    }
+
+    public static class Addresses {
+
+        private AddressStorage storage = AddressStorage.REFERENCED;
+
+        public AddressStorage getStorage() {
+            return storage;
+        }
+
+        public void setStorage(AddressStorage storage) {
+            this.storage = storage;
+        }
+    }
+
+    public static class Batch {
+
+        private int maxIds = 100;
+
+        private int bulkChunkSize = 500;
+
+        private int streamBatchSize = 1000;
+
+        public int getMaxIds() {
+            return maxIds;
+        }
+
+        public void setMaxIds(int maxIds) {
+            this.maxIds = maxIds;
+        }
+
+        public int getBulkChunkSize() {
+            return bulkChunkSize;
+        }
+
+        public void setBulkChunkSize(int bulkChunkSize) {
+            this.bulkChunkSize = bulkChunkSize;
+        }
+
+        public int getStreamBatchSize() {
+            return streamBatchSize;
+        }
+
+        public void setStreamBatchSize(int streamBatchSize) {
+            this.streamBatchSize = streamBatchSize;
+        }
+    }
+
+    public static class WriteCoalescing {
+
+        private boolean enabled = false;
+
+        private Duration window = Duration.ofMillis(2);
+
+        private int maxBatchSize = 100;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public Duration getWindow() {
+            return window;
+        }
+
+        public void setWindow(Duration window) {
+            this.window = window;
+        }
+
+        public int getMaxBatchSize() {
+            return maxBatchSize;
+        }
+
+        public void setMaxBatchSize(int maxBatchSize) {
+            this.maxBatchSize = maxBatchSize;
+        }
+    }
+
+    public static class OrphanSweeper {
+
+        private String cron = "0 30 3 * * ?";
+
+        private int batchSize = 500;
+
+        private Duration pause = Duration.ofSeconds(1);
+
+        public String getCron() {
+            return cron;
+        }
+
+        public void setCron(String cron) {
+            this.cron = cron;
+        }
+
+        public int getBatchSize() {
+            return batchSize;
+        }
+
+        public void setBatchSize(int batchSize) {
+            this.batchSize = batchSize;
+        }
+
+        public Duration getPause() {
+            return pause;
+        }
+
+        public void setPause(Duration pause) {
+            this.pause = pause;
+        }
+    }
+
+    public static class UpdateByFilter {
+
+        private int maxRequests = 10;
+
+        private Duration period = Duration.ofMinutes(1);
+
+        public int getMaxRequests() {
+            return maxRequests;
+        }
+
+        public void setMaxRequests(int maxRequests) {
+            this.maxRequests = maxRequests;
+        }
+
+        public Duration getPeriod() {
+            return period;
+        }
+
+        public void setPeriod(Duration period) {
+            this.period = period;
+        }
+    }
+
+    public static class EntityCache {
+
+        private int maximumSize = 10000;
+
+        private Duration timeToLive = Duration.ofMinutes(10);
+
+        private Duration negativeTimeToLive = Duration.ofSeconds(5);
+
+        public int getMaximumSize() {
+            return maximumSize;
+        }
+
+        public void setMaximumSize(int maximumSize) {
+            this.maximumSize = maximumSize;
+        }
+
+        public Duration getTimeToLive() {
+            return timeToLive;
+        }
+
+        public void setTimeToLive(Duration timeToLive) {
+            this.timeToLive = timeToLive;
+        }
+
+        public Duration getNegativeTimeToLive() {
+            return negativeTimeToLive;
+        }
+
+        public void setNegativeTimeToLive(Duration negativeTimeToLive) {
+            this.negativeTimeToLive = negativeTimeToLive;
+        }
+    }
+
+    public static class ReadCoalescing {
+
+        private boolean enabled = false;
+
+        private Duration window = Duration.ofMillis(2);
+
+        private int maxBatchSize = 100;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public Duration getWindow() {
+            return window;
+        }
+
+        public void setWindow(Duration window) {
+            this.window = window;
+        }
+
+        public int getMaxBatchSize() {
+            return maxBatchSize;
+        }
+
+        public void setMaxBatchSize(int maxBatchSize) {
+            this.maxBatchSize = maxBatchSize;
+        }
+    }
+
+    public static class JsonCache {
+
+        private boolean enabled = false;
+
+        private DataSize maximumSize = DataSize.ofMegabytes(64);
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public DataSize getMaximumSize() {
+            return maximumSize;
+        }
+
+        public void setMaximumSize(DataSize maximumSize) {
+            this.maximumSize = maximumSize;
+        }
+    }
+
+    public static class PageCache {
+
+        private boolean enabled = false;
+
+        private int maximumSize = 1000;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getMaximumSize() {
+            return maximumSize;
+        }
+
+        public void setMaximumSize(int maximumSize) {
+            this.maximumSize = maximumSize;
+        }
+    }
+
+    /**
+     * How paginated listings get the total number of elements behind the {@code X-Total-Count} header.
+     */
+    public enum CountStrategy {
+        /**
+         * Count the collection in the same {@code $facet} aggregation as the page.
+         */
+        EXACT,
+        /**
+         * Reuse an exact count for a limited time, invalidated by the writes of this instance.
+         */
+        CACHED,
+        /**
+         * Use the document count from the collection metadata, which can drift after an unclean shutdown.
+         */
+        ESTIMATED,
+        /**
+         * Do not count at all; fetch one extra element to know whether there is a next page.
+         */
+        NONE
+    }
+
+    /**
+     * Where addresses are stored. Existing addresses are converted to the configured storage on startup.
+     */
+    public enum AddressStorage {
+        /**
+         * In the {@code address} collection, each one referencing its employee with a DBRef.
+         */
+        REFERENCED,
+        /**
+         * As subdocuments of the {@code addresses} array of their employee, read and written with it.
+         */
+        EMBEDDED
+    }
 }
@@ -0,0 +1,53 @@
+package com.adriangraczyk.employeeservice.config;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.exc.InvalidDefinitionException;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.codec.CodecException;
+import org.springframework.core.codec.DecodingException;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.codec.json.Jackson2JsonDecoder;
+import org.springframework.util.MimeType;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * A JSON decoder reading the request bodies with a reader of their type, resolved once and kept for the next ones.
+ * <p>
+ * The default decoder creates a reader, and looks up its deserializer, for each body. Bodies read with a JSON view, or
+ * into a type with unresolved generics, are decoded as before.
+ */
+public class CachingJackson2JsonDecoder extends Jackson2JsonDecoder {
+
+    private final ConcurrentMap<JavaType, ObjectReader> readers = new ConcurrentHashMap<>();
+
+    public CachingJackson2JsonDecoder(ObjectMapper objectMapper) {
+        super(objectMapper);
+    }
+
+    @Override
+    public Object decode(DataBuffer dataBuffer, ResolvableType targetType, MimeType mimeType, Map<String, Object> hints) {
+        if ((hints != null && hints.containsKey(JSON_VIEW_HINT)) || targetType.hasUnresolvableGenerics()) {
+            return super.decode(dataBuffer, targetType, mimeType, hints);
+        }
+        try {
+            ObjectReader reader = readers.computeIfAbsent(getJavaType(targetType.getType(), null), getObjectMapper()::readerFor);
+            return reader.readValue(dataBuffer.asInputStream());
+        } catch (InvalidDefinitionException e) {
+            throw new CodecException("Type definition error: " + e.getType(), e);
+        } catch (JsonProcessingException e) {
+            throw new DecodingException("JSON decoding error: " + e.getOriginalMessage(), e);
+        } catch (IOException e) {
+            throw new DecodingException("I/O error while parsing input stream", e);
+        } finally {
+            DataBufferUtils.release(dataBuffer);
+        }
+    }
+}
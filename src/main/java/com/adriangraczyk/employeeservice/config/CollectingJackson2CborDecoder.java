@@ -0,0 +1,33 @@
+package com.adriangraczyk.employeeservice.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.reactivestreams.Publisher;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.cbor.Jackson2CborDecoder;
+import org.springframework.util.MimeType;
+import reactor.core.publisher.Flux;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A CBOR decoder also reading a {@link Flux}, from a CBOR array of its elements.
+ * <p>
+ * The CBOR decoder of Spring only reads single values, which leaves out the request bodies read as a {@link Flux},
+ * such as the bulk operations. Here the whole array is read as a list before its elements are emitted.
+ */
+public class CollectingJackson2CborDecoder extends Jackson2CborDecoder {
+
+    public CollectingJackson2CborDecoder(ObjectMapper objectMapper) {
+        super(objectMapper, MediaType.APPLICATION_CBOR);
+    }
+
+    @Override
+    public Flux<Object> decode(Publisher<DataBuffer> input, ResolvableType elementType, MimeType mimeType, Map<String, Object> hints) {
+        ResolvableType listType = ResolvableType.forClassWithGenerics(List.class, elementType);
+        return decodeToMono(input, listType, mimeType, hints)
+            .flatMapIterable(list -> (List<?>) list);
+    }
+}
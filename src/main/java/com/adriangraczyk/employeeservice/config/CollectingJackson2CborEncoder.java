@@ -0,0 +1,41 @@
+package com.adriangraczyk.employeeservice.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.reactivestreams.Publisher;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.cbor.Jackson2CborEncoder;
+import org.springframework.util.MimeType;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A CBOR encoder also writing a {@link Flux}, as a CBOR array of its elements.
+ * <p>
+ * The CBOR encoder of Spring only writes single values, which leaves out the listings. Here the elements are collected
+ * and written as a list, as the JSON encoder of Spring does for the non streaming media types.
+ */
+public class CollectingJackson2CborEncoder extends Jackson2CborEncoder {
+
+    public CollectingJackson2CborEncoder(ObjectMapper objectMapper) {
+        super(objectMapper, MediaType.APPLICATION_CBOR);
+    }
+
+    @Override
+    public Flux<DataBuffer> encode(Publisher<?> inputStream, DataBufferFactory bufferFactory, ResolvableType elementType,
+                                   MimeType mimeType, Map<String, Object> hints) {
+        if (inputStream instanceof Mono) {
+            return Mono.from(inputStream).map(value -> encodeValue(value, bufferFactory, elementType, mimeType, hints)).flux();
+        }
+        ResolvableType listType = ResolvableType.forClassWithGenerics(List.class, elementType);
+        return Flux.from(inputStream)
+            .collectList()
+            .map(list -> encodeValue(list, bufferFactory, listType, mimeType, hints))
+            .flux();
+    }
+}
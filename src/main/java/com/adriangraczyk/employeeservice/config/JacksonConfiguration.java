@@ -2,15 +2,24 @@ package com.adriangraczyk.employeeservice.config;
 
 import com.fasterxml.jackson.datatype.jdk8.Jdk8Module;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.fasterxml.jackson.module.afterburner.AfterburnerModule;
 
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.MediaType;
 import org.zalando.problem.ProblemModule;
 import org.zalando.problem.violations.ConstraintViolationProblemModule;
 
 @Configuration
 public class JacksonConfiguration {
 
+    /**
+     * Smile, the binary JSON format of Jackson, accepted and produced by the REST API as is CBOR.
+     */
+    public static final String APPLICATION_SMILE_VALUE = "application/x-jackson-smile";
+
+    public static final MediaType APPLICATION_SMILE = MediaType.valueOf(APPLICATION_SMILE_VALUE);
+
     /**
      * Support for Java date and time API.
      * @return the corresponding Jackson module.
@@ -25,6 +34,15 @@ public class JacksonConfiguration {
         return new Jdk8Module();
     }
 
+    /**
+     * Generated accessors of the properties, instead of reflection, for the DTOs read and written on every request.
+     * @return the corresponding Jackson module.
+     */
+    @Bean
+    public AfterburnerModule afterburnerModule() {
+        return new AfterburnerModule();
+    }
+
     /*
      * Module for serialization/deserialization of RFC7807 Problem.
      */
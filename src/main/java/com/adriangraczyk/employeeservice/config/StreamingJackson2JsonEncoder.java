@@ -0,0 +1,148 @@
+package com.adriangraczyk.employeeservice.config;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.reactivestreams.Publisher;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.codec.EncodingException;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.PooledDataBuffer;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.json.Jackson2JsonEncoder;
+import org.springframework.util.MimeType;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+
+/**
+ * A JSON encoder writing a {@link Flux} as a JSON array one element at a time, as the elements are emitted.
+ * <p>
+ * The default encoder collects the whole {@link Flux} into a list before encoding it into a single buffer, so that the
+ * first byte waits for the last element and the response is held twice in memory. Here each element is written
+ * straight into its own pooled buffer, after the {@code [} or {@code ,} before it, and sent as soon as the client reads
+ * the previous ones, the demand of the response flowing back to the source of the elements.
+ * <p>
+ * The array is only opened with the first element, so that a failure before it still gets an error status. A failure
+ * after it can only abort the response. A {@link Mono}, and the streaming media types, are encoded as before.
+ * <p>
+ * It also writes {@value #APPLICATION_NDJSON_VALUE}, one element per line in the same way. Unlike the streaming media
+ * types, the lines are not flushed one by one, which suits exports of whole collections.
+ * <p>
+ * Without a JSON view, the values are written with a writer of their class, resolved once and kept for the next ones,
+ * instead of a writer looking up their serializer again each time.
+ */
+public class StreamingJackson2JsonEncoder extends Jackson2JsonEncoder {
+
+    /**
+     * Newline delimited JSON, one document per line.
+     */
+    public static final String APPLICATION_NDJSON_VALUE = "application/x-ndjson";
+
+    public static final MediaType APPLICATION_NDJSON = MediaType.valueOf(APPLICATION_NDJSON_VALUE);
+
+    private static final byte[] ARRAY_START = {'['};
+
+    private static final byte[] SEPARATOR = {','};
+
+    private static final byte[] ARRAY_END = {']'};
+
+    private static final byte[] EMPTY_ARRAY = {'[', ']'};
+
+    private static final byte[] NO_PREFIX = {};
+
+    private static final byte[] NEWLINE = {'\n'};
+
+    private final ClassValue<ObjectWriter> writers = new ClassValue<ObjectWriter>() {
+        @Override
+        protected ObjectWriter computeValue(Class<?> type) {
+            return getObjectMapper().writerFor(type);
+        }
+    };
+
+    public StreamingJackson2JsonEncoder(ObjectMapper objectMapper) {
+        super(objectMapper, MediaType.APPLICATION_JSON, new MediaType("application", "*+json"), APPLICATION_NDJSON);
+    }
+
+    @Override
+    public Flux<DataBuffer> encode(Publisher<?> inputStream, DataBufferFactory bufferFactory, ResolvableType elementType,
+                                   MimeType mimeType, Map<String, Object> hints) {
+        if (inputStream instanceof Mono || isStreamingMediaType(mimeType) || getJsonEncoding(mimeType) != JsonEncoding.UTF8) {
+            return super.encode(inputStream, bufferFactory, elementType, mimeType, hints);
+        }
+        if (APPLICATION_NDJSON.isCompatibleWith(mimeType)) {
+            return Flux.defer(() -> {
+                Function<Object, ObjectWriter> writer = elementWriter(elementType, mimeType, hints);
+                return Flux.from(inputStream)
+                    .map(value -> write(writer.apply(value), NO_PREFIX, value, NEWLINE, bufferFactory))
+                    .doOnDiscard(PooledDataBuffer.class, DataBufferUtils::release);
+            });
+        }
+        return Flux.defer(() -> {
+            Function<Object, ObjectWriter> writer = elementWriter(elementType, mimeType, hints);
+            AtomicBoolean started = new AtomicBoolean();
+            return Flux.from(inputStream)
+                .map(value -> write(writer.apply(value), started.getAndSet(true) ? SEPARATOR : ARRAY_START, value, NO_PREFIX, bufferFactory))
+                .concatWith(Mono.fromCallable(() -> bufferFactory.wrap(started.get() ? ARRAY_END : EMPTY_ARRAY)))
+                .doOnDiscard(PooledDataBuffer.class, DataBufferUtils::release);
+        });
+    }
+
+    @Override
+    public DataBuffer encodeValue(Object value, DataBufferFactory bufferFactory, ResolvableType valueType, MimeType mimeType,
+                                  Map<String, Object> hints) {
+        if (jsonView(hints) != null || getJsonEncoding(mimeType) != JsonEncoding.UTF8) {
+            return super.encodeValue(value, bufferFactory, valueType, mimeType, hints);
+        }
+        return write(writers.get(value.getClass()), NO_PREFIX, value, NO_PREFIX, bufferFactory);
+    }
+
+    /**
+     * The writer of each element: the cached writer of its class, or with a JSON view, the writer {@link #encodeValue}
+     * would resolve for each, resolved once for all of them.
+     */
+    private Function<Object, ObjectWriter> elementWriter(ResolvableType elementType, MimeType mimeType, Map<String, Object> hints) {
+        Class<?> jsonView = jsonView(hints);
+        if (jsonView == null) {
+            return value -> writers.get(value.getClass());
+        }
+        JavaType javaType = getJavaType(elementType.getType(), null);
+        ObjectWriter writer = getObjectMapper().writerWithView(jsonView);
+        if (javaType.isContainerType()) {
+            writer = writer.forType(javaType);
+        }
+        ObjectWriter viewWriter = customizeWriter(writer, mimeType, elementType, hints);
+        return value -> viewWriter;
+    }
+
+    private static Class<?> jsonView(Map<String, Object> hints) {
+        return hints != null ? (Class<?>) hints.get(JSON_VIEW_HINT) : null;
+    }
+
+    /**
+     * Writes an element between its prefix and suffix, straight into a pooled buffer.
+     */
+    private static DataBuffer write(ObjectWriter writer, byte[] prefix, Object value, byte[] suffix, DataBufferFactory bufferFactory) {
+        DataBuffer buffer = bufferFactory.allocateBuffer();
+        try {
+            buffer.write(prefix);
+            writer.writeValue(buffer.asOutputStream(), value);
+            buffer.write(suffix);
+            return buffer;
+        } catch (IOException | RuntimeException e) {
+            DataBufferUtils.release(buffer);
+            throw new EncodingException("JSON encoding error: " + e.getMessage(), e);
+        }
+    }
+
+    private boolean isStreamingMediaType(MimeType mimeType) {
+        return mimeType != null && getStreamingMediaTypes().stream().anyMatch(mimeType::isCompatibleWith);
+    }
+}
@@ -1,17 +1,25 @@
 package com.adriangraczyk.employeeservice.config;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
 import io.github.jhipster.config.JHipsterProperties;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.boot.web.codec.CodecCustomizer;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.core.annotation.Order;
 import org.springframework.data.web.ReactivePageableHandlerMethodArgumentResolver;
 import org.springframework.data.web.ReactiveSortHandlerMethodArgumentResolver;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.json.Jackson2SmileDecoder;
+import org.springframework.http.codec.json.Jackson2SmileEncoder;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
 import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.reactive.CorsWebFilter;
 import org.springframework.web.cors.reactive.UrlBasedCorsConfigurationSource;
+import org.springframework.web.reactive.accept.RequestedContentTypeResolverBuilder;
 import org.springframework.web.reactive.config.WebFluxConfigurer;
 import org.springframework.web.reactive.result.method.HandlerMethodArgumentResolver;
 import org.springframework.web.server.WebExceptionHandler;
@@ -45,6 +53,46 @@ public class WebConfigurer implements WebFluxConfigurer {
         return new CorsWebFilter(source);
     }
 
+    /**
+     * Write the JSON arrays of the listings as their elements arrive, instead of collecting them first, and read the
+     * request bodies with cached readers; ordered after the Jackson codecs of Spring Boot, which it replaces.
+     */
+    @Bean
+    @Order(1)
+    public CodecCustomizer jsonCodecCustomizer(ObjectMapper objectMapper) {
+        return configurer -> {
+            configurer.defaultCodecs().jackson2JsonEncoder(new StreamingJackson2JsonEncoder(objectMapper));
+            configurer.defaultCodecs().jackson2JsonDecoder(new CachingJackson2JsonDecoder(objectMapper));
+        };
+    }
+
+    /**
+     * Read and write CBOR and Smile, for the clients which would rather not parse JSON, with the same Jackson
+     * configuration as JSON. The Smile codecs of Spring otherwise use a mapper of their own.
+     */
+    @Bean
+    @Order(2)
+    public CodecCustomizer binaryJacksonCodecCustomizer(Jackson2ObjectMapperBuilder jacksonObjectMapperBuilder) {
+        ObjectMapper smileMapper = jacksonObjectMapperBuilder.factory(new SmileFactory()).build();
+        ObjectMapper cborMapper = jacksonObjectMapperBuilder.factory(new CBORFactory()).build();
+        return configurer -> {
+            configurer.defaultCodecs().jackson2SmileEncoder(new Jackson2SmileEncoder(smileMapper, JacksonConfiguration.APPLICATION_SMILE));
+            configurer.defaultCodecs().jackson2SmileDecoder(new Jackson2SmileDecoder(smileMapper, JacksonConfiguration.APPLICATION_SMILE));
+            configurer.customCodecs().registerWithDefaultConfig(new CollectingJackson2CborEncoder(cborMapper));
+            configurer.customCodecs().registerWithDefaultConfig(new CollectingJackson2CborDecoder(cborMapper));
+        };
+    }
+
+    /**
+     * Answer in JSON when the request accepts any media type, instead of in the first format with a codec, which
+     * would be CBOR since custom codecs come before the default ones.
+     */
+    @Override
+    public void configureContentTypeResolver(RequestedContentTypeResolverBuilder builder) {
+        builder.headerResolver();
+        builder.fixedResolver(MediaType.APPLICATION_JSON, MediaType.ALL);
+    }
+
     // TODO: remove when this is supported in spring-boot
     @Bean
     HandlerMethodArgumentResolver reactivePageableHandlerMethodArgumentResolver() {
@@ -0,0 +1,166 @@
+package com.adriangraczyk.employeeservice.config.dbmigrations;
+
+import com.adriangraczyk.employeeservice.config.ApplicationProperties.AddressStorage;
+import com.adriangraczyk.employeeservice.repository.EmbeddedAddressRepository;
+import com.github.mongobee.changeset.ChangeLog;
+import com.github.mongobee.changeset.ChangeSet;
+import com.mongodb.DBRef;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.BulkWriteOptions;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Projections;
+import com.mongodb.client.model.ReplaceOneModel;
+import com.mongodb.client.model.ReplaceOptions;
+import com.mongodb.client.model.UpdateOneModel;
+import com.mongodb.client.model.Updates;
+import com.mongodb.client.model.WriteModel;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.core.env.Environment;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Converts the existing addresses to the configured {@link AddressStorage}, on every startup.
+ * <p>
+ * Both conversions are idempotent, so that a conversion interrupted midway is completed by the next startup.
+ */
+@ChangeLog(order = "002")
+public class AddressStorageMigration {
+
+    private static final Logger log = LoggerFactory.getLogger(AddressStorageMigration.class);
+
+    private static final int BATCH_SIZE = 500;
+
+    private static final String EMPLOYEE_COLLECTION = "employee";
+
+    private static final String ADDRESS_COLLECTION = "address";
+
+    private static final String EMPLOYEE_FIELD = "employee";
+
+    /**
+     * The DBRefs of the referenced storage on the employee side, never kept up to date by the services.
+     */
+    private static final String EMPLOYEE_ADDRESS_REFS_FIELD = "address";
+
+    @ChangeSet(order = "01", author = "initiator", id = "01-convertAddressStorage", runAlways = true)
+    public void convertAddressStorage(MongoTemplate mongoTemplate, Environment environment) {
+        AddressStorage storage = Binder.get(environment)
+            .bind("application.addresses.storage", AddressStorage.class)
+            .orElse(AddressStorage.REFERENCED);
+        if (storage == AddressStorage.EMBEDDED) {
+            embedAddresses(mongoTemplate);
+        } else {
+            referenceAddresses(mongoTemplate);
+        }
+    }
+
+    /**
+     * Moves the addresses of the address collection into the array of their employee. Addresses without an existing
+     * employee are left where they are.
+     */
+    void embedAddresses(MongoTemplate mongoTemplate) {
+        MongoCollection<Document> employees = mongoTemplate.getCollection(EMPLOYEE_COLLECTION);
+        MongoCollection<Document> addresses = mongoTemplate.getCollection(ADDRESS_COLLECTION);
+        List<WriteModel<Document>> pushes = new ArrayList<>();
+        List<Object> addressIds = new ArrayList<>();
+        long embedded = 0;
+        for (Document address : addresses.find(Filters.ne(EMPLOYEE_FIELD, null))) {
+            Object employeeId = referencedId(address.remove(EMPLOYEE_FIELD));
+            Object addressId = address.get("_id");
+            address.remove("_class");
+            // skips the addresses embedded by an interrupted run
+            pushes.add(new UpdateOneModel<>(
+                Filters.and(Filters.eq("_id", employeeId), Filters.ne(EmbeddedAddressRepository.ADDRESSES_FIELD + "._id", addressId)),
+                Updates.push(EmbeddedAddressRepository.ADDRESSES_FIELD, address)));
+            addressIds.add(addressId);
+            if (pushes.size() == BATCH_SIZE) {
+                embedded += embedBatch(employees, addresses, pushes, addressIds);
+            }
+        }
+        embedded += embedBatch(employees, addresses, pushes, addressIds);
+        employees.updateMany(Filters.exists(EMPLOYEE_ADDRESS_REFS_FIELD), Updates.unset(EMPLOYEE_ADDRESS_REFS_FIELD));
+        if (embedded > 0) {
+            log.info("Embedded {} addresses in their employee", embedded);
+        }
+    }
+
+    /**
+     * Pushes a batch of addresses and removes from the address collection those that are now embedded.
+     */
+    private long embedBatch(MongoCollection<Document> employees, MongoCollection<Document> addresses,
+                            List<WriteModel<Document>> pushes, List<Object> addressIds) {
+        if (pushes.isEmpty()) {
+            return 0;
+        }
+        employees.bulkWrite(pushes, new BulkWriteOptions().ordered(false));
+        List<Object> embeddedIds = new ArrayList<>();
+        String addressIdField = EmbeddedAddressRepository.ADDRESSES_FIELD + "._id";
+        for (Document employee : employees.find(Filters.in(addressIdField, addressIds)).projection(Projections.include(addressIdField))) {
+            for (Document address : employee.getList(EmbeddedAddressRepository.ADDRESSES_FIELD, Document.class)) {
+                if (addressIds.contains(address.get("_id"))) {
+                    embeddedIds.add(address.get("_id"));
+                }
+            }
+        }
+        long deleted = embeddedIds.isEmpty() ? 0 : addresses.deleteMany(Filters.in("_id", embeddedIds)).getDeletedCount();
+        pushes.clear();
+        addressIds.clear();
+        return deleted;
+    }
+
+    /**
+     * Moves the addresses embedded in the employees to the address collection, referencing their employee.
+     */
+    void referenceAddresses(MongoTemplate mongoTemplate) {
+        MongoCollection<Document> employees = mongoTemplate.getCollection(EMPLOYEE_COLLECTION);
+        MongoCollection<Document> addresses = mongoTemplate.getCollection(ADDRESS_COLLECTION);
+        List<WriteModel<Document>> inserts = new ArrayList<>();
+        List<Object> employeeIds = new ArrayList<>();
+        long referenced = 0;
+        for (Document employee : employees.find(Filters.exists(EmbeddedAddressRepository.ADDRESSES_FIELD))
+            .projection(Projections.include(EmbeddedAddressRepository.ADDRESSES_FIELD))) {
+            for (Document address : employee.getList(EmbeddedAddressRepository.ADDRESSES_FIELD, Document.class)) {
+                address.put(EMPLOYEE_FIELD, new DBRef(EMPLOYEE_COLLECTION, employee.get("_id")));
+                // replaces the addresses inserted by an interrupted run
+                inserts.add(new ReplaceOneModel<>(Filters.eq("_id", address.get("_id")), address, new ReplaceOptions().upsert(true)));
+            }
+            employeeIds.add(employee.get("_id"));
+            if (inserts.size() >= BATCH_SIZE) {
+                referenced += referenceBatch(employees, addresses, inserts, employeeIds);
+            }
+        }
+        referenced += referenceBatch(employees, addresses, inserts, employeeIds);
+        if (referenced > 0) {
+            log.info("Moved {} embedded addresses to the {} collection", referenced, ADDRESS_COLLECTION);
+        }
+    }
+
+    /**
+     * Writes a batch of addresses to the address collection, then removes them from their employees.
+     */
+    private long referenceBatch(MongoCollection<Document> employees, MongoCollection<Document> addresses,
+                                List<WriteModel<Document>> inserts, List<Object> employeeIds) {
+        long written = inserts.size();
+        if (!inserts.isEmpty()) {
+            addresses.bulkWrite(inserts, new BulkWriteOptions().ordered(false));
+        }
+        if (!employeeIds.isEmpty()) {
+            employees.updateMany(Filters.in("_id", employeeIds), Updates.unset(EmbeddedAddressRepository.ADDRESSES_FIELD));
+        }
+        inserts.clear();
+        employeeIds.clear();
+        return written;
+    }
+
+    private static Object referencedId(Object reference) {
+        if (reference instanceof DBRef) {
+            return ((DBRef) reference).getId();
+        }
+        return ((Document) reference).get("$id");
+    }
+}
@@ -0,0 +1,53 @@
+package com.adriangraczyk.employeeservice.config.dbmigrations;
+
+import com.adriangraczyk.employeeservice.repository.EmbeddedAddressRepository;
+import com.github.mongobee.changeset.ChangeLog;
+import com.github.mongobee.changeset.ChangeSet;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+
+/**
+ * Creates the indexes behind the queries of the repositories.
+ * <p>
+ * Indexes are built in the background, so that deploying on an existing database does not block it.
+ */
+@ChangeLog(order = "001")
+public class InitialSetupMigration {
+
+    @ChangeSet(order = "01", author = "initiator", id = "01-addEmployeeIndexes")
+    public void addEmployeeIndexes(MongoTemplate mongoTemplate) {
+        mongoTemplate.indexOps("employee").ensureIndex(new Index()
+            .on("p_esel", Sort.Direction.ASC)
+            .named("p_esel")
+            .unique()
+            .background());
+        // Allowed sort keys for listings, ending with _id so that keyset pagination resumes on the index
+        mongoTemplate.indexOps("employee").ensureIndex(new Index()
+            .on("last_name", Sort.Direction.ASC)
+            .on("first_name", Sort.Direction.ASC)
+            .on("_id", Sort.Direction.ASC)
+            .named("last_name_first_name_id")
+            .background());
+    }
+
+    @ChangeSet(order = "02", author = "initiator", id = "02-addAddressIndexes")
+    public void addAddressIndexes(MongoTemplate mongoTemplate) {
+        // Addresses of an employee, looked up by the id of the employee DBRef
+        mongoTemplate.indexOps("address").ensureIndex(new Index()
+            .on("employee.$id", Sort.Direction.ASC)
+            .named("employee_id")
+            .background());
+    }
+
+    @ChangeSet(order = "03", author = "initiator", id = "03-addEmbeddedAddressIndexes")
+    public void addEmbeddedAddressIndexes(MongoTemplate mongoTemplate) {
+        // Embedded addresses, looked up by their id in the array of their employee; sparse as it is only used by the
+        // embedded storage
+        mongoTemplate.indexOps("employee").ensureIndex(new Index()
+            .on(EmbeddedAddressRepository.ADDRESSES_FIELD + "._id", Sort.Direction.ASC)
+            .named("addresses_id")
+            .sparse()
+            .background());
+    }
+}
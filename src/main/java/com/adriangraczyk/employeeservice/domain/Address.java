@@ -58,11 +58,20 @@ public class Address implements Serializable {
     @Field("flat_number")
     private String flatNumber;
 
-    @DBRef
+    /**
+     * Lazy, so that reading an address does not load its employee: the id is available from the reference itself.
+     */
+    @DBRef(lazy = true)
     @Field("employee")
     @JsonIgnoreProperties(value = "addresses", allowSetters = true)
     private Employee employee;
 
+    /**
+     * Changed by every write of the document, for the conditional writes.
+     */
+    @Field("revision")
+    private String revision;
+
     // jhipster-needle-entity-add-field - JHipster will add fields here
     public String getId() {
         return id;
@@ -188,6 +197,14 @@ public class Address implements Serializable {
     public void setEmployee(Employee employee) {
         this.employee = employee;
     }
+
+    public String getRevision() {
+        return revision;
+    }
+
+    public void setRevision(String revision) {
+        this.revision = revision;
+    }
     // jhipster-needle-entity-add-getters-setters - JHipster will add getters and setters here
 
     @Override
@@ -203,7 +220,8 @@ public class Address implements Serializable {
 
     @Override
     public int hashCode() {
-        return 31;
+        // the id is assigned on the first save: add new entities to hash based collections once saved
+        return id != null ? id.hashCode() : 31;
     }
 
     // prettier-ignore
@@ -52,6 +52,12 @@ public class Employee implements Serializable {
     @Field("address")
     private Set<Address> addresses = new HashSet<>();
 
+    /**
+     * Changed by every write of the document, for the conditional writes.
+     */
+    @Field("revision")
+    private String revision;
+
     // jhipster-needle-entity-add-field - JHipster will add fields here
     public String getId() {
         return id;
@@ -150,6 +156,14 @@ public class Employee implements Serializable {
     public void setAddresses(Set<Address> addresses) {
         this.addresses = addresses;
     }
+
+    public String getRevision() {
+        return revision;
+    }
+
+    public void setRevision(String revision) {
+        this.revision = revision;
+    }
     // jhipster-needle-entity-add-getters-setters - JHipster will add getters and setters here
 
     @Override
@@ -165,7 +179,8 @@ public class Employee implements Serializable {
 
     @Override
     public int hashCode() {
-        return 31;
+        // the id is assigned on the first save: add new entities to hash based collections once saved
+        return id != null ? id.hashCode() : 31;
     }
 
     // prettier-ignore
@@ -1,7 +1,9 @@
 package com.adriangraczyk.employeeservice.repository;
 
 import com.adriangraczyk.employeeservice.domain.Address;
-import org.springframework.data.domain.Pageable;
+import com.adriangraczyk.employeeservice.domain.enumeration.AddressType;
+import org.bson.types.ObjectId;
+import org.springframework.data.mongodb.repository.Query;
 import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
 import org.springframework.stereotype.Repository;
 import reactor.core.publisher.Flux;
@@ -11,9 +13,25 @@ import reactor.core.publisher.Flux;
  */
 @SuppressWarnings("unused")
 @Repository
-public interface AddressRepository extends ReactiveMongoRepository<Address, String> {
+public interface AddressRepository extends ReactiveMongoRepository<Address, String>, AddressRepositoryCustom {
 
+    /**
+     * Find the addresses of an employee, on the {@code employee_id} index.
+     *
+     * @param employeeId the id of the employee.
+     * @return its addresses, by id.
+     */
+    @Query(value = "{ 'employee.$id': ?0 }", sort = "{ '_id': 1 }")
+    Flux<Address> findAllByEmployeeId(ObjectId employeeId);
 
-    Flux<Address> findAllBy(Pageable pageable);
+    /**
+     * Find the addresses of an employee of the given type, on the {@code employee_id} index.
+     *
+     * @param employeeId the id of the employee.
+     * @param addressType the type of the addresses.
+     * @return its addresses of that type, by id.
+     */
+    @Query(value = "{ 'employee.$id': ?0, 'address_type': ?1 }", sort = "{ '_id': 1 }")
+    Flux<Address> findAllByEmployeeIdAndAddressType(ObjectId employeeId, AddressType addressType);
 
 }
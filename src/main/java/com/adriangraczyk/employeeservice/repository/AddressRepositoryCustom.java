@@ -0,0 +1,235 @@
+package com.adriangraczyk.employeeservice.repository;
+
+import com.adriangraczyk.employeeservice.domain.Address;
+import com.mongodb.client.result.UpdateResult;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Custom queries for the Address entity, mixed into {@link AddressRepository}.
+ * <p>
+ * The listings can only be sorted in the order of an index, by id; the other sorts are rejected with an
+ * {@link IllegalArgumentException}.
+ */
+public interface AddressRepositoryCustom {
+
+    /**
+     * Find the slice of addresses following the given cursor, with a range predicate on the sort keys instead of a skip.
+     *
+     * @param cursor the cursor returned with the previous slice, or an empty string for the first slice.
+     * @param pageable the size and sort of the slice; the page number is ignored.
+     * @return the slice, or an {@link IllegalArgumentException} if the cursor or the sort cannot be used.
+     */
+    Mono<KeysetSlice<Address>> findSliceAfter(String cursor, Pageable pageable);
+
+    /**
+     * Find the slice of addresses following the given cursor, reading only some of their properties.
+     *
+     * @param cursor the cursor returned with the previous slice, or an empty string for the first slice.
+     * @param pageable the size and sort of the slice; the page number is ignored.
+     * @param properties the properties to read besides the id and the sort keys, or {@code null} for all of them.
+     * @return the slice, or an {@link IllegalArgumentException} if the cursor or the sort cannot be used.
+     */
+    Mono<KeysetSlice<Address>> findSliceAfter(String cursor, Pageable pageable, Collection<String> properties);
+
+    /**
+     * Find a page of addresses and count them in the same aggregation.
+     *
+     * @param pageable the pagination information.
+     * @return the page, with the total number of addresses.
+     */
+    Mono<Page<Address>> findPageWithCount(Pageable pageable);
+
+    /**
+     * Find a page of addresses without counting them.
+     *
+     * @param pageable the pagination information.
+     * @return the slice, which only knows whether there is a next one.
+     */
+    Mono<Slice<Address>> findSliceBy(Pageable pageable);
+
+    /**
+     * Find the addresses of a page.
+     *
+     * @param pageable the pagination information.
+     * @return the addresses of the page.
+     */
+    Flux<Address> findAllBy(Pageable pageable);
+
+    /**
+     * Find a page of addresses and count them in the same aggregation, reading only some of their properties.
+     *
+     * @param pageable the pagination information.
+     * @param properties the properties to read besides the id, or {@code null} for all of them.
+     * @return the page, with the total number of addresses.
+     */
+    Mono<Page<Address>> findPageWithCount(Pageable pageable, Collection<String> properties);
+
+    /**
+     * Find a page of addresses without counting them, reading only some of their properties.
+     *
+     * @param pageable the pagination information.
+     * @param properties the properties to read besides the id, or {@code null} for all of them.
+     * @return the slice, which only knows whether there is a next one.
+     */
+    Mono<Slice<Address>> findSliceBy(Pageable pageable, Collection<String> properties);
+
+    /**
+     * Find the addresses of a page, reading only some of their properties.
+     *
+     * @param pageable the pagination information.
+     * @param properties the properties to read besides the id, or {@code null} for all of them.
+     * @return the addresses of the page.
+     */
+    Flux<Address> findAllBy(Pageable pageable, Collection<String> properties);
+
+    /**
+     * Returns the number of addresses from the collection metadata.
+     *
+     * @return the estimated number of addresses.
+     */
+    Mono<Long> estimatedCount();
+
+    /**
+     * Find the addresses of the given employees, on the id of their DBRef.
+     *
+     * @param employeeIds the ids of the employees.
+     * @return their addresses.
+     */
+    Flux<Address> findAllByEmployeeIdIn(Collection<String> employeeIds);
+
+    /**
+     * Delete the addresses of an employee, with a single {@code deleteMany} on the id of their DBRef.
+     *
+     * @param employeeId the id of the employee.
+     * @return the number of deleted addresses.
+     */
+    Mono<Long> deleteAllByEmployeeId(String employeeId);
+
+    /**
+     * Delete the addresses of several employees, with a single {@code deleteMany} on the id of their DBRef.
+     *
+     * @param employeeIds the ids of the employees.
+     * @return the number of deleted addresses.
+     */
+    Mono<Long> deleteAllByEmployeeIdIn(Collection<String> employeeIds);
+
+    /**
+     * Find the ids of the addresses whose employee does not exist, streamed from a {@code $lookup} of their employee.
+     *
+     * @return the ids of the orphaned addresses.
+     */
+    Flux<String> findOrphanIds();
+
+    /**
+     * Delete the addresses with the given ids, with a single {@code deleteMany}.
+     *
+     * @param ids the ids of the addresses.
+     * @return the number of deleted addresses.
+     */
+    Mono<Long> deleteAllByIdIn(Collection<String> ids);
+
+    /**
+     * Find the addresses with the given ids, with a single {@code $in} query.
+     *
+     * @param ids the ids of the addresses.
+     * @return the addresses found, in no particular order.
+     */
+    Flux<Address> findAllByIdIn(Collection<String> ids);
+
+    /**
+     * Find the addresses with the given ids, with a single {@code $in} query reading only some of their properties.
+     *
+     * @param ids the ids of the addresses.
+     * @param properties the properties to read besides the id, or {@code null} for all of them.
+     * @return the addresses found, in no particular order.
+     */
+    Flux<Address> findAllByIdIn(Collection<String> ids, Collection<String> properties);
+
+    /**
+     * Send the writes of several addresses with a single unordered {@code bulkWrite}.
+     *
+     * @param writes the writes.
+     * @return the outcome of each write.
+     */
+    Mono<BulkWriteReport> bulkWrite(List<BulkWrite<Address>> writes);
+
+    /**
+     * Set or unset some fields of a address with a single {@code findAndModify}, leaving the other fields untouched.
+     *
+     * @param id the id of the address.
+     * @param fields the new value of each field by property name, {@code null} to unset it.
+     * @return the updated address, or empty if it does not exist.
+     */
+    Mono<Address> findAndUpdateFields(String id, Map<String, Object> fields);
+
+    /**
+     * Replace the document of an address, only if it is still at the revision read before.
+     *
+     * @param address the entity to save, with its id.
+     * @param revision the revision read, {@code null} if the document had none, or {@link Revisions#ANY}.
+     * @return whether the document was at the revision, and replaced.
+     */
+    Mono<Boolean> replaceIfRevision(Address address, String revision);
+
+    /**
+     * Set or unset some fields of an address with a single {@code findAndModify}, only if it is still at the revision
+     * read before.
+     *
+     * @param id the id of the address.
+     * @param fields the new value of each field by property name, {@code null} to unset it.
+     * @param revision the revision read, {@code null} if the document had none, or {@link Revisions#ANY}.
+     * @return the updated address, or empty if it does not exist or is no longer at the revision.
+     */
+    Mono<Address> findAndUpdateFieldsIfRevision(String id, Map<String, Object> fields, String revision);
+
+    /**
+     * Delete an address, only if it is still at the revision read before.
+     *
+     * @param id the id of the address.
+     * @param revision the revision read, {@code null} if the document had none, or {@link Revisions#ANY}.
+     * @return whether the document was at the revision, and deleted.
+     */
+    Mono<Boolean> deleteByIdAndRevision(String id, String revision);
+
+    /**
+     * Update the addresses whose properties equal the given values, with a single {@code updateMany}.
+     *
+     * @param filter the value of each property to match.
+     * @param fields the new value of each property to update, {@code null} to remove it.
+     * @return the numbers of matched and modified addresses.
+     */
+    Mono<UpdateResult> updateAllByFields(Map<String, Object> filter, Map<String, Object> fields);
+
+    /**
+     * Count the addresses whose properties equal the given values.
+     *
+     * @param filter the value of each property to match.
+     * @return the number of matching addresses.
+     */
+    Mono<Long> countByFields(Map<String, Object> filter);
+
+    /**
+     * Watch the ids of the addresses changed by any client, with a change stream.
+     *
+     * @return the ids of the changed addresses, as they are changed; only available on a replica set or a sharded cluster.
+     */
+    Flux<String> watchChangedIds();
+
+    /**
+     * Stream all the addresses in the order of their ids, from a single cursor read as fast as the caller consumes it.
+     *
+     * @param afterId the id of the last address already read, or {@code null} to start from the first one.
+     * @param properties the properties to read besides the id, or {@code null} for all of them.
+     * @param batchSize the number of addresses in each batch of the cursor.
+     * @return the addresses, in the order of their ids.
+     */
+    Flux<Address> streamAllAfter(String afterId, Collection<String> properties, int batchSize);
+}
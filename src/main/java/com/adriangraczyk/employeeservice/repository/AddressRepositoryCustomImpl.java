@@ -0,0 +1,201 @@
+package com.adriangraczyk.employeeservice.repository;
+
+import com.adriangraczyk.employeeservice.domain.Address;
+import com.adriangraczyk.employeeservice.domain.Employee;
+import com.mongodb.client.result.DeleteResult;
+import com.mongodb.client.result.UpdateResult;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.ReactiveMongoOperations;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOperation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Implementation of {@link AddressRepositoryCustom} on top of {@link ReactiveMongoOperations}.
+ */
+public class AddressRepositoryCustomImpl implements AddressRepositoryCustom {
+
+    /**
+     * The id of the employee DBRef, on which addresses are indexed.
+     */
+    private static final String EMPLOYEE_ID_FIELD = "employee.$id";
+
+    private static final String OWNER_FIELD = "owner";
+
+    private final ReactiveMongoOperations mongoOperations;
+
+    private final KeysetPaginationSupport<Address> keysetPagination;
+
+    private final OffsetPaginationSupport<Address> offsetPagination;
+
+    private final BulkWriteSupport<Address> bulkWriteSupport;
+
+    private final ConditionalWriteSupport<Address> conditionalWriteSupport;
+
+    public AddressRepositoryCustomImpl(ReactiveMongoOperations mongoOperations) {
+        this.mongoOperations = mongoOperations;
+        this.keysetPagination = new KeysetPaginationSupport<>(mongoOperations, Address.class, IndexedSort.ADDRESS);
+        this.offsetPagination = new OffsetPaginationSupport<>(mongoOperations, Address.class, IndexedSort.ADDRESS);
+        this.bulkWriteSupport = new BulkWriteSupport<>(mongoOperations, Address.class);
+        this.conditionalWriteSupport = new ConditionalWriteSupport<>(mongoOperations, Address.class);
+    }
+
+    @Override
+    public Mono<KeysetSlice<Address>> findSliceAfter(String cursor, Pageable pageable) {
+        return findSliceAfter(cursor, pageable, null);
+    }
+
+    @Override
+    public Mono<KeysetSlice<Address>> findSliceAfter(String cursor, Pageable pageable, Collection<String> properties) {
+        return keysetPagination.findSlice(cursor, pageable, properties);
+    }
+
+    @Override
+    public Mono<Page<Address>> findPageWithCount(Pageable pageable) {
+        return findPageWithCount(pageable, null);
+    }
+
+    @Override
+    public Mono<Slice<Address>> findSliceBy(Pageable pageable) {
+        return findSliceBy(pageable, null);
+    }
+
+    @Override
+    public Flux<Address> findAllBy(Pageable pageable) {
+        return findAllBy(pageable, null);
+    }
+
+    @Override
+    public Mono<Page<Address>> findPageWithCount(Pageable pageable, Collection<String> properties) {
+        return offsetPagination.findPageWithCount(pageable, properties);
+    }
+
+    @Override
+    public Mono<Slice<Address>> findSliceBy(Pageable pageable, Collection<String> properties) {
+        return offsetPagination.findSlice(pageable, properties);
+    }
+
+    @Override
+    public Flux<Address> findAllBy(Pageable pageable, Collection<String> properties) {
+        return offsetPagination.findAll(pageable, properties);
+    }
+
+    @Override
+    public Mono<Long> estimatedCount() {
+        return offsetPagination.estimatedCount();
+    }
+
+    @Override
+    public Flux<Address> findAllByEmployeeIdIn(Collection<String> employeeIds) {
+        // a derived query would compare the whole DBRef with the ids
+        List<Object> ids = employeeIds.stream()
+            .map(id -> ObjectId.isValid(id) ? new ObjectId(id) : id)
+            .collect(Collectors.toList());
+        return mongoOperations.find(Query.query(Criteria.where(EMPLOYEE_ID_FIELD).in(ids)), Address.class);
+    }
+
+    @Override
+    public Mono<Long> deleteAllByEmployeeId(String employeeId) {
+        Object id = ObjectId.isValid(employeeId) ? new ObjectId(employeeId) : employeeId;
+        return mongoOperations.remove(Query.query(Criteria.where(EMPLOYEE_ID_FIELD).is(id)), Address.class)
+            .map(DeleteResult::getDeletedCount);
+    }
+
+    @Override
+    public Mono<Long> deleteAllByEmployeeIdIn(Collection<String> employeeIds) {
+        List<Object> ids = employeeIds.stream()
+            .map(id -> ObjectId.isValid(id) ? new ObjectId(id) : id)
+            .collect(Collectors.toList());
+        return mongoOperations.remove(Query.query(Criteria.where(EMPLOYEE_ID_FIELD).in(ids)), Address.class)
+            .map(DeleteResult::getDeletedCount);
+    }
+
+    @Override
+    public Flux<String> findOrphanIds() {
+        String employeeCollection = mongoOperations.getCollectionName(Employee.class);
+        AggregationOperation lookupEmployee = context -> new Document("$lookup", new Document("from", employeeCollection)
+            .append("localField", EMPLOYEE_ID_FIELD)
+            .append("foreignField", "_id")
+            .append("as", OWNER_FIELD));
+        AggregationOperation withoutEmployee = context -> new Document("$match", new Document(OWNER_FIELD + ".0", new Document("$exists", false)));
+        AggregationOperation idOnly = context -> new Document("$project", new Document("_id", 1));
+        return mongoOperations.aggregate(Aggregation.newAggregation(lookupEmployee, withoutEmployee, idOnly),
+                mongoOperations.getCollectionName(Address.class), Document.class)
+            .map(document -> document.get("_id").toString());
+    }
+
+    @Override
+    public Mono<Long> deleteAllByIdIn(Collection<String> ids) {
+        return mongoOperations.remove(Query.query(Criteria.where("_id").in(ids)), Address.class)
+            .map(DeleteResult::getDeletedCount);
+    }
+
+    @Override
+    public Flux<Address> findAllByIdIn(Collection<String> ids) {
+        return findAllByIdIn(ids, null);
+    }
+
+    @Override
+    public Flux<Address> findAllByIdIn(Collection<String> ids, Collection<String> properties) {
+        return mongoOperations.find(FieldQueries.including(Query.query(Criteria.where("_id").in(ids)), properties), Address.class);
+    }
+
+    @Override
+    public Mono<BulkWriteReport> bulkWrite(List<BulkWrite<Address>> writes) {
+        return bulkWriteSupport.write(writes);
+    }
+
+    @Override
+    public Mono<Address> findAndUpdateFields(String id, Map<String, Object> fields) {
+        return mongoOperations.findAndModify(Query.query(Criteria.where("_id").is(id)), FieldQueries.setOrUnset(fields),
+            FindAndModifyOptions.options().returnNew(true), Address.class);
+    }
+
+    @Override
+    public Mono<Boolean> replaceIfRevision(Address address, String revision) {
+        return conditionalWriteSupport.replace(address.getId(), address, revision);
+    }
+
+    @Override
+    public Mono<Address> findAndUpdateFieldsIfRevision(String id, Map<String, Object> fields, String revision) {
+        return conditionalWriteSupport.updateFields(id, fields, revision);
+    }
+
+    @Override
+    public Mono<Boolean> deleteByIdAndRevision(String id, String revision) {
+        return conditionalWriteSupport.delete(id, revision);
+    }
+
+    @Override
+    public Mono<UpdateResult> updateAllByFields(Map<String, Object> filter, Map<String, Object> fields) {
+        return mongoOperations.updateMulti(FieldQueries.equalTo(filter), FieldQueries.setOrUnset(fields), Address.class);
+    }
+
+    @Override
+    public Mono<Long> countByFields(Map<String, Object> filter) {
+        return mongoOperations.count(FieldQueries.equalTo(filter), Address.class);
+    }
+
+    @Override
+    public Flux<String> watchChangedIds() {
+        return ChangedIds.watch(mongoOperations, mongoOperations.getCollectionName(Address.class));
+    }
+
+    @Override
+    public Flux<Address> streamAllAfter(String afterId, Collection<String> properties, int batchSize) {
+        return mongoOperations.find(FieldQueries.inIdOrder(afterId, properties, batchSize), Address.class);
+    }
+}
@@ -0,0 +1,68 @@
+package com.adriangraczyk.employeeservice.repository;
+
+/**
+ * The write of one entity, sent with others in a single {@code bulkWrite}.
+ *
+ * @param <T> the entity type.
+ */
+public final class BulkWrite<T> {
+
+    public enum Type {
+        /**
+         * Insert a new document.
+         */
+        INSERT,
+        /**
+         * Replace the whole document, inserting it if it does not exist.
+         */
+        REPLACE,
+        /**
+         * Set the fields of the entity, keeping the other fields of the document, inserting it if it does not exist.
+         */
+        UPDATE,
+        /**
+         * Delete the document.
+         */
+        DELETE
+    }
+
+    private final Type type;
+
+    private final String id;
+
+    private final T entity;
+
+    private BulkWrite(Type type, String id, T entity) {
+        this.type = type;
+        this.id = id;
+        this.entity = entity;
+    }
+
+    public static <T> BulkWrite<T> insert(String id, T entity) {
+        return new BulkWrite<>(Type.INSERT, id, entity);
+    }
+
+    public static <T> BulkWrite<T> replace(String id, T entity) {
+        return new BulkWrite<>(Type.REPLACE, id, entity);
+    }
+
+    public static <T> BulkWrite<T> update(String id, T entity) {
+        return new BulkWrite<>(Type.UPDATE, id, entity);
+    }
+
+    public static <T> BulkWrite<T> delete(String id) {
+        return new BulkWrite<>(Type.DELETE, id, null);
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public T getEntity() {
+        return entity;
+    }
+}
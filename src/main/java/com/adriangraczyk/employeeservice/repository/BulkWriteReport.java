@@ -0,0 +1,44 @@
+package com.adriangraczyk.employeeservice.repository;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * The outcome of each write of a bulk, by position in the list of writes.
+ * <p>
+ * The writes are unordered, so a failed write does not prevent the following ones.
+ */
+public class BulkWriteReport {
+
+    private final Set<Integer> upserts;
+
+    private final Map<Integer, RuntimeException> failures;
+
+    public BulkWriteReport(Set<Integer> upserts, Map<Integer, RuntimeException> failures) {
+        this.upserts = Collections.unmodifiableSet(upserts);
+        this.failures = Collections.unmodifiableMap(failures);
+    }
+
+    /**
+     * Returns whether the replacement or update at this position inserted a new document.
+     *
+     * @param position the position of the write.
+     * @return true if the document did not exist.
+     */
+    public boolean isUpsert(int position) {
+        return upserts.contains(position);
+    }
+
+    /**
+     * Returns why the write at this position failed: a {@link org.springframework.dao.DuplicateKeyException} for a
+     * unique index, another {@link org.springframework.dao.DataAccessException} otherwise.
+     *
+     * @param position the position of the write.
+     * @return the failure, or empty if the write succeeded.
+     */
+    public Optional<RuntimeException> getFailure(int position) {
+        return Optional.ofNullable(failures.get(position));
+    }
+}
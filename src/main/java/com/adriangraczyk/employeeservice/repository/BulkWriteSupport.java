@@ -0,0 +1,111 @@
+package com.adriangraczyk.employeeservice.repository;
+
+import com.mongodb.ErrorCategory;
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.bulk.BulkWriteResult;
+import com.mongodb.bulk.BulkWriteUpsert;
+import com.mongodb.client.model.BulkWriteOptions;
+import com.mongodb.client.model.DeleteOneModel;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.InsertOneModel;
+import com.mongodb.client.model.ReplaceOneModel;
+import com.mongodb.client.model.ReplaceOptions;
+import com.mongodb.client.model.UpdateOneModel;
+import com.mongodb.client.model.UpdateOptions;
+import com.mongodb.client.model.WriteModel;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.ReactiveMongoOperations;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentEntity;
+import reactor.core.publisher.Mono;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Sends the writes of several entities to their collection with a single unordered {@code bulkWrite}.
+ *
+ * @param <T> the entity type.
+ */
+class BulkWriteSupport<T> {
+
+    private final ReactiveMongoOperations mongoOperations;
+
+    private final Class<T> entityClass;
+
+    private final MongoPersistentEntity<?> persistentEntity;
+
+    BulkWriteSupport(ReactiveMongoOperations mongoOperations, Class<T> entityClass) {
+        this.mongoOperations = mongoOperations;
+        this.entityClass = entityClass;
+        this.persistentEntity = mongoOperations.getConverter().getMappingContext().getRequiredPersistentEntity(entityClass);
+    }
+
+    /**
+     * Send the writes in one {@code bulkWrite}, which the driver splits into one command per run of writes of the same
+     * kind.
+     *
+     * @param writes the writes.
+     * @return the outcome of each write.
+     */
+    Mono<BulkWriteReport> write(List<BulkWrite<T>> writes) {
+        if (writes.isEmpty()) {
+            return Mono.just(new BulkWriteReport(Collections.emptySet(), Collections.emptyMap()));
+        }
+        List<WriteModel<Document>> models = writes.stream().map(this::toModel).collect(Collectors.toList());
+        // the per-write errors are handled on the raw collection, before they are translated away; the collection is
+        // bound to the session of the current transaction, if any
+        return mongoOperations.execute(mongoOperations.getCollectionName(entityClass), collection ->
+            Mono.from(collection.bulkWrite(models, new BulkWriteOptions().ordered(false)))
+                .map(result -> new BulkWriteReport(upserts(result), Collections.emptyMap()))
+                .onErrorResume(MongoBulkWriteException.class, e -> Mono.just(new BulkWriteReport(upserts(e.getWriteResult()), failures(e.getWriteErrors())))))
+            .single();
+    }
+
+    private WriteModel<Document> toModel(BulkWrite<T> write) {
+        Object id = ObjectId.isValid(write.getId()) ? new ObjectId(write.getId()) : write.getId();
+        switch (write.getType()) {
+            case INSERT:
+                return new InsertOneModel<>(toDocument(write.getEntity()));
+            case REPLACE:
+                return new ReplaceOneModel<>(Filters.eq("_id", id), toDocument(write.getEntity()), new ReplaceOptions().upsert(true));
+            case UPDATE:
+                Document fields = toDocument(write.getEntity());
+                fields.remove("_id");
+                return new UpdateOneModel<>(Filters.eq("_id", id), new Document("$set", fields), new UpdateOptions().upsert(true));
+            default:
+                return new DeleteOneModel<>(Filters.eq("_id", id));
+        }
+    }
+
+    private Document toDocument(T entity) {
+        Revisions.stamp(persistentEntity, entity);
+        Document document = new Document();
+        mongoOperations.getConverter().write(entity, document);
+        return document;
+    }
+
+    private static Set<Integer> upserts(BulkWriteResult result) {
+        if (result == null || !result.wasAcknowledged()) {
+            return Collections.emptySet();
+        }
+        return result.getUpserts().stream().map(BulkWriteUpsert::getIndex).collect(Collectors.toSet());
+    }
+
+    private static Map<Integer, RuntimeException> failures(List<BulkWriteError> errors) {
+        Map<Integer, RuntimeException> failures = new HashMap<>();
+        for (BulkWriteError error : errors) {
+            failures.put(error.getIndex(), ErrorCategory.fromErrorCode(error.getCode()) == ErrorCategory.DUPLICATE_KEY
+                ? new DuplicateKeyException(error.getMessage())
+                : new DataIntegrityViolationException(error.getMessage()));
+        }
+        return failures;
+    }
+}
@@ -0,0 +1,43 @@
+package com.adriangraczyk.employeeservice.repository;
+
+import org.bson.BsonValue;
+import org.bson.Document;
+import org.springframework.data.mongodb.core.ChangeStreamEvent;
+import org.springframework.data.mongodb.core.ChangeStreamOptions;
+import org.springframework.data.mongodb.core.ReactiveMongoOperations;
+import reactor.core.publisher.Flux;
+
+/**
+ * Watches the ids of the documents changed in a collection, through a change stream.
+ * <p>
+ * Change streams need a replica set or a sharded cluster. Only the keys of the changed documents are sent by the
+ * server, never their content.
+ */
+final class ChangedIds {
+
+    private static final Document KEYS_ONLY = new Document("$project", new Document("documentKey", 1).append("operationType", 1));
+
+    private ChangedIds() {
+    }
+
+    /**
+     * Watch the documents of a collection which are inserted, updated, replaced or deleted, by any client.
+     *
+     * @param mongoOperations the operations on the database.
+     * @param collectionName the name of the collection.
+     * @return the ids of the changed documents, as they are changed, as strings.
+     */
+    static Flux<String> watch(ReactiveMongoOperations mongoOperations, String collectionName) {
+        return mongoOperations.changeStream(collectionName, ChangeStreamOptions.builder().filter(KEYS_ONLY).build(), Document.class)
+            .map(ChangeStreamEvent::getRaw)
+            .filter(event -> event.getDocumentKey() != null)
+            .map(event -> toId(event.getDocumentKey().get("_id")));
+    }
+
+    private static String toId(BsonValue id) {
+        if (id.isObjectId()) {
+            return id.asObjectId().getValue().toHexString();
+        }
+        return id.isString() ? id.asString().getValue() : id.toString();
+    }
+}
@@ -0,0 +1,62 @@
+package com.adriangraczyk.employeeservice.repository;
+
+import org.bson.Document;
+import org.springframework.data.mongodb.core.ReactiveMongoOperations;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+/**
+ * Counts the writes of each collection, in the {@code collection_version} collection.
+ * <p>
+ * The version of a collection is incremented after each write of the services, by a single {@code $inc}, so that every
+ * instance sees the same version, and a result read at a version is known to be current while the version is
+ * unchanged. Writes made without the services, as from the shell, do not change it.
+ */
+@Component
+public class CollectionVersions {
+
+    static final String COLLECTION_NAME = "collection_version";
+
+    static final String VERSION_FIELD = "version";
+
+    private final ReactiveMongoOperations mongoOperations;
+
+    public CollectionVersions(ReactiveMongoOperations mongoOperations) {
+        this.mongoOperations = mongoOperations;
+    }
+
+    /**
+     * Returns the current version of the collection of an entity.
+     *
+     * @param entityClass the entity type.
+     * @return the number of writes of its collection, {@code 0} if it was never written.
+     */
+    public Mono<Long> get(Class<?> entityClass) {
+        return mongoOperations.findById(mongoOperations.getCollectionName(entityClass), Document.class, COLLECTION_NAME)
+            .map(version -> version.get(VERSION_FIELD, Number.class).longValue())
+            .defaultIfEmpty(0L);
+    }
+
+    /**
+     * Increment the version of the collection of an entity once a write is done, whether it succeeded or not.
+     *
+     * @param entityClass the entity type.
+     * @param write the write.
+     * @param <T> the type of the result.
+     * @return the result of the write, once the version is incremented.
+     */
+    public <T> Mono<T> incrementAfter(Class<?> entityClass, Mono<T> write) {
+        return write.materialize()
+            .flatMap(signal -> increment(entityClass).thenReturn(signal))
+            .dematerialize();
+    }
+
+    private Mono<Void> increment(Class<?> entityClass) {
+        return mongoOperations.upsert(Query.query(Criteria.where("_id").is(mongoOperations.getCollectionName(entityClass))),
+            new Update().inc(VERSION_FIELD, 1L), COLLECTION_NAME)
+            .then();
+    }
+}
@@ -0,0 +1,81 @@
+package com.adriangraczyk.employeeservice.repository;
+
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.ReactiveMongoOperations;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentEntity;
+import org.springframework.data.mongodb.core.query.Query;
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+
+/**
+ * Writes an entity only if its document is still at the revision read before, as given by {@link Revisions}, with the
+ * revision in the filter of the write itself.
+ *
+ * @param <T> the entity type.
+ */
+class ConditionalWriteSupport<T> {
+
+    private final ReactiveMongoOperations mongoOperations;
+
+    private final Class<T> entityClass;
+
+    private final MongoPersistentEntity<?> persistentEntity;
+
+    ConditionalWriteSupport(ReactiveMongoOperations mongoOperations, Class<T> entityClass) {
+        this.mongoOperations = mongoOperations;
+        this.entityClass = entityClass;
+        this.persistentEntity = mongoOperations.getConverter().getMappingContext().getRequiredPersistentEntity(entityClass);
+    }
+
+    /**
+     * Replace the whole document of an entity, with a new revision, which is also set on the entity.
+     *
+     * @param id the id of the entity.
+     * @param entity the entity.
+     * @param revision the revision read.
+     * @return whether the document was at the revision, and replaced.
+     */
+    Mono<Boolean> replace(String id, T entity, String revision) {
+        Revisions.stamp(persistentEntity, entity);
+        Document document = new Document();
+        mongoOperations.getConverter().write(entity, document);
+        Document filter = Revisions.byIdAndRevision(toObjectId(id), revision).getCriteriaObject();
+        return mongoOperations.execute(mongoOperations.getCollectionName(entityClass), collection ->
+            Mono.from(collection.replaceOne(filter, document)))
+            .single()
+            .map(result -> result.getMatchedCount() > 0);
+    }
+
+    /**
+     * Set or unset some fields of an entity with a single {@code findAndModify}, as
+     * {@link FieldQueries#setOrUnset} does.
+     *
+     * @param id the id of the entity.
+     * @param fields the values of the properties to set, {@code null} to unset them.
+     * @param revision the revision read.
+     * @return the updated entity, or empty if the document was not at the revision.
+     */
+    Mono<T> updateFields(String id, Map<String, Object> fields, String revision) {
+        return mongoOperations.findAndModify(Query.query(Revisions.byIdAndRevision(id, revision)), FieldQueries.setOrUnset(fields),
+            FindAndModifyOptions.options().returnNew(true), entityClass);
+    }
+
+    /**
+     * Delete the document of an entity.
+     *
+     * @param id the id of the entity.
+     * @param revision the revision read.
+     * @return whether the document was at the revision, and deleted.
+     */
+    Mono<Boolean> delete(String id, String revision) {
+        return mongoOperations.remove(Query.query(Revisions.byIdAndRevision(id, revision)), entityClass)
+            .map(result -> result.getDeletedCount() > 0);
+    }
+
+    private static Object toObjectId(String id) {
+        return ObjectId.isValid(id) ? new ObjectId(id) : id;
+    }
+}
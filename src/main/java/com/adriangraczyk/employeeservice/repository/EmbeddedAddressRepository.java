@@ -0,0 +1,496 @@
+package com.adriangraczyk.employeeservice.repository;
+
+import com.adriangraczyk.employeeservice.domain.Address;
+import com.adriangraczyk.employeeservice.domain.Employee;
+import com.adriangraczyk.employeeservice.domain.enumeration.AddressType;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.ReactiveMongoOperations;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOperation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOptions;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentEntity;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.function.Tuple2;
+import reactor.util.function.Tuples;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Repository for the addresses embedded in the {@value #ADDRESSES_FIELD} array of their employee, used with the
+ * {@link com.adriangraczyk.employeeservice.config.ApplicationProperties.AddressStorage#EMBEDDED} storage.
+ * <p>
+ * Writes are single-document updates of the employee: {@code $push} to add an address, a positional {@code $set} to
+ * replace it and {@code $pull} to remove it. Reads unwind the arrays in an aggregation, and are only sorted by the id of
+ * the addresses, as the addresses of their own collection.
+ */
+@Repository
+public class EmbeddedAddressRepository {
+
+    /**
+     * The field of the employee document holding its embedded addresses.
+     */
+    public static final String ADDRESSES_FIELD = "addresses";
+
+    private static final String ADDRESS_ID_FIELD = ADDRESSES_FIELD + "._id";
+
+    private static final String EMPLOYEE_ID_FIELD = "employee_id";
+
+    private static final String CONTENT_FACET = "content";
+
+    private static final String TOTAL_FACET = "total";
+
+    private static final String POSITION_FIELD = "position";
+
+    private static final AggregationOperation UNWIND_ADDRESSES = context -> new Document("$unwind", "$" + ADDRESSES_FIELD);
+
+    /**
+     * Makes each unwound address the root document, keeping the id of its employee.
+     */
+    private static final AggregationOperation ADDRESS_AS_ROOT = context -> new Document("$replaceRoot", new Document("newRoot",
+        new Document("$mergeObjects", Arrays.asList("$" + ADDRESSES_FIELD, new Document(EMPLOYEE_ID_FIELD, "$_id")))));
+
+    private final ReactiveMongoOperations mongoOperations;
+
+    private final String employeeCollection;
+
+    private final MongoPersistentEntity<?> addressEntity;
+
+    public EmbeddedAddressRepository(ReactiveMongoOperations mongoOperations) {
+        this.mongoOperations = mongoOperations;
+        this.employeeCollection = mongoOperations.getCollectionName(Employee.class);
+        this.addressEntity = mongoOperations.getConverter().getMappingContext().getRequiredPersistentEntity(Address.class);
+    }
+
+    /**
+     * Save an address in the document of its employee, moving it there if it was embedded in another employee.
+     * <p>
+     * A moved address is pushed into its new employee before it is pulled from the old one, so that it is kept where
+     * it was when the new employee does not exist.
+     *
+     * @param address the entity to save.
+     * @return the saved entity, or an {@link IllegalArgumentException} if it has no employee or its employee does not exist.
+     */
+    public Mono<Address> save(Address address) {
+        if (address.getEmployee() == null || address.getEmployee().getId() == null) {
+            return Mono.error(new IllegalArgumentException("An embedded address needs an employee"));
+        }
+        Object employeeId = toObjectId(address.getEmployee().getId());
+        if (address.getId() == null) {
+            address.setId(new ObjectId().toHexString());
+            return push(employeeId, toDocument(address)).thenReturn(address);
+        }
+        Object addressId = toObjectId(address.getId());
+        Document document = toDocument(address);
+        Query embedded = Query.query(Criteria.where("_id").is(employeeId).and(ADDRESS_ID_FIELD).is(addressId));
+        return mongoOperations.updateFirst(embedded, new Update().set(ADDRESSES_FIELD + ".$", document), employeeCollection)
+            .flatMap(result -> result.getMatchedCount() > 0 ? Mono.just(address)
+                : push(employeeId, document).then(pullFromOthers(addressId, employeeId)).thenReturn(address));
+    }
+
+    /**
+     * Save an address in the document of its employee as {@link #save} does, only if it is still at the revision read
+     * before.
+     * <p>
+     * When the address moves to another employee, its revision is first changed in its old employee, so that no other
+     * conditional write can match it while it is moved.
+     *
+     * @param address the entity to save, with its id.
+     * @param revision the revision read, {@code null} if the address had none, or {@link Revisions#ANY}.
+     * @return whether the address was at the revision, and saved, or an {@link IllegalArgumentException} if its
+     * employee does not exist.
+     */
+    public Mono<Boolean> saveIfRevision(Address address, String revision) {
+        if (address.getEmployee() == null || address.getEmployee().getId() == null) {
+            return Mono.error(new IllegalArgumentException("An embedded address needs an employee"));
+        }
+        Object employeeId = toObjectId(address.getEmployee().getId());
+        Object addressId = toObjectId(address.getId());
+        Document document = toDocument(address);
+        return mongoOperations.updateFirst(Query.query(atRevision(addressId, revision).and("_id").is(employeeId)),
+            new Update().set(ADDRESSES_FIELD + ".$", document), employeeCollection)
+            .flatMap(result -> result.getMatchedCount() > 0 ? Mono.just(true)
+                : mongoOperations.updateFirst(Query.query(atRevision(addressId, revision)),
+                    new Update().set(ADDRESSES_FIELD + ".$." + Revisions.FIELD, Revisions.next()), employeeCollection)
+                    .flatMap(claimed -> claimed.getMatchedCount() == 0 ? Mono.just(false)
+                        : push(employeeId, document).then(pullFromOthers(addressId, employeeId)).thenReturn(true)));
+    }
+
+    /**
+     * Insert a new employee with its addresses embedded, in a single write.
+     *
+     * @param employee the new employee, with its id.
+     * @param addresses its addresses, with their ids.
+     * @return the inserted employee, or a {@link org.springframework.dao.DuplicateKeyException} if its PESEL is taken.
+     */
+    public Mono<Employee> insertWithAddresses(Employee employee, List<Address> addresses) {
+        employee.setRevision(Revisions.next());
+        Document document = new Document();
+        mongoOperations.getConverter().write(employee, document);
+        document.put(ADDRESSES_FIELD, addresses.stream().map(this::toDocument).collect(Collectors.toList()));
+        return mongoOperations.insert(document, employeeCollection).thenReturn(employee);
+    }
+
+    /**
+     * Find an address by id.
+     *
+     * @param id the id of the address.
+     * @return the address, with a reference to its employee.
+     */
+    public Mono<Address> findById(String id) {
+        Object addressId = toObjectId(id);
+        AggregationOperation matchAddress = context -> new Document("$match", new Document(ADDRESS_ID_FIELD, addressId));
+        AggregationOperation matchUnwound = context -> new Document("$match", new Document(ADDRESS_ID_FIELD, addressId));
+        return aggregate(Arrays.asList(matchAddress, UNWIND_ADDRESSES, matchUnwound, ADDRESS_AS_ROOT))
+            .map(this::toAddress)
+            .next();
+    }
+
+    /**
+     * Find the addresses with the given ids.
+     *
+     * @param ids the ids of the addresses.
+     * @return the addresses found, in no particular order.
+     */
+    public Flux<Address> findAllByIdIn(Collection<String> ids) {
+        return findAllByIdIn(ids, null);
+    }
+
+    /**
+     * Find the addresses with the given ids, reading only some of their properties.
+     *
+     * @param ids the ids of the addresses.
+     * @param properties the properties to read besides the id and the employee, or {@code null} for all of them.
+     * @return the addresses found, in no particular order.
+     */
+    public Flux<Address> findAllByIdIn(Collection<String> ids, Collection<String> properties) {
+        List<Object> addressIds = ids.stream().map(EmbeddedAddressRepository::toObjectId).collect(Collectors.toList());
+        AggregationOperation matchAddresses = context -> new Document("$match", new Document(ADDRESS_ID_FIELD, new Document("$in", addressIds)));
+        AggregationOperation matchUnwound = context -> new Document("$match", new Document(ADDRESS_ID_FIELD, new Document("$in", addressIds)));
+        List<AggregationOperation> operations = new ArrayList<>(Arrays.asList(matchAddresses, UNWIND_ADDRESSES, matchUnwound, ADDRESS_AS_ROOT));
+        addProjection(operations, properties);
+        return aggregate(operations).map(this::toAddress);
+    }
+
+    /**
+     * Find the addresses of the given employees.
+     *
+     * @param employeeIds the ids of the employees.
+     * @return their addresses.
+     */
+    public Flux<Address> findAllByEmployeeIdIn(Collection<String> employeeIds) {
+        List<Object> ids = employeeIds.stream().map(EmbeddedAddressRepository::toObjectId).collect(Collectors.toList());
+        AggregationOperation matchEmployees = context -> new Document("$match", new Document("_id", new Document("$in", ids)));
+        return aggregate(Arrays.asList(matchEmployees, UNWIND_ADDRESSES, ADDRESS_AS_ROOT)).map(this::toAddress);
+    }
+
+    /**
+     * Find the addresses of an employee, optionally of a given type.
+     *
+     * @param employeeId the id of the employee.
+     * @param addressType the type of the addresses, or {@code null} for all of them.
+     * @return its addresses, in the order of its array.
+     */
+    public Flux<Address> findAllByEmployeeId(String employeeId, AddressType addressType) {
+        List<AggregationOperation> operations = new ArrayList<>();
+        operations.add(context -> new Document("$match", new Document("_id", toObjectId(employeeId))));
+        operations.add(UNWIND_ADDRESSES);
+        if (addressType != null) {
+            operations.add(context -> new Document("$match", new Document(ADDRESSES_FIELD + ".address_type", addressType.name())));
+        }
+        operations.add(ADDRESS_AS_ROOT);
+        return aggregate(operations).map(this::toAddress);
+    }
+
+    /**
+     * Find a page of addresses.
+     *
+     * @param pageable the pagination information.
+     * @return the addresses of the page.
+     */
+    public Flux<Address> findAll(Pageable pageable) {
+        return findAll(pageable, null);
+    }
+
+    /**
+     * Find a page of addresses, reading only some of their properties.
+     *
+     * @param pageable the pagination information.
+     * @param properties the properties to read besides the id and the employee, or {@code null} for all of them.
+     * @return the addresses of the page.
+     */
+    public Flux<Address> findAll(Pageable pageable, Collection<String> properties) {
+        List<AggregationOperation> operations = sortedAddresses(pageable, properties);
+        operations.add(Aggregation.skip(pageable.getOffset()));
+        operations.add(Aggregation.limit(pageable.getPageSize()));
+        return aggregate(operations).map(this::toAddress);
+    }
+
+    /**
+     * Find a page of addresses and count them in the same aggregation.
+     *
+     * @param pageable the pagination information.
+     * @return the page, with the total number of addresses.
+     */
+    public Mono<Page<Address>> findPageWithCount(Pageable pageable) {
+        return findPageWithCount(pageable, null);
+    }
+
+    /**
+     * Find a page of addresses and count them in the same aggregation, reading only some of their properties.
+     *
+     * @param pageable the pagination information.
+     * @param properties the properties to read besides the id and the employee, or {@code null} for all of them.
+     * @return the page, with the total number of addresses.
+     */
+    public Mono<Page<Address>> findPageWithCount(Pageable pageable, Collection<String> properties) {
+        List<AggregationOperation> operations = sortedAddresses(pageable, properties);
+        operations.add(Aggregation
+            .facet(Aggregation.skip(pageable.getOffset()), Aggregation.limit(pageable.getPageSize())).as(CONTENT_FACET)
+            .and(Aggregation.count().as(TOTAL_FACET)).as(TOTAL_FACET));
+        return aggregate(operations)
+            .single()
+            .map(result -> {
+                List<Address> content = result.getList(CONTENT_FACET, Document.class).stream()
+                    .map(this::toAddress)
+                    .collect(Collectors.toList());
+                List<Document> total = result.getList(TOTAL_FACET, Document.class);
+                return new PageImpl<>(content, pageable, total.isEmpty() ? 0L : total.get(0).get(TOTAL_FACET, Number.class).longValue());
+            });
+    }
+
+    /**
+     * Find a page of addresses without counting them.
+     *
+     * @param pageable the pagination information.
+     * @return the slice, which only knows whether there is a next one.
+     */
+    public Mono<Slice<Address>> findSlice(Pageable pageable) {
+        return findSlice(pageable, null);
+    }
+
+    /**
+     * Find a page of addresses without counting them, reading only some of their properties.
+     *
+     * @param pageable the pagination information.
+     * @param properties the properties to read besides the id and the employee, or {@code null} for all of them.
+     * @return the slice, which only knows whether there is a next one.
+     */
+    public Mono<Slice<Address>> findSlice(Pageable pageable, Collection<String> properties) {
+        List<AggregationOperation> operations = sortedAddresses(pageable, properties);
+        operations.add(Aggregation.skip(pageable.getOffset()));
+        operations.add(Aggregation.limit(pageable.getPageSize() + 1));
+        return aggregate(operations).map(this::toAddress).collectList()
+            .map(content -> {
+                boolean hasNext = content.size() > pageable.getPageSize();
+                return new SliceImpl<>(hasNext ? content.subList(0, pageable.getPageSize()) : content, pageable, hasNext);
+            });
+    }
+
+    /**
+     * Stream all the addresses from a single cursor read as fast as the caller consumes it.
+     * <p>
+     * The addresses come in the order of the ids of their employees, then of their arrays, so that the cursor follows
+     * the {@code _id} index. Resuming after an address first looks up its employee and its position in the array.
+     *
+     * @param afterId the id of the last address already read, or {@code null} to start from the first one.
+     * @param properties the properties to read besides the id and the employee, or {@code null} for all of them.
+     * @param batchSize the number of addresses in each batch of the cursor.
+     * @return the addresses, or an {@link IllegalArgumentException} if the address to resume after no longer exists.
+     */
+    public Flux<Address> streamAllAfter(String afterId, Collection<String> properties, int batchSize) {
+        Mono<List<AggregationOperation>> operations = afterId == null
+            ? Mono.just(streamedAddresses(null, -1, properties))
+            : findPosition(afterId)
+                .map(position -> streamedAddresses(position.getT1(), position.getT2(), properties))
+                .switchIfEmpty(Mono.error(() -> new IllegalArgumentException("The address " + afterId + " no longer exists")));
+        return operations.flatMapMany(stages -> mongoOperations.aggregate(Aggregation.newAggregation(Address.class, stages)
+            .withOptions(AggregationOptions.builder().cursorBatchSize(batchSize).build()), employeeCollection, Document.class))
+            .map(this::toAddress);
+    }
+
+    /**
+     * Returns the id of the employee of an address, and the position of the address in its array.
+     */
+    private Mono<Tuple2<Object, Integer>> findPosition(String addressId) {
+        Object id = toObjectId(addressId);
+        Query query = Query.query(Criteria.where(ADDRESS_ID_FIELD).is(id));
+        query.fields().include(ADDRESS_ID_FIELD);
+        return mongoOperations.findOne(query, Document.class, employeeCollection)
+            .map(employee -> {
+                List<Document> addresses = employee.getList(ADDRESSES_FIELD, Document.class);
+                int position = 0;
+                while (!id.equals(addresses.get(position).get("_id"))) {
+                    position++;
+                }
+                return Tuples.of(employee.get("_id"), position);
+            });
+    }
+
+    /**
+     * The stages streaming the addresses, after the given position of the array of the given employee if any.
+     */
+    private List<AggregationOperation> streamedAddresses(Object employeeId, long position, Collection<String> properties) {
+        List<AggregationOperation> operations = new ArrayList<>();
+        if (employeeId != null) {
+            operations.add(context -> new Document("$match", new Document("_id", new Document("$gte", employeeId))));
+        }
+        operations.add(context -> new Document("$sort", new Document("_id", 1)));
+        operations.add(context -> new Document("$unwind", new Document("path", "$" + ADDRESSES_FIELD)
+            .append("includeArrayIndex", POSITION_FIELD)));
+        if (employeeId != null) {
+            operations.add(context -> new Document("$match", new Document("$or", Arrays.asList(
+                new Document("_id", new Document("$gt", employeeId)),
+                new Document(POSITION_FIELD, new Document("$gt", position))))));
+        }
+        if (properties != null) {
+            // projected once unwound, as each address is then a single document
+            operations.add(FieldQueries.projection(addressEntity, ADDRESSES_FIELD + ".", properties));
+        }
+        operations.add(ADDRESS_AS_ROOT);
+        return operations;
+    }
+
+    /**
+     * Returns the number of addresses embedded in all the employees.
+     *
+     * @return the number of addresses.
+     */
+    public Mono<Long> count() {
+        AggregationOperation sumSizes = context -> new Document("$group", new Document("_id", null)
+            .append(TOTAL_FACET, new Document("$sum", new Document("$size",
+                new Document("$ifNull", Arrays.asList("$" + ADDRESSES_FIELD, new ArrayList<>()))))));
+        return aggregate(Arrays.asList(sumSizes))
+            .map(result -> result.get(TOTAL_FACET, Number.class).longValue())
+            .defaultIfEmpty(0L)
+            .next();
+    }
+
+    /**
+     * Delete an address by id.
+     *
+     * @param id the id of the address.
+     * @return a Mono completing once the address is removed from its employee.
+     */
+    public Mono<Void> deleteById(String id) {
+        return pull(toObjectId(id)).then();
+    }
+
+    /**
+     * Delete an address by id, only if it is still at the revision read before.
+     *
+     * @param id the id of the address.
+     * @param revision the revision read, {@code null} if the address had none, or {@link Revisions#ANY}.
+     * @return whether the address was at the revision, and removed from its employee.
+     */
+    public Mono<Boolean> deleteByIdAndRevision(String id, String revision) {
+        Object addressId = toObjectId(id);
+        return mongoOperations.updateFirst(
+            Query.query(atRevision(addressId, revision)),
+            new Update().pull(ADDRESSES_FIELD, new Document("_id", addressId)), employeeCollection)
+            .map(result -> result.getModifiedCount() > 0);
+    }
+
+    /**
+     * Watch the ids of the employees whose embedded addresses may have changed, with a change stream.
+     *
+     * @return the ids of the changed employees, as they are changed; only available on a replica set or a sharded cluster.
+     */
+    public Flux<String> watchChangedEmployeeIds() {
+        return ChangedIds.watch(mongoOperations, employeeCollection);
+    }
+
+    private Mono<Void> push(Object employeeId, Document address) {
+        return mongoOperations.updateFirst(Query.query(Criteria.where("_id").is(employeeId)),
+            new Update().push(ADDRESSES_FIELD, address), employeeCollection)
+            .flatMap(result -> result.getMatchedCount() > 0 ? Mono.<Void>empty()
+                : Mono.error(new IllegalArgumentException("Employee " + employeeId + " does not exist")));
+    }
+
+    private Mono<Long> pull(Object addressId) {
+        return mongoOperations.updateMulti(Query.query(Criteria.where(ADDRESS_ID_FIELD).is(addressId)),
+            new Update().pull(ADDRESSES_FIELD, new Document("_id", addressId)), employeeCollection)
+            .map(result -> result.getModifiedCount());
+    }
+
+    private Mono<Long> pullFromOthers(Object addressId, Object employeeId) {
+        return mongoOperations.updateMulti(Query.query(Criteria.where("_id").ne(employeeId).and(ADDRESS_ID_FIELD).is(addressId)),
+            new Update().pull(ADDRESSES_FIELD, new Document("_id", addressId)), employeeCollection)
+            .map(result -> result.getModifiedCount());
+    }
+
+    /**
+     * The criteria matching the employee of an address still at the given revision. The id of the address is also
+     * matched by its path, which is the same element as it is unique, so that the positional {@code $} finds it even
+     * on the servers which only resolve it from the paths of the query.
+     */
+    private static Criteria atRevision(Object addressId, String revision) {
+        Criteria address = Criteria.where("_id").is(addressId);
+        if (!Revisions.ANY.equals(revision)) {
+            address.and(Revisions.FIELD).is(revision);
+        }
+        return Criteria.where(ADDRESSES_FIELD).elemMatch(address).and(ADDRESS_ID_FIELD).is(addressId);
+    }
+
+    private List<AggregationOperation> sortedAddresses(Pageable pageable, Collection<String> properties) {
+        Sort sort = IndexedSort.ADDRESS.complete(pageable.getSort());
+        List<AggregationOperation> operations = new ArrayList<>(Arrays.asList(UNWIND_ADDRESSES, ADDRESS_AS_ROOT));
+        if (sort.isSorted()) {
+            operations.add(Aggregation.sort(sort));
+        }
+        addProjection(operations, properties);
+        return operations;
+    }
+
+    /**
+     * Adds the projection of the addresses made roots on the given properties, keeping the id of their employee.
+     */
+    private void addProjection(List<AggregationOperation> operations, Collection<String> properties) {
+        if (properties != null) {
+            operations.add(FieldQueries.projection(addressEntity, "", properties, EMPLOYEE_ID_FIELD));
+        }
+    }
+
+    /**
+     * Runs the stages on the employee collection, mapping the address properties of later stages to their fields.
+     */
+    private Flux<Document> aggregate(List<AggregationOperation> operations) {
+        return mongoOperations.aggregate(Aggregation.newAggregation(Address.class, operations), employeeCollection, Document.class);
+    }
+
+    private Document toDocument(Address address) {
+        address.setRevision(Revisions.next());
+        Document document = new Document();
+        mongoOperations.getConverter().write(address, document);
+        // the employee owning the array is the reference
+        document.remove("employee");
+        document.remove("_class");
+        return document;
+    }
+
+    private Address toAddress(Document document) {
+        Address address = mongoOperations.getConverter().read(Address.class, document);
+        Employee employee = new Employee();
+        employee.setId(document.get(EMPLOYEE_ID_FIELD).toString());
+        return address.employee(employee);
+    }
+
+    private static Object toObjectId(String id) {
+        return ObjectId.isValid(id) ? new ObjectId(id) : id;
+    }
+}
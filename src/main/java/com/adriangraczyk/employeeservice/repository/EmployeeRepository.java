@@ -1,19 +1,14 @@
 package com.adriangraczyk.employeeservice.repository;
 
 import com.adriangraczyk.employeeservice.domain.Employee;
-import org.springframework.data.domain.Pageable;
 import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
 import org.springframework.stereotype.Repository;
-import reactor.core.publisher.Flux;
 
 /**
  * Spring Data MongoDB reactive repository for the Employee entity.
  */
 @SuppressWarnings("unused")
 @Repository
-public interface EmployeeRepository extends ReactiveMongoRepository<Employee, String> {
-
-
-    Flux<Employee> findAllBy(Pageable pageable);
+public interface EmployeeRepository extends ReactiveMongoRepository<Employee, String>, EmployeeRepositoryCustom {
 
 }
@@ -0,0 +1,230 @@
+package com.adriangraczyk.employeeservice.repository;
+
+import com.adriangraczyk.employeeservice.domain.Employee;
+import com.mongodb.client.result.UpdateResult;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Custom queries for the Employee entity, mixed into {@link EmployeeRepository}.
+ * <p>
+ * The listings can only be sorted in the order of an index, by {@code lastName, firstName} or by id; the other sorts
+ * are rejected with an {@link IllegalArgumentException}.
+ */
+public interface EmployeeRepositoryCustom {
+
+    /**
+     * Find the slice of employees following the given cursor, with a range predicate on the sort keys instead of a skip.
+     *
+     * @param cursor the cursor returned with the previous slice, or an empty string for the first slice.
+     * @param pageable the size and sort of the slice; the page number is ignored.
+     * @return the slice, or an {@link IllegalArgumentException} if the cursor or the sort cannot be used.
+     */
+    Mono<KeysetSlice<Employee>> findSliceAfter(String cursor, Pageable pageable);
+
+    /**
+     * Find the slice of employees following the given cursor, reading only some of their properties.
+     *
+     * @param cursor the cursor returned with the previous slice, or an empty string for the first slice.
+     * @param pageable the size and sort of the slice; the page number is ignored.
+     * @param properties the properties to read besides the id and the sort keys, or {@code null} for all of them.
+     * @return the slice, or an {@link IllegalArgumentException} if the cursor or the sort cannot be used.
+     */
+    Mono<KeysetSlice<Employee>> findSliceAfter(String cursor, Pageable pageable, Collection<String> properties);
+
+    /**
+     * Find a page of employees and count them in the same aggregation.
+     *
+     * @param pageable the pagination information.
+     * @return the page, with the total number of employees.
+     */
+    Mono<Page<Employee>> findPageWithCount(Pageable pageable);
+
+    /**
+     * Find a page of employees without counting them.
+     *
+     * @param pageable the pagination information.
+     * @return the slice, which only knows whether there is a next one.
+     */
+    Mono<Slice<Employee>> findSliceBy(Pageable pageable);
+
+    /**
+     * Find the employees of a page.
+     *
+     * @param pageable the pagination information.
+     * @return the employees of the page.
+     */
+    Flux<Employee> findAllBy(Pageable pageable);
+
+    /**
+     * Find a page of employees and count them in the same aggregation, reading only some of their properties.
+     *
+     * @param pageable the pagination information.
+     * @param properties the properties to read besides the id, or {@code null} for all of them.
+     * @return the page, with the total number of employees.
+     */
+    Mono<Page<Employee>> findPageWithCount(Pageable pageable, Collection<String> properties);
+
+    /**
+     * Find a page of employees without counting them, reading only some of their properties.
+     *
+     * @param pageable the pagination information.
+     * @param properties the properties to read besides the id, or {@code null} for all of them.
+     * @return the slice, which only knows whether there is a next one.
+     */
+    Mono<Slice<Employee>> findSliceBy(Pageable pageable, Collection<String> properties);
+
+    /**
+     * Find the employees of a page, reading only some of their properties.
+     *
+     * @param pageable the pagination information.
+     * @param properties the properties to read besides the id, or {@code null} for all of them.
+     * @return the employees of the page.
+     */
+    Flux<Employee> findAllBy(Pageable pageable, Collection<String> properties);
+
+    /**
+     * Returns the number of employees from the collection metadata.
+     *
+     * @return the estimated number of employees.
+     */
+    Mono<Long> estimatedCount();
+
+    /**
+     * Save an employee without replacing its document, so that the addresses embedded in it are kept.
+     *
+     * @param employee the entity to save.
+     * @return the saved entity.
+     */
+    Mono<Employee> saveKeepingEmbeddedAddresses(Employee employee);
+
+    /**
+     * Find the employees with the given ids, with a single {@code $in} query.
+     *
+     * @param ids the ids of the employees.
+     * @return the employees found, in no particular order.
+     */
+    Flux<Employee> findAllByIdIn(Collection<String> ids);
+
+    /**
+     * Find the employees with the given ids, with a single {@code $in} query reading only some of their properties.
+     *
+     * @param ids the ids of the employees.
+     * @param properties the properties to read besides the id, or {@code null} for all of them.
+     * @return the employees found, in no particular order.
+     */
+    Flux<Employee> findAllByIdIn(Collection<String> ids, Collection<String> properties);
+
+    /**
+     * Send the writes of several employees with a single unordered {@code bulkWrite}.
+     *
+     * @param writes the writes.
+     * @return the outcome of each write.
+     */
+    Mono<BulkWriteReport> bulkWrite(List<BulkWrite<Employee>> writes);
+
+    /**
+     * Set or unset some fields of a employee with a single {@code findAndModify}, leaving the other fields untouched.
+     *
+     * @param id the id of the employee.
+     * @param fields the new value of each field by property name, {@code null} to unset it.
+     * @return the updated employee, or empty if it does not exist.
+     */
+    Mono<Employee> findAndUpdateFields(String id, Map<String, Object> fields);
+
+    /**
+     * Reads only the revision of an employee, for the caches of the encoded employees.
+     *
+     * @param id the id of the employee.
+     * @return the employee with only its id and revision, or empty if it does not exist.
+     */
+    Mono<Employee> findRevisionById(String id);
+
+    /**
+     * Returns whether the stored employee is already the same as the given one, ignoring its embedded addresses.
+     *
+     * @param employee the employee about to be saved, which is given the stored revision when it is the same.
+     * @return true if saving it would not change its document.
+     */
+    Mono<Boolean> isUnchanged(Employee employee);
+
+    /**
+     * Save an employee without replacing its document, as {@link #saveKeepingEmbeddedAddresses} does, only if it is
+     * still at the revision read before.
+     *
+     * @param employee the entity to save, with its id.
+     * @param revision the revision read, {@code null} if the document had none, or {@link Revisions#ANY}.
+     * @return whether the document was at the revision, and updated.
+     */
+    Mono<Boolean> saveKeepingEmbeddedAddressesIfRevision(Employee employee, String revision);
+
+    /**
+     * Replace the document of an employee, only if it is still at the revision read before.
+     *
+     * @param employee the entity to save, with its id.
+     * @param revision the revision read, {@code null} if the document had none, or {@link Revisions#ANY}.
+     * @return whether the document was at the revision, and replaced.
+     */
+    Mono<Boolean> replaceIfRevision(Employee employee, String revision);
+
+    /**
+     * Set or unset some fields of an employee with a single {@code findAndModify}, only if it is still at the revision
+     * read before.
+     *
+     * @param id the id of the employee.
+     * @param fields the new value of each field by property name, {@code null} to unset it.
+     * @param revision the revision read, {@code null} if the document had none, or {@link Revisions#ANY}.
+     * @return the updated employee, or empty if it does not exist or is no longer at the revision.
+     */
+    Mono<Employee> findAndUpdateFieldsIfRevision(String id, Map<String, Object> fields, String revision);
+
+    /**
+     * Delete an employee, only if it is still at the revision read before.
+     *
+     * @param id the id of the employee.
+     * @param revision the revision read, {@code null} if the document had none, or {@link Revisions#ANY}.
+     * @return whether the document was at the revision, and deleted.
+     */
+    Mono<Boolean> deleteByIdAndRevision(String id, String revision);
+
+    /**
+     * Update the employees whose properties equal the given values, with a single {@code updateMany}.
+     *
+     * @param filter the value of each property to match.
+     * @param fields the new value of each property to update, {@code null} to remove it.
+     * @return the numbers of matched and modified employees.
+     */
+    Mono<UpdateResult> updateAllByFields(Map<String, Object> filter, Map<String, Object> fields);
+
+    /**
+     * Count the employees whose properties equal the given values.
+     *
+     * @param filter the value of each property to match.
+     * @return the number of matching employees.
+     */
+    Mono<Long> countByFields(Map<String, Object> filter);
+
+    /**
+     * Watch the ids of the employees changed by any client, with a change stream.
+     *
+     * @return the ids of the changed employees, as they are changed; only available on a replica set or a sharded cluster.
+     */
+    Flux<String> watchChangedIds();
+
+    /**
+     * Stream all the employees in the order of their ids, from a single cursor read as fast as the caller consumes it.
+     *
+     * @param afterId the id of the last employee already read, or {@code null} to start from the first one.
+     * @param properties the properties to read besides the id, or {@code null} for all of them.
+     * @param batchSize the number of employees in each batch of the cursor.
+     * @return the employees, in the order of their ids.
+     */
+    Flux<Employee> streamAllAfter(String afterId, Collection<String> properties, int batchSize);
+}
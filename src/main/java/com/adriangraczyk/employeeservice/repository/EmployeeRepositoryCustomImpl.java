@@ -0,0 +1,196 @@
+package com.adriangraczyk.employeeservice.repository;
+
+import com.adriangraczyk.employeeservice.domain.Employee;
+import com.mongodb.client.result.UpdateResult;
+import org.bson.Document;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.ReactiveMongoOperations;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Implementation of {@link EmployeeRepositoryCustom} on top of {@link ReactiveMongoOperations}.
+ */
+public class EmployeeRepositoryCustomImpl implements EmployeeRepositoryCustom {
+
+    private final ReactiveMongoOperations mongoOperations;
+
+    private final KeysetPaginationSupport<Employee> keysetPagination;
+
+    private final OffsetPaginationSupport<Employee> offsetPagination;
+
+    private final BulkWriteSupport<Employee> bulkWriteSupport;
+
+    private final ConditionalWriteSupport<Employee> conditionalWriteSupport;
+
+    public EmployeeRepositoryCustomImpl(ReactiveMongoOperations mongoOperations) {
+        this.mongoOperations = mongoOperations;
+        this.keysetPagination = new KeysetPaginationSupport<>(mongoOperations, Employee.class, IndexedSort.EMPLOYEE);
+        this.offsetPagination = new OffsetPaginationSupport<>(mongoOperations, Employee.class, IndexedSort.EMPLOYEE);
+        this.bulkWriteSupport = new BulkWriteSupport<>(mongoOperations, Employee.class);
+        this.conditionalWriteSupport = new ConditionalWriteSupport<>(mongoOperations, Employee.class);
+    }
+
+    @Override
+    public Mono<KeysetSlice<Employee>> findSliceAfter(String cursor, Pageable pageable) {
+        return findSliceAfter(cursor, pageable, null);
+    }
+
+    @Override
+    public Mono<KeysetSlice<Employee>> findSliceAfter(String cursor, Pageable pageable, Collection<String> properties) {
+        return keysetPagination.findSlice(cursor, pageable, properties);
+    }
+
+    @Override
+    public Mono<Page<Employee>> findPageWithCount(Pageable pageable) {
+        return findPageWithCount(pageable, null);
+    }
+
+    @Override
+    public Mono<Slice<Employee>> findSliceBy(Pageable pageable) {
+        return findSliceBy(pageable, null);
+    }
+
+    @Override
+    public Flux<Employee> findAllBy(Pageable pageable) {
+        return findAllBy(pageable, null);
+    }
+
+    @Override
+    public Mono<Page<Employee>> findPageWithCount(Pageable pageable, Collection<String> properties) {
+        return offsetPagination.findPageWithCount(pageable, properties);
+    }
+
+    @Override
+    public Mono<Slice<Employee>> findSliceBy(Pageable pageable, Collection<String> properties) {
+        return offsetPagination.findSlice(pageable, properties);
+    }
+
+    @Override
+    public Flux<Employee> findAllBy(Pageable pageable, Collection<String> properties) {
+        return offsetPagination.findAll(pageable, properties);
+    }
+
+    @Override
+    public Mono<Long> estimatedCount() {
+        return offsetPagination.estimatedCount();
+    }
+
+    @Override
+    public Mono<Employee> saveKeepingEmbeddedAddresses(Employee employee) {
+        if (employee.getId() == null) {
+            return mongoOperations.insert(employee);
+        }
+        return mongoOperations.upsert(Query.query(Criteria.where("_id").is(employee.getId())), updateOfAllFields(employee), Employee.class)
+            .thenReturn(employee);
+    }
+
+    @Override
+    public Mono<Boolean> saveKeepingEmbeddedAddressesIfRevision(Employee employee, String revision) {
+        return mongoOperations.updateFirst(Query.query(Revisions.byIdAndRevision(employee.getId(), revision)), updateOfAllFields(employee), Employee.class)
+            .map(result -> result.getMatchedCount() > 0);
+    }
+
+    /**
+     * The update setting all the fields of an employee but its id, with a new revision.
+     */
+    private Update updateOfAllFields(Employee employee) {
+        employee.setRevision(Revisions.next());
+        Document document = new Document();
+        mongoOperations.getConverter().write(employee, document);
+        document.remove("_id");
+        Update update = new Update();
+        document.forEach(update::set);
+        return update;
+    }
+
+    @Override
+    public Mono<Boolean> replaceIfRevision(Employee employee, String revision) {
+        return conditionalWriteSupport.replace(employee.getId(), employee, revision);
+    }
+
+    @Override
+    public Flux<Employee> findAllByIdIn(Collection<String> ids) {
+        return findAllByIdIn(ids, null);
+    }
+
+    @Override
+    public Flux<Employee> findAllByIdIn(Collection<String> ids, Collection<String> properties) {
+        return mongoOperations.find(FieldQueries.including(Query.query(Criteria.where("_id").in(ids)), properties), Employee.class);
+    }
+
+    @Override
+    public Mono<BulkWriteReport> bulkWrite(List<BulkWrite<Employee>> writes) {
+        return bulkWriteSupport.write(writes);
+    }
+
+    @Override
+    public Mono<Employee> findAndUpdateFields(String id, Map<String, Object> fields) {
+        return mongoOperations.findAndModify(Query.query(Criteria.where("_id").is(id)), FieldQueries.setOrUnset(fields),
+            FindAndModifyOptions.options().returnNew(true), Employee.class);
+    }
+
+    @Override
+    public Mono<Employee> findAndUpdateFieldsIfRevision(String id, Map<String, Object> fields, String revision) {
+        return conditionalWriteSupport.updateFields(id, fields, revision);
+    }
+
+    @Override
+    public Mono<Boolean> deleteByIdAndRevision(String id, String revision) {
+        return conditionalWriteSupport.delete(id, revision);
+    }
+
+    @Override
+    public Mono<UpdateResult> updateAllByFields(Map<String, Object> filter, Map<String, Object> fields) {
+        return mongoOperations.updateMulti(FieldQueries.equalTo(filter), FieldQueries.setOrUnset(fields), Employee.class);
+    }
+
+    @Override
+    public Mono<Long> countByFields(Map<String, Object> filter) {
+        return mongoOperations.count(FieldQueries.equalTo(filter), Employee.class);
+    }
+
+    @Override
+    public Mono<Employee> findRevisionById(String id) {
+        return mongoOperations.findOne(FieldQueries.including(Query.query(Criteria.where("_id").is(id)), Collections.emptyList()), Employee.class);
+    }
+
+    @Override
+    public Mono<Boolean> isUnchanged(Employee employee) {
+        Document document = new Document();
+        mongoOperations.getConverter().write(employee, document);
+        return mongoOperations.findById(document.get("_id"), Document.class, mongoOperations.getCollectionName(Employee.class))
+            .map(stored -> {
+                stored.remove(EmbeddedAddressRepository.ADDRESSES_FIELD);
+                Object revision = stored.remove(Revisions.FIELD);
+                document.remove(Revisions.FIELD);
+                boolean unchanged = stored.equals(document);
+                if (unchanged) {
+                    employee.setRevision((String) revision);
+                }
+                return unchanged;
+            })
+            .defaultIfEmpty(false);
+    }
+
+    @Override
+    public Flux<String> watchChangedIds() {
+        return ChangedIds.watch(mongoOperations, mongoOperations.getCollectionName(Employee.class));
+    }
+
+    @Override
+    public Flux<Employee> streamAllAfter(String afterId, Collection<String> properties, int batchSize) {
+        return mongoOperations.find(FieldQueries.inIdOrder(afterId, properties, batchSize), Employee.class);
+    }
+}
@@ -0,0 +1,95 @@
+package com.adriangraczyk.employeeservice.repository;
+
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.aggregation.AggregationOperation;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentEntity;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Builds the queries and updates on the values of some properties of an entity, mapped to their fields by
+ * {@link org.springframework.data.mongodb.core.ReactiveMongoOperations}.
+ */
+final class FieldQueries {
+
+    private FieldQueries() {
+    }
+
+    /**
+     * The query matching the entities whose properties equal the given values.
+     */
+    static Query equalTo(Map<String, Object> values) {
+        Criteria criteria = new Criteria();
+        values.forEach((property, value) -> criteria.and(property).is(value));
+        return Query.query(criteria);
+    }
+
+    /**
+     * The update setting the properties to the given values, or unsetting them when the value is {@code null}, with a
+     * new revision.
+     */
+    static Update setOrUnset(Map<String, Object> values) {
+        Update update = new Update().set(Revisions.FIELD, Revisions.next());
+        values.forEach((property, value) -> {
+            if (value == null) {
+                update.unset(property);
+            } else {
+                update.set(property, value);
+            }
+        });
+        return update;
+    }
+
+    /**
+     * The query of all the entities in the order of their ids, resuming after an id, read in batches of the given size.
+     *
+     * @param afterId the id of the last entity already read, or {@code null} to start from the first one.
+     * @param properties the properties to read besides the id and the revision, or {@code null} for all of them.
+     * @param batchSize the number of entities in each batch of the cursor.
+     */
+    static Query inIdOrder(String afterId, Collection<String> properties, int batchSize) {
+        Query query = afterId == null ? new Query()
+            : Query.query(Criteria.where("_id").gt(ObjectId.isValid(afterId) ? new ObjectId(afterId) : afterId));
+        return including(query, properties).with(Sort.by("_id")).cursorBatchSize(batchSize);
+    }
+
+    /**
+     * Limits the fields returned by a query to those of the given properties, besides the id and the revision.
+     *
+     * @param query the query.
+     * @param properties the properties to read, or {@code null} for all of them.
+     * @return the same query.
+     */
+    static Query including(Query query, Collection<String> properties) {
+        if (properties != null) {
+            properties.forEach(query.fields()::include);
+            query.fields().include(Revisions.FIELD);
+        }
+        return query;
+    }
+
+    /**
+     * The {@code $project} stage keeping only the fields of the given properties, besides the id and the revision, for the aggregations
+     * whose later stages are not mapped to the entity.
+     *
+     * @param entity the entity of the properties.
+     * @param prefix the path of the entity in the documents, empty when it is the root.
+     * @param properties the properties to keep.
+     * @param otherFields the fields to keep besides those of the entity.
+     * @return the stage.
+     */
+    static AggregationOperation projection(MongoPersistentEntity<?> entity, String prefix, Collection<String> properties, String... otherFields) {
+        Document projection = new Document(prefix + "_id", 1).append(prefix + Revisions.FIELD, 1);
+        for (String field : otherFields) {
+            projection.append(field, 1);
+        }
+        properties.forEach(property -> projection.append(prefix + entity.getRequiredPersistentProperty(property).getFieldName(), 1));
+        return context -> new Document("$project", projection);
+    }
+}
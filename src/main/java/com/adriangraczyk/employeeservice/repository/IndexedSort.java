@@ -0,0 +1,92 @@
+package com.adriangraczyk.employeeservice.repository;
+
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * The orders a collection can be listed in from its indexes, as created by {@code InitialSetupMigration}, instead of
+ * being sorted in memory after a collection scan.
+ * <p>
+ * A requested sort is accepted if its properties are a prefix of the keys of an index, all in the same direction,
+ * optionally followed by the id. It is then completed with the remaining keys of the index and the id, so that the
+ * order of the documents is also total.
+ */
+final class IndexedSort {
+
+    /**
+     * The employees by {@code last_name, first_name, _id}, or by id.
+     */
+    static final IndexedSort EMPLOYEE = new IndexedSort(Arrays.asList("lastName", "firstName"));
+
+    /**
+     * The addresses by id only.
+     */
+    static final IndexedSort ADDRESS = new IndexedSort();
+
+    private static final String ID_PROPERTY = "id";
+
+    private final List<List<String>> indexes;
+
+    @SafeVarargs
+    private IndexedSort(List<String>... indexes) {
+        this.indexes = Arrays.asList(indexes);
+    }
+
+    /**
+     * Complete a requested sort to the whole order of an index.
+     *
+     * @param sort the requested sort.
+     * @return the sort on all the keys of the index and the id, or the unsorted sort as is.
+     * @throws IllegalArgumentException if the sort is not the order of an index.
+     */
+    Sort complete(Sort sort) {
+        if (sort.isUnsorted()) {
+            return sort;
+        }
+        List<Sort.Order> orders = sort.toList();
+        Sort.Direction direction = orders.get(0).getDirection();
+        List<String> properties = orders.stream().map(Sort.Order::getProperty).collect(Collectors.toList());
+        if (ID_PROPERTY.equals(properties.get(properties.size() - 1))) {
+            properties = properties.subList(0, properties.size() - 1);
+        }
+        if (orders.stream().anyMatch(order -> order.getDirection() != direction || order.isIgnoreCase())) {
+            throw notIndexed(sort);
+        }
+        List<String> keys = properties.isEmpty() ? Collections.emptyList() : indexStartingWith(properties, sort);
+        List<String> completed = new ArrayList<>(keys);
+        completed.add(ID_PROPERTY);
+        return Sort.by(direction, completed.toArray(new String[0]));
+    }
+
+    /**
+     * Complete the sort of a page to the whole order of an index, as {@link #complete(Sort)} does.
+     *
+     * @param pageable the pagination information.
+     * @return the same page with the completed sort.
+     * @throws IllegalArgumentException if the sort is not the order of an index.
+     */
+    Pageable complete(Pageable pageable) {
+        if (pageable.isUnpaged() || pageable.getSort().isUnsorted()) {
+            return pageable;
+        }
+        return PageRequest.of(pageable.getPageNumber(), pageable.getPageSize(), complete(pageable.getSort()));
+    }
+
+    private List<String> indexStartingWith(List<String> properties, Sort sort) {
+        return indexes.stream()
+            .filter(keys -> keys.size() >= properties.size() && keys.subList(0, properties.size()).equals(properties))
+            .findFirst()
+            .orElseThrow(() -> notIndexed(sort));
+    }
+
+    private static IllegalArgumentException notIndexed(Sort sort) {
+        return new IllegalArgumentException("Cannot sort on " + sort + ", which is not the order of an index");
+    }
+}
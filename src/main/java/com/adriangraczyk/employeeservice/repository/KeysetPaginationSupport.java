@@ -0,0 +1,177 @@
+package com.adriangraczyk.employeeservice.repository;
+
+import org.bson.BSONException;
+import org.bson.Document;
+import org.bson.json.JsonParseException;
+import org.bson.types.ObjectId;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mapping.PersistentPropertyAccessor;
+import org.springframework.data.mongodb.core.ReactiveMongoOperations;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentEntity;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentProperty;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.StringUtils;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Keyset (seek) pagination over the collection of an entity.
+ * <p>
+ * Instead of skipping {@code page * size} documents, a slice resumes right after the last document of the previous
+ * one with a range predicate on the sort keys, so its cost does not depend on how deep it is. The position is carried
+ * between requests by an opaque cursor holding the sort key values of that last document, always ending with its
+ * {@code _id} which breaks ties between equal keys.
+ * <p>
+ * The slices can only be sorted in the order of an index, as given by an {@link IndexedSort}, so that the range
+ * predicate and the sort are both answered by that index. The values of a cursor come from the client, so they are
+ * only used if they are plain values of the type of their property, never query documents.
+ *
+ * @param <T> the entity type.
+ */
+class KeysetPaginationSupport<T> {
+
+    private final ReactiveMongoOperations mongoOperations;
+
+    private final Class<T> entityClass;
+
+    private final MongoPersistentEntity<?> persistentEntity;
+
+    private final IndexedSort indexedSort;
+
+    KeysetPaginationSupport(ReactiveMongoOperations mongoOperations, Class<T> entityClass, IndexedSort indexedSort) {
+        this.mongoOperations = mongoOperations;
+        this.entityClass = entityClass;
+        this.indexedSort = indexedSort;
+        this.persistentEntity = mongoOperations.getConverter().getMappingContext().getRequiredPersistentEntity(entityClass);
+    }
+
+    /**
+     * Find the slice following the given cursor.
+     *
+     * @param cursor the cursor returned with the previous slice, or an empty string for the first slice.
+     * @param pageable the size and sort of the slice; the page number is ignored.
+     * @param properties the properties to read besides the id and the sort keys, or {@code null} for all of them.
+     * @return the slice, or an {@link IllegalArgumentException} if the cursor or the sort cannot be used.
+     */
+    Mono<KeysetSlice<T>> findSlice(String cursor, Pageable pageable, Collection<String> properties) {
+        return Mono.fromCallable(() -> keysetSort(pageable.getSort()))
+            .flatMap(sort -> {
+                Query query = new Query().with(sort).limit(pageable.getPageSize() + 1);
+                if (properties != null) {
+                    // the sort keys of the last document make the next cursor
+                    FieldQueries.including(query, properties);
+                    sort.forEach(order -> query.fields().include(order.getProperty()));
+                }
+                if (StringUtils.hasText(cursor)) {
+                    query.addCriteria(after(sort, decode(cursor, sort)));
+                }
+                return mongoOperations.find(query, entityClass).collectList()
+                    .map(content -> toSlice(content, sort, pageable.getPageSize()));
+            });
+    }
+
+    /**
+     * Completes the requested sort to the order of an index, which ends with the id, so that every document has a
+     * distinct position.
+     */
+    private Sort keysetSort(Sort sort) {
+        Sort indexed = indexedSort.complete(sort);
+        return indexed.isSorted() ? indexed : Sort.by(persistentEntity.getRequiredIdProperty().getName());
+    }
+
+    private KeysetSlice<T> toSlice(List<T> content, Sort sort, int size) {
+        if (content.size() <= size) {
+            return new KeysetSlice<>(content, null);
+        }
+        List<T> slice = new ArrayList<>(content.subList(0, size));
+        return new KeysetSlice<>(slice, encode(slice.get(size - 1), sort));
+    }
+
+    private String encode(T last, Sort sort) {
+        PersistentPropertyAccessor<T> accessor = persistentEntity.getPropertyAccessor(last);
+        Document position = new Document();
+        for (Sort.Order order : sort) {
+            Object value = accessor.getProperty(persistentEntity.getRequiredPersistentProperty(order.getProperty()));
+            position.put(order.getProperty(), mongoOperations.getConverter().convertToMongoType(value));
+        }
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(position.toJson().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private Document decode(String cursor, Sort sort) {
+        Document position;
+        try {
+            position = Document.parse(new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8));
+        } catch (IllegalArgumentException | JsonParseException | BSONException e) {
+            throw new IllegalArgumentException("Malformed pagination cursor", e);
+        }
+        List<String> properties = sort.stream().map(Sort.Order::getProperty).collect(Collectors.toList());
+        if (!properties.equals(new ArrayList<>(position.keySet()))) {
+            throw new IllegalArgumentException("Pagination cursor does not match the requested sort");
+        }
+        for (String property : properties) {
+            MongoPersistentProperty persistentProperty = persistentEntity.getRequiredPersistentProperty(property);
+            Object value = position.get(property);
+            if (!isPlainValue(persistentProperty, value)) {
+                throw new IllegalArgumentException("Malformed pagination cursor");
+            }
+            if (persistentProperty.isIdProperty() && value instanceof String && ObjectId.isValid((String) value)) {
+                // the query mapper leaves the ids nested in the $or of a descending order as strings
+                position.put(property, new ObjectId((String) value));
+            }
+        }
+        return position;
+    }
+
+    /**
+     * Whether a value of the cursor can be compared with the property, instead of being read as query operators.
+     */
+    private static boolean isPlainValue(MongoPersistentProperty property, Object value) {
+        if (value == null) {
+            return true;
+        }
+        return !(value instanceof Document) && !(value instanceof Collection) && ClassUtils.isAssignableValue(property.getType(), value);
+    }
+
+    /**
+     * Matches the documents sorting after the given position: {@code (k1 > v1) or (k1 = v1 and k2 > v2) or ...}.
+     */
+    private static Criteria after(Sort sort, Document position) {
+        List<Criteria> branches = new ArrayList<>();
+        List<Criteria> equalities = new ArrayList<>();
+        for (Sort.Order order : sort) {
+            Object value = position.get(order.getProperty());
+            Criteria beyond = beyond(order, value);
+            if (beyond != null) {
+                List<Criteria> branch = new ArrayList<>(equalities);
+                branch.add(beyond);
+                branches.add(branch.size() == 1 ? beyond : new Criteria().andOperator(branch.toArray(new Criteria[0])));
+            }
+            equalities.add(Criteria.where(order.getProperty()).is(value));
+        }
+        return new Criteria().orOperator(branches.toArray(new Criteria[0]));
+    }
+
+    /**
+     * Matches the values strictly after {@code value} in the order's direction. Mongo sorts {@code null} before
+     * any other value, so nothing comes after it in descending order.
+     */
+    private static Criteria beyond(Sort.Order order, Object value) {
+        String property = order.getProperty();
+        if (order.isAscending()) {
+            return value == null ? Criteria.where(property).ne(null) : Criteria.where(property).gt(value);
+        }
+        if (value == null) {
+            return null;
+        }
+        return new Criteria().orOperator(Criteria.where(property).lt(value), Criteria.where(property).is(null));
+    }
+}
@@ -0,0 +1,49 @@
+package com.adriangraczyk.employeeservice.repository;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * A slice of a keyset (seek) paginated listing.
+ * <p>
+ * Unlike a {@link org.springframework.data.domain.Page}, a slice does not know its position in the collection:
+ * it only carries the opaque cursor to resume from, which is {@code null} when this is the last slice.
+ *
+ * @param <T> the type of the content.
+ */
+public class KeysetSlice<T> {
+
+    private final List<T> content;
+
+    private final String nextCursor;
+
+    public KeysetSlice(List<T> content, String nextCursor) {
+        this.content = Collections.unmodifiableList(content);
+        this.nextCursor = nextCursor;
+    }
+
+    public List<T> getContent() {
+        return content;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public boolean hasNext() {
+        return nextCursor != null;
+    }
+
+    /**
+     * Returns a new slice with the content converted, keeping the same cursor.
+     *
+     * @param converter the function applied to each element.
+     * @param <U> the type of the converted content.
+     * @return the converted slice.
+     */
+    public <U> KeysetSlice<U> map(Function<? super T, ? extends U> converter) {
+        return new KeysetSlice<>(content.stream().map(converter).collect(Collectors.toList()), nextCursor);
+    }
+}
@@ -0,0 +1,100 @@
+package com.adriangraczyk.employeeservice.repository;
+
+import com.mongodb.MongoException;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.mongodb.ReactiveMongoDatabaseFactory;
+import org.springframework.data.mongodb.ReactiveMongoTransactionManager;
+import org.springframework.data.mongodb.core.ReactiveMongoOperations;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Mono;
+
+/**
+ * Runs writes spanning several documents in a multi-document transaction when the deployment supports them.
+ * <p>
+ * Transactions need a replica set of MongoDB 4.0 or a sharded cluster of MongoDB 4.2, which is checked once with the
+ * {@code isMaster} command. On a standalone server the writes run as they are, and a compensation undoes what it can
+ * when they fail.
+ * <p>
+ * A transaction aborted with the {@code TransientTransactionError} label, such as on a write conflict with another
+ * one, is run again a few times, as the server tells it can then succeed.
+ */
+@Component
+public class MongoTransactions {
+
+    private static final Logger log = LoggerFactory.getLogger(MongoTransactions.class);
+
+    private static final int REPLICA_SET_TRANSACTIONS_WIRE_VERSION = 7;
+
+    private static final int SHARDED_TRANSACTIONS_WIRE_VERSION = 8;
+
+    private static final int TRANSIENT_ERROR_RETRIES = 3;
+
+    private final TransactionalOperator transactionalOperator;
+
+    private final Mono<Boolean> supported;
+
+    public MongoTransactions(ReactiveMongoDatabaseFactory databaseFactory, ReactiveMongoOperations mongoOperations) {
+        this.transactionalOperator = TransactionalOperator.create(new ReactiveMongoTransactionManager(databaseFactory));
+        this.supported = mongoOperations.executeCommand(new Document("isMaster", 1))
+            .map(MongoTransactions::supportsTransactions)
+            .doOnNext(result -> log.info("Multi-document transactions are {}", result ? "supported" : "not supported"))
+            .onErrorReturn(false)
+            .cache();
+    }
+
+    /**
+     * Returns whether the deployment supports multi-document transactions.
+     *
+     * @return true on a replica set or a sharded cluster recent enough.
+     */
+    public Mono<Boolean> isSupported() {
+        return supported;
+    }
+
+    /**
+     * Run the writes in a transaction when they are supported, or else as they are followed by the compensation if they
+     * fail.
+     * <p>
+     * The writes are subscribed to again when the transaction is retried, so they must not have side effects outside of
+     * the database, which are left to after it.
+     *
+     * @param writes the writes, through the repositories.
+     * @param compensation the writes undoing them, which may find some of them not done.
+     * @param <T> the type of the result.
+     * @return the result of the writes, or their failure once rolled back or compensated.
+     */
+    public <T> Mono<T> execute(Mono<T> writes, Mono<?> compensation) {
+        return supported.flatMap(transactional -> transactional
+            ? transactionalOperator.transactional(writes).retry(TRANSIENT_ERROR_RETRIES, MongoTransactions::isTransient)
+            : writes.onErrorResume(e -> compensation
+                .onErrorResume(failure -> {
+                    log.warn("Compensation of failed writes failed: {}", failure.getMessage());
+                    return Mono.empty();
+                })
+                .then(Mono.error(e))));
+    }
+
+    /**
+     * Whether a failure, or the Mongo exception it was translated from, is labelled as transient.
+     */
+    private static boolean isTransient(Throwable failure) {
+        for (Throwable cause = failure; cause != null; cause = cause.getCause()) {
+            if (cause instanceof MongoException) {
+                return ((MongoException) cause).hasErrorLabel(MongoException.TRANSIENT_TRANSACTION_ERROR_LABEL);
+            }
+        }
+        return false;
+    }
+
+    private static boolean supportsTransactions(Document isMaster) {
+        Number maxWireVersion = isMaster.get("maxWireVersion", Number.class);
+        int wireVersion = maxWireVersion == null ? 0 : maxWireVersion.intValue();
+        if (isMaster.containsKey("setName")) {
+            return wireVersion >= REPLICA_SET_TRANSACTIONS_WIRE_VERSION;
+        }
+        return "isdbgrid".equals(isMaster.getString("msg")) && wireVersion >= SHARDED_TRANSACTIONS_WIRE_VERSION;
+    }
+}
@@ -0,0 +1,121 @@
+package com.adriangraczyk.employeeservice.repository;
+
+import org.bson.Document;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.ReactiveMongoOperations;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOperation;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentEntity;
+import org.springframework.data.mongodb.core.query.Query;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Page number (skip/limit) pagination over the collection of an entity, with the different ways of getting the
+ * total number of elements.
+ * <p>
+ * The pages can only be sorted in the order of an index, as given by an {@link IndexedSort}; the other sorts are
+ * rejected with an {@link IllegalArgumentException} when the query is made.
+ *
+ * @param <T> the entity type.
+ */
+class OffsetPaginationSupport<T> {
+
+    private static final String CONTENT_FACET = "content";
+
+    private static final String TOTAL_FACET = "total";
+
+    private final ReactiveMongoOperations mongoOperations;
+
+    private final Class<T> entityClass;
+
+    private final MongoPersistentEntity<?> persistentEntity;
+
+    private final IndexedSort indexedSort;
+
+    OffsetPaginationSupport(ReactiveMongoOperations mongoOperations, Class<T> entityClass, IndexedSort indexedSort) {
+        this.mongoOperations = mongoOperations;
+        this.entityClass = entityClass;
+        this.indexedSort = indexedSort;
+        this.persistentEntity = mongoOperations.getConverter().getMappingContext().getRequiredPersistentEntity(entityClass);
+    }
+
+    /**
+     * Find a page and count the whole collection in a single {@code $facet} aggregation.
+     *
+     * @param pageable the pagination information.
+     * @param properties the properties to read besides the id, or {@code null} for all of them.
+     * @return the page, with its total.
+     * @throws IllegalArgumentException if the sort is not the order of an index.
+     */
+    Mono<Page<T>> findPageWithCount(Pageable pageable, Collection<String> properties) {
+        Sort sort = indexedSort.complete(pageable.getSort());
+        List<AggregationOperation> operations = new ArrayList<>();
+        if (sort.isSorted()) {
+            operations.add(Aggregation.sort(sort));
+        }
+        if (properties != null) {
+            operations.add(FieldQueries.projection(persistentEntity, "", properties));
+        }
+        operations.add(Aggregation
+            .facet(Aggregation.skip(pageable.getOffset()), Aggregation.limit(pageable.getPageSize())).as(CONTENT_FACET)
+            .and(Aggregation.count().as(TOTAL_FACET)).as(TOTAL_FACET));
+        return mongoOperations.aggregate(Aggregation.newAggregation(entityClass, operations), Document.class)
+            .single()
+            .map(result -> {
+                List<T> content = result.getList(CONTENT_FACET, Document.class).stream()
+                    .map(document -> mongoOperations.getConverter().read(entityClass, document))
+                    .collect(Collectors.toList());
+                List<Document> total = result.getList(TOTAL_FACET, Document.class);
+                return new PageImpl<>(content, pageable, total.isEmpty() ? 0L : total.get(0).get(TOTAL_FACET, Number.class).longValue());
+            });
+    }
+
+    /**
+     * Find the content of a page, without counting.
+     *
+     * @param pageable the pagination information.
+     * @param properties the properties to read besides the id, or {@code null} for all of them.
+     * @return the elements of the page.
+     * @throws IllegalArgumentException if the sort is not the order of an index.
+     */
+    Flux<T> findAll(Pageable pageable, Collection<String> properties) {
+        return mongoOperations.find(FieldQueries.including(new Query().with(indexedSort.complete(pageable)), properties), entityClass);
+    }
+
+    /**
+     * Find a page without counting, fetching one more element to know whether there is a next page.
+     *
+     * @param pageable the pagination information.
+     * @param properties the properties to read besides the id, or {@code null} for all of them.
+     * @return the slice.
+     * @throws IllegalArgumentException if the sort is not the order of an index.
+     */
+    Mono<Slice<T>> findSlice(Pageable pageable, Collection<String> properties) {
+        Query query = FieldQueries.including(new Query().with(indexedSort.complete(pageable)).limit(pageable.getPageSize() + 1), properties);
+        return mongoOperations.find(query, entityClass).collectList()
+            .map(content -> {
+                boolean hasNext = content.size() > pageable.getPageSize();
+                return new SliceImpl<>(hasNext ? content.subList(0, pageable.getPageSize()) : content, pageable, hasNext);
+            });
+    }
+
+    /**
+     * Returns the number of documents from the collection metadata, without scanning it.
+     *
+     * @return the estimated number of documents.
+     */
+    Mono<Long> estimatedCount() {
+        return Mono.from(mongoOperations.getCollection(mongoOperations.getCollectionName(entityClass)).estimatedDocumentCount());
+    }
+}
@@ -0,0 +1,26 @@
+package com.adriangraczyk.employeeservice.repository;
+
+import com.adriangraczyk.employeeservice.domain.Address;
+import com.adriangraczyk.employeeservice.domain.Employee;
+import org.reactivestreams.Publisher;
+import org.springframework.data.mongodb.core.mapping.event.ReactiveBeforeConvertCallback;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+/**
+ * Gives a new revision to the employees and addresses saved or inserted through the repositories, as the other writes
+ * do in their updates.
+ */
+@Component
+public class RevisionCallback implements ReactiveBeforeConvertCallback<Object> {
+
+    @Override
+    public Publisher<Object> onBeforeConvert(Object entity, String collection) {
+        if (entity instanceof Employee) {
+            ((Employee) entity).setRevision(Revisions.next());
+        } else if (entity instanceof Address) {
+            ((Address) entity).setRevision(Revisions.next());
+        }
+        return Mono.just(entity);
+    }
+}
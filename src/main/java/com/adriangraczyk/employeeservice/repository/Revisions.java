@@ -0,0 +1,70 @@
+package com.adriangraczyk.employeeservice.repository;
+
+import org.bson.types.ObjectId;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentEntity;
+import org.springframework.data.mongodb.core.query.Criteria;
+
+import java.util.Objects;
+
+/**
+ * The revisions of the employee and address documents.
+ * <p>
+ * Every write stores a new revision in the documents it changes, so that a conditional write only matches a document
+ * still at the revision that was read before it. The documents written before revisions have none, which is matched as
+ * {@code null}.
+ */
+public final class Revisions {
+
+    /**
+     * The revision matching a document at any revision, as long as it exists.
+     */
+    public static final String ANY = "*";
+
+    /**
+     * The field of the revision, in the documents and in the embedded addresses.
+     */
+    static final String FIELD = "revision";
+
+    private Revisions() {
+    }
+
+    /**
+     * @return a revision different from all the others.
+     */
+    static String next() {
+        return new ObjectId().toHexString();
+    }
+
+    /**
+     * Checks the revision of an entity read against an expected one, as a conditional write would.
+     *
+     * @param revision the expected revision, {@code null} for a document which had none, or {@link #ANY}.
+     * @param stored the revision of the entity read.
+     * @return whether a conditional write at the expected revision would match the entity.
+     */
+    public static boolean matches(String revision, String stored) {
+        return ANY.equals(revision) || Objects.equals(revision, stored);
+    }
+
+    /**
+     * Gives an entity a new revision, before it is converted to the document written.
+     *
+     * @param persistentEntity the mapping of the entity, which has a {@code revision} property.
+     * @param entity the entity.
+     */
+    static void stamp(MongoPersistentEntity<?> persistentEntity, Object entity) {
+        persistentEntity.getPropertyAccessor(entity).setProperty(persistentEntity.getRequiredPersistentProperty(FIELD), next());
+    }
+
+    /**
+     * The criteria matching a document by id, only at the given revision.
+     *
+     * @param id the id of the document.
+     * @param revision the revision read, {@code null} if the document had none, or {@link #ANY}.
+     * @return the criteria.
+     */
+    static Criteria byIdAndRevision(Object id, String revision) {
+        Criteria criteria = Criteria.where("_id").is(id);
+        return ANY.equals(revision) ? criteria : criteria.and(FIELD).is(revision);
+    }
+}
@@ -1,46 +1,508 @@
 package com.adriangraczyk.employeeservice.service;
 
+import com.adriangraczyk.employeeservice.config.ApplicationProperties;
 import com.adriangraczyk.employeeservice.domain.Address;
+import com.adriangraczyk.employeeservice.domain.Employee;
+import com.adriangraczyk.employeeservice.domain.enumeration.AddressType;
 import com.adriangraczyk.employeeservice.repository.AddressRepository;
+import com.adriangraczyk.employeeservice.repository.BulkWrite;
+import com.adriangraczyk.employeeservice.repository.CollectionVersions;
+import com.adriangraczyk.employeeservice.repository.BulkWriteReport;
+import com.adriangraczyk.employeeservice.repository.EmbeddedAddressRepository;
+import com.adriangraczyk.employeeservice.repository.Revisions;
+import com.adriangraczyk.employeeservice.repository.KeysetSlice;
+import com.adriangraczyk.employeeservice.repository.MongoTransactions;
 import com.adriangraczyk.employeeservice.service.dto.AddressDTO;
+import com.adriangraczyk.employeeservice.service.dto.BulkOperationDTO;
+import com.adriangraczyk.employeeservice.service.dto.BulkResultDTO;
+import com.adriangraczyk.employeeservice.service.dto.UpdateByFilterDTO;
+import com.adriangraczyk.employeeservice.service.dto.UpdateByFilterResultDTO;
 import com.adriangraczyk.employeeservice.service.mapper.AddressMapper;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.bson.types.ObjectId;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import org.springframework.beans.BeanWrapper;
+import org.springframework.beans.PropertyAccessorFactory;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.validation.Validator;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
 
 /**
  * Service Implementation for managing {@link Address}.
+ * <p>
+ * Addresses are read and written through {@link AddressRepository} or {@link EmbeddedAddressRepository}, depending on
+ * the configured {@link ApplicationProperties.AddressStorage}.
  */
 @Service
 public class AddressService {
 
     private final Logger log = LoggerFactory.getLogger(AddressService.class);
 
+    /**
+     * The entity property of each DTO property named differently.
+     */
+    private static final Map<String, String> ENTITY_PROPERTIES = Collections.singletonMap("employeeId", "employee");
+
+    /**
+     * The properties which can select the addresses of an update by filter.
+     */
+    private static final List<String> FILTER_PROPERTIES = Arrays.asList("addressType", "city", "postalCode", "country", "stateProvince");
+
+    /**
+     * The properties which can be updated by filter.
+     */
+    private static final List<String> UPDATE_PROPERTIES = Arrays.asList("city", "postalCode", "country", "stateProvince");
+
+    /**
+     * The properties which can be selected by a sparse fieldset.
+     */
+    private static final List<String> SELECTABLE_PROPERTIES = Arrays.asList("addressType", "street", "postalCode", "city", "country",
+        "stateProvince", "buildingNumber", "flatNumber", "employeeId");
+
     private final AddressRepository addressRepository;
 
+    private final EmbeddedAddressRepository embeddedAddressRepository;
+
     private final AddressMapper addressMapper;
 
-    public AddressService(AddressRepository addressRepository, AddressMapper addressMapper) {
+    private final ApplicationProperties.Pagination pagination;
+
+    private final ApplicationProperties.Batch batch;
+
+    private final ApplicationProperties.OrphanSweeper orphanSweeper;
+
+    private final CountCache countCache;
+
+    private final EntityCache<Address> entityCache;
+
+    private final ReadCoalescer<Address> readCoalescer;
+
+    private final PageCache<Slice<AddressDTO>> pageCache;
+
+    private final MongoTransactions mongoTransactions;
+
+    private final CollectionVersions collectionVersions;
+
+    private final boolean embedded;
+
+    private final BulkOperationRunner<AddressDTO, Address> bulkOperations;
+
+    private final MergePatch<AddressDTO> mergePatch;
+
+    private final FilterUpdate<AddressDTO> filterUpdate;
+
+    private final SparseFields<AddressDTO> sparseFields;
+
+    public AddressService(AddressRepository addressRepository, EmbeddedAddressRepository embeddedAddressRepository,
+                          AddressMapper addressMapper, MongoTransactions mongoTransactions, CollectionVersions collectionVersions,
+                          ApplicationProperties applicationProperties, Validator validator, MeterRegistry meterRegistry,
+                          ObjectMapper objectMapper) {
         this.addressRepository = addressRepository;
+        this.embeddedAddressRepository = embeddedAddressRepository;
         this.addressMapper = addressMapper;
+        this.mongoTransactions = mongoTransactions;
+        this.collectionVersions = collectionVersions;
+        this.pagination = applicationProperties.getPagination();
+        this.batch = applicationProperties.getBatch();
+        this.orphanSweeper = applicationProperties.getOrphanSweeper();
+        this.countCache = new CountCache(pagination.getCountCacheTimeToLive());
+        ApplicationProperties.EntityCache entityCacheProperties = applicationProperties.getEntityCache();
+        this.entityCache = new EntityCache<>("address", entityCacheProperties.getMaximumSize(), entityCacheProperties.getTimeToLive(),
+            entityCacheProperties.getNegativeTimeToLive(), meterRegistry);
+        ApplicationProperties.PageCache pageCacheProperties = applicationProperties.getPageCache();
+        this.pageCache = new PageCache<>("address.page", pageCacheProperties.isEnabled() ? pageCacheProperties.getMaximumSize() : 0,
+            meterRegistry);
+        this.embedded = applicationProperties.getAddresses().getStorage() == ApplicationProperties.AddressStorage.EMBEDDED;
+        ApplicationProperties.ReadCoalescing readCoalescing = applicationProperties.getReadCoalescing();
+        this.readCoalescer = readCoalescing.isEnabled()
+            ? new ReadCoalescer<>("address.find", readCoalescing.getWindow(), readCoalescing.getMaxBatchSize(),
+                embedded ? embeddedAddressRepository::findAllByIdIn : addressRepository::findAllByIdIn, Address::getId, meterRegistry)
+            : null;
+        this.bulkOperations = new BulkOperationRunner<>(validator, batch.getBulkChunkSize(), AddressDTO::getId, this::toWrite,
+            writes -> collectionVersions.incrementAfter(Address.class, embedded ? writeEmbedded(writes) : addressRepository.bulkWrite(writes))
+                .doOnSuccess(report -> {
+                    countCache.invalidate();
+                    writes.forEach(write -> entityCache.invalidate(write.getId()));
+                }),
+            failure -> failure instanceof IllegalArgumentException ? "error.invalidemployee" : "error.writefailed");
+        this.mergePatch = new MergePatch<>(objectMapper, validator, AddressDTO.class);
+        this.filterUpdate = new FilterUpdate<>(objectMapper, validator, AddressDTO.class, FILTER_PROPERTIES, UPDATE_PROPERTIES);
+        this.sparseFields = new SparseFields<>(objectMapper, AddressDTO.class, SELECTABLE_PROPERTIES);
+    }
+
+    /**
+     * Invalidate the cached addresses written by other instances, when the deployment has change streams.
+     * <p>
+     * The ids of embedded addresses are not known from the changes of their employees, so that any change of an
+     * employee invalidates all of them.
+     */
+    @PostConstruct
+    public void watchChanges() {
+        if (embedded) {
+            entityCache.watchAll(mongoTransactions.isSupported(), embeddedAddressRepository.watchChangedEmployeeIds());
+        } else {
+            entityCache.watch(mongoTransactions.isSupported(), addressRepository.watchChangedIds());
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        entityCache.close();
+        if (readCoalescer != null) {
+            readCoalescer.complete();
+        }
+    }
+
+    /**
+     * Run a write of employees which also changes their addresses, either embedded in them or in a transaction with
+     * {@link #insertAll} or {@link #deleteAllByEmployeeId}.
+     *
+     * @param write the write of the employees, or the whole transaction.
+     * @param <T> the type of the result.
+     * @return the result of the write, once the address version is incremented and the cached addresses invalidated.
+     */
+    public <T> Mono<T> afterAddressesWrite(Mono<T> write) {
+        return collectionVersions.incrementAfter(Address.class, write)
+            .doOnSuccess(result -> {
+                countCache.invalidate();
+                entityCache.invalidateAll();
+            });
+    }
+
+    /**
+     * Get the version of the addresses, incremented after each write of this service.
+     *
+     * @return the version.
+     */
+    public Mono<Long> getVersion() {
+        return collectionVersions.get(Address.class);
     }
 
     /**
      * Save a address.
      *
      * @param addressDTO the entity to save.
-     * @return the persisted entity.
+     * @return the persisted entity, or an {@link IllegalArgumentException} if it cannot be embedded in its employee.
      */
     public Mono<AddressDTO> save(AddressDTO addressDTO) {
         log.debug("Request to save Address : {}", addressDTO);
-        return addressRepository.save(addressMapper.toEntity(addressDTO))
-            .map(addressMapper::toDto)
-;    }
+        Address address = addressMapper.toEntity(addressDTO);
+        return written(embedded ? embeddedAddressRepository.save(address) : addressRepository.save(address));
+    }
+
+    /**
+     * Save a address, only if the stored address is still at a revision when it is written.
+     * <p>
+     * The revision is in the filter of the write itself, so the stored address is not read before.
+     *
+     * @param addressDTO the entity to save.
+     * @param revision the revision of the stored address, as in {@link AddressDTO#getRevision()}, {@code null} if it
+     * has none, or {@link Revisions#ANY} if it only has to exist.
+     * @return the persisted entity with its new revision, an {@link IllegalArgumentException} if it cannot be embedded in
+     * its employee, or an {@link OptimisticLockingFailureException} if the stored address does not exist or is not at
+     * the revision.
+     */
+    public Mono<AddressDTO> save(AddressDTO addressDTO, String revision) {
+        log.debug("Request to save Address at revision {} : {}", revision, addressDTO);
+        return written(saveIfRevision(addressMapper.toEntity(addressDTO), revision));
+    }
+
+    private Mono<AddressDTO> written(Mono<Address> write) {
+        return collectionVersions.incrementAfter(Address.class, write)
+            .doOnSuccess(saved -> {
+                countCache.invalidate();
+                entityCache.invalidate(saved.getId());
+            })
+            .map(addressMapper::toDto);
+    }
+
+    private Mono<Address> saveIfRevision(Address address, String revision) {
+        return (embedded ? embeddedAddressRepository.saveIfRevision(address, revision) : addressRepository.replaceIfRevision(address, revision))
+            .flatMap(matched -> matched ? Mono.just(address) : Mono.error(preconditionFailed(address.getId())));
+    }
+
+    /**
+     * Update some fields of a address with a JSON Merge Patch, in a single {@code findAndModify}.
+     * <p>
+     * An embedded address is replaced in its employee, as {@link #save} does, since it may move to another employee.
+     *
+     * @param id the id of the entity.
+     * @param patch the JSON Merge Patch of its DTO; only the patched fields are validated.
+     * @return the updated entity, empty if it does not exist, or an {@link IllegalArgumentException} if the patch is not valid.
+     */
+    public Mono<AddressDTO> partialUpdate(String id, ObjectNode patch) {
+        return partialUpdate(id, patch, false, null);
+    }
+
+    /**
+     * Update some fields of a address with a JSON Merge Patch, only if the stored address is still at a revision when
+     * it is written, as {@link #save(AddressDTO, String)} does.
+     *
+     * @param id the id of the entity.
+     * @param patch the JSON Merge Patch of its DTO; only the patched fields are validated.
+     * @param revision the revision of the stored address, {@code null} if it has none, or {@link Revisions#ANY}.
+     * @return the updated entity, an {@link IllegalArgumentException} if the patch is not valid, or an
+     * {@link OptimisticLockingFailureException} if the stored address does not exist or is not at the revision.
+     */
+    public Mono<AddressDTO> partialUpdate(String id, ObjectNode patch, String revision) {
+        return partialUpdate(id, patch, true, revision);
+    }
+
+    private Mono<AddressDTO> partialUpdate(String id, ObjectNode patch, boolean conditional, String revision) {
+        log.debug("Request to partially update Address {} : {}", id, patch);
+        return Mono.fromCallable(() -> mergePatch.read(patch))
+            .flatMap(values -> {
+                Set<String> properties = mergePatch.patchedProperties(patch);
+                if (embedded) {
+                    // merged into the stored address, which is then saved at the revision read
+                    return stored(id, embeddedAddressRepository.findById(id), conditional, revision)
+                        .flatMap(stored -> {
+                            AddressDTO address = addressMapper.toDto(stored);
+                            BeanWrapper source = PropertyAccessorFactory.forBeanPropertyAccess(values);
+                            BeanWrapper target = PropertyAccessorFactory.forBeanPropertyAccess(address);
+                            properties.forEach(property -> target.setPropertyValue(property, source.getPropertyValue(property)));
+                            return conditional ? written(saveIfRevision(addressMapper.toEntity(address), stored.getRevision())) : save(address);
+                        });
+                }
+                if (properties.isEmpty()) {
+                    return stored(id, addressRepository.findById(id), conditional, revision).map(addressMapper::toDto);
+                }
+                BeanWrapper entity = PropertyAccessorFactory.forBeanPropertyAccess(addressMapper.toEntity(values));
+                Map<String, Object> fields = new HashMap<>();
+                properties.forEach(property -> {
+                    String entityProperty = ENTITY_PROPERTIES.getOrDefault(property, property);
+                    fields.put(entityProperty, entity.getPropertyValue(entityProperty));
+                });
+                Mono<Address> update = !conditional ? addressRepository.findAndUpdateFields(id, fields)
+                    : addressRepository.findAndUpdateFieldsIfRevision(id, fields, revision).switchIfEmpty(Mono.error(() -> preconditionFailed(id)));
+                return collectionVersions.incrementAfter(Address.class, update)
+                    .doOnSuccess(updated -> entityCache.invalidate(id))
+                    .map(addressMapper::toDto);
+            });
+    }
+
+    /**
+     * The stored address, checked against the revision of a conditional write.
+     *
+     * @return the stored address, or an {@link OptimisticLockingFailureException} if it does not exist or is not at the
+     * revision of a conditional write.
+     */
+    private Mono<Address> stored(String id, Mono<Address> stored, boolean conditional, String revision) {
+        return !conditional ? stored : stored
+            .filter(address -> Revisions.matches(revision, address.getRevision()))
+            .switchIfEmpty(Mono.error(() -> preconditionFailed(id)));
+    }
+
+    /**
+     * Update all the addresses matching a filter, with a single {@code updateMany}.
+     *
+     * @param updateByFilter the filter and the update, on whitelisted properties.
+     * @return the numbers of matched and modified addresses, or only the number of matching ones for a dry run, or an
+     * {@link IllegalArgumentException} if the filter or the update is not valid or the addresses are embedded.
+     */
+    public Mono<UpdateByFilterResultDTO> updateByFilter(UpdateByFilterDTO updateByFilter) {
+        log.debug("Request to update Addresses by filter : {}", updateByFilter);
+        if (embedded) {
+            return Mono.error(new IllegalArgumentException("Updates by filter are not available for embedded addresses"));
+        }
+        return Mono.fromCallable(() -> filterUpdate.readFilter(updateByFilter.getFilter()))
+            .flatMap(filter -> {
+                Map<String, Object> fields = filterUpdate.readUpdate(updateByFilter.getSet());
+                if (updateByFilter.isDryRun()) {
+                    return addressRepository.countByFields(filter).map(UpdateByFilterResultDTO::dryRun);
+                }
+                return collectionVersions.incrementAfter(Address.class, addressRepository.updateAllByFields(filter, fields))
+                    .doOnSuccess(result -> entityCache.invalidateAll())
+                    .map(result -> UpdateByFilterResultDTO.updated(result.getMatchedCount(), result.getModifiedCount()));
+            });
+    }
+
+    /**
+     * Create, update and delete addresses in bulk, with one unordered {@code bulkWrite} per chunk of operations.
+     *
+     * @param operations the operations.
+     * @return the result of each operation, in the same order.
+     */
+    public Flux<BulkResultDTO> bulk(Flux<BulkOperationDTO<AddressDTO>> operations) {
+        log.debug("Request to run bulk operations on Addresses");
+        return bulkOperations.run(operations);
+    }
+
+    /**
+     * Insert new addresses in their collection, with a single {@code bulkWrite}.
+     * <p>
+     * This is only a write of the transaction creating their employee, so the address version and the caches are left
+     * to {@link #afterAddressesWrite} once it is committed.
+     *
+     * @param addressDTOs the entities to insert, with their ids.
+     * @return the persisted entities, or the failure of the first one which could not be inserted.
+     */
+    public Mono<List<AddressDTO>> insertAll(List<AddressDTO> addressDTOs) {
+        log.debug("Request to insert Addresses : {}", addressDTOs);
+        List<BulkWrite<Address>> writes = addressDTOs.stream()
+            .map(addressMapper::toEntity)
+            .map(address -> BulkWrite.insert(address.getId(), address))
+            .collect(Collectors.toList());
+        return addressRepository.bulkWrite(writes)
+            .flatMap(report -> IntStream.range(0, writes.size())
+                .mapToObj(report::getFailure)
+                .filter(Optional::isPresent)
+                .map(failure -> Mono.<List<AddressDTO>>error(failure.get()))
+                .findFirst()
+                .orElseGet(() -> Mono.just(addressDTOs)));
+    }
+
+    /**
+     * Insert a new employee with its addresses embedded in its document, in a single write.
+     *
+     * @param employee the new employee, with its id.
+     * @param addressDTOs its addresses, with their ids.
+     * @return the persisted addresses.
+     */
+    public Mono<List<AddressDTO>> insertEmbeddedWithEmployee(Employee employee, List<AddressDTO> addressDTOs) {
+        log.debug("Request to insert Employee {} with embedded Addresses : {}", employee.getId(), addressDTOs);
+        List<Address> addresses = addressDTOs.stream().map(addressMapper::toEntity).collect(Collectors.toList());
+        return afterAddressesWrite(embeddedAddressRepository.insertWithAddresses(employee, addresses))
+            .thenReturn(addressDTOs);
+    }
+
+    /**
+     * Delete the addresses with the given ids, with a single {@code bulkWrite}.
+     *
+     * @param ids the ids of the entities.
+     * @return a Mono completing once they are deleted.
+     */
+    public Mono<Void> deleteAll(Collection<String> ids) {
+        log.debug("Request to delete Addresses : {}", ids);
+        return collectionVersions.incrementAfter(Address.class,
+            addressRepository.bulkWrite(ids.stream().map(BulkWrite::<Address>delete).collect(Collectors.toList())))
+            .doOnSuccess(report -> {
+                countCache.invalidate();
+                ids.forEach(entityCache::invalidate);
+            })
+            .then();
+    }
+
+    /**
+     * Delete the addresses of an employee, with a single {@code deleteMany}.
+     * <p>
+     * This is only a write of the transaction deleting the employee, so the address version and the caches are left to
+     * {@link #afterAddressesWrite} once it is committed.
+     *
+     * @param employeeId the id of the employee.
+     * @return a Mono completing once they are deleted.
+     */
+    public Mono<Void> deleteAllByEmployeeId(String employeeId) {
+        log.debug("Request to delete the Addresses of Employee : {}", employeeId);
+        return addressRepository.deleteAllByEmployeeId(employeeId).then();
+    }
+
+    /**
+     * Delete the addresses of several employees, with a single {@code deleteMany}.
+     *
+     * @param employeeIds the ids of the employees.
+     * @return a Mono completing once they are deleted.
+     */
+    public Mono<Void> deleteAllByEmployeeIds(Collection<String> employeeIds) {
+        log.debug("Request to delete the Addresses of Employees : {}", employeeIds);
+        return collectionVersions.incrementAfter(Address.class, addressRepository.deleteAllByEmployeeIdIn(employeeIds))
+            .doOnSuccess(deleted -> {
+                countCache.invalidate();
+                entityCache.invalidateAll();
+            })
+            .then();
+    }
+
+    /**
+     * Addresses whose employee no longer exists are removed from the address collection.
+     * <p>
+     * This is scheduled to get fired according to {@code application.orphan-sweeper.cron}.
+     */
+    @Scheduled(cron = "${application.orphan-sweeper.cron:0 30 3 * * ?}")
+    public void removeOrphanAddresses() {
+        removeOrphanAddressesReactively().block();
+    }
+
+    /**
+     * Delete the addresses whose employee no longer exists, in throttled batches.
+     * <p>
+     * The orphans are streamed from a single aggregation, whose cursor is only read as fast as they are deleted:
+     * {@code application.orphan-sweeper.batch-size} of them with each {@code deleteMany}, with a pause in between.
+     *
+     * @return the number of deleted addresses.
+     */
+    public Mono<Long> removeOrphanAddressesReactively() {
+        return addressRepository.findOrphanIds()
+            .buffer(orphanSweeper.getBatchSize())
+            .concatMap(ids -> collectionVersions.incrementAfter(Address.class, addressRepository.deleteAllByIdIn(ids))
+                .delayElement(orphanSweeper.getPause()), 1)
+            .reduce(0L, Long::sum)
+            .doOnSuccess(deleted -> {
+                if (deleted > 0) {
+                    log.info("Deleted {} orphaned addresses", deleted);
+                    countCache.invalidate();
+                    entityCache.invalidateAll();
+                }
+            });
+    }
+
+    private BulkWrite<Address> toWrite(AddressDTO addressDTO) {
+        Address address = addressMapper.toEntity(addressDTO);
+        if (address.getId() == null) {
+            address.setId(new ObjectId().toHexString());
+            return BulkWrite.insert(address.getId(), address);
+        }
+        return BulkWrite.replace(address.getId(), address);
+    }
+
+    /**
+     * Embedded addresses are written in the documents of their employees, which may be moved from one employee to
+     * another, so they are saved one by one, concurrently.
+     */
+    private Mono<BulkWriteReport> writeEmbedded(List<BulkWrite<Address>> writes) {
+        Map<Integer, RuntimeException> failures = new ConcurrentHashMap<>();
+        return Flux.range(0, writes.size())
+            .flatMap(position -> {
+                BulkWrite<Address> write = writes.get(position);
+                Mono<?> saved = write.getType() == BulkWrite.Type.DELETE
+                    ? embeddedAddressRepository.deleteById(write.getId())
+                    : embeddedAddressRepository.save(write.getEntity());
+                return saved.then().onErrorResume(IllegalArgumentException.class, e -> {
+                    failures.put(position, e);
+                    return Mono.empty();
+                });
+            })
+            .then(Mono.fromCallable(() -> new BulkWriteReport(Collections.emptySet(), failures)));
+    }
 
     /**
      * Get all the addresses.
@@ -50,28 +512,258 @@ public class AddressService {
      */
     public Flux<AddressDTO> findAll(Pageable pageable) {
         log.debug("Request to get all Addresses");
-        return addressRepository.findAllBy(pageable)
+        return (embedded ? embeddedAddressRepository.findAll(pageable) : addressRepository.findAllBy(pageable))
             .map(addressMapper::toDto);
     }
 
+    /**
+     * Stream all the addresses from a single cursor read as fast as they are consumed, in the order of their ids, or
+     * of the ids of their employees when they are embedded.
+     *
+     * @param afterId the id of the last address already read, or {@code null} to start from the first one.
+     * @param fields the properties to read, from {@link #selectFields}.
+     * @return the addresses, or an {@link IllegalArgumentException} if the id is not valid.
+     */
+    public Flux<AddressDTO> streamAll(String afterId, FieldSelection fields) {
+        log.debug("Request to stream all Addresses after : {}", afterId);
+        if (afterId != null && !ObjectId.isValid(afterId)) {
+            return Flux.error(new IllegalArgumentException("The id " + afterId + " is not valid"));
+        }
+        Set<String> properties = entityProperties(fields);
+        int batchSize = batch.getStreamBatchSize();
+        return (embedded ? embeddedAddressRepository.streamAllAfter(afterId, properties, batchSize)
+            : addressRepository.streamAllAfter(afterId, properties, batchSize))
+            .map(addressMapper::toDto);
+    }
+
+    /**
+     * Read a sparse fieldset of the addresses.
+     *
+     * @param fields the names of the properties to read, or {@code null} or empty for all of them.
+     * @return the selection, or an {@link IllegalArgumentException} if a property cannot be selected.
+     */
+    public FieldSelection selectFields(List<String> fields) {
+        return sparseFields.select(fields);
+    }
+
+    /**
+     * Returns the entity properties of a sparse fieldset.
+     */
+    private static Set<String> entityProperties(FieldSelection fields) {
+        return fields.isAll() ? null : fields.getProperties().stream()
+            .map(property -> ENTITY_PROPERTIES.getOrDefault(property, property))
+            .collect(Collectors.toSet());
+    }
+
+    /**
+     * Get the addresses of the given employees, with a single query.
+     *
+     * @param employeeIds the ids of the employees.
+     * @return the addresses of all these employees.
+     */
+    public Flux<AddressDTO> findAllByEmployeeIds(Collection<String> employeeIds) {
+        log.debug("Request to get the Addresses of Employees : {}", employeeIds);
+        if (employeeIds.isEmpty()) {
+            return Flux.empty();
+        }
+        return (embedded ? embeddedAddressRepository.findAllByEmployeeIdIn(employeeIds) : addressRepository.findAllByEmployeeIdIn(employeeIds))
+            .map(addressMapper::toDto);
+    }
+
+    /**
+     * Get the addresses of an employee, optionally of a given type, with a single query.
+     *
+     * @param employeeId the id of the employee.
+     * @param addressType the type of the addresses, or {@code null} for all of them.
+     * @return its addresses.
+     */
+    public Flux<AddressDTO> findAllByEmployeeId(String employeeId, AddressType addressType) {
+        log.debug("Request to get the Addresses of type {} of Employee : {}", addressType, employeeId);
+        if (embedded) {
+            return embeddedAddressRepository.findAllByEmployeeId(employeeId, addressType).map(addressMapper::toDto);
+        }
+        if (!ObjectId.isValid(employeeId)) {
+            return Flux.empty();
+        }
+        ObjectId id = new ObjectId(employeeId);
+        return (addressType == null ? addressRepository.findAllByEmployeeId(id) : addressRepository.findAllByEmployeeIdAndAddressType(id, addressType))
+            .map(addressMapper::toDto);
+    }
+
+    /**
+     * Get the addresses with the given ids, with a single query reading only the selected properties.
+     *
+     * @param ids the ids of the entities; blank and repeated ids are ignored.
+     * @param fields the properties to read, from {@link #selectFields}.
+     * @return the entities found, in the order of the ids, or an {@link IllegalArgumentException} if there are more ids than the configured maximum.
+     */
+    public Mono<List<AddressDTO>> findAllById(Collection<String> ids, FieldSelection fields) {
+        log.debug("Request to get Addresss : {}", ids);
+        Set<String> distinctIds = ids.stream().filter(StringUtils::hasText).collect(Collectors.toCollection(LinkedHashSet::new));
+        if (distinctIds.size() > batch.getMaxIds()) {
+            return Mono.error(new IllegalArgumentException("At most " + batch.getMaxIds() + " ids can be fetched at once"));
+        }
+        if (distinctIds.isEmpty()) {
+            return Mono.just(Collections.emptyList());
+        }
+        Set<String> properties = entityProperties(fields);
+        return (embedded ? embeddedAddressRepository.findAllByIdIn(distinctIds, properties) : addressRepository.findAllByIdIn(distinctIds, properties))
+            .collectMap(Address::getId, addressMapper::toDto)
+            .map(found -> distinctIds.stream().map(found::get).filter(Objects::nonNull).collect(Collectors.toList()));
+    }
+
+    /**
+     * Get a page of addresses, counted with the configured {@link ApplicationProperties.CountStrategy}.
+     *
+     * @param pageable the pagination information.
+     * @return a {@link org.springframework.data.domain.Page} of entities, or only a {@link Slice} when they are not counted.
+     */
+    public Mono<Slice<AddressDTO>> findPage(Pageable pageable) {
+        return findPage(pageable, FieldSelection.all());
+    }
+
+    /**
+     * Get a page of addresses reading only the selected properties, counted with the configured
+     * {@link ApplicationProperties.CountStrategy}.
+     * <p>
+     * Unlike the pages of whole addresses, these pages are not cached.
+     *
+     * @param pageable the pagination information.
+     * @param fields the properties to read, from {@link #selectFields}.
+     * @return a {@link org.springframework.data.domain.Page} of entities, or only a {@link Slice} when they are not counted.
+     */
+    public Mono<Slice<AddressDTO>> findPage(Pageable pageable, FieldSelection fields) {
+        log.debug("Request to get a page of Addresses counted with strategy : {}", pagination.getCountStrategy());
+        Set<String> properties = entityProperties(fields);
+        Mono<? extends Slice<Address>> page = embedded ? findEmbeddedPage(pageable, properties) : findReferencedPage(pageable, properties);
+        return page.map(slice -> slice.map(addressMapper::toDto));
+    }
+
+    /**
+     * Get a page of addresses, from the cache of the pages read at the same version when it is there.
+     *
+     * @param pageable the pagination information.
+     * @param version the current version of the addresses, from {@link #getVersion()}.
+     * @return the page, shared with the other reads of the same page, so that its addresses must not be modified.
+     */
+    public Mono<Slice<AddressDTO>> findPage(Pageable pageable, long version) {
+        return pageCache.get(PageCache.key(pageable, pagination.getCountStrategy()), Collections.singletonList(version),
+            () -> findPage(pageable));
+    }
+
+    private Mono<? extends Slice<Address>> findReferencedPage(Pageable pageable, Set<String> properties) {
+        switch (pagination.getCountStrategy()) {
+            case NONE:
+                return addressRepository.findSliceBy(pageable, properties);
+            case ESTIMATED:
+                return Mono.zip(addressRepository.findAllBy(pageable, properties).collectList(), addressRepository.estimatedCount(),
+                    (content, total) -> new PageImpl<>(content, pageable, total));
+            case CACHED:
+                return Mono.zip(addressRepository.findAllBy(pageable, properties).collectList(), countCache.get(addressRepository::count),
+                    (content, total) -> new PageImpl<>(content, pageable, total));
+            default:
+                return addressRepository.findPageWithCount(pageable, properties);
+        }
+    }
+
+    /**
+     * The collection metadata only counts employees, so an estimated count falls back to a cached one.
+     */
+    private Mono<? extends Slice<Address>> findEmbeddedPage(Pageable pageable, Set<String> properties) {
+        switch (pagination.getCountStrategy()) {
+            case NONE:
+                return embeddedAddressRepository.findSlice(pageable, properties);
+            case ESTIMATED:
+            case CACHED:
+                return Mono.zip(embeddedAddressRepository.findAll(pageable, properties).collectList(), countCache.get(embeddedAddressRepository::count),
+                    (content, total) -> new PageImpl<>(content, pageable, total));
+            default:
+                return embeddedAddressRepository.findPageWithCount(pageable, properties);
+        }
+    }
+
+    /**
+     * Count the addresses for a page whose content is then streamed from the cursor with {@link #findAll(Pageable)},
+     * which is only done when the count strategy counts them apart from the content and the pages are not cached.
+     *
+     * @return the total number of addresses, or empty if the page must be read with {@link #findPage} instead.
+     */
+    public Mono<Long> countForStreamedPage() {
+        if (pageCache.isEnabled()) {
+            return Mono.empty();
+        }
+        switch (pagination.getCountStrategy()) {
+            case ESTIMATED:
+                return embedded ? countCache.get(embeddedAddressRepository::count) : addressRepository.estimatedCount();
+            case CACHED:
+                return countCache.get(embedded ? embeddedAddressRepository::count : addressRepository::count);
+            default:
+                return Mono.empty();
+        }
+    }
+
+    /**
+     * Get the slice of addresses following the given cursor, reading only the selected properties.
+     *
+     * @param cursor the cursor returned with the previous slice, or an empty string for the first slice.
+     * @param pageable the size and sort of the slice.
+     * @param fields the properties to read, from {@link #selectFields}.
+     * @return the slice of entities, or an {@link IllegalArgumentException} if the cursor cannot be used or the addresses are embedded.
+     */
+    public Mono<KeysetSlice<AddressDTO>> findAllAfter(String cursor, Pageable pageable, FieldSelection fields) {
+        log.debug("Request to get a slice of Addresses after cursor : {}", cursor);
+        if (embedded) {
+            return Mono.error(new IllegalArgumentException("Cursor pagination is not available for embedded addresses"));
+        }
+        return addressRepository.findSliceAfter(cursor, pageable, entityProperties(fields))
+            .map(slice -> slice.map(addressMapper::toDto));
+    }
+
 
     /**
      * Returns the number of addresses available.
      *
      */
     public Mono<Long> countAll() {
-        return addressRepository.count();
+        return embedded ? embeddedAddressRepository.count() : addressRepository.count();
     }
 
     /**
-     * Get one address by id.
+     * Get one address by id, from the cache of the addresses recently read when it is there.
+     * <p>
+     * With read coalescing, a miss is fetched with the other misses of the same window in one {@code $in} query.
      *
      * @param id the id of the entity.
      * @return the entity.
      */
     public Mono<AddressDTO> findOne(String id) {
         log.debug("Request to get Address : {}", id);
-        return addressRepository.findById(id)
+        Function<String, Mono<Address>> loader;
+        if (readCoalescer != null) {
+            loader = readCoalescer::read;
+        } else {
+            loader = embedded ? embeddedAddressRepository::findById : addressRepository::findById;
+        }
+        return entityCache.get(id, loader)
+            .map(addressMapper::toDto);
+    }
+
+    /**
+     * Get one address by id, reading only the selected properties, bypassing the cache of the whole addresses.
+     *
+     * @param id the id of the entity.
+     * @param fields the properties to read, from {@link #selectFields}.
+     * @return the entity.
+     */
+    public Mono<AddressDTO> findOne(String id, FieldSelection fields) {
+        if (fields.isAll()) {
+            return findOne(id);
+        }
+        log.debug("Request to get the fields {} of Address : {}", fields.getProperties(), id);
+        Set<String> properties = entityProperties(fields);
+        Collection<String> ids = Collections.singleton(id);
+        return (embedded ? embeddedAddressRepository.findAllByIdIn(ids, properties) : addressRepository.findAllByIdIn(ids, properties))
+            .next()
             .map(addressMapper::toDto);
     }
 
@@ -81,6 +773,34 @@ public class AddressService {
      * @param id the id of the entity.
      */
     public Mono<Void> delete(String id) {
+        return delete(id, embedded ? embeddedAddressRepository.deleteById(id) : addressRepository.deleteById(id));
+    }
+
+    /**
+     * Delete the address by id, only if the stored address is still at a revision when it is deleted, as
+     * {@link #save(AddressDTO, String)} does.
+     *
+     * @param id the id of the entity.
+     * @param revision the revision of the stored address, {@code null} if it has none, or {@link Revisions#ANY}.
+     * @return a Mono completing once deleted, or an {@link OptimisticLockingFailureException} if the stored address does
+     * not exist or is not at the revision.
+     */
+    public Mono<Void> delete(String id, String revision) {
+        Mono<Boolean> deleted = embedded ? embeddedAddressRepository.deleteByIdAndRevision(id, revision)
+            : addressRepository.deleteByIdAndRevision(id, revision);
+        return delete(id, deleted.flatMap(matched -> matched ? Mono.<Void>empty() : Mono.error(preconditionFailed(id))));
+    }
+
+    private Mono<Void> delete(String id, Mono<Void> delete) {
         log.debug("Request to delete Address : {}", id);
-        return addressRepository.deleteById(id);    }
+        return collectionVersions.incrementAfter(Address.class, delete)
+            .doOnSuccess(deleted -> {
+                countCache.invalidate();
+                entityCache.invalidate(id);
+            });
+    }
+
+    private static OptimisticLockingFailureException preconditionFailed(String id) {
+        return new OptimisticLockingFailureException("The address " + id + " is not at the expected revision");
+    }
 }
@@ -0,0 +1,205 @@
+package com.adriangraczyk.employeeservice.service;
+
+import com.adriangraczyk.employeeservice.repository.BulkWrite;
+import com.adriangraczyk.employeeservice.repository.BulkWriteReport;
+import com.adriangraczyk.employeeservice.service.dto.BulkOperationDTO;
+import com.adriangraczyk.employeeservice.service.dto.BulkResultDTO;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import reactor.util.function.Tuple2;
+
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Runs the operations of a bulk request on the DTOs of an entity.
+ * <p>
+ * The operations are read in chunks. Each chunk is validated and mapped on the parallel scheduler, then sent with a
+ * single unordered {@code bulkWrite}, while the next chunk is being prepared. The results are emitted in the order of
+ * the operations, one per operation, whether it succeeded or not.
+ *
+ * @param <D> the DTO type.
+ * @param <E> the entity type.
+ */
+class BulkOperationRunner<D, E> {
+
+    private static final Logger log = LoggerFactory.getLogger(BulkOperationRunner.class);
+
+    private static final int CONCURRENT_CHUNKS = 2;
+
+    private static final String ERROR_VALIDATION = "error.validation";
+
+    private final Validator validator;
+
+    private final int chunkSize;
+
+    private final Function<D, String> idGetter;
+
+    private final Function<D, BulkWrite<E>> toWrite;
+
+    private final Function<List<BulkWrite<E>>, Mono<BulkWriteReport>> writer;
+
+    private final Function<RuntimeException, String> errorKey;
+
+    /**
+     * @param validator the bean validator of the DTOs.
+     * @param chunkSize the number of operations sent in each {@code bulkWrite}.
+     * @param idGetter the getter of the id of a DTO.
+     * @param toWrite the write saving the entity of a DTO, inserting it with a new id when it has none.
+     * @param writer the sender of the writes of a chunk.
+     * @param errorKey the message key of a failed write.
+     */
+    BulkOperationRunner(Validator validator, int chunkSize, Function<D, String> idGetter, Function<D, BulkWrite<E>> toWrite,
+                        Function<List<BulkWrite<E>>, Mono<BulkWriteReport>> writer, Function<RuntimeException, String> errorKey) {
+        this.validator = validator;
+        this.chunkSize = chunkSize;
+        this.idGetter = idGetter;
+        this.toWrite = toWrite;
+        this.writer = writer;
+        this.errorKey = errorKey;
+    }
+
+    /**
+     * Run the operations.
+     *
+     * @param operations the operations, in the order of the request.
+     * @return the result of each operation, in the same order.
+     */
+    Flux<BulkResultDTO> run(Flux<BulkOperationDTO<D>> operations) {
+        return operations.index()
+            .buffer(chunkSize)
+            .flatMapSequential(chunk -> Mono.fromCallable(() -> prepare(chunk))
+                .subscribeOn(Schedulers.parallel())
+                .flatMapMany(this::write), CONCURRENT_CHUNKS);
+    }
+
+    private Chunk prepare(List<Tuple2<Long, BulkOperationDTO<D>>> operations) {
+        Chunk chunk = new Chunk(operations.size());
+        for (int position = 0; position < operations.size(); position++) {
+            long index = operations.get(position).getT1();
+            BulkOperationDTO<D> operation = operations.get(position).getT2();
+            BulkResultDTO invalid = validate(index, operation);
+            if (invalid != null) {
+                chunk.results[position] = invalid;
+                continue;
+            }
+            chunk.add(position, index, operation.getAction(), operation.getAction() == BulkOperationDTO.Action.DELETE
+                ? BulkWrite.delete(operation.getId())
+                : toWrite.apply(operation.getValue()));
+        }
+        return chunk;
+    }
+
+    /**
+     * Checks the operation as the single-entity endpoints would.
+     *
+     * @return the failed result, or {@code null} if the operation is valid.
+     */
+    private BulkResultDTO validate(long index, BulkOperationDTO<D> operation) {
+        BulkOperationDTO.Action action = operation.getAction();
+        if (action == null) {
+            return BulkResultDTO.failed(index, null, operation.getId(), ERROR_VALIDATION, "An action is required");
+        }
+        if (action == BulkOperationDTO.Action.DELETE) {
+            return operation.getId() == null ? BulkResultDTO.failed(index, action, null, "error.idnull", "Invalid id") : null;
+        }
+        D value = operation.getValue();
+        if (value == null) {
+            return BulkResultDTO.failed(index, action, operation.getId(), ERROR_VALIDATION, "A value is required");
+        }
+        String id = idGetter.apply(value);
+        if (action == BulkOperationDTO.Action.CREATE && id != null) {
+            return BulkResultDTO.failed(index, action, id, "error.idexists", "A new entity cannot already have an ID");
+        }
+        if (action == BulkOperationDTO.Action.UPDATE && id == null) {
+            return BulkResultDTO.failed(index, action, null, "error.idnull", "Invalid id");
+        }
+        Set<ConstraintViolation<D>> violations = validator.validate(value);
+        if (!violations.isEmpty()) {
+            return BulkResultDTO.failed(index, action, id, ERROR_VALIDATION, violations.stream()
+                .map(violation -> violation.getPropertyPath() + ": " + violation.getMessage())
+                .sorted()
+                .collect(Collectors.joining(", ")));
+        }
+        return null;
+    }
+
+    private Flux<BulkResultDTO> write(Chunk chunk) {
+        if (chunk.writes.isEmpty()) {
+            return Flux.fromArray(chunk.results);
+        }
+        return writer.apply(chunk.writes)
+            .map(report -> {
+                for (int i = 0; i < chunk.writes.size(); i++) {
+                    int position = i;
+                    chunk.results[chunk.positions.get(i)] = report.getFailure(i)
+                        .map(failure -> chunk.failed(position, failure))
+                        .orElseGet(() -> chunk.succeeded(position, report.isUpsert(position)));
+                }
+                return chunk.results;
+            })
+            .onErrorResume(RuntimeException.class, e -> {
+                log.warn("Bulk write of {} operations failed: {}", chunk.writes.size(), e.getMessage());
+                for (int i = 0; i < chunk.writes.size(); i++) {
+                    chunk.results[chunk.positions.get(i)] = chunk.failed(i, e);
+                }
+                return Mono.just(chunk.results);
+            })
+            .flatMapMany(Flux::fromArray);
+    }
+
+    /**
+     * The results of a chunk of operations, and the writes of its valid operations.
+     */
+    private class Chunk {
+
+        private final BulkResultDTO[] results;
+
+        private final List<BulkWrite<E>> writes = new ArrayList<>();
+
+        private final List<Integer> positions = new ArrayList<>();
+
+        private final List<Long> indexes = new ArrayList<>();
+
+        private final List<BulkOperationDTO.Action> actions = new ArrayList<>();
+
+        Chunk(int size) {
+            this.results = new BulkResultDTO[size];
+        }
+
+        void add(int position, long index, BulkOperationDTO.Action action, BulkWrite<E> write) {
+            writes.add(write);
+            positions.add(position);
+            indexes.add(index);
+            actions.add(action);
+        }
+
+        BulkResultDTO succeeded(int write, boolean upsert) {
+            BulkResultDTO.Status status;
+            switch (actions.get(write)) {
+                case CREATE:
+                    status = BulkResultDTO.Status.CREATED;
+                    break;
+                case UPDATE:
+                    status = upsert ? BulkResultDTO.Status.CREATED : BulkResultDTO.Status.UPDATED;
+                    break;
+                default:
+                    status = BulkResultDTO.Status.DELETED;
+            }
+            return BulkResultDTO.succeeded(indexes.get(write), actions.get(write), writes.get(write).getId(), status);
+        }
+
+        BulkResultDTO failed(int write, RuntimeException failure) {
+            return BulkResultDTO.failed(indexes.get(write), actions.get(write), writes.get(write).getId(),
+                errorKey.apply(failure), failure.getMessage());
+        }
+    }
+}
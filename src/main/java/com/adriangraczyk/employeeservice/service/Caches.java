@@ -0,0 +1,72 @@
+package com.adriangraczyk.employeeservice.service;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+/**
+ * The Caffeine caches of the services: {@link EntityCache}, {@link JsonCache} and {@link PageCache}.
+ */
+final class Caches {
+
+    private Caches() {
+    }
+
+    /**
+     * Starts a cache recording its statistics.
+     * <p>
+     * The maintenance of the cache runs in the calling thread, so that evictions and removals are done once a call
+     * returns rather than later in the common pool.
+     *
+     * @param <K> the key type.
+     * @param <V> the value type.
+     * @return the builder of the cache.
+     */
+    @SuppressWarnings("unchecked")
+    static <K, V> Caffeine<K, V> newBuilder() {
+        return (Caffeine<K, V>) Caffeine.newBuilder()
+            .executor(Runnable::run)
+            .recordStats();
+    }
+
+    /**
+     * Binds the statistics of a cache as the {@code cache.*} meters tagged with its name.
+     *
+     * @param meterRegistry the registry of the meters.
+     * @param cache the cache.
+     * @param name the name of the cache.
+     */
+    static void monitor(MeterRegistry meterRegistry, AsyncCache<?, ?> cache, String name) {
+        CaffeineCacheMetrics.monitor(meterRegistry, cache.synchronous(), name);
+    }
+
+    /**
+     * Returns the cached value, or loads it when it is missing or expired.
+     * <p>
+     * Concurrent calls for the same key share a single load. The load is subscribed to outside of the cache, so that
+     * it can read the cache itself. A load that fails or is empty is not kept, and neither is one whose key was
+     * invalidated while it was running.
+     *
+     * @param cache the cache.
+     * @param key the key of the value.
+     * @param loader the load of the value.
+     * @param <K> the key type.
+     * @param <V> the value type.
+     * @return the value, or empty if the load is empty.
+     */
+    static <K, V> Mono<V> get(AsyncCache<K, V> cache, K key, Supplier<Mono<V>> loader) {
+        return Mono.defer(() -> {
+            CompletableFuture<V> created = new CompletableFuture<>();
+            CompletableFuture<V> value = cache.get(key, (k, executor) -> created);
+            if (value == created) {
+                loader.get().subscribe(created::complete, created::completeExceptionally, () -> created.complete(null));
+            }
+            return Mono.fromCompletionStage(value);
+        });
+    }
+}
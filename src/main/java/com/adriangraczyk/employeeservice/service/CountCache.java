@@ -0,0 +1,71 @@
+package com.adriangraczyk.employeeservice.service;
+
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Keeps the total count of a collection for a limited time, for the
+ * {@link com.adriangraczyk.employeeservice.config.ApplicationProperties.CountStrategy#CACHED} count strategy.
+ * <p>
+ * Every local write invalidates the cached value, and a count that started before a write is discarded when it
+ * completes after it. Writes from other instances are only seen once the time to live has elapsed.
+ */
+class CountCache {
+
+    private final long timeToLiveNanos;
+
+    private final AtomicLong generation = new AtomicLong();
+
+    private volatile CachedCount cached;
+
+    CountCache(Duration timeToLive) {
+        this.timeToLiveNanos = timeToLive.toNanos();
+    }
+
+    /**
+     * Returns the cached count, or runs the counter when it is missing, stale or expired.
+     *
+     * @param counter the exact count query.
+     * @return the count.
+     */
+    Mono<Long> get(Supplier<Mono<Long>> counter) {
+        return Mono.defer(() -> {
+            CachedCount current = cached;
+            long currentGeneration = generation.get();
+            if (current != null && current.generation == currentGeneration && System.nanoTime() - current.expiresAt < 0) {
+                return Mono.just(current.count);
+            }
+            return counter.get().doOnNext(count -> {
+                if (generation.get() == currentGeneration) {
+                    cached = new CachedCount(count, currentGeneration, System.nanoTime() + timeToLiveNanos);
+                }
+            });
+        });
+    }
+
+    /**
+     * Drops the cached count after a write.
+     */
+    void invalidate() {
+        generation.incrementAndGet();
+        cached = null;
+    }
+
+    private static final class CachedCount {
+
+        private final long count;
+
+        private final long generation;
+
+        private final long expiresAt;
+
+        private CachedCount(long count, long generation, long expiresAt) {
+            this.count = count;
+            this.generation = generation;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -1,17 +1,63 @@
 package com.adriangraczyk.employeeservice.service;
 
+import com.adriangraczyk.employeeservice.config.ApplicationProperties;
 import com.adriangraczyk.employeeservice.domain.Employee;
+import com.adriangraczyk.employeeservice.domain.enumeration.AddressType;
+import com.adriangraczyk.employeeservice.repository.BulkWrite;
+import com.adriangraczyk.employeeservice.repository.BulkWriteReport;
+import com.adriangraczyk.employeeservice.repository.CollectionVersions;
 import com.adriangraczyk.employeeservice.repository.EmployeeRepository;
+import com.adriangraczyk.employeeservice.repository.Revisions;
+import com.adriangraczyk.employeeservice.repository.KeysetSlice;
+import com.adriangraczyk.employeeservice.repository.MongoTransactions;
+import com.adriangraczyk.employeeservice.service.dto.AddressDTO;
+import com.adriangraczyk.employeeservice.service.dto.BulkOperationDTO;
+import com.adriangraczyk.employeeservice.service.dto.BulkResultDTO;
 import com.adriangraczyk.employeeservice.service.dto.EmployeeDTO;
+import com.adriangraczyk.employeeservice.service.dto.UpdateByFilterDTO;
+import com.adriangraczyk.employeeservice.service.dto.UpdateByFilterResultDTO;
 import com.adriangraczyk.employeeservice.service.mapper.EmployeeMapper;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.bson.types.ObjectId;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import org.springframework.beans.BeanWrapper;
+import org.springframework.beans.PropertyAccessorFactory;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.validation.Validator;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
 
 /**
  * Service Implementation for managing {@link Employee}.
@@ -21,26 +67,370 @@ public class EmployeeService {
 
     private final Logger log = LoggerFactory.getLogger(EmployeeService.class);
 
+    /**
+     * The properties which can select the employees of an update by filter.
+     */
+    private static final List<String> FILTER_PROPERTIES = Arrays.asList("firstName", "lastName", "age", "role");
+
+    /**
+     * The properties which can be updated by filter.
+     */
+    private static final List<String> UPDATE_PROPERTIES = Collections.singletonList("role");
+
+    /**
+     * The properties which can be selected by a sparse fieldset.
+     */
+    private static final List<String> SELECTABLE_PROPERTIES = Arrays.asList("firstName", "lastName", "age", "pESEL", "role");
+
     private final EmployeeRepository employeeRepository;
 
     private final EmployeeMapper employeeMapper;
 
-    public EmployeeService(EmployeeRepository employeeRepository, EmployeeMapper employeeMapper) {
+    private final AddressService addressService;
+
+    private final MongoTransactions mongoTransactions;
+
+    private final CollectionVersions collectionVersions;
+
+    private final ApplicationProperties.Pagination pagination;
+
+    private final ApplicationProperties.Batch batch;
+
+    private final CountCache countCache;
+
+    private final EntityCache<Employee> entityCache;
+
+    private final ReadCoalescer<Employee> readCoalescer;
+
+    private final JsonCache jsonCache;
+
+    private final PageCache<Slice<EmployeeDTO>> pageCache;
+
+    private final ObjectWriter dtoWriter;
+
+    private final boolean embeddedAddresses;
+
+    private final BulkOperationRunner<EmployeeDTO, Employee> bulkOperations;
+
+    private final WriteCoalescer<Employee> writeCoalescer;
+
+    private final MergePatch<EmployeeDTO> mergePatch;
+
+    private final FilterUpdate<EmployeeDTO> filterUpdate;
+
+    private final SparseFields<EmployeeDTO> sparseFields;
+
+    private final Counter writtenUpdates;
+
+    private final Counter elidedUpdates;
+
+    public EmployeeService(EmployeeRepository employeeRepository, EmployeeMapper employeeMapper, AddressService addressService,
+                           MongoTransactions mongoTransactions, CollectionVersions collectionVersions,
+                           ApplicationProperties applicationProperties, Validator validator, MeterRegistry meterRegistry,
+                           ObjectMapper objectMapper) {
         this.employeeRepository = employeeRepository;
         this.employeeMapper = employeeMapper;
+        this.addressService = addressService;
+        this.mongoTransactions = mongoTransactions;
+        this.collectionVersions = collectionVersions;
+        this.pagination = applicationProperties.getPagination();
+        this.batch = applicationProperties.getBatch();
+        this.countCache = new CountCache(pagination.getCountCacheTimeToLive());
+        ApplicationProperties.EntityCache entityCacheProperties = applicationProperties.getEntityCache();
+        this.entityCache = new EntityCache<>("employee", entityCacheProperties.getMaximumSize(), entityCacheProperties.getTimeToLive(),
+            entityCacheProperties.getNegativeTimeToLive(), meterRegistry);
+        ApplicationProperties.JsonCache jsonCacheProperties = applicationProperties.getJsonCache();
+        this.jsonCache = new JsonCache("employee.json", jsonCacheProperties.isEnabled() ? jsonCacheProperties.getMaximumSize().toBytes() : 0,
+            entityCacheProperties.getTimeToLive(), meterRegistry);
+        this.entityCache.addListener(jsonCache);
+        ApplicationProperties.PageCache pageCacheProperties = applicationProperties.getPageCache();
+        this.pageCache = new PageCache<>("employee.page", pageCacheProperties.isEnabled() ? pageCacheProperties.getMaximumSize() : 0,
+            meterRegistry);
+        this.dtoWriter = objectMapper.writerFor(EmployeeDTO.class);
+        ApplicationProperties.ReadCoalescing readCoalescing = applicationProperties.getReadCoalescing();
+        this.readCoalescer = readCoalescing.isEnabled()
+            ? new ReadCoalescer<>("employee.find", readCoalescing.getWindow(), readCoalescing.getMaxBatchSize(),
+                employeeRepository::findAllByIdIn, Employee::getId, meterRegistry)
+            : null;
+        this.embeddedAddresses = applicationProperties.getAddresses().getStorage() == ApplicationProperties.AddressStorage.EMBEDDED;
+        this.bulkOperations = new BulkOperationRunner<>(validator, batch.getBulkChunkSize(), EmployeeDTO::getId,
+            employeeDTO -> toWrite(employeeMapper.toEntity(employeeDTO)),
+            writes -> collectionVersions.incrementAfter(Employee.class, bulkWrite(writes)).doOnSuccess(report -> {
+                countCache.invalidate();
+                writes.forEach(write -> entityCache.invalidate(write.getId()));
+            }),
+            failure -> failure instanceof DuplicateKeyException ? "error.peselexists" : "error.writefailed");
+        ApplicationProperties.WriteCoalescing writeCoalescing = applicationProperties.getWriteCoalescing();
+        this.writeCoalescer = writeCoalescing.isEnabled()
+            ? new WriteCoalescer<>("employee.save", writeCoalescing.getWindow(), writeCoalescing.getMaxBatchSize(),
+                employeeRepository::bulkWrite, meterRegistry)
+            : null;
+        this.mergePatch = new MergePatch<>(objectMapper, validator, EmployeeDTO.class, "addresses");
+        this.filterUpdate = new FilterUpdate<>(objectMapper, validator, EmployeeDTO.class, FILTER_PROPERTIES, UPDATE_PROPERTIES);
+        this.sparseFields = new SparseFields<>(objectMapper, EmployeeDTO.class, SELECTABLE_PROPERTIES);
+        this.writtenUpdates = Counter.builder("employee.update").description("Employee updates by whether they were written")
+            .tag("result", "written").register(meterRegistry);
+        this.elidedUpdates = Counter.builder("employee.update").description("Employee updates by whether they were written")
+            .tag("result", "elided").register(meterRegistry);
+    }
+
+    /**
+     * Invalidate the cached employees written by other instances, when the deployment has change streams.
+     */
+    @PostConstruct
+    public void watchChanges() {
+        entityCache.watch(mongoTransactions.isSupported(), employeeRepository.watchChangedIds());
+    }
+
+    @PreDestroy
+    public void completeCoalescedWrites() {
+        entityCache.close();
+        jsonCache.invalidatedAll();
+        if (readCoalescer != null) {
+            readCoalescer.complete();
+        }
+        if (writeCoalescer != null) {
+            writeCoalescer.complete();
+        }
     }
 
     /**
      * Save a employee.
+     * <p>
+     * With write coalescing, the save is sent with the other saves of the same window in one {@code bulkWrite}.
      *
      * @param employeeDTO the entity to save.
      * @return the persisted entity.
      */
     public Mono<EmployeeDTO> save(EmployeeDTO employeeDTO) {
         log.debug("Request to save Employee : {}", employeeDTO);
-        return employeeRepository.save(employeeMapper.toEntity(employeeDTO))
-            .map(employeeMapper::toDto)
-;    }
+        return write(employeeMapper.toEntity(employeeDTO))
+            .map(employeeMapper::toDto);
+    }
+
+    /**
+     * Create a new employee with its addresses, with a single write per collection.
+     * <p>
+     * Embedded addresses are inserted with the document of the employee. Otherwise the employee is inserted, then its
+     * addresses with one {@code bulkWrite}, in a transaction when the deployment supports them, or else deleted again if
+     * the addresses could not all be inserted.
+     *
+     * @param employeeDTO the new entity, with its new addresses.
+     * @return the persisted entity, with its addresses.
+     */
+    public Mono<EmployeeDTO> createWithAddresses(EmployeeDTO employeeDTO) {
+        log.debug("Request to create Employee with Addresses : {}", employeeDTO);
+        Employee employee = employeeMapper.toEntity(employeeDTO);
+        employee.setId(new ObjectId().toHexString());
+        List<AddressDTO> addresses = employeeDTO.getAddresses() == null ? new ArrayList<>() : employeeDTO.getAddresses();
+        addresses.forEach(address -> {
+            address.setId(new ObjectId().toHexString());
+            address.setEmployeeId(employee.getId());
+        });
+        Mono<List<AddressDTO>> created;
+        if (embeddedAddresses) {
+            created = addressService.insertEmbeddedWithEmployee(employee, addresses);
+        } else {
+            Mono<Void> compensation = employeeRepository.deleteById(employee.getId())
+                .then(addressService.deleteAll(addresses.stream().map(AddressDTO::getId).collect(Collectors.toList())));
+            // the transaction only writes the documents, the versions are incremented once it is committed
+            created = addressService.afterAddressesWrite(
+                mongoTransactions.execute(employeeRepository.insert(employee).then(addressService.insertAll(addresses)), compensation));
+        }
+        return collectionVersions.incrementAfter(Employee.class, created)
+            .doOnSuccess(inserted -> countCache.invalidate())
+            .map(inserted -> {
+                EmployeeDTO result = employeeMapper.toDto(employee);
+                result.setAddresses(inserted);
+                return result;
+            });
+    }
+
+    /**
+     * Update a employee, skipping the write when the stored employee is already the same.
+     * <p>
+     * Comparing costs a read by id, which is much cheaper than a write replicated through the oplog for the updates
+     * which are mostly identical, as those of a periodic synchronization.
+     *
+     * @param employeeDTO the entity to update.
+     * @return the persisted entity, and whether it was written.
+     */
+    public Mono<SaveResult<EmployeeDTO>> update(EmployeeDTO employeeDTO) {
+        log.debug("Request to update Employee : {}", employeeDTO);
+        Employee employee = employeeMapper.toEntity(employeeDTO);
+        return employeeRepository.isUnchanged(employee)
+            .flatMap(unchanged -> {
+                if (unchanged) {
+                    elidedUpdates.increment();
+                    return Mono.just(new SaveResult<>(employeeMapper.toDto(employee), false));
+                }
+                writtenUpdates.increment();
+                return write(employee).map(saved -> new SaveResult<>(employeeMapper.toDto(saved), true));
+            });
+    }
+
+    /**
+     * Update a employee, only if the stored employee is still at a revision when it is written.
+     * <p>
+     * The revision is in the filter of the write itself, so the stored employee is not read before. A conditional
+     * update is always written.
+     *
+     * @param employeeDTO the entity to update.
+     * @param revision the revision of the stored employee, as in {@link EmployeeDTO#getRevision()}, {@code null} if it
+     * has none, or {@link Revisions#ANY} if it only has to exist.
+     * @return the persisted entity with its new revision, and whether it was written, or an
+     * {@link OptimisticLockingFailureException} if the stored employee does not exist or is not at the revision.
+     */
+    public Mono<SaveResult<EmployeeDTO>> update(EmployeeDTO employeeDTO, String revision) {
+        log.debug("Request to update Employee at revision {} : {}", revision, employeeDTO);
+        Employee employee = employeeMapper.toEntity(employeeDTO);
+        writtenUpdates.increment();
+        Mono<Boolean> replaced = embeddedAddresses
+            ? employeeRepository.saveKeepingEmbeddedAddressesIfRevision(employee, revision)
+            : employeeRepository.replaceIfRevision(employee, revision);
+        return written(replaced.flatMap(matched -> matched ? Mono.just(employee) : Mono.error(preconditionFailed(employee.getId()))))
+            .map(saved -> new SaveResult<>(employeeMapper.toDto(saved), true));
+    }
+
+    private Mono<Employee> write(Employee employee) {
+        if (writeCoalescer != null) {
+            return written(writeCoalescer.write(toWrite(employee)));
+        }
+        return written(embeddedAddresses ? employeeRepository.saveKeepingEmbeddedAddresses(employee) : employeeRepository.save(employee));
+    }
+
+    private Mono<Employee> written(Mono<Employee> write) {
+        return collectionVersions.incrementAfter(Employee.class, write).doOnSuccess(saved -> {
+            countCache.invalidate();
+            entityCache.invalidate(saved.getId());
+        });
+    }
+
+    /**
+     * Update some fields of a employee with a JSON Merge Patch, in a single {@code findAndModify}.
+     *
+     * @param id the id of the entity.
+     * @param patch the JSON Merge Patch of its DTO; only the patched fields are validated.
+     * @return the updated entity, empty if it does not exist, or an {@link IllegalArgumentException} if the patch is not valid.
+     */
+    public Mono<EmployeeDTO> partialUpdate(String id, ObjectNode patch) {
+        return partialUpdate(id, patch, employeeRepository.findById(id), fields -> employeeRepository.findAndUpdateFields(id, fields));
+    }
+
+    /**
+     * Update some fields of a employee with a JSON Merge Patch, only if the stored employee is still at a revision when
+     * it is written, as {@link #update(EmployeeDTO, String)} does.
+     *
+     * @param id the id of the entity.
+     * @param patch the JSON Merge Patch of its DTO; only the patched fields are validated.
+     * @param revision the revision of the stored employee, {@code null} if it has none, or {@link Revisions#ANY}.
+     * @return the updated entity, an {@link IllegalArgumentException} if the patch is not valid, or an
+     * {@link OptimisticLockingFailureException} if the stored employee does not exist or is not at the revision.
+     */
+    public Mono<EmployeeDTO> partialUpdate(String id, ObjectNode patch, String revision) {
+        Mono<Employee> unpatched = employeeRepository.findById(id)
+            .filter(stored -> Revisions.matches(revision, stored.getRevision()))
+            .switchIfEmpty(Mono.error(() -> preconditionFailed(id)));
+        return partialUpdate(id, patch, unpatched, fields -> employeeRepository.findAndUpdateFieldsIfRevision(id, fields, revision)
+            .switchIfEmpty(Mono.error(() -> preconditionFailed(id))));
+    }
+
+    /**
+     * Applies a JSON Merge Patch with the given update of the patched fields, or returns the stored employee when the
+     * patch changes none.
+     */
+    private Mono<EmployeeDTO> partialUpdate(String id, ObjectNode patch, Mono<Employee> unpatched,
+                                            Function<Map<String, Object>, Mono<Employee>> update) {
+        log.debug("Request to partially update Employee {} : {}", id, patch);
+        return Mono.fromCallable(() -> employeeMapper.toEntity(mergePatch.read(patch)))
+            .flatMap(values -> {
+                Set<String> properties = mergePatch.patchedProperties(patch);
+                if (properties.isEmpty()) {
+                    return unpatched;
+                }
+                BeanWrapper entity = PropertyAccessorFactory.forBeanPropertyAccess(values);
+                Map<String, Object> fields = new HashMap<>();
+                properties.forEach(property -> fields.put(property, entity.getPropertyValue(property)));
+                return collectionVersions.incrementAfter(Employee.class, update.apply(fields))
+                    .doOnSuccess(updated -> entityCache.invalidate(id));
+            })
+            .map(employeeMapper::toDto);
+    }
+
+    /**
+     * Update all the employees matching a filter, with a single {@code updateMany}.
+     *
+     * @param updateByFilter the filter and the update, on whitelisted properties.
+     * @return the numbers of matched and modified employees, or only the number of matching ones for a dry run, or an
+     * {@link IllegalArgumentException} if the filter or the update is not valid.
+     */
+    public Mono<UpdateByFilterResultDTO> updateByFilter(UpdateByFilterDTO updateByFilter) {
+        log.debug("Request to update Employees by filter : {}", updateByFilter);
+        return Mono.fromCallable(() -> filterUpdate.readFilter(updateByFilter.getFilter()))
+            .flatMap(filter -> {
+                Map<String, Object> fields = filterUpdate.readUpdate(updateByFilter.getSet());
+                if (updateByFilter.isDryRun()) {
+                    return employeeRepository.countByFields(filter).map(UpdateByFilterResultDTO::dryRun);
+                }
+                return collectionVersions.incrementAfter(Employee.class, employeeRepository.updateAllByFields(filter, fields))
+                    .doOnSuccess(result -> entityCache.invalidateAll())
+                    .map(result -> UpdateByFilterResultDTO.updated(result.getMatchedCount(), result.getModifiedCount()));
+            });
+    }
+
+    /**
+     * Create, update and delete employees in bulk, with one unordered {@code bulkWrite} per chunk of operations.
+     *
+     * @param operations the operations.
+     * @return the result of each operation, in the same order.
+     */
+    public Flux<BulkResultDTO> bulk(Flux<BulkOperationDTO<EmployeeDTO>> operations) {
+        log.debug("Request to run bulk operations on Employees");
+        return bulkOperations.run(operations);
+    }
+
+    /**
+     * Send the writes of a chunk of bulk operations, deleting the addresses of the deleted employees as {@link #delete}
+     * does.
+     * <p>
+     * Referenced addresses are deleted after the chunk with a single {@code deleteMany}, out of a transaction since
+     * a failed operation would abort the others. The addresses left by a failure are orphans, which the orphan sweeper
+     * of {@link AddressService} deletes later.
+     */
+    private Mono<BulkWriteReport> bulkWrite(List<BulkWrite<Employee>> writes) {
+        if (writes.stream().noneMatch(write -> write.getType() == BulkWrite.Type.DELETE)) {
+            return employeeRepository.bulkWrite(writes);
+        }
+        if (embeddedAddresses) {
+            return addressService.afterAddressesWrite(employeeRepository.bulkWrite(writes));
+        }
+        return employeeRepository.bulkWrite(writes).flatMap(report -> {
+            List<String> deletedIds = IntStream.range(0, writes.size())
+                .filter(i -> writes.get(i).getType() == BulkWrite.Type.DELETE && !report.getFailure(i).isPresent())
+                .mapToObj(i -> writes.get(i).getId())
+                .collect(Collectors.toList());
+            if (deletedIds.isEmpty()) {
+                return Mono.just(report);
+            }
+            return addressService.deleteAllByEmployeeIds(deletedIds)
+                .onErrorResume(e -> {
+                    log.warn("Deleting the addresses of {} deleted employees failed: {}", deletedIds.size(), e.getMessage());
+                    return Mono.empty();
+                })
+                .thenReturn(report);
+        });
+    }
+
+    /**
+     * The write saving the employee as {@link #save} does, inserting it with a new id when it has none.
+     */
+    private BulkWrite<Employee> toWrite(Employee employee) {
+        if (employee.getId() == null) {
+            employee.setId(new ObjectId().toHexString());
+            return BulkWrite.insert(employee.getId(), employee);
+        }
+        return embeddedAddresses ? BulkWrite.update(employee.getId(), employee) : BulkWrite.replace(employee.getId(), employee);
+    }
 
     /**
      * Get all the employees.
@@ -54,6 +444,173 @@ public class EmployeeService {
             .map(employeeMapper::toDto);
     }
 
+    /**
+     * Stream all the employees in the order of their ids, from a single cursor read as fast as they are consumed.
+     *
+     * @param afterId the id of the last employee already read, or {@code null} to start from the first one.
+     * @param fields the properties to read, from {@link #selectFields}.
+     * @return the employees, or an {@link IllegalArgumentException} if the id is not valid.
+     */
+    public Flux<EmployeeDTO> streamAll(String afterId, FieldSelection fields) {
+        log.debug("Request to stream all Employees after : {}", afterId);
+        if (afterId != null && !ObjectId.isValid(afterId)) {
+            return Flux.error(new IllegalArgumentException("The id " + afterId + " is not valid"));
+        }
+        return employeeRepository.streamAllAfter(afterId, fields.getProperties(), batch.getStreamBatchSize())
+            .map(employeeMapper::toDto);
+    }
+
+    /**
+     * Read a sparse fieldset of the employees.
+     *
+     * @param fields the names of the properties to read, or {@code null} or empty for all of them.
+     * @return the selection, or an {@link IllegalArgumentException} if a property cannot be selected.
+     */
+    public FieldSelection selectFields(List<String> fields) {
+        return sparseFields.select(fields);
+    }
+
+    /**
+     * Set the addresses of the given employees, fetched with a single query for all of them.
+     *
+     * @param employees the employees to complete.
+     * @return a Mono completing once their addresses are set.
+     */
+    public Mono<Void> includeAddresses(Collection<EmployeeDTO> employees) {
+        Set<String> employeeIds = employees.stream().map(EmployeeDTO::getId).collect(Collectors.toSet());
+        return addressService.findAllByEmployeeIds(employeeIds)
+            .collectMultimap(AddressDTO::getEmployeeId)
+            .doOnNext(addresses -> employees.forEach(employee ->
+                employee.setAddresses(new ArrayList<>(addresses.getOrDefault(employee.getId(), Collections.emptyList())))))
+            .then();
+    }
+
+    /**
+     * Get the addresses of a employee, optionally of a given type.
+     *
+     * @param id the id of the entity.
+     * @param addressType the type of the addresses, or {@code null} for all of them.
+     * @return its addresses, or an {@link EmptyResultDataAccessException} if the entity does not exist.
+     */
+    public Flux<AddressDTO> findAddresses(String id, AddressType addressType) {
+        log.debug("Request to get the Addresses of Employee : {}", id);
+        return addressService.findAllByEmployeeId(id, addressType)
+            .switchIfEmpty(employeeRepository.existsById(id)
+                .flatMapMany(exists -> exists ? Flux.empty() : Flux.error(new EmptyResultDataAccessException("Employee " + id + " does not exist", 1))));
+    }
+
+    /**
+     * Get the employees with the given ids, with a single query reading only the selected properties.
+     *
+     * @param ids the ids of the entities; blank and repeated ids are ignored.
+     * @param fields the properties to read, from {@link #selectFields}.
+     * @return the entities found, in the order of the ids, or an {@link IllegalArgumentException} if there are more ids than the configured maximum.
+     */
+    public Mono<List<EmployeeDTO>> findAllById(Collection<String> ids, FieldSelection fields) {
+        log.debug("Request to get Employees : {}", ids);
+        Set<String> distinctIds = ids.stream().filter(StringUtils::hasText).collect(Collectors.toCollection(LinkedHashSet::new));
+        if (distinctIds.size() > batch.getMaxIds()) {
+            return Mono.error(new IllegalArgumentException("At most " + batch.getMaxIds() + " ids can be fetched at once"));
+        }
+        if (distinctIds.isEmpty()) {
+            return Mono.just(Collections.emptyList());
+        }
+        return employeeRepository.findAllByIdIn(distinctIds, fields.getProperties())
+            .collectMap(Employee::getId, employeeMapper::toDto)
+            .map(found -> distinctIds.stream().map(found::get).filter(Objects::nonNull).collect(Collectors.toList()));
+    }
+
+    /**
+     * Get a page of employees, counted with the configured {@link ApplicationProperties.CountStrategy}.
+     *
+     * @param pageable the pagination information.
+     * @return a {@link org.springframework.data.domain.Page} of entities, or only a {@link Slice} when they are not counted.
+     */
+    public Mono<Slice<EmployeeDTO>> findPage(Pageable pageable) {
+        return findPage(pageable, FieldSelection.all());
+    }
+
+    /**
+     * Get a page of employees reading only the selected properties, counted with the configured
+     * {@link ApplicationProperties.CountStrategy}.
+     * <p>
+     * Unlike the pages of whole employees, these pages are not cached.
+     *
+     * @param pageable the pagination information.
+     * @param fields the properties to read, from {@link #selectFields}.
+     * @return a {@link org.springframework.data.domain.Page} of entities, or only a {@link Slice} when they are not counted.
+     */
+    public Mono<Slice<EmployeeDTO>> findPage(Pageable pageable, FieldSelection fields) {
+        log.debug("Request to get a page of Employees counted with strategy : {}", pagination.getCountStrategy());
+        Set<String> properties = fields.getProperties();
+        Mono<? extends Slice<Employee>> page;
+        switch (pagination.getCountStrategy()) {
+            case NONE:
+                page = employeeRepository.findSliceBy(pageable, properties);
+                break;
+            case ESTIMATED:
+                page = Mono.zip(employeeRepository.findAllBy(pageable, properties).collectList(), employeeRepository.estimatedCount(),
+                    (content, total) -> new PageImpl<>(content, pageable, total));
+                break;
+            case CACHED:
+                page = Mono.zip(employeeRepository.findAllBy(pageable, properties).collectList(), countCache.get(employeeRepository::count),
+                    (content, total) -> new PageImpl<>(content, pageable, total));
+                break;
+            default:
+                page = employeeRepository.findPageWithCount(pageable, properties);
+        }
+        return page.map(slice -> slice.map(employeeMapper::toDto));
+    }
+
+    /**
+     * Get a page of employees, optionally with their addresses, from the cache of the pages read at the same
+     * collection versions when it is there.
+     *
+     * @param pageable the pagination information.
+     * @param includeAddresses whether to include the addresses of the employees.
+     * @param versions the current versions of the collections read, from {@link #getVersions}.
+     * @return the page, shared with the other reads of the same page, so that its employees must not be modified.
+     */
+    public Mono<Slice<EmployeeDTO>> findPage(Pageable pageable, boolean includeAddresses, List<Long> versions) {
+        return pageCache.get(PageCache.key(pageable, includeAddresses, pagination.getCountStrategy()), versions, () -> findPage(pageable)
+            .flatMap(page -> includeAddresses ? includeAddresses(page.getContent()).thenReturn(page) : Mono.just(page)));
+    }
+
+    /**
+     * Count the employees for a page whose content is then streamed from the cursor with {@link #findAll(Pageable)},
+     * which is only done when the count strategy counts them apart from the content and the pages are not cached.
+     *
+     * @param includeAddresses whether the listing includes the addresses of the employees, which needs the whole page.
+     * @return the total number of employees, or empty if the page must be read with {@link #findPage} instead.
+     */
+    public Mono<Long> countForStreamedPage(boolean includeAddresses) {
+        if (includeAddresses || pageCache.isEnabled()) {
+            return Mono.empty();
+        }
+        switch (pagination.getCountStrategy()) {
+            case ESTIMATED:
+                return employeeRepository.estimatedCount();
+            case CACHED:
+                return countCache.get(employeeRepository::count);
+            default:
+                return Mono.empty();
+        }
+    }
+
+    /**
+     * Get the slice of employees following the given cursor, reading only the selected properties.
+     *
+     * @param cursor the cursor returned with the previous slice, or an empty string for the first slice.
+     * @param pageable the size and sort of the slice.
+     * @param fields the properties to read, from {@link #selectFields}.
+     * @return the slice of entities.
+     */
+    public Mono<KeysetSlice<EmployeeDTO>> findAllAfter(String cursor, Pageable pageable, FieldSelection fields) {
+        log.debug("Request to get a slice of Employees after cursor : {}", cursor);
+        return employeeRepository.findSliceAfter(cursor, pageable, fields.getProperties())
+            .map(slice -> slice.map(employeeMapper::toDto));
+    }
+
 
     /**
      * Returns the number of employees available.
@@ -64,23 +621,120 @@ public class EmployeeService {
     }
 
     /**
-     * Get one employee by id.
+     * Get one employee by id, from the cache of the employees recently read when it is there.
+     * <p>
+     * With read coalescing, a miss is fetched with the other misses of the same window in one {@code $in} query.
      *
      * @param id the id of the entity.
      * @return the entity.
      */
     public Mono<EmployeeDTO> findOne(String id) {
         log.debug("Request to get Employee : {}", id);
-        return employeeRepository.findById(id)
+        return entityCache.get(id, readCoalescer != null ? readCoalescer::read : employeeRepository::findById)
             .map(employeeMapper::toDto);
     }
 
     /**
-     * Delete the employee by id.
+     * Get one employee by id, reading only the selected properties, bypassing the cache of the whole employees.
+     *
+     * @param id the id of the entity.
+     * @param fields the properties to read, from {@link #selectFields}.
+     * @return the entity.
+     */
+    public Mono<EmployeeDTO> findOne(String id, FieldSelection fields) {
+        if (fields.isAll()) {
+            return findOne(id);
+        }
+        log.debug("Request to get the fields {} of Employee : {}", fields.getProperties(), id);
+        return employeeRepository.findAllByIdIn(Collections.singleton(id), fields.getProperties())
+            .next()
+            .map(employeeMapper::toDto);
+    }
+
+    /**
+     * Get the versions of the collections a listing of employees is read from, incremented after each of their writes.
+     *
+     * @param includeAddresses whether the listing includes the addresses of the employees.
+     * @return the version of the employees, followed by the version of the addresses if they are included.
+     */
+    public Mono<List<Long>> getVersions(boolean includeAddresses) {
+        Mono<Long> employeeVersion = collectionVersions.get(Employee.class);
+        return includeAddresses
+            ? Mono.zip(employeeVersion, addressService.getVersion()).map(versions -> Arrays.asList(versions.getT1(), versions.getT2()))
+            : employeeVersion.map(Collections::singletonList);
+    }
+
+    /**
+     * Get one employee by id, as the JSON of its DTO, from the cache of the encoded employees when it is there at the
+     * current revision of the employee.
+     * <p>
+     * With the cache, only the revision is read first. The JSON missing from the cache is encoded from the employee
+     * read without the cache of the whole employees, which could be at an older revision.
+     *
+     * @param id the id of the entity.
+     * @return the JSON of the entity and its revision, to be released once written.
+     */
+    public Mono<EncodedJson> findOneAsJson(String id) {
+        log.debug("Request to get Employee as JSON : {}", id);
+        if (!jsonCache.isEnabled()) {
+            return findOne(id).map(employeeDTO -> new EncodedJson(employeeDTO.getRevision(), encode(employeeDTO)));
+        }
+        return employeeRepository.findRevisionById(id)
+            .flatMap(current -> jsonCache.get(id, current.getRevision(), this::encodeStored));
+    }
+
+    private Mono<EncodedJson> encodeStored(String id) {
+        return (readCoalescer != null ? readCoalescer.read(id) : employeeRepository.findById(id))
+            .map(employee -> new EncodedJson(employee.getRevision(), encode(employeeMapper.toDto(employee))));
+    }
+
+    private byte[] encode(EmployeeDTO employeeDTO) {
+        try {
+            return dtoWriter.writeValueAsBytes(employeeDTO);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("The employee " + employeeDTO.getId() + " cannot be encoded", e);
+        }
+    }
+
+    /**
+     * Delete the employee by id, with its addresses.
+     * <p>
+     * Referenced addresses are deleted with a single {@code deleteMany} after the employee, in the same transaction when
+     * the deployment supports them. Without one, the addresses left by a failure are orphans, which the orphan sweeper
+     * of {@link AddressService} deletes later.
      *
      * @param id the id of the entity.
      */
     public Mono<Void> delete(String id) {
+        return delete(id, employeeRepository.deleteById(id));
+    }
+
+    /**
+     * Delete the employee by id, with its addresses, only if the stored employee is still at a revision when it is
+     * deleted, as {@link #update(EmployeeDTO, String)} does.
+     *
+     * @param id the id of the entity.
+     * @param revision the revision of the stored employee, {@code null} if it has none, or {@link Revisions#ANY}.
+     * @return a Mono completing once deleted, or an {@link OptimisticLockingFailureException} if the stored employee does
+     * not exist or is not at the revision.
+     */
+    public Mono<Void> delete(String id, String revision) {
+        return delete(id, employeeRepository.deleteByIdAndRevision(id, revision)
+            .flatMap(matched -> matched ? Mono.<Void>empty() : Mono.error(preconditionFailed(id))));
+    }
+
+    private Mono<Void> delete(String id, Mono<Void> employeeDeleted) {
         log.debug("Request to delete Employee : {}", id);
-        return employeeRepository.deleteById(id);    }
+        Mono<Void> deleted = addressService.afterAddressesWrite(embeddedAddresses ? employeeDeleted
+            : mongoTransactions.execute(employeeDeleted.then(addressService.deleteAllByEmployeeId(id)), Mono.empty()));
+        return collectionVersions.incrementAfter(Employee.class, deleted)
+            .doOnSuccess(result -> {
+                countCache.invalidate();
+                entityCache.invalidate(id);
+            });
+    }
+
+    private static OptimisticLockingFailureException preconditionFailed(String id) {
+        return new OptimisticLockingFailureException("The employee " + id + " is not at the expected revision");
+    }
 }
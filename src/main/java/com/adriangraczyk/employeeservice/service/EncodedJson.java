@@ -0,0 +1,39 @@
+package com.adriangraczyk.employeeservice.service;
+
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+
+/**
+ * The JSON of an entity, with the revision it was encoded at, which is its entity tag.
+ */
+public class EncodedJson {
+
+    private static final DefaultDataBufferFactory HEAP_BUFFERS = new DefaultDataBufferFactory();
+
+    private final String revision;
+
+    private final DataBuffer content;
+
+    EncodedJson(String revision, byte[] json) {
+        this(revision, HEAP_BUFFERS.wrap(json));
+    }
+
+    EncodedJson(String revision, DataBuffer content) {
+        this.revision = revision;
+        this.content = content;
+    }
+
+    /**
+     * Returns the revision of the entity, {@code null} if it has none.
+     */
+    public String getRevision() {
+        return revision;
+    }
+
+    /**
+     * Returns the JSON of the entity, to be released once written.
+     */
+    public DataBuffer getContent() {
+        return content;
+    }
+}
@@ -0,0 +1,206 @@
+package com.adriangraczyk.employeeservice.service;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Keeps the entities read by id for a limited time, for the {@code application.entity-cache} option.
+ * <p>
+ * The cache is a Caffeine {@link AsyncCache} holding at most a maximum number of entities, evicted by its W-TinyLFU
+ * policy beyond it. Concurrent reads of the same id share a single load. Missing entities are cached too, for a much
+ * shorter time, so that repeated reads of unknown ids do not all reach the database.
+ * <p>
+ * Every local write invalidates the entities it changed, and a load that started before an invalidation is not kept.
+ * Writes from other instances are seen through {@link #watch}, or else once the time to live has elapsed.
+ * <p>
+ * Caches derived from the entities, as {@link JsonCache}, follow the same invalidations through {@link #addListener}.
+ * <p>
+ * The statistics of the cache are bound with {@link CaffeineCacheMetrics}, as the {@code cache.*} meters tagged with
+ * the name of the cache.
+ *
+ * @param <V> the entity type.
+ */
+class EntityCache<V> {
+
+    private static final Logger log = LoggerFactory.getLogger(EntityCache.class);
+
+    private static final Duration FIRST_WATCH_BACKOFF = Duration.ofSeconds(1);
+
+    private static final Duration MAX_WATCH_BACKOFF = Duration.ofMinutes(1);
+
+    private final String name;
+
+    /**
+     * The entities, or {@code null} when the cache is disabled.
+     */
+    private final AsyncCache<String, Optional<V>> entries;
+
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+
+    private volatile Disposable watch;
+
+    /**
+     * @param name the name of the cache, in the tags of its meters.
+     * @param maximumSize the number of entities kept, {@code 0} to disable the cache.
+     * @param timeToLive how long an entity is kept after being loaded.
+     * @param negativeTimeToLive how long a missing entity is known to be missing.
+     * @param meterRegistry the registry of the meters.
+     */
+    EntityCache(String name, int maximumSize, Duration timeToLive, Duration negativeTimeToLive, MeterRegistry meterRegistry) {
+        this.name = name;
+        if (maximumSize <= 0) {
+            this.entries = null;
+            return;
+        }
+        this.entries = Caches.<String, Optional<V>>newBuilder()
+            .maximumSize(maximumSize)
+            .expireAfter(new Expiry<String, Optional<V>>() {
+                @Override
+                public long expireAfterCreate(String id, Optional<V> entity, long currentTime) {
+                    return (entity.isPresent() ? timeToLive : negativeTimeToLive).toNanos();
+                }
+
+                @Override
+                public long expireAfterUpdate(String id, Optional<V> entity, long currentTime, long currentDuration) {
+                    return expireAfterCreate(id, entity, currentTime);
+                }
+
+                @Override
+                public long expireAfterRead(String id, Optional<V> entity, long currentTime, long currentDuration) {
+                    return currentDuration;
+                }
+            })
+            .buildAsync();
+        Caches.monitor(meterRegistry, entries, name);
+    }
+
+    /**
+     * Returns the cached entity, or loads it when it is missing or expired.
+     *
+     * @param id the id of the entity.
+     * @param loader the query of an entity by id.
+     * @return the entity, or empty if it does not exist.
+     */
+    Mono<V> get(String id, Function<String, Mono<V>> loader) {
+        if (entries == null) {
+            return loader.apply(id);
+        }
+        return Caches.get(entries, id, () -> loader.apply(id).map(Optional::of).defaultIfEmpty(Optional.empty()))
+            .flatMap(Mono::justOrEmpty);
+    }
+
+    /**
+     * Drops an entity after a write.
+     *
+     * @param id the id of the entity.
+     */
+    void invalidate(String id) {
+        if (entries != null) {
+            entries.synchronous().invalidate(id);
+        }
+        listeners.forEach(listener -> listener.invalidated(id));
+    }
+
+    /**
+     * Drops all the entities, after a write whose entities are not known one by one.
+     */
+    void invalidateAll() {
+        if (entries != null) {
+            entries.synchronous().invalidateAll();
+        }
+        listeners.forEach(Listener::invalidatedAll);
+    }
+
+    /**
+     * Invalidate a derived cache along with this one.
+     *
+     * @param listener the derived cache.
+     */
+    void addListener(Listener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Invalidate the entities changed by other instances, as long as the cache is open.
+     * <p>
+     * The cache is emptied each time the changes are (re)subscribed to, since changes may have been missed in between.
+     * A failed subscription is retried with an exponential backoff.
+     *
+     * @param available whether the changes can be watched.
+     * @param changedIds the ids of the changed entities.
+     */
+    void watch(Mono<Boolean> available, Flux<String> changedIds) {
+        watch(available, changedIds, this::invalidate);
+    }
+
+    /**
+     * Invalidate all the entities on each change made by other instances, as long as the cache is open, when the
+     * changed entities cannot be told from the changes.
+     *
+     * @param available whether the changes can be watched.
+     * @param changes the changes.
+     */
+    void watchAll(Mono<Boolean> available, Flux<?> changes) {
+        watch(available, changes, change -> invalidateAll());
+    }
+
+    private <C> void watch(Mono<Boolean> available, Flux<C> changes, Consumer<C> invalidation) {
+        if (entries == null && listeners.isEmpty()) {
+            return;
+        }
+        watch = available
+            .filter(Boolean::booleanValue)
+            .flatMapMany(watched -> changes
+                .doOnSubscribe(subscription -> {
+                    log.debug("Watching the changes of the {} cache", name);
+                    invalidateAll();
+                })
+                .doOnError(e -> log.warn("Lost the changes of the {} cache: {}", name, e.getMessage()))
+                .retryWhen(Retry.backoff(Long.MAX_VALUE, FIRST_WATCH_BACKOFF).maxBackoff(MAX_WATCH_BACKOFF))
+                .repeatWhen(completed -> completed.delayElements(FIRST_WATCH_BACKOFF)))
+            .subscribe(invalidation, e -> log.warn("Cannot watch the changes of the {} cache: {}", name, e.getMessage()));
+    }
+
+    /**
+     * Stop watching the changes.
+     */
+    void close() {
+        Disposable current = watch;
+        if (current != null) {
+            current.dispose();
+        }
+    }
+
+    /**
+     * A cache derived from the entities.
+     */
+    interface Listener {
+
+        /**
+         * Called once an entity was invalidated.
+         *
+         * @param id the id of the entity.
+         */
+        void invalidated(String id);
+
+        /**
+         * Called once all the entities were invalidated.
+         */
+        void invalidatedAll();
+    }
+}
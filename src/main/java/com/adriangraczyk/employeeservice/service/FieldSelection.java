@@ -0,0 +1,100 @@
+package com.adriangraczyk.employeeservice.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonSerializable;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.jsontype.TypeSerializer;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Set;
+
+/**
+ * The properties of a DTO selected by a sparse fieldset, or all of them.
+ * <p>
+ * The services only read the selected properties, the others being left {@code null} in the DTOs; {@link #write}
+ * then leaves them out of the response, as the DTO is serialized.
+ */
+public final class FieldSelection {
+
+    private static final FieldSelection ALL = new FieldSelection(null, null);
+
+    private final ObjectWriter writer;
+
+    private final Set<String> properties;
+
+    /**
+     * @param writer the writer of the DTOs, filtering out the properties which are not selected.
+     * @param properties the Java names of the selected properties, or {@code null} for all of them.
+     */
+    FieldSelection(ObjectWriter writer, Set<String> properties) {
+        this.writer = writer;
+        this.properties = properties == null ? null : Collections.unmodifiableSet(properties);
+    }
+
+    /**
+     * Returns the selection of all the properties.
+     *
+     * @return the selection.
+     */
+    public static FieldSelection all() {
+        return ALL;
+    }
+
+    /**
+     * Returns whether all the properties are selected.
+     *
+     * @return {@code true} if there was no fieldset.
+     */
+    public boolean isAll() {
+        return properties == null;
+    }
+
+    /**
+     * Returns the Java names of the selected properties, besides the id.
+     *
+     * @return the properties, or {@code null} if all of them are selected.
+     */
+    public Set<String> getProperties() {
+        return properties;
+    }
+
+    /**
+     * Returns the body of a DTO in a response.
+     *
+     * @param dto the DTO, read with this selection.
+     * @return the DTO itself when all the properties are selected, else the DTO serialized with the selected ones only.
+     */
+    public Object write(Object dto) {
+        if (isAll()) {
+            return dto;
+        }
+        return new SelectedProperties(writer, dto);
+    }
+
+    /**
+     * A DTO serialized with the writer of a selection, in the generator of the response whatever its format.
+     */
+    private static final class SelectedProperties implements JsonSerializable {
+
+        private final ObjectWriter writer;
+
+        private final Object dto;
+
+        private SelectedProperties(ObjectWriter writer, Object dto) {
+            this.writer = writer;
+            this.dto = dto;
+        }
+
+        @Override
+        public void serialize(JsonGenerator generator, SerializerProvider serializers) throws IOException {
+            writer.writeValue(generator, dto);
+        }
+
+        @Override
+        public void serializeWithType(JsonGenerator generator, SerializerProvider serializers, TypeSerializer typeSerializer) throws IOException {
+            serialize(generator, serializers);
+        }
+    }
+}
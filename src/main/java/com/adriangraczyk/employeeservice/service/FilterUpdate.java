@@ -0,0 +1,131 @@
+package com.adriangraczyk.employeeservice.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.introspect.BeanPropertyDefinition;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.springframework.beans.BeanWrapper;
+import org.springframework.beans.PropertyAccessorFactory;
+
+import javax.validation.Validator;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Reads the filters and updates of an update-by-filter on a DTO, both JSON objects of DTO properties.
+ * <p>
+ * A filter matches the entities whose properties equal all of its values, an update sets the properties to its values.
+ * Each may only use its own whitelist of properties, so that an update cannot select or change more than intended, and
+ * the updated values are validated as the single-entity endpoints would.
+ *
+ * @param <D> the DTO type.
+ */
+class FilterUpdate<D> {
+
+    private final ObjectMapper objectMapper;
+
+    private final Validator validator;
+
+    private final Class<D> dtoClass;
+
+    /**
+     * The Java name of each property which can be filtered on, by JSON name.
+     */
+    private final Map<String, String> filterProperties = new HashMap<>();
+
+    /**
+     * The Java name of each property which can be updated, by JSON name.
+     */
+    private final Map<String, String> updateProperties = new HashMap<>();
+
+    /**
+     * @param objectMapper the mapper of the DTOs.
+     * @param validator the bean validator of the DTOs.
+     * @param dtoClass the DTO type.
+     * @param filterProperties the JSON names of the properties which can be filtered on.
+     * @param updateProperties the JSON names of the properties which can be updated.
+     */
+    FilterUpdate(ObjectMapper objectMapper, Validator validator, Class<D> dtoClass, Collection<String> filterProperties,
+                 Collection<String> updateProperties) {
+        this.objectMapper = objectMapper;
+        this.validator = validator;
+        this.dtoClass = dtoClass;
+        for (BeanPropertyDefinition definition : objectMapper.getDeserializationConfig()
+            .introspect(objectMapper.constructType(dtoClass))
+            .findProperties()) {
+            if (filterProperties.contains(definition.getName())) {
+                this.filterProperties.put(definition.getName(), definition.getInternalName());
+            }
+            if (updateProperties.contains(definition.getName())) {
+                this.updateProperties.put(definition.getName(), definition.getInternalName());
+            }
+        }
+    }
+
+    /**
+     * Reads a filter.
+     *
+     * @param filter the filter.
+     * @return the value of each filtered property, by Java name, or an {@link IllegalArgumentException} if the filter is
+     * empty, or a property cannot be filtered on or read.
+     */
+    Map<String, Object> readFilter(ObjectNode filter) {
+        Map<String, Object> values = read(filter, filterProperties, "filtered on");
+        if (values.isEmpty()) {
+            throw new IllegalArgumentException("A filter is required");
+        }
+        return values;
+    }
+
+    /**
+     * Reads an update, and validates it.
+     *
+     * @param update the update.
+     * @return the new value of each updated property, by Java name, or an {@link IllegalArgumentException} if the update
+     * is empty, or a property cannot be updated, read or is not valid.
+     */
+    Map<String, Object> readUpdate(ObjectNode update) {
+        Map<String, Object> values = read(update, updateProperties, "updated");
+        if (values.isEmpty()) {
+            throw new IllegalArgumentException("An update is required");
+        }
+        D dto = toDto(update);
+        String violations = values.keySet().stream()
+            .flatMap(property -> validator.validateProperty(dto, property).stream())
+            .map(violation -> violation.getPropertyPath() + ": " + violation.getMessage())
+            .sorted()
+            .collect(Collectors.joining(", "));
+        if (!violations.isEmpty()) {
+            throw new IllegalArgumentException("Invalid update: " + violations);
+        }
+        return values;
+    }
+
+    private Map<String, Object> read(ObjectNode node, Map<String, String> allowed, String usage) {
+        if (node == null) {
+            return new LinkedHashMap<>();
+        }
+        BeanWrapper dto = PropertyAccessorFactory.forBeanPropertyAccess(toDto(node));
+        Map<String, Object> values = new LinkedHashMap<>();
+        for (Iterator<String> names = node.fieldNames(); names.hasNext(); ) {
+            String name = names.next();
+            if (!allowed.containsKey(name)) {
+                throw new IllegalArgumentException("The property " + name + " cannot be " + usage);
+            }
+            values.put(allowed.get(name), dto.getPropertyValue(allowed.get(name)));
+        }
+        return values;
+    }
+
+    private D toDto(ObjectNode node) {
+        try {
+            return objectMapper.treeToValue(node, dtoClass);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("The values cannot be read: " + e.getOriginalMessage());
+        }
+    }
+}
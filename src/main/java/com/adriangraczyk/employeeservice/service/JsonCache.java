@@ -0,0 +1,170 @@
+package com.adriangraczyk.employeeservice.service;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.NettyDataBufferFactory;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Keeps the encoded JSON of the DTOs read by id, for the {@code application.json-cache} option.
+ * <p>
+ * The JSON is held off-heap, in pooled direct Netty buffers, with the revision it was encoded at, and a hit is written
+ * to the response as is: the entity is neither read, mapped nor serialized again. The cache is a Caffeine {@link AsyncCache} weighing its entries by their
+ * bytes, which holds at most a maximum number of bytes. Each response gets its own reference to the shared buffer, so
+ * that an entry removed while it is being written is only freed once written.
+ * <p>
+ * An entry is only a hit for the revision it was encoded at, which is read by id before, so that a write whose
+ * invalidation is late or missed, as one of another instance, is never answered with stale JSON: the entry is encoded
+ * again. The cache also follows the invalidations of the {@link EntityCache} of the same entities, to free their
+ * memory early, and the JSON encoded before any invalidation is not kept.
+ * <p>
+ * Besides the {@code cache.*} meters of the statistics of the cache, the memory used by the entries is in the
+ * {@code cache.memory} gauge, tagged with the name of the cache.
+ */
+class JsonCache implements EntityCache.Listener {
+
+    private static final NettyDataBufferFactory POOLED_BUFFERS = new NettyDataBufferFactory(PooledByteBufAllocator.DEFAULT);
+
+    /**
+     * The JSON, or {@code null} when the cache is disabled.
+     */
+    private final AsyncCache<String, Entry> entries;
+
+    /**
+     * @param name the name of the cache, in the tags of its meters.
+     * @param maximumBytes the number of bytes kept, {@code 0} to disable the cache.
+     * @param timeToLive how long an entry is kept after being encoded.
+     * @param meterRegistry the registry of the meters.
+     */
+    JsonCache(String name, long maximumBytes, Duration timeToLive, MeterRegistry meterRegistry) {
+        if (maximumBytes <= 0) {
+            this.entries = null;
+            return;
+        }
+        this.entries = Caches.<String, Entry>newBuilder()
+            .maximumWeight(maximumBytes)
+            .weigher((String id, Entry entry) -> entry.bytes())
+            .expireAfterWrite(timeToLive)
+            .removalListener((String id, Entry entry, RemovalCause cause) -> {
+                if (entry != null) {
+                    entry.release();
+                }
+            })
+            .buildAsync();
+        Caches.monitor(meterRegistry, entries, name);
+        Gauge.builder("cache.memory", entries, cache -> cache.synchronous().policy().eviction()
+            .map(eviction -> eviction.weightedSize().orElse(0L)).orElse(0L))
+            .description("Off-heap memory used by the entries of the cache")
+            .tag("cache", name).baseUnit("bytes").register(meterRegistry);
+    }
+
+    /**
+     * @return whether the JSON is cached, or always encoded again.
+     */
+    boolean isEnabled() {
+        return entries != null;
+    }
+
+    /**
+     * Returns the cached JSON at a revision, or encodes it when it is missing, expired or at another revision.
+     *
+     * @param id the id of the entity.
+     * @param revision the current revision of the entity, {@code null} if it has none.
+     * @param encoder the read of the entity by id, encoded as JSON.
+     * @return the JSON, to be released once written, with the revision it was encoded at, or empty if the entity does
+     * not exist.
+     */
+    Mono<EncodedJson> get(String id, String revision, Function<String, Mono<EncodedJson>> encoder) {
+        if (entries == null) {
+            return encoder.apply(id);
+        }
+        return Mono.defer(() -> {
+            AtomicReference<EncodedJson> encoded = new AtomicReference<>();
+            Supplier<Mono<Entry>> loader = () -> encoder.apply(id).doOnNext(encoded::set).map(Entry::new);
+            return Caches.get(entries, id, loader)
+                .flatMap(entry -> {
+                    if (encoded.get() != null || Objects.equals(entry.revision, revision)) {
+                        return Mono.just(entry);
+                    }
+                    // Encoded at another revision: replaced once, by this call or a concurrent one, whose JSON is
+                    // then at least as recent as the revision read
+                    entries.synchronous().asMap().remove(id, entry);
+                    return Caches.get(entries, id, loader);
+                })
+                .flatMap(entry -> {
+                    EncodedJson shared = entry.share();
+                    if (shared != null) {
+                        return Mono.just(shared);
+                    }
+                    // The entry was removed before being read, as one encoded before an invalidation or too large to
+                    // be kept: the JSON is read as encoded, or encoded again by the calls that only waited for it
+                    EncodedJson json = encoded.get();
+                    return json != null ? Mono.just(json) : encoder.apply(id);
+                });
+        }).doOnDiscard(EncodedJson.class, json -> DataBufferUtils.release(json.getContent()));
+    }
+
+    @Override
+    public void invalidated(String id) {
+        if (entries != null) {
+            entries.synchronous().invalidate(id);
+        }
+    }
+
+    @Override
+    public void invalidatedAll() {
+        if (entries != null) {
+            entries.synchronous().invalidateAll();
+        }
+    }
+
+    /**
+     * The JSON of an entity and its revision, and the reference of the cache to the JSON.
+     */
+    private static final class Entry {
+
+        private final String revision;
+
+        private final ByteBuf content;
+
+        private boolean released;
+
+        private Entry(EncodedJson json) {
+            this.revision = json.getRevision();
+            this.content = PooledByteBufAllocator.DEFAULT.directBuffer(json.getContent().readableByteCount())
+                .writeBytes(json.getContent().asByteBuffer());
+        }
+
+        private int bytes() {
+            return content.readableBytes();
+        }
+
+        /**
+         * @return a new reference to the JSON, or {@code null} once the entry was removed from the cache.
+         */
+        private synchronized EncodedJson share() {
+            return released ? null : new EncodedJson(revision, POOLED_BUFFERS.wrap(content.retainedDuplicate()));
+        }
+
+        /**
+         * Releases the reference of the cache, once the entry was removed.
+         */
+        private synchronized void release() {
+            if (!released) {
+                released = true;
+                content.release();
+            }
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package com.adriangraczyk.employeeservice.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.introspect.BeanPropertyDefinition;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Reads the JSON Merge Patches (RFC 7396) of a DTO.
+ * <p>
+ * DTOs are flat, so a patch is the set of properties to change: a {@code null} value removes the property, any other
+ * value replaces it. Only the patched properties are validated.
+ *
+ * @param <D> the DTO type.
+ */
+class MergePatch<D> {
+
+    private final ObjectMapper objectMapper;
+
+    private final Validator validator;
+
+    private final Class<D> dtoClass;
+
+    /**
+     * The Java name of each patchable property, by JSON name.
+     */
+    private final Map<String, String> properties = new HashMap<>();
+
+    /**
+     * @param objectMapper the mapper of the DTOs.
+     * @param validator the bean validator of the DTOs.
+     * @param dtoClass the DTO type.
+     * @param readOnlyProperties the JSON names of the properties which cannot be patched, besides the id.
+     */
+    MergePatch(ObjectMapper objectMapper, Validator validator, Class<D> dtoClass, String... readOnlyProperties) {
+        this.objectMapper = objectMapper;
+        this.validator = validator;
+        this.dtoClass = dtoClass;
+        List<String> readOnly = Arrays.asList(readOnlyProperties);
+        List<BeanPropertyDefinition> definitions = objectMapper.getDeserializationConfig()
+            .introspect(objectMapper.constructType(dtoClass))
+            .findProperties();
+        for (BeanPropertyDefinition definition : definitions) {
+            if (!"id".equals(definition.getName()) && !readOnly.contains(definition.getName())) {
+                properties.put(definition.getName(), definition.getInternalName());
+            }
+        }
+    }
+
+    /**
+     * Returns the Java names of the properties changed by the patch.
+     *
+     * @param patch the patch.
+     * @return the patched properties, or an {@link IllegalArgumentException} if one of them cannot be patched.
+     */
+    Set<String> patchedProperties(ObjectNode patch) {
+        Set<String> patched = new LinkedHashSet<>();
+        for (Iterator<String> names = patch.fieldNames(); names.hasNext(); ) {
+            String name = names.next();
+            if (!properties.containsKey(name)) {
+                throw new IllegalArgumentException("The property " + name + " cannot be patched");
+            }
+            patched.add(properties.get(name));
+        }
+        return patched;
+    }
+
+    /**
+     * Reads the patch into a DTO which only has the patched properties, and validates them.
+     *
+     * @param patch the patch.
+     * @return the DTO, or an {@link IllegalArgumentException} if a property cannot be patched, read or is not valid.
+     */
+    D read(ObjectNode patch) {
+        Set<String> patched = patchedProperties(patch);
+        D values;
+        try {
+            values = objectMapper.treeToValue(patch, dtoClass);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("The patch cannot be read: " + e.getOriginalMessage());
+        }
+        String violations = patched.stream()
+            .flatMap(property -> validator.validateProperty(values, property).stream())
+            .map(MergePatch::describe)
+            .sorted()
+            .collect(Collectors.joining(", "));
+        if (!violations.isEmpty()) {
+            throw new IllegalArgumentException("Invalid patch: " + violations);
+        }
+        return values;
+    }
+
+    private static String describe(ConstraintViolation<?> violation) {
+        return violation.getPropertyPath() + ": " + violation.getMessage();
+    }
+}
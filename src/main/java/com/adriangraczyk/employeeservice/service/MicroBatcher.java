@@ -0,0 +1,140 @@
+package com.adriangraczyk.employeeservice.service;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.core.publisher.FluxSink;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoProcessor;
+import reactor.core.publisher.UnicastProcessor;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Sends concurrent requests in batches, for {@link ReadCoalescer} and {@link WriteCoalescer}.
+ * <p>
+ * A request waits until the window has elapsed since the first request of its batch, or until the batch is full. The
+ * whole batch is then sent at once and each caller gets its own result, nothing, or error. Up to
+ * {@value #CONCURRENT_BATCHES} batches are sent at the same time.
+ * <p>
+ * The size of the batches and the time the requests waited for them are recorded in the {@code <name>.batch.size} and
+ * {@code <name>.batch.wait} meters, to tune the window against the latency of the batches.
+ *
+ * @param <T> the request type.
+ * @param <R> the result type.
+ */
+class MicroBatcher<T, R> {
+
+    private static final Logger log = LoggerFactory.getLogger(MicroBatcher.class);
+
+    private static final int CONCURRENT_BATCHES = 4;
+
+    private final String name;
+
+    private final Function<List<T>, Mono<List<Mono<R>>>> sender;
+
+    private final DistributionSummary batchSize;
+
+    private final Timer waitTime;
+
+    private final FluxSink<Pending<T, R>> pendingRequests;
+
+    /**
+     * Whether the batcher was completed, guarded by {@link #pendingRequests}.
+     */
+    private boolean completed;
+
+    /**
+     * @param name the prefix of the meters.
+     * @param window the longest time a request waits for others.
+     * @param maxBatchSize the number of requests sent without waiting for the end of the window.
+     * @param sender the sender of the requests of a batch, giving the result of each of them in order.
+     * @param meterRegistry the registry of the meters.
+     */
+    MicroBatcher(String name, Duration window, int maxBatchSize, Function<List<T>, Mono<List<Mono<R>>>> sender,
+                 MeterRegistry meterRegistry) {
+        this.name = name;
+        this.sender = sender;
+        this.batchSize = DistributionSummary.builder(name + ".batch.size")
+            .description("Number of requests sent in each batch")
+            .publishPercentileHistogram()
+            .register(meterRegistry);
+        this.waitTime = Timer.builder(name + ".batch.wait")
+            .description("Time a request waited for its batch to be sent")
+            .publishPercentileHistogram()
+            .register(meterRegistry);
+        UnicastProcessor<Pending<T, R>> processor = UnicastProcessor.create();
+        this.pendingRequests = processor.sink();
+        processor.bufferTimeout(maxBatchSize, window)
+            .onBackpressureBuffer()
+            .flatMap(this::flush, CONCURRENT_BATCHES)
+            .subscribe();
+    }
+
+    /**
+     * Send a request with the next batch.
+     *
+     * @param request the request.
+     * @return its result once its batch is sent, or the failure of the batch, or an {@link IllegalStateException} once
+     * the batcher is completed.
+     */
+    Mono<R> submit(T request) {
+        return Mono.defer(() -> {
+            Pending<T, R> pending = new Pending<>(request);
+            synchronized (pendingRequests) {
+                if (completed) {
+                    return Mono.error(new IllegalStateException("The " + name + " batches are completed"));
+                }
+                pendingRequests.next(pending);
+            }
+            return pending.result;
+        });
+    }
+
+    /**
+     * Send the pending requests and stop accepting new ones.
+     */
+    void complete() {
+        synchronized (pendingRequests) {
+            completed = true;
+            pendingRequests.complete();
+        }
+    }
+
+    private Mono<Void> flush(List<Pending<T, R>> batch) {
+        long sentAt = System.nanoTime();
+        batchSize.record(batch.size());
+        batch.forEach(pending -> waitTime.record(sentAt - pending.queuedAt, TimeUnit.NANOSECONDS));
+        return sender.apply(batch.stream().map(pending -> pending.request).collect(Collectors.toList()))
+            .doOnNext(results -> {
+                for (int i = 0; i < batch.size(); i++) {
+                    results.get(i).subscribe(batch.get(i).result);
+                }
+            })
+            .then()
+            .onErrorResume(e -> {
+                log.warn("Batch of {} requests of {} failed: {}", batch.size(), name, e.getMessage());
+                batch.forEach(pending -> pending.result.onError(e));
+                return Mono.empty();
+            });
+    }
+
+    private static class Pending<T, R> {
+
+        private final T request;
+
+        private final long queuedAt = System.nanoTime();
+
+        private final MonoProcessor<R> result = MonoProcessor.create();
+
+        Pending(T request) {
+            this.request = request;
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package com.adriangraczyk.employeeservice.service;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.data.domain.Pageable;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+/**
+ * Keeps the pages of a listing read at given collection versions, for the {@code application.page-cache} option.
+ * <p>
+ * A page is kept with the versions of the collections it was read from, as given by
+ * {@link com.adriangraczyk.employeeservice.repository.CollectionVersions}, and is only reused while they are unchanged.
+ * The services increment the versions once their writes are done, so that a page read before a write is never
+ * returned after it, on any instance. Concurrent reads of the same page at the same versions share a single load.
+ * <p>
+ * The cache is a Caffeine {@link AsyncCache} holding at most a maximum number of pages, like {@link EntityCache}, and
+ * its statistics are the {@code cache.*} meters tagged with the name of the cache.
+ *
+ * @param <V> the page type.
+ */
+class PageCache<V> {
+
+    /**
+     * The pages, or {@code null} when the cache is disabled.
+     */
+    private final AsyncCache<String, Entry<V>> entries;
+
+    /**
+     * @param name the name of the cache, in the tags of its meters.
+     * @param maximumSize the number of pages kept, {@code 0} to disable the cache.
+     * @param meterRegistry the registry of the meters.
+     */
+    PageCache(String name, int maximumSize, MeterRegistry meterRegistry) {
+        if (maximumSize <= 0) {
+            this.entries = null;
+            return;
+        }
+        this.entries = Caches.<String, Entry<V>>newBuilder()
+            .maximumSize(maximumSize)
+            .buildAsync();
+        Caches.monitor(meterRegistry, entries, name);
+    }
+
+    /**
+     * Returns the key of a page, from its pagination and the other parameters of the listing.
+     *
+     * @param pageable the number, size and sort of the page.
+     * @param parameters the parameters changing the content of the page, such as its filter.
+     * @return the key.
+     */
+    static String key(Pageable pageable, Object... parameters) {
+        StringBuilder key = new StringBuilder()
+            .append(pageable.getPageNumber()).append('|')
+            .append(pageable.getPageSize()).append('|')
+            .append(pageable.getSort());
+        for (Object parameter : parameters) {
+            key.append('|').append(parameter);
+        }
+        return key.toString();
+    }
+
+    /**
+     * Returns whether pages are kept.
+     *
+     * @return {@code false} if the cache is disabled.
+     */
+    boolean isEnabled() {
+        return entries != null;
+    }
+
+    /**
+     * Returns the cached page, or loads it when it is missing or was read at other versions.
+     *
+     * @param key the key of the page, from {@link #key}.
+     * @param versions the current versions of the collections the page is read from.
+     * @param loader the query of the page.
+     * @return the page.
+     */
+    Mono<V> get(String key, List<Long> versions, Supplier<Mono<V>> loader) {
+        if (entries == null) {
+            return loader.get();
+        }
+        return Caches.get(entries, key, () -> load(versions, loader))
+            .flatMap(entry -> entry.versions.equals(versions) ? Mono.just(entry.page) : reload(key, entry, versions, loader));
+    }
+
+    /**
+     * Replaces a page read at other versions, unless another read already did.
+     */
+    private Mono<V> reload(String key, Entry<V> stale, List<Long> versions, Supplier<Mono<V>> loader) {
+        return Mono.defer(() -> {
+            CompletableFuture<Entry<V>> created = new CompletableFuture<>();
+            CompletableFuture<Entry<V>> value = entries.asMap().compute(key, (k, current) ->
+                current == null || current.getNow(null) == stale ? created : current);
+            if (value == created) {
+                load(versions, loader).subscribe(created::complete, created::completeExceptionally, () -> created.complete(null));
+            }
+            return Mono.fromCompletionStage(value)
+                .flatMap(entry -> entry.versions.equals(versions) ? Mono.just(entry.page) : loader.get());
+        });
+    }
+
+    private Mono<Entry<V>> load(List<Long> versions, Supplier<Mono<V>> loader) {
+        // a query rejected as it is made fails the load instead of leaving it pending in the cache
+        return Mono.defer(loader).map(page -> new Entry<>(versions, page));
+    }
+
+    private static final class Entry<V> {
+
+        private final List<Long> versions;
+
+        private final V page;
+
+        private Entry(List<Long> versions, V page) {
+            this.versions = versions;
+            this.page = page;
+        }
+    }
+}
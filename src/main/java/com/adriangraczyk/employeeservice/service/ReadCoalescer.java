@@ -0,0 +1,71 @@
+package com.adriangraczyk.employeeservice.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.bson.types.ObjectId;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.Locale;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Coalesces the concurrent reads of single entities by id into {@code $in} queries, for the
+ * {@code application.read-coalescing} option.
+ * <p>
+ * The reads are batched by a {@link MicroBatcher}. The distinct ids of a batch are fetched with a single query and each
+ * caller gets its own entity, or nothing if it does not exist. Reads of the same id in a batch share its result.
+ *
+ * @param <E> the entity type.
+ */
+class ReadCoalescer<E> {
+
+    private final MicroBatcher<String, E> batcher;
+
+    /**
+     * @param name the prefix of the meters.
+     * @param window the longest time a read waits for others.
+     * @param maxBatchSize the number of reads sent without waiting for the end of the window.
+     * @param loader the query of the entities with the ids of a batch.
+     * @param idGetter the getter of the id of an entity.
+     * @param meterRegistry the registry of the meters.
+     */
+    ReadCoalescer(String name, Duration window, int maxBatchSize, Function<Collection<String>, Flux<E>> loader,
+                  Function<E, String> idGetter, MeterRegistry meterRegistry) {
+        this.batcher = new MicroBatcher<>(name, window, maxBatchSize, ids -> {
+            Set<String> distinctIds = ids.stream().map(ReadCoalescer::normalize).collect(Collectors.toCollection(LinkedHashSet::new));
+            return loader.apply(distinctIds)
+                .collectMap(entity -> normalize(idGetter.apply(entity)))
+                .map(found -> ids.stream().map(id -> Mono.justOrEmpty(found.get(normalize(id)))).collect(Collectors.toList()));
+        }, meterRegistry);
+    }
+
+    /**
+     * Read an entity with the next batch.
+     *
+     * @param id the id of the entity.
+     * @return the entity once its batch is read, empty if it does not exist, or the failure of the query, or an
+     * {@link IllegalStateException} once the coalescer is completed.
+     */
+    Mono<E> read(String id) {
+        return batcher.submit(id);
+    }
+
+    /**
+     * Send the pending reads and stop accepting new ones.
+     */
+    void complete() {
+        batcher.complete();
+    }
+
+    /**
+     * ObjectIds are matched whatever the case of their hexadecimal representation, as a query by id does.
+     */
+    private static String normalize(String id) {
+        return ObjectId.isValid(id) ? id.toLowerCase(Locale.ROOT) : id;
+    }
+}
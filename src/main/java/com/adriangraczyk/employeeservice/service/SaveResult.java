@@ -0,0 +1,32 @@
+package com.adriangraczyk.employeeservice.service;
+
+/**
+ * The outcome of a save which is skipped when the stored entity is already the same.
+ *
+ * @param <T> the type of the saved value.
+ */
+public class SaveResult<T> {
+
+    private final T value;
+
+    private final boolean written;
+
+    public SaveResult(T value, boolean written) {
+        this.value = value;
+        this.written = written;
+    }
+
+    /**
+     * Returns the saved value, which is also the stored one when the write was skipped.
+     */
+    public T getValue() {
+        return value;
+    }
+
+    /**
+     * Returns whether the value was written, or the write skipped because nothing changed.
+     */
+    public boolean isWritten() {
+        return written;
+    }
+}
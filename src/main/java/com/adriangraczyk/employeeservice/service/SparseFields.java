@@ -0,0 +1,92 @@
+package com.adriangraczyk.employeeservice.service;
+
+import com.fasterxml.jackson.annotation.JsonFilter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.introspect.BeanPropertyDefinition;
+import com.fasterxml.jackson.databind.ser.impl.SimpleBeanPropertyFilter;
+import com.fasterxml.jackson.databind.ser.impl.SimpleFilterProvider;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Reads the sparse fieldsets of a DTO, the properties a read asks for.
+ * <p>
+ * Only a whitelist of properties can be selected, so that a fieldset always maps to a projection of the documents. The
+ * id is always selected.
+ * <p>
+ * The selected properties are written by a copy of the mapper filtering the properties of the DTOs, so that the others
+ * are left out as the DTOs are serialized, and the serializers of the copy are kept between the fieldsets.
+ *
+ * @param <D> the DTO type.
+ */
+class SparseFields<D> {
+
+    private static final String ID_PROPERTY = "id";
+
+    private static final String FILTER = "selectedProperties";
+
+    /**
+     * The mapper of the DTOs, with the filter of the selected properties.
+     */
+    private final ObjectMapper selectingMapper;
+
+    /**
+     * The Java name of each property which can be selected, by JSON name.
+     */
+    private final Map<String, String> properties = new HashMap<>();
+
+    /**
+     * @param objectMapper the mapper of the DTOs.
+     * @param dtoClass the DTO type.
+     * @param selectableProperties the JSON names of the properties which can be selected, besides the id.
+     */
+    SparseFields(ObjectMapper objectMapper, Class<D> dtoClass, Collection<String> selectableProperties) {
+        this.selectingMapper = objectMapper.copy().addMixIn(dtoClass, Selecting.class);
+        for (BeanPropertyDefinition definition : objectMapper.getSerializationConfig()
+            .introspect(objectMapper.constructType(dtoClass))
+            .findProperties()) {
+            if (selectableProperties.contains(definition.getName())) {
+                properties.put(definition.getName(), definition.getInternalName());
+            }
+        }
+    }
+
+    /**
+     * Reads a fieldset.
+     *
+     * @param fields the JSON names of the properties to read, or {@code null} or empty for all of them.
+     * @return the selection, or an {@link IllegalArgumentException} if a property cannot be selected.
+     */
+    FieldSelection select(List<String> fields) {
+        if (fields == null || fields.isEmpty()) {
+            return FieldSelection.all();
+        }
+        Set<String> jsonNames = new LinkedHashSet<>();
+        Set<String> javaNames = new LinkedHashSet<>();
+        jsonNames.add(ID_PROPERTY);
+        for (String field : fields) {
+            if (ID_PROPERTY.equals(field)) {
+                continue;
+            }
+            if (!properties.containsKey(field)) {
+                throw new IllegalArgumentException("The field " + field + " cannot be selected");
+            }
+            jsonNames.add(field);
+            javaNames.add(properties.get(field));
+        }
+        SimpleFilterProvider filters = new SimpleFilterProvider().addFilter(FILTER, SimpleBeanPropertyFilter.filterOutAllExcept(jsonNames));
+        return new FieldSelection(selectingMapper.writer(filters), javaNames);
+    }
+
+    /**
+     * The mix-in filtering the properties of a DTO.
+     */
+    @JsonFilter(FILTER)
+    private interface Selecting {
+    }
+}
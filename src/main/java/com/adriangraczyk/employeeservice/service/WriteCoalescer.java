@@ -0,0 +1,60 @@
+package com.adriangraczyk.employeeservice.service;
+
+import com.adriangraczyk.employeeservice.repository.BulkWrite;
+import com.adriangraczyk.employeeservice.repository.BulkWriteReport;
+import io.micrometer.core.instrument.MeterRegistry;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Coalesces the concurrent writes of single entities into unordered {@code bulkWrite}s, for the
+ * {@code application.write-coalescing} option.
+ * <p>
+ * The writes are batched by a {@link MicroBatcher}, and each caller gets its own result or error. The writes of a batch
+ * are unordered, as concurrent writes would be anyway.
+ *
+ * @param <E> the entity type.
+ */
+class WriteCoalescer<E> {
+
+    private final MicroBatcher<BulkWrite<E>, E> batcher;
+
+    /**
+     * @param name the prefix of the meters.
+     * @param window the longest time a write waits for others.
+     * @param maxBatchSize the number of writes sent without waiting for the end of the window.
+     * @param writer the sender of the writes of a batch.
+     * @param meterRegistry the registry of the meters.
+     */
+    WriteCoalescer(String name, Duration window, int maxBatchSize, Function<List<BulkWrite<E>>, Mono<BulkWriteReport>> writer,
+                   MeterRegistry meterRegistry) {
+        this.batcher = new MicroBatcher<>(name, window, maxBatchSize,
+            writes -> writer.apply(writes).map(report -> IntStream.range(0, writes.size())
+                .mapToObj(i -> report.getFailure(i).<Mono<E>>map(Mono::error).orElseGet(() -> Mono.just(writes.get(i).getEntity())))
+                .collect(Collectors.toList())),
+            meterRegistry);
+    }
+
+    /**
+     * Write an entity with the next batch.
+     *
+     * @param write the write.
+     * @return the entity once its batch is written, or the failure of its write, or an {@link IllegalStateException}
+     * once the coalescer is completed.
+     */
+    Mono<E> write(BulkWrite<E> write) {
+        return batcher.submit(write);
+    }
+
+    /**
+     * Send the pending writes and stop accepting new ones.
+     */
+    void complete() {
+        batcher.complete();
+    }
+}
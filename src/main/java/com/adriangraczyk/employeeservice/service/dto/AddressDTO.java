@@ -1,5 +1,7 @@
 package com.adriangraczyk.employeeservice.service.dto;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
 import javax.validation.constraints.*;
 import java.io.Serializable;
 import com.adriangraczyk.employeeservice.domain.enumeration.AddressType;
@@ -41,6 +43,12 @@ public class AddressDTO implements Serializable {
 
 
     private String employeeId;
+
+    /**
+     * The revision of the stored entity, which is its entity tag, and not part of its representation.
+     */
+    @JsonIgnore
+    private String revision;
     
     public String getId() {
         return id;
@@ -122,6 +130,14 @@ public class AddressDTO implements Serializable {
         this.employeeId = employeeId;
     }
 
+    public String getRevision() {
+        return revision;
+    }
+
+    public void setRevision(String revision) {
+        this.revision = revision;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) {
@@ -0,0 +1,65 @@
+package com.adriangraczyk.employeeservice.service.dto;
+
+import java.io.Serializable;
+
+/**
+ * A DTO for one operation of a bulk request.
+ *
+ * @param <T> the type of the DTO of the entity.
+ */
+public class BulkOperationDTO<T> implements Serializable {
+
+    public enum Action {
+        /**
+         * Create the entity given as value, which must not have an id.
+         */
+        CREATE,
+        /**
+         * Update the entity given as value, with its id.
+         */
+        UPDATE,
+        /**
+         * Delete the entity with the given id.
+         */
+        DELETE
+    }
+
+    private Action action;
+
+    private String id;
+
+    private T value;
+
+    public Action getAction() {
+        return action;
+    }
+
+    public void setAction(Action action) {
+        this.action = action;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public T getValue() {
+        return value;
+    }
+
+    public void setValue(T value) {
+        this.value = value;
+    }
+
+    @Override
+    public String toString() {
+        return "BulkOperationDTO{" +
+            "action=" + getAction() +
+            ", id='" + getId() + "'" +
+            ", value=" + getValue() +
+            "}";
+    }
+}
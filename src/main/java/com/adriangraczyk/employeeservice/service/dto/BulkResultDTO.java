@@ -0,0 +1,112 @@
+package com.adriangraczyk.employeeservice.service.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.io.Serializable;
+
+/**
+ * A DTO for the result of one operation of a bulk request.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BulkResultDTO implements Serializable {
+
+    public enum Status {
+        CREATED,
+        UPDATED,
+        DELETED,
+        FAILED
+    }
+
+    private long index;
+
+    private BulkOperationDTO.Action action;
+
+    private String id;
+
+    private Status status;
+
+    private String error;
+
+    private String message;
+
+    public static BulkResultDTO succeeded(long index, BulkOperationDTO.Action action, String id, Status status) {
+        BulkResultDTO result = new BulkResultDTO();
+        result.setIndex(index);
+        result.setAction(action);
+        result.setId(id);
+        result.setStatus(status);
+        return result;
+    }
+
+    public static BulkResultDTO failed(long index, BulkOperationDTO.Action action, String id, String error, String message) {
+        BulkResultDTO result = succeeded(index, action, id, Status.FAILED);
+        result.setError(error);
+        result.setMessage(message);
+        return result;
+    }
+
+    /**
+     * The position of the operation in the request.
+     */
+    public long getIndex() {
+        return index;
+    }
+
+    public void setIndex(long index) {
+        this.index = index;
+    }
+
+    public BulkOperationDTO.Action getAction() {
+        return action;
+    }
+
+    public void setAction(BulkOperationDTO.Action action) {
+        this.action = action;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public void setStatus(Status status) {
+        this.status = status;
+    }
+
+    /**
+     * The message key of the failure, as in the error responses of the single-entity endpoints.
+     */
+    public String getError() {
+        return error;
+    }
+
+    public void setError(String error) {
+        this.error = error;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public void setMessage(String message) {
+        this.message = message;
+    }
+
+    @Override
+    public String toString() {
+        return "BulkResultDTO{" +
+            "index=" + getIndex() +
+            ", action=" + getAction() +
+            ", id='" + getId() + "'" +
+            ", status=" + getStatus() +
+            ", error='" + getError() + "'" +
+            "}";
+    }
+}
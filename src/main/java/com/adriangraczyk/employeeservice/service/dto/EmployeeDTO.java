@@ -1,7 +1,12 @@
 package com.adriangraczyk.employeeservice.service.dto;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import javax.validation.Valid;
 import javax.validation.constraints.*;
 import java.io.Serializable;
+import java.util.List;
 import com.adriangraczyk.employeeservice.domain.enumeration.Role;
 
 /**
@@ -31,6 +36,18 @@ public class EmployeeDTO implements Serializable {
     @NotNull
     private Role role;
 
+    /**
+     * Only set when the addresses are requested with {@code include=addresses}, or created with the employee.
+     */
+    @Valid
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private List<AddressDTO> addresses;
+
+    /**
+     * The revision of the stored entity, which is its entity tag, and not part of its representation.
+     */
+    @JsonIgnore
+    private String revision;
     
     public String getId() {
         return id;
@@ -80,6 +97,22 @@ public class EmployeeDTO implements Serializable {
         this.role = role;
     }
 
+    public List<AddressDTO> getAddresses() {
+        return addresses;
+    }
+
+    public void setAddresses(List<AddressDTO> addresses) {
+        this.addresses = addresses;
+    }
+
+    public String getRevision() {
+        return revision;
+    }
+
+    public void setRevision(String revision) {
+        this.revision = revision;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) {
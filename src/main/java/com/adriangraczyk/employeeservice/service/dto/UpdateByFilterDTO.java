@@ -0,0 +1,53 @@
+package com.adriangraczyk.employeeservice.service.dto;
+
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.Serializable;
+
+/**
+ * A DTO for an update of all the entities matching a filter.
+ * <p>
+ * The filter and the update are JSON objects of DTO properties: the entities whose properties equal all the values of
+ * the filter get the values of the update.
+ */
+public class UpdateByFilterDTO implements Serializable {
+
+    private ObjectNode filter;
+
+    private ObjectNode set;
+
+    private boolean dryRun;
+
+    public ObjectNode getFilter() {
+        return filter;
+    }
+
+    public void setFilter(ObjectNode filter) {
+        this.filter = filter;
+    }
+
+    public ObjectNode getSet() {
+        return set;
+    }
+
+    public void setSet(ObjectNode set) {
+        this.set = set;
+    }
+
+    public boolean isDryRun() {
+        return dryRun;
+    }
+
+    public void setDryRun(boolean dryRun) {
+        this.dryRun = dryRun;
+    }
+
+    @Override
+    public String toString() {
+        return "UpdateByFilterDTO{" +
+            "filter=" + getFilter() +
+            ", set=" + getSet() +
+            ", dryRun=" + isDryRun() +
+            "}";
+    }
+}
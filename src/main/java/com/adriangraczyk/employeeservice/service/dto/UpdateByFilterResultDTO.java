@@ -0,0 +1,66 @@
+package com.adriangraczyk.employeeservice.service.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.io.Serializable;
+
+/**
+ * A DTO for the result of an update by filter: the number of entities matching the filter and, unless it was a dry
+ * run, the number of them actually modified.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class UpdateByFilterResultDTO implements Serializable {
+
+    private long matched;
+
+    private Long modified;
+
+    private boolean dryRun;
+
+    public static UpdateByFilterResultDTO dryRun(long matched) {
+        UpdateByFilterResultDTO result = new UpdateByFilterResultDTO();
+        result.setMatched(matched);
+        result.setDryRun(true);
+        return result;
+    }
+
+    public static UpdateByFilterResultDTO updated(long matched, long modified) {
+        UpdateByFilterResultDTO result = new UpdateByFilterResultDTO();
+        result.setMatched(matched);
+        result.setModified(modified);
+        return result;
+    }
+
+    public long getMatched() {
+        return matched;
+    }
+
+    public void setMatched(long matched) {
+        this.matched = matched;
+    }
+
+    public Long getModified() {
+        return modified;
+    }
+
+    public void setModified(Long modified) {
+        this.modified = modified;
+    }
+
+    public boolean isDryRun() {
+        return dryRun;
+    }
+
+    public void setDryRun(boolean dryRun) {
+        this.dryRun = dryRun;
+    }
+
+    @Override
+    public String toString() {
+        return "UpdateByFilterResultDTO{" +
+            "matched=" + getMatched() +
+            ", modified=" + getModified() +
+            ", dryRun=" + isDryRun() +
+            "}";
+    }
+}
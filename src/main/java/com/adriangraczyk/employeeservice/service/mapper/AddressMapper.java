@@ -5,6 +5,7 @@ import com.adriangraczyk.employeeservice.domain.*;
 import com.adriangraczyk.employeeservice.service.dto.AddressDTO;
 
 import org.mapstruct.*;
+import org.springframework.data.mongodb.core.convert.LazyLoadingProxy;
 
 /**
  * Mapper for the entity {@link Address} and its DTO {@link AddressDTO}.
@@ -12,12 +13,27 @@ import org.mapstruct.*;
 @Mapper(componentModel = "spring", uses = {EmployeeMapper.class})
 public interface AddressMapper extends EntityMapper<AddressDTO, Address> {
 
-    @Mapping(source = "employee.id", target = "employeeId")
+    @Mapping(source = "employee", target = "employeeId", qualifiedByName = "employeeId")
     AddressDTO toDto(Address address);
 
     @Mapping(source = "employeeId", target = "employee")
+    @Mapping(target = "revision", ignore = true)
     Address toEntity(AddressDTO addressDTO);
 
+    /**
+     * Returns the id of the referenced employee, taken from the DBRef when the employee is still a lazy proxy.
+     *
+     * @param employee the referenced employee.
+     * @return its id.
+     */
+    @Named("employeeId")
+    default String employeeId(Employee employee) {
+        if (employee instanceof LazyLoadingProxy) {
+            return ((LazyLoadingProxy) employee).toDBRef().getId().toString();
+        }
+        return employee == null ? null : employee.getId();
+    }
+
     default Address fromId(String id) {
         if (id == null) {
             return null;
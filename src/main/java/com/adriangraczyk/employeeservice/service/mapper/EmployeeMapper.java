@@ -12,9 +12,12 @@ import org.mapstruct.*;
 @Mapper(componentModel = "spring", uses = {})
 public interface EmployeeMapper extends EntityMapper<EmployeeDTO, Employee> {
 
+    @Mapping(target = "addresses", ignore = true)
+    EmployeeDTO toDto(Employee employee);
 
     @Mapping(target = "addresses", ignore = true)
     @Mapping(target = "removeAddress", ignore = true)
+    @Mapping(target = "revision", ignore = true)
     Employee toEntity(EmployeeDTO employeeDTO);
 
     default Employee fromId(String id) {
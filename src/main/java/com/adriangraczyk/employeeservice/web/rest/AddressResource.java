@@ -1,33 +1,51 @@
 package com.adriangraczyk.employeeservice.web.rest;
 
+import com.adriangraczyk.employeeservice.config.ApplicationProperties;
+import com.adriangraczyk.employeeservice.config.StreamingJackson2JsonEncoder;
+import com.adriangraczyk.employeeservice.security.AuthoritiesConstants;
 import com.adriangraczyk.employeeservice.service.AddressService;
+import com.adriangraczyk.employeeservice.service.FieldSelection;
 import com.adriangraczyk.employeeservice.web.rest.errors.BadRequestAlertException;
+import com.adriangraczyk.employeeservice.web.rest.util.BatchFetchUtil;
+import com.adriangraczyk.employeeservice.web.rest.util.ETagUtil;
+import com.adriangraczyk.employeeservice.web.rest.util.KeysetPaginationUtil;
+import com.adriangraczyk.employeeservice.web.rest.util.RateLimiter;
+import com.adriangraczyk.employeeservice.web.rest.util.SlicePaginationUtil;
+import com.adriangraczyk.employeeservice.web.rest.util.SparseFieldsUtil;
+import com.adriangraczyk.employeeservice.web.rest.util.StreamExportUtil;
+import com.adriangraczyk.employeeservice.service.dto.BulkOperationDTO;
+import com.adriangraczyk.employeeservice.service.dto.BulkResultDTO;
+import com.adriangraczyk.employeeservice.service.dto.UpdateByFilterDTO;
+import com.adriangraczyk.employeeservice.service.dto.UpdateByFilterResultDTO;
 import com.adriangraczyk.employeeservice.service.dto.AddressDTO;
 
+import com.fasterxml.jackson.databind.node.ObjectNode;
 import io.github.jhipster.web.util.HeaderUtil;
-import io.github.jhipster.web.util.PaginationUtil;
-import io.github.jhipster.web.util.reactive.ResponseUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
-import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.server.reactive.ServerHttpRequest;
 import org.springframework.web.util.UriComponentsBuilder;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.server.ServerWebExchange;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 import javax.validation.Valid;
 import java.net.URI;
 import java.net.URISyntaxException;
-import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
 
@@ -42,20 +60,26 @@ public class AddressResource {
 
     private static final String ENTITY_NAME = "employeeserviceAddress";
 
+    private static final String APPLICATION_MERGE_PATCH_JSON_VALUE = "application/merge-patch+json";
+
     @Value("${jhipster.clientApp.name}")
     private String applicationName;
 
     private final AddressService addressService;
 
-    public AddressResource(AddressService addressService) {
+    private final RateLimiter updateByFilterLimiter;
+
+    public AddressResource(AddressService addressService, ApplicationProperties applicationProperties) {
         this.addressService = addressService;
+        ApplicationProperties.UpdateByFilter updateByFilter = applicationProperties.getUpdateByFilter();
+        this.updateByFilterLimiter = new RateLimiter(updateByFilter.getMaxRequests(), updateByFilter.getPeriod());
     }
 
     /**
      * {@code POST  /addresses} : Create a new address.
      *
      * @param addressDTO the addressDTO to create.
-     * @return the {@link ResponseEntity} with status {@code 201 (Created)} and with body the new addressDTO, or with status {@code 400 (Bad Request)} if the address has already an ID.
+     * @return the {@link ResponseEntity} with status {@code 201 (Created)} and with body the new addressDTO, or with status {@code 400 (Bad Request)} if the address has already an ID or cannot be embedded in its employee.
      * @throws URISyntaxException if the Location URI syntax is incorrect.
      */
     @PostMapping("/addresses")
@@ -65,6 +89,7 @@ public class AddressResource {
             throw new BadRequestAlertException("A new address cannot already have an ID", ENTITY_NAME, "idexists");
         }
         return addressService.save(addressDTO)
+            .onErrorMap(IllegalArgumentException.class, e -> new BadRequestAlertException(e.getMessage(), ENTITY_NAME, "invalidemployee"))
             .map(result -> {
                 try {
                     return ResponseEntity.created(new URI("/api/addresses/" + result.getId()))
@@ -81,65 +106,314 @@ public class AddressResource {
      *
      * @param addressDTO the addressDTO to update.
      * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the updated addressDTO,
-     * or with status {@code 400 (Bad Request)} if the addressDTO is not valid,
+     * or with status {@code 400 (Bad Request)} if the addressDTO is not valid or cannot be embedded in its employee,
+     * or with status {@code 412 (Precondition Failed)} if the stored address does not match {@code If-Match},
      * or with status {@code 500 (Internal Server Error)} if the addressDTO couldn't be updated.
      * @throws URISyntaxException if the Location URI syntax is incorrect.
      */
     @PutMapping("/addresses")
-    public Mono<ResponseEntity<AddressDTO>> updateAddress(@Valid @RequestBody AddressDTO addressDTO) throws URISyntaxException {
+    public Mono<ResponseEntity<AddressDTO>> updateAddress(@Valid @RequestBody AddressDTO addressDTO,
+                                                          @RequestHeader(name = HttpHeaders.IF_MATCH, required = false) String ifMatch) throws URISyntaxException {
         log.debug("REST request to update Address : {}", addressDTO);
         if (addressDTO.getId() == null) {
             throw new BadRequestAlertException("Invalid id", ENTITY_NAME, "idnull");
         }
-        return addressService.save(addressDTO)
+        return ETagUtil.ifMatch(ifMatch, revision -> addressService.save(addressDTO, revision), () -> addressService.save(addressDTO))
+            .onErrorMap(IllegalArgumentException.class, e -> new BadRequestAlertException(e.getMessage(), ENTITY_NAME, "invalidemployee"))
+            .switchIfEmpty(Mono.error(new ResponseStatusException(HttpStatus.NOT_FOUND)))
+            .map(result -> ResponseEntity.ok()
+                .headers(HeaderUtil.createEntityUpdateAlert(applicationName, false, ENTITY_NAME, result.getId()))
+                .eTag(ETagUtil.generateETag(result.getRevision()))
+                .body(result)
+            );
+    }
+
+    /**
+     * {@code PATCH  /addresses/:id} : Partially updates an existing address.
+     * <p>
+     * The body is a JSON Merge Patch of the address: the given fields are set, those given as {@code null} are removed, and
+     * the others are left untouched. Only the given fields are validated.
+     *
+     * @param id the id of the addressDTO to update.
+     * @param patch the JSON Merge Patch of the addressDTO.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the updated addressDTO,
+     * or with status {@code 400 (Bad Request)} if the patch is not valid,
+     * or with status {@code 404 (Not Found)} if the address does not exist,
+     * or with status {@code 412 (Precondition Failed)} if the stored address does not match {@code If-Match}.
+     */
+    @PatchMapping(value = "/addresses/{id}", consumes = {APPLICATION_MERGE_PATCH_JSON_VALUE, MediaType.APPLICATION_JSON_VALUE})
+    public Mono<ResponseEntity<AddressDTO>> partialUpdateAddress(@PathVariable String id, @RequestBody ObjectNode patch,
+                                                                 @RequestHeader(name = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        log.debug("REST request to partially update Address {} : {}", id, patch);
+        return ETagUtil.ifMatch(ifMatch, revision -> addressService.partialUpdate(id, patch, revision), () -> addressService.partialUpdate(id, patch))
+            .onErrorMap(IllegalArgumentException.class, e -> new BadRequestAlertException(e.getMessage(), ENTITY_NAME, "invalidpatch"))
             .switchIfEmpty(Mono.error(new ResponseStatusException(HttpStatus.NOT_FOUND)))
             .map(result -> ResponseEntity.ok()
                 .headers(HeaderUtil.createEntityUpdateAlert(applicationName, false, ENTITY_NAME, result.getId()))
+                .eTag(ETagUtil.generateETag(result.getRevision()))
                 .body(result)
             );
     }
 
+    /**
+     * {@code POST  /addresses/update-by-filter} : Update all the addresses matching a filter, for administrators.
+     * <p>
+     * The filter and the update may only use whitelisted properties. A dry run only counts the matching addresses.
+     *
+     * @param updateByFilter the filter and the update.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the numbers of matched and modified addresses,
+     * or with status {@code 400 (Bad Request)} if the filter or the update is not valid,
+     * or with status {@code 429 (Too Many Requests)} if too many updates by filter were requested recently.
+     */
+    @PostMapping("/addresses/update-by-filter")
+    @PreAuthorize("hasAuthority(\"" + AuthoritiesConstants.ADMIN + "\")")
+    public Mono<ResponseEntity<UpdateByFilterResultDTO>> updateAddressesByFilter(@RequestBody UpdateByFilterDTO updateByFilter) {
+        log.debug("REST request to update Addresses by filter : {}", updateByFilter);
+        if (!updateByFilterLimiter.tryAcquire()) {
+            return Mono.just(ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(updateByFilterLimiter.getRetryAfter().getSeconds()))
+                .build());
+        }
+        return addressService.updateByFilter(updateByFilter)
+            .onErrorMap(IllegalArgumentException.class, e -> new BadRequestAlertException(e.getMessage(), ENTITY_NAME, "invalidupdate"))
+            .map(ResponseEntity::ok);
+    }
+
+    /**
+     * {@code POST  /addresses/bulk} : Create, update and delete addresses in bulk.
+     * <p>
+     * The body is a JSON array, or a stream of JSON objects, of operations: {@code CREATE} and {@code UPDATE} take the
+     * address as {@code value}, {@code DELETE} takes its {@code id}. The operations are validated like those of the
+     * single-address endpoints, then written with one unordered {@code bulkWrite} per chunk of
+     * {@code application.batch.bulk-chunk-size} operations, so a failed operation does not stop the others.
+     *
+     * @param operations the operations.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the result of each operation in body, in the order of the operations.
+     */
+    @PostMapping("/addresses/bulk")
+    public Mono<ResponseEntity<Flux<BulkResultDTO>>> bulkAddresses(@RequestBody Flux<BulkOperationDTO<AddressDTO>> operations) {
+        log.debug("REST request to run bulk operations on Addresses");
+        return Mono.just(ResponseEntity.ok().body(addressService.bulk(operations)));
+    }
+
     /**
      * {@code GET  /addresses} : get all the addresses.
      *
+     * The page has a weak {@code ETag} from the version of the addresses, so that a request with a matching
+     * {@code If-None-Match} header gets a {@code 304 (Not Modified)} without the page being read. When the addresses
+     * are counted apart from the page, it is written as it is read from the cursor.
+     *
      * @param pageable the pagination information.
-     * @param request a {@link ServerHttpRequest} request.
-     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of addresses in body.
+     * @param exchange the exchange of the request.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of addresses in body,
+     * or with status {@code 400 (Bad Request)} if the sort is not the order of an index.
      */
     @GetMapping("/addresses")
-    public Mono<ResponseEntity<Flux<AddressDTO>>> getAllAddresses(Pageable pageable, ServerHttpRequest request) {
+    public Mono<ResponseEntity<Flux<AddressDTO>>> getAllAddresses(Pageable pageable, ServerWebExchange exchange) {
         log.debug("REST request to get a page of Addresses");
-        return addressService.countAll()
-            .map(total -> new PageImpl<>(new ArrayList<>(), pageable, total))
-            .map(page -> PaginationUtil.generatePaginationHttpHeaders(UriComponentsBuilder.fromHttpRequest(request), page))
-            .map(headers -> ResponseEntity.ok().headers(headers).body(addressService.findAll(pageable)));
+        return addressService.getVersion().flatMap(version ->
+            ETagUtil.ifNoneMatch(exchange, Mono.just(ETagUtil.generateWeakETag(Collections.singletonList(version))), eTag ->
+                addressService.countForStreamedPage()
+                    .map(total -> pageResponse(exchange, eTag, new PageImpl<>(Collections.emptyList(), pageable, total),
+                        addressService.findAll(pageable)))
+                    .switchIfEmpty(Mono.defer(() -> addressService.findPage(pageable, version)
+                        .map(page -> pageResponse(exchange, eTag, page, Flux.fromIterable(page.getContent())))))))
+            .onErrorMap(IllegalArgumentException.class, e -> new BadRequestAlertException(e.getMessage(), ENTITY_NAME, "invalidsort"));
+    }
+
+    /**
+     * {@code GET  /addresses?fields=:fields} : get a page of addresses, with only some of their properties.
+     * <p>
+     * Only the selected properties are read from the database, and the page is not cached. It has the same weak
+     * {@code ETag} as the page of whole addresses.
+     *
+     * @param pageable the pagination information.
+     * @param fields the properties to return besides the id.
+     * @param exchange the exchange of the request.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of addresses in body,
+     * or with status {@code 400 (Bad Request)} if a property cannot be selected or the sort is not the order of an index.
+     */
+    @GetMapping(value = "/addresses",
+        params = {SparseFieldsUtil.FIELDS_PARAMETER, "!" + KeysetPaginationUtil.CURSOR_PARAMETER, "!" + BatchFetchUtil.IDS_PARAMETER})
+    public Mono<ResponseEntity<Flux<Object>>> getAllAddressesWithFields(Pageable pageable,
+                                                                        @RequestParam(SparseFieldsUtil.FIELDS_PARAMETER) List<String> fields,
+                                                                        ServerWebExchange exchange) {
+        log.debug("REST request to get a page of Addresses with fields : {}", fields);
+        FieldSelection selection = selectFields(fields);
+        return addressService.getVersion().flatMap(version ->
+            ETagUtil.ifNoneMatch(exchange, Mono.just(ETagUtil.generateWeakETag(Collections.singletonList(version))), eTag ->
+                addressService.findPage(pageable, selection)
+                    .map(page -> pageResponse(exchange, eTag, page, SparseFieldsUtil.generateBody(page.getContent(), selection)))))
+            .onErrorMap(IllegalArgumentException.class, e -> new BadRequestAlertException(e.getMessage(), ENTITY_NAME, "invalidsort"));
+    }
+
+    /**
+     * {@code GET  /addresses?cursor=:cursor} : get the slice of addresses following the cursor.
+     * <p>
+     * Unlike a page number, the cursor resumes the listing with a range predicate, so every slice costs the same
+     * however deep it is. An empty cursor starts from the beginning, the following ones are given by the
+     * {@code next} Link.
+     *
+     * @param cursor the cursor returned with the previous slice, or an empty string for the first slice.
+     * @param pageable the size and sort of the slice.
+     * @param fields the properties to return besides the id, or none for all of them.
+     * @param request a {@link ServerHttpRequest} request.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the slice of addresses in body,
+     * or with status {@code 400 (Bad Request)} if the cursor or the sort cannot be used or a property cannot be selected.
+     */
+    @GetMapping(value = "/addresses", params = KeysetPaginationUtil.CURSOR_PARAMETER)
+    public Mono<ResponseEntity<Flux<Object>>> getAddressesAfterCursor(@RequestParam(KeysetPaginationUtil.CURSOR_PARAMETER) String cursor, Pageable pageable,
+                                                                      @RequestParam(name = SparseFieldsUtil.FIELDS_PARAMETER, required = false) List<String> fields,
+                                                                      ServerHttpRequest request) {
+        log.debug("REST request to get a slice of Addresses after cursor : {}", cursor);
+        FieldSelection selection = selectFields(fields);
+        return addressService.findAllAfter(cursor, pageable, selection)
+            .onErrorMap(IllegalArgumentException.class, e -> new BadRequestAlertException(e.getMessage(), ENTITY_NAME, "invalidcursor"))
+            .map(slice -> ResponseEntity.ok()
+                .headers(KeysetPaginationUtil.generateKeysetPaginationHttpHeaders(UriComponentsBuilder.fromHttpRequest(request), slice))
+                .body(SparseFieldsUtil.generateBody(slice.getContent(), selection)));
+    }
+
+    /**
+     * {@code GET  /addresses?ids=:ids} : get the addresses with the given ids.
+     * <p>
+     * The addresses are fetched with a single query and returned in the order of the ids. The ids which were not
+     * found are listed in the {@code X-Missing-Ids} header.
+     *
+     * @param ids the comma separated ids of the addresses, at most {@code application.batch.max-ids}.
+     * @param fields the properties to return besides the id, or none for all of them.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of addresses in body,
+     * or with status {@code 400 (Bad Request)} if there are too many ids or a property cannot be selected.
+     */
+    @GetMapping(value = "/addresses", params = {BatchFetchUtil.IDS_PARAMETER, "!" + KeysetPaginationUtil.CURSOR_PARAMETER})
+    public Mono<ResponseEntity<Flux<Object>>> getAddressesByIds(@RequestParam(BatchFetchUtil.IDS_PARAMETER) List<String> ids,
+                                                                @RequestParam(name = SparseFieldsUtil.FIELDS_PARAMETER, required = false) List<String> fields) {
+        log.debug("REST request to get Addresses : {}", ids);
+        FieldSelection selection = selectFields(fields);
+        return addressService.findAllById(ids, selection)
+            .onErrorMap(IllegalArgumentException.class, e -> new BadRequestAlertException(e.getMessage(), ENTITY_NAME, "toomanyids"))
+            .map(addresses -> ResponseEntity.ok()
+                .headers(BatchFetchUtil.generateMissingIdsHttpHeaders(ids, addresses, AddressDTO::getId))
+                .body(SparseFieldsUtil.generateBody(addresses, selection)));
     }
 
     /**
      * {@code GET  /addresses/:id} : get the "id" address.
+     * <p>
+     * The response has the revision of the address as strong {@code ETag}, so that a request with a matching
+     * {@code If-None-Match} header gets a {@code 304 (Not Modified)} without the body.
      *
      * @param id the id of the addressDTO to retrieve.
      * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the addressDTO, or with status {@code 404 (Not Found)}.
      */
-    @GetMapping("/addresses/{id}")
+    @GetMapping(value = "/addresses/{id}", params = "!" + SparseFieldsUtil.FIELDS_PARAMETER)
     public Mono<ResponseEntity<AddressDTO>> getAddress(@PathVariable String id) {
         log.debug("REST request to get Address : {}", id);
-        Mono<AddressDTO> addressDTO = addressService.findOne(id);
-        return ResponseUtil.wrapOrNotFound(addressDTO);
+        return addressService.findOne(id)
+            .map(address -> ResponseEntity.ok().eTag(ETagUtil.generateETag(address.getRevision())).body(address))
+            .switchIfEmpty(Mono.error(new ResponseStatusException(HttpStatus.NOT_FOUND)));
+    }
+
+    /**
+     * {@code GET  /addresses/:id?fields=:fields} : get some properties of the "id" address.
+     * <p>
+     * Only the selected properties are read from the database, besides the revision, which is the strong {@code ETag}.
+     *
+     * @param id the id of the addressDTO to retrieve.
+     * @param fields the properties to return besides the id.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the selected properties of the addressDTO,
+     * or with status {@code 404 (Not Found)}, or with status {@code 400 (Bad Request)} if a property cannot be selected.
+     */
+    @GetMapping(value = "/addresses/{id}", params = SparseFieldsUtil.FIELDS_PARAMETER)
+    public Mono<ResponseEntity<Object>> getAddressWithFields(@PathVariable String id,
+                                                             @RequestParam(SparseFieldsUtil.FIELDS_PARAMETER) List<String> fields) {
+        log.debug("REST request to get the fields {} of Address : {}", fields, id);
+        FieldSelection selection = selectFields(fields);
+        return addressService.findOne(id, selection)
+            .map(address -> ResponseEntity.ok().eTag(ETagUtil.generateETag(address.getRevision())).body(selection.write(address)))
+            .switchIfEmpty(Mono.error(new ResponseStatusException(HttpStatus.NOT_FOUND)));
+    }
+
+    /**
+     * {@code GET  /addresses/stream} : export all the addresses, one JSON document per line.
+     * <p>
+     * The addresses are read from a single cursor and written as the client reads them, so that the export is not
+     * held in memory. An interrupted export resumes after the id of the last address received.
+     *
+     * @param after the id of the last address already received, or none to start from the first one.
+     * @param fields the properties to export besides the id, or none for all of them.
+     * @return the addresses, or the status {@code 400 (Bad Request)} if the id is not valid or a property cannot be exported.
+     */
+    @GetMapping(value = "/addresses/stream", produces = StreamingJackson2JsonEncoder.APPLICATION_NDJSON_VALUE)
+    public Flux<Object> exportAddresses(@RequestParam(name = StreamExportUtil.AFTER_PARAMETER, required = false) String after,
+                                        @RequestParam(name = SparseFieldsUtil.FIELDS_PARAMETER, required = false) List<String> fields) {
+        log.debug("REST request to export Addresses after : {}", after);
+        return Flux.defer(() -> {
+            FieldSelection selection = addressService.selectFields(fields);
+            return addressService.streamAll(after, selection).map(selection::write);
+        }).onErrorMap(IllegalArgumentException.class, e -> new BadRequestAlertException(e.getMessage(), ENTITY_NAME, "invalidexport"));
+    }
+
+    /**
+     * {@code GET  /addresses/stream} : export all the addresses as server-sent events.
+     * <p>
+     * Each event has the id of its address, so that a client reconnecting with the {@code Last-Event-ID} header
+     * resumes the export after the last event it received.
+     *
+     * @param after the id of the last address already received, or none to start from the first one.
+     * @param lastEventId the id of the last event received, which takes precedence over {@code after}.
+     * @param fields the properties to export besides the id, or none for all of them.
+     * @return the events, or the status {@code 400 (Bad Request)} if the id is not valid or a property cannot be exported.
+     */
+    @GetMapping(value = "/addresses/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<Object>> exportAddressesAsEvents(@RequestParam(name = StreamExportUtil.AFTER_PARAMETER, required = false) String after,
+                                                                 @RequestHeader(name = StreamExportUtil.LAST_EVENT_ID_HEADER, required = false) String lastEventId,
+                                                                 @RequestParam(name = SparseFieldsUtil.FIELDS_PARAMETER, required = false) List<String> fields) {
+        String resumeAfter = StreamExportUtil.resumeAfter(after, lastEventId);
+        log.debug("REST request to export Addresses as events after : {}", resumeAfter);
+        return Flux.defer(() -> {
+            FieldSelection selection = addressService.selectFields(fields);
+            return StreamExportUtil.generateEvents(addressService.streamAll(resumeAfter, selection), AddressDTO::getId, selection);
+        }).onErrorMap(IllegalArgumentException.class, e -> new BadRequestAlertException(e.getMessage(), ENTITY_NAME, "invalidexport"));
     }
 
     /**
      * {@code DELETE  /addresses/:id} : delete the "id" address.
      *
      * @param id the id of the addressDTO to delete.
-     * @return the {@link ResponseEntity} with status {@code 204 (NO_CONTENT)}.
+     * @param ifMatch the {@code If-Match} header, if any.
+     * @return the {@link ResponseEntity} with status {@code 204 (NO_CONTENT)},
+     * or with status {@code 412 (Precondition Failed)} if the stored address does not match {@code If-Match}.
      */
     @DeleteMapping("/addresses/{id}")
     @ResponseStatus(code = HttpStatus.NO_CONTENT)
-    public Mono<ResponseEntity<Void>> deleteAddress(@PathVariable String id) {
+    public Mono<ResponseEntity<Void>> deleteAddress(@PathVariable String id,
+                                                    @RequestHeader(name = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
         log.debug("REST request to delete Address : {}", id);
-        return addressService.delete(id)            .map(result -> ResponseEntity.noContent()
+        return ETagUtil.ifMatch(ifMatch, revision -> addressService.delete(id, revision), () -> addressService.delete(id))
+            .map(result -> ResponseEntity.noContent()
             .headers(HeaderUtil.createEntityDeletionAlert(applicationName, false, ENTITY_NAME, id)).build()
         );
     }
+
+    /**
+     * The response of a page, with the pagination headers of the page and its content, written as it is read.
+     */
+    private static <T> ResponseEntity<Flux<T>> pageResponse(ServerWebExchange exchange, String eTag, Slice<?> page, Flux<T> content) {
+        return ResponseEntity.ok()
+            .eTag(eTag)
+            .headers(SlicePaginationUtil.generatePaginationHttpHeaders(UriComponentsBuilder.fromHttpRequest(exchange.getRequest()), page))
+            .body(content);
+    }
+
+    /**
+     * Reads a sparse fieldset.
+     */
+    private FieldSelection selectFields(List<String> fields) {
+        try {
+            return addressService.selectFields(fields);
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestAlertException(e.getMessage(), ENTITY_NAME, "invalidfields");
+        }
+    }
 }
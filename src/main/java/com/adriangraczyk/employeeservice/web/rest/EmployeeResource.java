@@ -1,33 +1,59 @@
 package com.adriangraczyk.employeeservice.web.rest;
 
+import com.adriangraczyk.employeeservice.config.ApplicationProperties;
+import com.adriangraczyk.employeeservice.config.JacksonConfiguration;
+import com.adriangraczyk.employeeservice.config.StreamingJackson2JsonEncoder;
+import com.adriangraczyk.employeeservice.security.AuthoritiesConstants;
 import com.adriangraczyk.employeeservice.service.EmployeeService;
+import com.adriangraczyk.employeeservice.service.FieldSelection;
 import com.adriangraczyk.employeeservice.web.rest.errors.BadRequestAlertException;
+import com.adriangraczyk.employeeservice.web.rest.util.BatchFetchUtil;
+import com.adriangraczyk.employeeservice.web.rest.util.ETagUtil;
+import com.adriangraczyk.employeeservice.web.rest.util.KeysetPaginationUtil;
+import com.adriangraczyk.employeeservice.web.rest.util.RateLimiter;
+import com.adriangraczyk.employeeservice.web.rest.util.SlicePaginationUtil;
+import com.adriangraczyk.employeeservice.web.rest.util.SparseFieldsUtil;
+import com.adriangraczyk.employeeservice.web.rest.util.StreamExportUtil;
+import com.adriangraczyk.employeeservice.domain.enumeration.AddressType;
+import com.adriangraczyk.employeeservice.service.dto.AddressDTO;
+import com.adriangraczyk.employeeservice.service.dto.BulkOperationDTO;
+import com.adriangraczyk.employeeservice.service.dto.BulkResultDTO;
+import com.adriangraczyk.employeeservice.service.dto.UpdateByFilterDTO;
+import com.adriangraczyk.employeeservice.service.dto.UpdateByFilterResultDTO;
 import com.adriangraczyk.employeeservice.service.dto.EmployeeDTO;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
 import io.github.jhipster.web.util.HeaderUtil;
-import io.github.jhipster.web.util.PaginationUtil;
-import io.github.jhipster.web.util.reactive.ResponseUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.dao.EmptyResultDataAccessException;
 import org.springframework.data.domain.Page;
-import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.server.reactive.ServerHttpRequest;
 import org.springframework.web.util.UriComponentsBuilder;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.server.ServerWebExchange;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 import javax.validation.Valid;
 import java.net.URI;
 import java.net.URISyntaxException;
-import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
 
@@ -42,20 +68,35 @@ public class EmployeeResource {
 
     private static final String ENTITY_NAME = "employeeserviceEmployee";
 
+    private static final String APPLICATION_MERGE_PATCH_JSON_VALUE = "application/merge-patch+json";
+
+    private static final String HEADER_X_WRITE_ELIDED = "X-Write-Elided";
+
+    private static final String INCLUDE_PARAMETER = "include";
+
+    private static final String INCLUDE_ADDRESSES = "addresses";
+
     @Value("${jhipster.clientApp.name}")
     private String applicationName;
 
     private final EmployeeService employeeService;
 
-    public EmployeeResource(EmployeeService employeeService) {
+    private final ObjectMapper objectMapper;
+
+    private final RateLimiter updateByFilterLimiter;
+
+    public EmployeeResource(EmployeeService employeeService, ObjectMapper objectMapper, ApplicationProperties applicationProperties) {
         this.employeeService = employeeService;
+        this.objectMapper = objectMapper;
+        ApplicationProperties.UpdateByFilter updateByFilter = applicationProperties.getUpdateByFilter();
+        this.updateByFilterLimiter = new RateLimiter(updateByFilter.getMaxRequests(), updateByFilter.getPeriod());
     }
 
     /**
      * {@code POST  /employees} : Create a new employee.
      *
      * @param employeeDTO the employeeDTO to create.
-     * @return the {@link ResponseEntity} with status {@code 201 (Created)} and with body the new employeeDTO, or with status {@code 400 (Bad Request)} if the employee has already an ID.
+     * @return the {@link ResponseEntity} with status {@code 201 (Created)} and with body the new employeeDTO, or with status {@code 400 (Bad Request)} if the employee has already an ID or its PESEL is taken.
      * @throws URISyntaxException if the Location URI syntax is incorrect.
      */
     @PostMapping("/employees")
@@ -65,6 +106,37 @@ public class EmployeeResource {
             throw new BadRequestAlertException("A new employee cannot already have an ID", ENTITY_NAME, "idexists");
         }
         return employeeService.save(employeeDTO)
+            .onErrorMap(DuplicateKeyException.class, e -> new BadRequestAlertException("An employee with this PESEL already exists", ENTITY_NAME, "peselexists"))
+            .map(result -> {
+                try {
+                    return ResponseEntity.created(new URI("/api/employees/" + result.getId()))
+                        .headers(HeaderUtil.createEntityCreationAlert(applicationName, false, ENTITY_NAME, result.getId()))
+                        .body(result);
+                } catch (URISyntaxException e) {
+                    throw new RuntimeException(e);
+                }
+            });
+    }
+
+    /**
+     * {@code POST  /employees?include=addresses} : Create a new employee with its addresses.
+     *
+     * @param employeeDTO the employeeDTO to create, with its new addresses.
+     * @return the {@link ResponseEntity} with status {@code 201 (Created)} and with body the new employeeDTO with its addresses,
+     * or with status {@code 400 (Bad Request)} if the employee or one of its addresses has already an ID or its PESEL is taken.
+     * @throws URISyntaxException if the Location URI syntax is incorrect.
+     */
+    @PostMapping(value = "/employees", params = INCLUDE_PARAMETER + "=" + INCLUDE_ADDRESSES)
+    public Mono<ResponseEntity<EmployeeDTO>> createEmployeeWithAddresses(@Valid @RequestBody EmployeeDTO employeeDTO) throws URISyntaxException {
+        log.debug("REST request to save Employee with Addresses : {}", employeeDTO);
+        if (employeeDTO.getId() != null) {
+            throw new BadRequestAlertException("A new employee cannot already have an ID", ENTITY_NAME, "idexists");
+        }
+        if (employeeDTO.getAddresses() != null && employeeDTO.getAddresses().stream().anyMatch(address -> address.getId() != null)) {
+            throw new BadRequestAlertException("A new address cannot already have an ID", ENTITY_NAME, "idexists");
+        }
+        return employeeService.createWithAddresses(employeeDTO)
+            .onErrorMap(DuplicateKeyException.class, e -> new BadRequestAlertException("An employee with this PESEL already exists", ENTITY_NAME, "peselexists"))
             .map(result -> {
                 try {
                     return ResponseEntity.created(new URI("/api/employees/" + result.getId()))
@@ -80,66 +152,440 @@ public class EmployeeResource {
      * {@code PUT  /employees} : Updates an existing employee.
      *
      * @param employeeDTO the employeeDTO to update.
-     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the updated employeeDTO,
-     * or with status {@code 400 (Bad Request)} if the employeeDTO is not valid,
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the updated employeeDTO, with an
+     * {@code X-Write-Elided} header when it was already stored as is and was not written again,
+     * or with status {@code 400 (Bad Request)} if the employeeDTO is not valid or its PESEL is taken,
+     * or with status {@code 412 (Precondition Failed)} if the stored employee does not match {@code If-Match},
      * or with status {@code 500 (Internal Server Error)} if the employeeDTO couldn't be updated.
      * @throws URISyntaxException if the Location URI syntax is incorrect.
      */
     @PutMapping("/employees")
-    public Mono<ResponseEntity<EmployeeDTO>> updateEmployee(@Valid @RequestBody EmployeeDTO employeeDTO) throws URISyntaxException {
+    public Mono<ResponseEntity<EmployeeDTO>> updateEmployee(@Valid @RequestBody EmployeeDTO employeeDTO,
+                                                            @RequestHeader(name = HttpHeaders.IF_MATCH, required = false) String ifMatch) throws URISyntaxException {
         log.debug("REST request to update Employee : {}", employeeDTO);
         if (employeeDTO.getId() == null) {
             throw new BadRequestAlertException("Invalid id", ENTITY_NAME, "idnull");
         }
-        return employeeService.save(employeeDTO)
+        return ETagUtil.ifMatch(ifMatch, revision -> employeeService.update(employeeDTO, revision), () -> employeeService.update(employeeDTO))
+            .onErrorMap(DuplicateKeyException.class, e -> new BadRequestAlertException("An employee with this PESEL already exists", ENTITY_NAME, "peselexists"))
+            .switchIfEmpty(Mono.error(new ResponseStatusException(HttpStatus.NOT_FOUND)))
+            .map(result -> {
+                HttpHeaders headers = HeaderUtil.createEntityUpdateAlert(applicationName, false, ENTITY_NAME, result.getValue().getId());
+                if (!result.isWritten()) {
+                    headers.add(HEADER_X_WRITE_ELIDED, Boolean.TRUE.toString());
+                }
+                return ResponseEntity.ok().headers(headers).eTag(ETagUtil.generateETag(result.getValue().getRevision())).body(result.getValue());
+            });
+    }
+
+    /**
+     * {@code PATCH  /employees/:id} : Partially updates an existing employee.
+     * <p>
+     * The body is a JSON Merge Patch of the employee: the given fields are set, those given as {@code null} are removed, and
+     * the others are left untouched. Only the given fields are validated.
+     *
+     * @param id the id of the employeeDTO to update.
+     * @param patch the JSON Merge Patch of the employeeDTO.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the updated employeeDTO,
+     * or with status {@code 400 (Bad Request)} if the patch is not valid or the PESEL is taken,
+     * or with status {@code 404 (Not Found)} if the employee does not exist,
+     * or with status {@code 412 (Precondition Failed)} if the stored employee does not match {@code If-Match}.
+     */
+    @PatchMapping(value = "/employees/{id}", consumes = {APPLICATION_MERGE_PATCH_JSON_VALUE, MediaType.APPLICATION_JSON_VALUE})
+    public Mono<ResponseEntity<EmployeeDTO>> partialUpdateEmployee(@PathVariable String id, @RequestBody ObjectNode patch,
+                                                                   @RequestHeader(name = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        log.debug("REST request to partially update Employee {} : {}", id, patch);
+        return ETagUtil.ifMatch(ifMatch, revision -> employeeService.partialUpdate(id, patch, revision), () -> employeeService.partialUpdate(id, patch))
+            .onErrorMap(IllegalArgumentException.class, e -> new BadRequestAlertException(e.getMessage(), ENTITY_NAME, "invalidpatch"))
+            .onErrorMap(DuplicateKeyException.class, e -> new BadRequestAlertException("An employee with this PESEL already exists", ENTITY_NAME, "peselexists"))
             .switchIfEmpty(Mono.error(new ResponseStatusException(HttpStatus.NOT_FOUND)))
             .map(result -> ResponseEntity.ok()
                 .headers(HeaderUtil.createEntityUpdateAlert(applicationName, false, ENTITY_NAME, result.getId()))
+                .eTag(ETagUtil.generateETag(result.getRevision()))
                 .body(result)
             );
     }
 
+    /**
+     * {@code POST  /employees/update-by-filter} : Update all the employees matching a filter, for administrators.
+     * <p>
+     * The filter and the update may only use whitelisted properties. A dry run only counts the matching employees.
+     *
+     * @param updateByFilter the filter and the update.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the numbers of matched and modified employees,
+     * or with status {@code 400 (Bad Request)} if the filter or the update is not valid,
+     * or with status {@code 429 (Too Many Requests)} if too many updates by filter were requested recently.
+     */
+    @PostMapping("/employees/update-by-filter")
+    @PreAuthorize("hasAuthority(\"" + AuthoritiesConstants.ADMIN + "\")")
+    public Mono<ResponseEntity<UpdateByFilterResultDTO>> updateEmployeesByFilter(@RequestBody UpdateByFilterDTO updateByFilter) {
+        log.debug("REST request to update Employees by filter : {}", updateByFilter);
+        if (!updateByFilterLimiter.tryAcquire()) {
+            return Mono.just(ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(updateByFilterLimiter.getRetryAfter().getSeconds()))
+                .build());
+        }
+        return employeeService.updateByFilter(updateByFilter)
+            .onErrorMap(IllegalArgumentException.class, e -> new BadRequestAlertException(e.getMessage(), ENTITY_NAME, "invalidupdate"))
+            .map(ResponseEntity::ok);
+    }
+
+    /**
+     * {@code POST  /employees/bulk} : Create, update and delete employees in bulk.
+     * <p>
+     * The body is a JSON array, or a stream of JSON objects, of operations: {@code CREATE} and {@code UPDATE} take the
+     * employee as {@code value}, {@code DELETE} takes its {@code id}. The operations are validated like those of the
+     * single-employee endpoints, then written with one unordered {@code bulkWrite} per chunk of
+     * {@code application.batch.bulk-chunk-size} operations, so a failed operation does not stop the others.
+     *
+     * @param operations the operations.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the result of each operation in body, in the order of the operations.
+     */
+    @PostMapping("/employees/bulk")
+    public Mono<ResponseEntity<Flux<BulkResultDTO>>> bulkEmployees(@RequestBody Flux<BulkOperationDTO<EmployeeDTO>> operations) {
+        log.debug("REST request to run bulk operations on Employees");
+        return Mono.just(ResponseEntity.ok().body(employeeService.bulk(operations)));
+    }
+
     /**
      * {@code GET  /employees} : get all the employees.
      *
+     * The page has a weak {@code ETag} from the versions of the collections it is read from, so that a request with a
+     * matching {@code If-None-Match} header gets a {@code 304 (Not Modified)} without the page being read. When the
+     * employees are counted apart from the page, it is written as it is read from the cursor.
+     *
      * @param pageable the pagination information.
-     * @param request a {@link ServerHttpRequest} request.
-     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of employees in body.
+     * @param include the relationships to embed in each employee, only {@code addresses}.
+     * @param exchange the exchange of the request.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of employees in body,
+     * or with status {@code 400 (Bad Request)} if a relationship to include is unknown or the sort is not the order of an index.
      */
     @GetMapping("/employees")
-    public Mono<ResponseEntity<Flux<EmployeeDTO>>> getAllEmployees(Pageable pageable, ServerHttpRequest request) {
+    public Mono<ResponseEntity<Flux<EmployeeDTO>>> getAllEmployees(Pageable pageable,
+                                                                   @RequestParam(name = INCLUDE_PARAMETER, required = false) List<String> include,
+                                                                   ServerWebExchange exchange) {
         log.debug("REST request to get a page of Employees");
-        return employeeService.countAll()
-            .map(total -> new PageImpl<>(new ArrayList<>(), pageable, total))
-            .map(page -> PaginationUtil.generatePaginationHttpHeaders(UriComponentsBuilder.fromHttpRequest(request), page))
-            .map(headers -> ResponseEntity.ok().headers(headers).body(employeeService.findAll(pageable)));
+        boolean includeAddresses = includesAddresses(include);
+        return employeeService.getVersions(includeAddresses).flatMap(versions ->
+            ETagUtil.ifNoneMatch(exchange, Mono.just(ETagUtil.generateWeakETag(versions)), eTag ->
+                employeeService.countForStreamedPage(includeAddresses)
+                    .map(total -> pageResponse(exchange, eTag, new PageImpl<>(Collections.emptyList(), pageable, total),
+                        employeeService.findAll(pageable)))
+                    .switchIfEmpty(Mono.defer(() -> employeeService.findPage(pageable, includeAddresses, versions)
+                        .map(page -> pageResponse(exchange, eTag, page, Flux.fromIterable(page.getContent())))))))
+            .onErrorMap(IllegalArgumentException.class, e -> new BadRequestAlertException(e.getMessage(), ENTITY_NAME, "invalidsort"));
+    }
+
+    /**
+     * {@code GET  /employees?fields=:fields} : get a page of employees, with only some of their properties.
+     * <p>
+     * Only the selected properties are read from the database, and the page is not cached. It has the same weak
+     * {@code ETag} as the page of whole employees.
+     *
+     * @param pageable the pagination information.
+     * @param fields the properties to return besides the id.
+     * @param include the relationships to embed in each employee, which cannot be combined with the fields.
+     * @param exchange the exchange of the request.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of employees in body,
+     * or with status {@code 400 (Bad Request)} if a property cannot be selected, a relationship is included or the sort
+     * is not the order of an index.
+     */
+    @GetMapping(value = "/employees",
+        params = {SparseFieldsUtil.FIELDS_PARAMETER, "!" + KeysetPaginationUtil.CURSOR_PARAMETER, "!" + BatchFetchUtil.IDS_PARAMETER})
+    public Mono<ResponseEntity<Flux<Object>>> getAllEmployeesWithFields(Pageable pageable,
+                                                                        @RequestParam(SparseFieldsUtil.FIELDS_PARAMETER) List<String> fields,
+                                                                        @RequestParam(name = INCLUDE_PARAMETER, required = false) List<String> include,
+                                                                        ServerWebExchange exchange) {
+        log.debug("REST request to get a page of Employees with fields : {}", fields);
+        FieldSelection selection = selectFields(fields, includesAddresses(include));
+        return employeeService.getVersions(false).flatMap(versions ->
+            ETagUtil.ifNoneMatch(exchange, Mono.just(ETagUtil.generateWeakETag(versions)), eTag ->
+                employeeService.findPage(pageable, selection)
+                    .map(page -> pageResponse(exchange, eTag, page, SparseFieldsUtil.generateBody(page.getContent(), selection)))))
+            .onErrorMap(IllegalArgumentException.class, e -> new BadRequestAlertException(e.getMessage(), ENTITY_NAME, "invalidsort"));
+    }
+
+    /**
+     * {@code GET  /employees?cursor=:cursor} : get the slice of employees following the cursor.
+     * <p>
+     * Unlike a page number, the cursor resumes the listing with a range predicate, so every slice costs the same
+     * however deep it is. An empty cursor starts from the beginning, the following ones are given by the
+     * {@code next} Link.
+     *
+     * @param cursor the cursor returned with the previous slice, or an empty string for the first slice.
+     * @param pageable the size and sort of the slice.
+     * @param include the relationships to embed in each employee, only {@code addresses}.
+     * @param fields the properties to return besides the id, or none for all of them.
+     * @param request a {@link ServerHttpRequest} request.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the slice of employees in body,
+     * or with status {@code 400 (Bad Request)} if the cursor or the sort cannot be used, a relationship to include is unknown
+     * or a property cannot be selected.
+     */
+    @GetMapping(value = "/employees", params = KeysetPaginationUtil.CURSOR_PARAMETER)
+    public Mono<ResponseEntity<Flux<Object>>> getEmployeesAfterCursor(@RequestParam(KeysetPaginationUtil.CURSOR_PARAMETER) String cursor, Pageable pageable,
+                                                                      @RequestParam(name = INCLUDE_PARAMETER, required = false) List<String> include,
+                                                                      @RequestParam(name = SparseFieldsUtil.FIELDS_PARAMETER, required = false) List<String> fields,
+                                                                      ServerHttpRequest request) {
+        log.debug("REST request to get a slice of Employees after cursor : {}", cursor);
+        boolean includeAddresses = includesAddresses(include);
+        FieldSelection selection = selectFields(fields, includeAddresses);
+        return employeeService.findAllAfter(cursor, pageable, selection)
+            .onErrorMap(IllegalArgumentException.class, e -> new BadRequestAlertException(e.getMessage(), ENTITY_NAME, "invalidcursor"))
+            .flatMap(slice -> includeAddresses ? employeeService.includeAddresses(slice.getContent()).thenReturn(slice) : Mono.just(slice))
+            .map(slice -> ResponseEntity.ok()
+                .headers(KeysetPaginationUtil.generateKeysetPaginationHttpHeaders(UriComponentsBuilder.fromHttpRequest(request), slice))
+                .body(SparseFieldsUtil.generateBody(slice.getContent(), selection)));
+    }
+
+    /**
+     * {@code GET  /employees?ids=:ids} : get the employees with the given ids.
+     * <p>
+     * The employees are fetched with a single query and returned in the order of the ids. The ids which were not
+     * found are listed in the {@code X-Missing-Ids} header.
+     *
+     * @param ids the comma separated ids of the employees, at most {@code application.batch.max-ids}.
+     * @param include the relationships to embed in each employee, only {@code addresses}.
+     * @param fields the properties to return besides the id, or none for all of them.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of employees in body,
+     * or with status {@code 400 (Bad Request)} if there are too many ids, a relationship to include is unknown or a
+     * property cannot be selected.
+     */
+    @GetMapping(value = "/employees", params = {BatchFetchUtil.IDS_PARAMETER, "!" + KeysetPaginationUtil.CURSOR_PARAMETER})
+    public Mono<ResponseEntity<Flux<Object>>> getEmployeesByIds(@RequestParam(BatchFetchUtil.IDS_PARAMETER) List<String> ids,
+                                                                @RequestParam(name = INCLUDE_PARAMETER, required = false) List<String> include,
+                                                                @RequestParam(name = SparseFieldsUtil.FIELDS_PARAMETER, required = false) List<String> fields) {
+        log.debug("REST request to get Employees : {}", ids);
+        boolean includeAddresses = includesAddresses(include);
+        FieldSelection selection = selectFields(fields, includeAddresses);
+        return employeeService.findAllById(ids, selection)
+            .onErrorMap(IllegalArgumentException.class, e -> new BadRequestAlertException(e.getMessage(), ENTITY_NAME, "toomanyids"))
+            .flatMap(employees -> includeAddresses ? employeeService.includeAddresses(employees).thenReturn(employees) : Mono.just(employees))
+            .map(employees -> ResponseEntity.ok()
+                .headers(BatchFetchUtil.generateMissingIdsHttpHeaders(ids, employees, EmployeeDTO::getId))
+                .body(SparseFieldsUtil.generateBody(employees, selection)));
     }
 
     /**
      * {@code GET  /employees/:id} : get the "id" employee.
+     * <p>
+     * The JSON of the employeeDTO is written as encoded by {@link EmployeeService#findOneAsJson}, possibly from its cache,
+     * with its revision as strong {@code ETag}. A request with a matching {@code If-None-Match} header gets a
+     * {@code 304 (Not Modified)} without the body.
      *
      * @param id the id of the employeeDTO to retrieve.
+     * @param exchange the exchange of the request.
      * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the employeeDTO, or with status {@code 404 (Not Found)}.
      */
-    @GetMapping("/employees/{id}")
-    public Mono<ResponseEntity<EmployeeDTO>> getEmployee(@PathVariable String id) {
+    @GetMapping(value = "/employees/{id}", params = {"!" + INCLUDE_PARAMETER, "!" + SparseFieldsUtil.FIELDS_PARAMETER},
+        produces = MediaType.APPLICATION_JSON_VALUE)
+    public Mono<ResponseEntity<DataBuffer>> getEmployee(@PathVariable String id, ServerWebExchange exchange) {
         log.debug("REST request to get Employee : {}", id);
-        Mono<EmployeeDTO> employeeDTO = employeeService.findOne(id);
-        return ResponseUtil.wrapOrNotFound(employeeDTO);
+        return employeeService.findOneAsJson(id)
+            .map(json -> {
+                String eTag = ETagUtil.generateETag(json.getRevision());
+                if (exchange.checkNotModified(eTag)) {
+                    DataBufferUtils.release(json.getContent());
+                    return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).<DataBuffer>build();
+                }
+                return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).eTag(eTag).body(json.getContent());
+            })
+            .switchIfEmpty(Mono.error(new ResponseStatusException(HttpStatus.NOT_FOUND)));
+    }
+
+    /**
+     * {@code GET  /employees/:id} : get the "id" employee in a binary format, CBOR or Smile.
+     * <p>
+     * The {@code ETag} is the revision of the employee, as for its JSON, so that it can be sent back whatever the format.
+     *
+     * @param id the id of the employeeDTO to retrieve.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the employeeDTO, or with status {@code 404 (Not Found)}.
+     */
+    @GetMapping(value = "/employees/{id}", params = {"!" + INCLUDE_PARAMETER, "!" + SparseFieldsUtil.FIELDS_PARAMETER},
+        produces = {MediaType.APPLICATION_CBOR_VALUE, JacksonConfiguration.APPLICATION_SMILE_VALUE})
+    public Mono<ResponseEntity<EmployeeDTO>> getEmployeeInBinaryFormat(@PathVariable String id) {
+        log.debug("REST request to get Employee in a binary format : {}", id);
+        return employeeService.findOne(id)
+            .map(employee -> ResponseEntity.ok().eTag(ETagUtil.generateETag(employee.getRevision())).body(employee))
+            .switchIfEmpty(Mono.error(new ResponseStatusException(HttpStatus.NOT_FOUND)));
+    }
+
+    /**
+     * {@code GET  /employees/:id?fields=:fields} : get some properties of the "id" employee.
+     * <p>
+     * Only the selected properties are read from the database, besides the revision, which is the strong {@code ETag}.
+     *
+     * @param id the id of the employeeDTO to retrieve.
+     * @param fields the properties to return besides the id.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the selected properties of the employeeDTO,
+     * or with status {@code 404 (Not Found)}, or with status {@code 400 (Bad Request)} if a property cannot be selected.
+     */
+    @GetMapping(value = "/employees/{id}", params = {SparseFieldsUtil.FIELDS_PARAMETER, "!" + INCLUDE_PARAMETER})
+    public Mono<ResponseEntity<Object>> getEmployeeWithFields(@PathVariable String id,
+                                                              @RequestParam(SparseFieldsUtil.FIELDS_PARAMETER) List<String> fields) {
+        log.debug("REST request to get the fields {} of Employee : {}", fields, id);
+        FieldSelection selection = selectFields(fields, false);
+        return employeeService.findOne(id, selection)
+            .map(employee -> ResponseEntity.ok().eTag(ETagUtil.generateETag(employee.getRevision())).body(selection.write(employee)))
+            .switchIfEmpty(Mono.error(new ResponseStatusException(HttpStatus.NOT_FOUND)));
+    }
+
+    /**
+     * {@code GET  /employees/:id?include=addresses} : get the "id" employee with its relationships.
+     *
+     * @param id the id of the employeeDTO to retrieve.
+     * @param include the relationships to embed in the employee, only {@code addresses}.
+     * @param fields a sparse fieldset, which cannot be combined with included relationships.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the employeeDTO, or with status {@code 404 (Not Found)},
+     * or with status {@code 400 (Bad Request)} if a relationship to include is unknown or a fieldset is given.
+     */
+    @GetMapping(value = "/employees/{id}", params = INCLUDE_PARAMETER)
+    public Mono<ResponseEntity<EmployeeDTO>> getEmployeeWithRelationships(@PathVariable String id,
+                                                                          @RequestParam(name = INCLUDE_PARAMETER) List<String> include,
+                                                                          @RequestParam(name = SparseFieldsUtil.FIELDS_PARAMETER, required = false) List<String> fields) {
+        log.debug("REST request to get Employee with {} : {}", include, id);
+        boolean includeAddresses = includesAddresses(include);
+        selectFields(fields, includeAddresses);
+        return employeeService.findOne(id)
+            .flatMap(employee -> includeAddresses ? employeeService.includeAddresses(Collections.singletonList(employee)).thenReturn(employee) : Mono.just(employee))
+            .map(employee -> ResponseEntity.ok().eTag(ETagUtil.generateETag(objectMapper, employee)).body(employee))
+            .switchIfEmpty(Mono.error(new ResponseStatusException(HttpStatus.NOT_FOUND)));
+    }
+
+    /**
+     * {@code GET  /employees/:id/addresses} : get the addresses of the "id" employee.
+     * <p>
+     * The response has an {@code ETag}, so that a request with a matching {@code If-None-Match} header gets a
+     * {@code 304 (Not Modified)} without the body.
+     *
+     * @param id the id of the employee.
+     * @param addressType the type of the addresses to get, or all of them.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of addresses in body,
+     * or with status {@code 404 (Not Found)} if the employee does not exist.
+     */
+    @GetMapping(value = "/employees/{id}/addresses",
+        produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_CBOR_VALUE, JacksonConfiguration.APPLICATION_SMILE_VALUE})
+    public Mono<ResponseEntity<List<AddressDTO>>> getEmployeeAddresses(@PathVariable String id,
+                                                                       @RequestParam(required = false) AddressType addressType) {
+        log.debug("REST request to get the Addresses of Employee : {}", id);
+        return employeeService.findAddresses(id, addressType)
+            .collectList()
+            .map(addresses -> ResponseEntity.ok()
+                .eTag(ETagUtil.generateETag(objectMapper, addresses))
+                .body(addresses))
+            .onErrorMap(EmptyResultDataAccessException.class, e -> new ResponseStatusException(HttpStatus.NOT_FOUND));
+    }
+
+    /**
+     * {@code GET  /employees/:id/addresses} : stream the addresses of the "id" employee, one JSON document per line.
+     *
+     * @param id the id of the employee.
+     * @param addressType the type of the addresses to get, or all of them.
+     * @return the addresses, written as they are read, or the status {@code 404 (Not Found)} if the employee does not exist.
+     */
+    @GetMapping(value = "/employees/{id}/addresses", produces = MediaType.APPLICATION_STREAM_JSON_VALUE)
+    public Flux<AddressDTO> streamEmployeeAddresses(@PathVariable String id, @RequestParam(required = false) AddressType addressType) {
+        log.debug("REST request to stream the Addresses of Employee : {}", id);
+        return employeeService.findAddresses(id, addressType)
+            .onErrorMap(EmptyResultDataAccessException.class, e -> new ResponseStatusException(HttpStatus.NOT_FOUND));
+    }
+
+    /**
+     * {@code GET  /employees/stream} : export all the employees, one JSON document per line.
+     * <p>
+     * The employees are read from a single cursor and written as the client reads them, so that the export is not
+     * held in memory. An interrupted export resumes after the id of the last employee received.
+     *
+     * @param after the id of the last employee already received, or none to start from the first one.
+     * @param fields the properties to export besides the id, or none for all of them.
+     * @return the employees, or the status {@code 400 (Bad Request)} if the id is not valid or a property cannot be exported.
+     */
+    @GetMapping(value = "/employees/stream", produces = StreamingJackson2JsonEncoder.APPLICATION_NDJSON_VALUE)
+    public Flux<Object> exportEmployees(@RequestParam(name = StreamExportUtil.AFTER_PARAMETER, required = false) String after,
+                                        @RequestParam(name = SparseFieldsUtil.FIELDS_PARAMETER, required = false) List<String> fields) {
+        log.debug("REST request to export Employees after : {}", after);
+        return Flux.defer(() -> {
+            FieldSelection selection = employeeService.selectFields(fields);
+            return employeeService.streamAll(after, selection).map(selection::write);
+        }).onErrorMap(IllegalArgumentException.class, e -> new BadRequestAlertException(e.getMessage(), ENTITY_NAME, "invalidexport"));
+    }
+
+    /**
+     * {@code GET  /employees/stream} : export all the employees as server-sent events.
+     * <p>
+     * Each event has the id of its employee, so that a client reconnecting with the {@code Last-Event-ID} header
+     * resumes the export after the last event it received.
+     *
+     * @param after the id of the last employee already received, or none to start from the first one.
+     * @param lastEventId the id of the last event received, which takes precedence over {@code after}.
+     * @param fields the properties to export besides the id, or none for all of them.
+     * @return the events, or the status {@code 400 (Bad Request)} if the id is not valid or a property cannot be exported.
+     */
+    @GetMapping(value = "/employees/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<Object>> exportEmployeesAsEvents(@RequestParam(name = StreamExportUtil.AFTER_PARAMETER, required = false) String after,
+                                                                 @RequestHeader(name = StreamExportUtil.LAST_EVENT_ID_HEADER, required = false) String lastEventId,
+                                                                 @RequestParam(name = SparseFieldsUtil.FIELDS_PARAMETER, required = false) List<String> fields) {
+        String resumeAfter = StreamExportUtil.resumeAfter(after, lastEventId);
+        log.debug("REST request to export Employees as events after : {}", resumeAfter);
+        return Flux.defer(() -> {
+            FieldSelection selection = employeeService.selectFields(fields);
+            return StreamExportUtil.generateEvents(employeeService.streamAll(resumeAfter, selection), EmployeeDTO::getId, selection);
+        }).onErrorMap(IllegalArgumentException.class, e -> new BadRequestAlertException(e.getMessage(), ENTITY_NAME, "invalidexport"));
     }
 
     /**
      * {@code DELETE  /employees/:id} : delete the "id" employee.
      *
      * @param id the id of the employeeDTO to delete.
-     * @return the {@link ResponseEntity} with status {@code 204 (NO_CONTENT)}.
+     * @param ifMatch the {@code If-Match} header, if any.
+     * @return the {@link ResponseEntity} with status {@code 204 (NO_CONTENT)},
+     * or with status {@code 412 (Precondition Failed)} if the stored employee does not match {@code If-Match}.
      */
     @DeleteMapping("/employees/{id}")
     @ResponseStatus(code = HttpStatus.NO_CONTENT)
-    public Mono<ResponseEntity<Void>> deleteEmployee(@PathVariable String id) {
+    public Mono<ResponseEntity<Void>> deleteEmployee(@PathVariable String id,
+                                                     @RequestHeader(name = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
         log.debug("REST request to delete Employee : {}", id);
-        return employeeService.delete(id)            .map(result -> ResponseEntity.noContent()
+        return ETagUtil.ifMatch(ifMatch, revision -> employeeService.delete(id, revision), () -> employeeService.delete(id))
+            .map(result -> ResponseEntity.noContent()
             .headers(HeaderUtil.createEntityDeletionAlert(applicationName, false, ENTITY_NAME, id)).build()
         );
     }
+
+    /**
+     * The response of a page, with the pagination headers of the page and its content, written as it is read.
+     */
+    private static <T> ResponseEntity<Flux<T>> pageResponse(ServerWebExchange exchange, String eTag, Slice<?> page, Flux<T> content) {
+        return ResponseEntity.ok()
+            .eTag(eTag)
+            .headers(SlicePaginationUtil.generatePaginationHttpHeaders(UriComponentsBuilder.fromHttpRequest(exchange.getRequest()), page))
+            .body(content);
+    }
+
+    private static boolean includesAddresses(List<String> include) {
+        if (include == null) {
+            return false;
+        }
+        for (String relationship : include) {
+            if (!INCLUDE_ADDRESSES.equals(relationship)) {
+                throw new BadRequestAlertException("Unknown relationship to include: " + relationship, ENTITY_NAME, "invalidinclude");
+            }
+        }
+        return !include.isEmpty();
+    }
+
+    /**
+     * Reads a sparse fieldset, which cannot be combined with included relationships.
+     */
+    private FieldSelection selectFields(List<String> fields, boolean includeAddresses) {
+        FieldSelection selection;
+        try {
+            selection = employeeService.selectFields(fields);
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestAlertException(e.getMessage(), ENTITY_NAME, "invalidfields");
+        }
+        if (includeAddresses && !selection.isAll()) {
+            throw new BadRequestAlertException("Relationships cannot be included with a sparse fieldset", ENTITY_NAME, "invalidfields");
+        }
+        return selection;
+    }
 }
@@ -0,0 +1,45 @@
+package com.adriangraczyk.employeeservice.web.rest.util;
+
+import org.springframework.http.HttpHeaders;
+
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Utility class for handling the fetch of several entities by id in one request.
+ * <p>
+ * The entities found are returned in the body; the ids which were not found are listed in the
+ * {@code X-Missing-Ids} header, in the order they were requested.
+ */
+public final class BatchFetchUtil {
+
+    public static final String IDS_PARAMETER = "ids";
+
+    private static final String HEADER_X_MISSING_IDS = "X-Missing-Ids";
+
+    private BatchFetchUtil() {
+    }
+
+    /**
+     * Generate the headers of a batch fetch, listing the requested ids which were not found.
+     *
+     * @param requestedIds the ids of the request.
+     * @param found the entities found.
+     * @param idGetter the getter of the id of an entity.
+     * @param <T> The type of object.
+     * @return http header.
+     */
+    public static <T> HttpHeaders generateMissingIdsHttpHeaders(Collection<String> requestedIds, Collection<T> found, Function<T, String> idGetter) {
+        HttpHeaders headers = new HttpHeaders();
+        Set<String> missingIds = new LinkedHashSet<>(requestedIds);
+        missingIds.removeAll(found.stream().map(idGetter).collect(Collectors.toSet()));
+        missingIds.remove("");
+        if (!missingIds.isEmpty()) {
+            headers.add(HEADER_X_MISSING_IDS, String.join(",", missingIds));
+        }
+        return headers;
+    }
+}
@@ -0,0 +1,149 @@
+package com.adriangraczyk.employeeservice.web.rest.util;
+
+import com.adriangraczyk.employeeservice.repository.Revisions;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.util.DigestUtils;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Utility class for the entity tags of conditional requests.
+ * <p>
+ * A response with an {@code ETag} header is answered with {@code 304 (Not Modified)} by WebFlux when the request has a
+ * matching {@code If-None-Match} header, so that the body is not sent again. Entities have strong tags, from their
+ * revision, which the {@code If-Match} header of a write is checked against without reading them. The responses
+ * combining several entities have strong tags from the digest of their JSON, and listings weak ones, from the versions
+ * of the collections they are read from, which are known before the listing is read.
+ */
+public final class ETagUtil {
+
+    /**
+     * The revision in the tag of the entities stored before they had revisions.
+     */
+    private static final String NO_REVISION = "0";
+
+    private ETagUtil() {
+    }
+
+    /**
+     * Generate the strong entity tag of a body, from the digest of its JSON representation.
+     *
+     * @param objectMapper the mapper writing the body.
+     * @param body the body of the response.
+     * @return the quoted entity tag.
+     */
+    public static String generateETag(ObjectMapper objectMapper, Object body) {
+        try {
+            return "\"" + DigestUtils.md5DigestAsHex(objectMapper.writeValueAsBytes(body)) + "\"";
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Generate the strong entity tag of an entity, from its revision.
+     *
+     * @param revision the revision of the stored entity, {@code null} if it has none.
+     * @return the quoted entity tag.
+     */
+    public static String generateETag(String revision) {
+        return "\"" + (revision == null ? NO_REVISION : revision) + "\"";
+    }
+
+    /**
+     * Generate the weak entity tag of a listing, from the versions of the collections it is read from.
+     *
+     * @param versions the versions of the collections.
+     * @return the weak entity tag.
+     */
+    public static String generateWeakETag(List<Long> versions) {
+        return "W/\"" + versions.stream().map(Object::toString).collect(Collectors.joining(".")) + "\"";
+    }
+
+    /**
+     * Answer with {@code 304 (Not Modified)} when the {@code If-None-Match} header of the request matches the tag, or
+     * else with the response, which is then not even read.
+     *
+     * @param exchange the exchange of the request.
+     * @param eTag the tag of the response.
+     * @param response the response, given its tag.
+     * @param <T> the type of the body.
+     * @return the response to the request.
+     */
+    public static <T> Mono<ResponseEntity<T>> ifNoneMatch(ServerWebExchange exchange, Mono<String> eTag,
+                                                          Function<String, Mono<ResponseEntity<T>>> response) {
+        return eTag.flatMap(tag -> exchange.checkNotModified(tag)
+            ? Mono.just(ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(tag).build())
+            : response.apply(tag));
+    }
+
+    /**
+     * Write an entity with the precondition of the {@code If-Match} header of the request, as a write conditional on the
+     * revision of each of its strong tags in turn, until one matches the stored entity. The revision is checked in the
+     * filter of the write itself, so the stored entity is not read before.
+     *
+     * @param ifMatch the header, a list of tags or {@code *}, or {@code null} if the request has none.
+     * @param conditionalWrite the write, given the revision the stored entity must be at, or {@link Revisions#ANY}; it
+     * fails with an {@link OptimisticLockingFailureException} when the stored entity is not at the revision.
+     * @param write the unconditional write, for a request without the header.
+     * @param <T> the type of the written entity.
+     * @return the outcome of the write, or a {@link #preconditionFailed()} error if no tag matches the stored entity.
+     */
+    public static <T> Mono<T> ifMatch(String ifMatch, Function<String, Mono<T>> conditionalWrite, Supplier<Mono<T>> write) {
+        if (ifMatch == null) {
+            return write.get();
+        }
+        List<String> revisions = revisions(ifMatch);
+        return Flux.range(0, revisions.size())
+            .concatMap(i -> conditionalWrite.apply(revisions.get(i))
+                .map(Optional::of)
+                .defaultIfEmpty(Optional.empty())
+                .onErrorResume(OptimisticLockingFailureException.class, e -> Mono.empty()))
+            .next()
+            .switchIfEmpty(Mono.error(ETagUtil::preconditionFailed))
+            .flatMap(Mono::justOrEmpty);
+    }
+
+    /**
+     * The error answering a request whose {@code If-Match} header does not match the stored entity.
+     *
+     * @return the error, with status {@code 412 (Precondition Failed)}.
+     */
+    public static ResponseStatusException preconditionFailed() {
+        return new ResponseStatusException(HttpStatus.PRECONDITION_FAILED, "The entity does not match If-Match");
+    }
+
+    /**
+     * The revisions of the tags of an {@code If-Match} header, with the strong comparison: weak tags never match.
+     *
+     * @param ifMatch the header, a list of tags or {@code *}.
+     * @return the revisions, {@code null} for the tag of an entity without one, or {@link Revisions#ANY}.
+     */
+    private static List<String> revisions(String ifMatch) {
+        List<String> revisions = new ArrayList<>();
+        for (String tag : ifMatch.split(",")) {
+            tag = tag.trim();
+            if ("*".equals(tag)) {
+                revisions.add(Revisions.ANY);
+            } else if (tag.length() > 1 && tag.startsWith("\"") && tag.endsWith("\"")) {
+                String revision = tag.substring(1, tag.length() - 1);
+                revisions.add(NO_REVISION.equals(revision) ? null : revision);
+            }
+        }
+        return revisions;
+    }
+}
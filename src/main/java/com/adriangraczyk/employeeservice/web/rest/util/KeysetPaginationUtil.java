@@ -0,0 +1,57 @@
+package com.adriangraczyk.employeeservice.web.rest.util;
+
+import com.adriangraczyk.employeeservice.repository.KeysetSlice;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import java.text.MessageFormat;
+
+/**
+ * Utility class for handling keyset (cursor based) pagination.
+ * <p>
+ * This is the counterpart of {@link io.github.jhipster.web.util.PaginationUtil}: the Link header points at the
+ * cursor of the next slice instead of a page number, and there is no total count.
+ */
+public final class KeysetPaginationUtil {
+
+    public static final String CURSOR_PARAMETER = "cursor";
+
+    private static final String HEADER_X_NEXT_CURSOR = "X-Next-Cursor";
+
+    private static final String HEADER_LINK_FORMAT = "<{0}>; rel=\"{1}\"";
+
+    private KeysetPaginationUtil() {
+    }
+
+    /**
+     * Generate keyset pagination headers for a {@link KeysetSlice} object.
+     *
+     * @param uriBuilder The URI builder.
+     * @param slice The slice.
+     * @param <T> The type of object.
+     * @return http header.
+     */
+    public static <T> HttpHeaders generateKeysetPaginationHttpHeaders(UriComponentsBuilder uriBuilder, KeysetSlice<T> slice) {
+        HttpHeaders headers = new HttpHeaders();
+        StringBuilder link = new StringBuilder();
+        if (slice.hasNext()) {
+            headers.add(HEADER_X_NEXT_CURSOR, slice.getNextCursor());
+            link.append(prepareLink(uriBuilder, slice.getNextCursor(), "next")).append(",");
+        }
+        link.append(prepareLink(uriBuilder, "", "first"));
+        headers.add(HttpHeaders.LINK, link.toString());
+        return headers;
+    }
+
+    private static String prepareLink(UriComponentsBuilder uriBuilder, String cursor, String relType) {
+        return MessageFormat.format(HEADER_LINK_FORMAT, prepareCursorUri(uriBuilder, cursor), relType);
+    }
+
+    private static String prepareCursorUri(UriComponentsBuilder uriBuilder, String cursor) {
+        return uriBuilder.replaceQueryParam(CURSOR_PARAMETER, cursor)
+            .replaceQueryParam("page")
+            .toUriString()
+            .replace(",", "%2C")
+            .replace(";", "%3B");
+    }
+}
@@ -0,0 +1,55 @@
+package com.adriangraczyk.employeeservice.web.rest.util;
+
+import java.time.Duration;
+
+/**
+ * Limits an endpoint to a number of requests per period, counted in fixed windows, for the endpoints costly enough to
+ * be worth protecting from repeated calls. The requests are counted by instance.
+ */
+public class RateLimiter {
+
+    private final int maxRequests;
+
+    private final long periodNanos;
+
+    private long windowStart = System.nanoTime();
+
+    private int requests;
+
+    /**
+     * @param maxRequests the number of requests allowed per period.
+     * @param period the length of a window.
+     */
+    public RateLimiter(int maxRequests, Duration period) {
+        this.maxRequests = maxRequests;
+        this.periodNanos = period.toNanos();
+    }
+
+    /**
+     * Counts a request, if it is allowed.
+     *
+     * @return true if the request is allowed, false if the requests of the current window are exhausted.
+     */
+    public synchronized boolean tryAcquire() {
+        long now = System.nanoTime();
+        if (now - windowStart >= periodNanos) {
+            windowStart = now;
+            requests = 0;
+        }
+        if (requests >= maxRequests) {
+            return false;
+        }
+        requests++;
+        return true;
+    }
+
+    /**
+     * Returns the time until the current window ends, for the {@code Retry-After} header of a refused request.
+     *
+     * @return the time until requests are allowed again, rounded up to the second.
+     */
+    public synchronized Duration getRetryAfter() {
+        long remaining = Math.max(0, periodNanos - (System.nanoTime() - windowStart));
+        return Duration.ofSeconds((remaining + 999_999_999L) / 1_000_000_000L);
+    }
+}
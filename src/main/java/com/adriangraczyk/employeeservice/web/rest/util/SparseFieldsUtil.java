@@ -0,0 +1,32 @@
+package com.adriangraczyk.employeeservice.web.rest.util;
+
+import com.adriangraczyk.employeeservice.service.FieldSelection;
+import reactor.core.publisher.Flux;
+
+import java.util.Collection;
+
+/**
+ * Utility class for handling the sparse fieldsets, which limit the returned entities to some of their properties.
+ * <p>
+ * The {@code fields} parameter lists the properties to return besides the id, for example
+ * {@code ?fields=firstName,lastName}. Only those are read from the database; the others are left out of the body.
+ */
+public final class SparseFieldsUtil {
+
+    public static final String FIELDS_PARAMETER = "fields";
+
+    private SparseFieldsUtil() {
+    }
+
+    /**
+     * Generate the body of a listing of entities read with a sparse fieldset.
+     *
+     * @param entities the entities.
+     * @param fields the properties they were read with.
+     * @param <T> The type of object.
+     * @return the entities with the selected properties only.
+     */
+    public static <T> Flux<Object> generateBody(Collection<T> entities, FieldSelection fields) {
+        return Flux.fromIterable(entities).map(fields::write);
+    }
+}
@@ -0,0 +1,48 @@
+package com.adriangraczyk.employeeservice.web.rest.util;
+
+import com.adriangraczyk.employeeservice.service.FieldSelection;
+import org.springframework.http.codec.ServerSentEvent;
+import reactor.core.publisher.Flux;
+
+import java.util.function.Function;
+
+/**
+ * Utility class for handling the exports of whole collections, streamed from a cursor.
+ * <p>
+ * An export is written as newline delimited JSON, or as server-sent events whose ids are the ids of the entities. It
+ * resumes after the id given by the {@code after} parameter, or by the {@code Last-Event-ID} header a client sends
+ * when it reconnects to the events, and can be limited to some properties with the {@code fields} parameter.
+ */
+public final class StreamExportUtil {
+
+    public static final String AFTER_PARAMETER = "after";
+
+    public static final String LAST_EVENT_ID_HEADER = "Last-Event-ID";
+
+    private StreamExportUtil() {
+    }
+
+    /**
+     * Returns the id of the entity to resume an export after.
+     *
+     * @param after the {@code after} parameter.
+     * @param lastEventId the {@code Last-Event-ID} header, which takes precedence.
+     * @return the id, or {@code null} to export from the first entity.
+     */
+    public static String resumeAfter(String after, String lastEventId) {
+        return lastEventId != null ? lastEventId : after;
+    }
+
+    /**
+     * Generate the server-sent events of an export.
+     *
+     * @param elements the entities exported.
+     * @param idGetter the getter of the id of an entity.
+     * @param fields the properties exported.
+     * @param <T> The type of object.
+     * @return an event of each entity, with its id.
+     */
+    public static <T> Flux<ServerSentEvent<Object>> generateEvents(Flux<T> elements, Function<T, String> idGetter, FieldSelection fields) {
+        return elements.map(element -> ServerSentEvent.builder(fields.write(element)).id(idGetter.apply(element)).build());
+    }
+}
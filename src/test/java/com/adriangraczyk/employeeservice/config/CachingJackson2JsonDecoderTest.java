@@ -0,0 +1,50 @@
+package com.adriangraczyk.employeeservice.config;
+
+import com.adriangraczyk.employeeservice.service.dto.EmployeeDTO;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.codec.DecodingException;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.MediaType;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class CachingJackson2JsonDecoderTest {
+
+    private final CachingJackson2JsonDecoder decoder = new CachingJackson2JsonDecoder(new ObjectMapper());
+
+    private Object decode(String json, ResolvableType targetType) {
+        DataBuffer buffer = new DefaultDataBufferFactory().wrap(json.getBytes(StandardCharsets.UTF_8));
+        return decoder.decode(buffer, targetType, MediaType.APPLICATION_JSON, Collections.emptyMap());
+    }
+
+    @Test
+    public void testBodiesAreReadIntoTheirType() {
+        for (String firstName : new String[]{"John", "Jane"}) {
+            Object employee = decode("{\"firstName\":\"" + firstName + "\"}", ResolvableType.forClass(EmployeeDTO.class));
+
+            assertThat(employee).isInstanceOf(EmployeeDTO.class);
+            assertThat(((EmployeeDTO) employee).getFirstName()).isEqualTo(firstName);
+        }
+    }
+
+    @Test
+    public void testGenericTypesAreRead() {
+        Object employees = decode("[{\"lastName\":\"Doe\"}]", ResolvableType.forClassWithGenerics(List.class, EmployeeDTO.class));
+
+        assertThat(employees).asList().hasSize(1).first().isInstanceOf(EmployeeDTO.class);
+    }
+
+    @Test
+    public void testMalformedBodyIsADecodingError() {
+        assertThatThrownBy(() -> decode("{\"firstName\":", ResolvableType.forClass(EmployeeDTO.class)))
+            .isInstanceOf(DecodingException.class);
+    }
+}
@@ -0,0 +1,114 @@
+package com.adriangraczyk.employeeservice.config;
+
+import com.adriangraczyk.employeeservice.service.dto.AddressDTO;
+import com.adriangraczyk.employeeservice.service.dto.EmployeeDTO;
+import com.fasterxml.jackson.databind.MapperFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jdk8.Jdk8Module;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.fasterxml.jackson.module.afterburner.AfterburnerModule;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBuffer;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.json.Jackson2JsonDecoder;
+import org.springframework.http.codec.json.Jackson2JsonEncoder;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the time and allocations to encode and decode a single DTO, as a request or response body:
+ * <ul>
+ * <li>{@code spring}: the codecs of Spring with a mapper using reflection, as before;</li>
+ * <li>{@code afterburner}: the codecs of Spring with the mapper of the application, with Afterburner and static
+ * typing;</li>
+ * <li>{@code cached}: the codecs of the application, with their cached writers and readers, and the same mapper.</li>
+ * </ul>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(value = 1, jvmArgs = {"-Xms1g", "-Xmx1g"})
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class DtoCodecBenchmark {
+
+    private static final Map<String, Object> NO_HINTS = Collections.emptyMap();
+
+    @Param({"spring", "afterburner", "cached"})
+    String codec;
+
+    @Param({"employee", "address"})
+    String dto;
+
+    private final DefaultDataBufferFactory bufferFactory = new DefaultDataBufferFactory();
+
+    private Jackson2JsonEncoder encoder;
+
+    private Jackson2JsonDecoder decoder;
+
+    private Object value;
+
+    private ResolvableType type;
+
+    private byte[] json;
+
+    @Setup
+    public void setUp() {
+        Jackson2ObjectMapperBuilder builder = Jackson2ObjectMapperBuilder.json();
+        if ("spring".equals(codec)) {
+            builder.modules(new JavaTimeModule(), new Jdk8Module());
+        } else {
+            builder.modules(new JavaTimeModule(), new Jdk8Module(), new AfterburnerModule())
+                .featuresToEnable(MapperFeature.USE_STATIC_TYPING)
+                .featuresToDisable(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        }
+        ObjectMapper mapper = builder.build();
+        boolean cached = "cached".equals(codec);
+        encoder = cached ? new StreamingJackson2JsonEncoder(mapper) : new Jackson2JsonEncoder(mapper);
+        decoder = cached ? new CachingJackson2JsonDecoder(mapper) : new Jackson2JsonDecoder(mapper);
+        if ("employee".equals(dto)) {
+            EmployeeDTO employee = SerializationFormatsBenchmark.employee(0);
+            employee.setAddresses(null);
+            value = employee;
+        } else {
+            value = SerializationFormatsBenchmark.address(0);
+        }
+        type = ResolvableType.forInstance(value);
+        DataBuffer buffer = encode();
+        json = new byte[buffer.readableByteCount()];
+        buffer.read(json);
+    }
+
+    @Benchmark
+    public DataBuffer encode() {
+        return encoder.encodeValue(value, bufferFactory, type, MediaType.APPLICATION_JSON, NO_HINTS);
+    }
+
+    @Benchmark
+    public Object decode() {
+        DefaultDataBuffer buffer = bufferFactory.wrap(json);
+        try {
+            return decoder.decode(buffer, type, MediaType.APPLICATION_JSON, NO_HINTS);
+        } finally {
+            DataBufferUtils.release(buffer);
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.adriangraczyk.employeeservice.config;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.profile.Profiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+
+/**
+ * Runs the JMH benchmarks of the Jackson codecs, each in a JVM of its own.
+ * <p>
+ * Only run on demand: {@code ./mvnw verify -Dit.test=JacksonBenchmarkIT -Dbenchmark=true}.
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+public class JacksonBenchmarkIT {
+
+    private static final Logger log = LoggerFactory.getLogger(JacksonBenchmarkIT.class);
+
+    @Test
+    public void compareSerializationFormats() throws IOException, RunnerException {
+        for (String format : SerializationFormatsBenchmark.FORMATS) {
+            SerializationFormatsBenchmark benchmark = new SerializationFormatsBenchmark();
+            benchmark.format = format;
+            benchmark.setUp();
+            log.info("{} payload of the listing: {} bytes", format, benchmark.payloadSize());
+        }
+        run(SerializationFormatsBenchmark.class);
+    }
+
+    @Test
+    public void compareDtoCodecs() throws RunnerException {
+        run(DtoCodecBenchmark.class, GCProfiler.class);
+    }
+
+    @SafeVarargs
+    private static void run(Class<?> benchmark, Class<? extends Profiler>... profilers) throws RunnerException {
+        ChainedOptionsBuilder options = new OptionsBuilder().include(benchmark.getName());
+        for (Class<? extends Profiler> profiler : profilers) {
+            options.addProfiler(profiler);
+        }
+        new Runner(options.build()).run();
+    }
+}
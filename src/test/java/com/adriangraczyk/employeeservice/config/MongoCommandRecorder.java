@@ -0,0 +1,108 @@
+package com.adriangraczyk.employeeservice.config;
+
+import com.mongodb.MongoClientOptions;
+import com.mongodb.event.CommandFailedEvent;
+import com.mongodb.event.CommandListener;
+import com.mongodb.event.CommandStartedEvent;
+import com.mongodb.event.CommandSucceededEvent;
+import org.bson.BsonDocument;
+import org.bson.BsonDocumentReader;
+import org.bson.BsonString;
+import org.bson.codecs.BsonDocumentCodec;
+import org.bson.codecs.DecoderContext;
+import org.springframework.boot.autoconfigure.mongo.MongoClientSettingsBuilderCustomizer;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Records the commands sent by the reactive and the blocking Mongo clients, for tests asserting on the queries
+ * behind an operation.
+ * <p>
+ * Import {@link Config} in the test to register it.
+ */
+public class MongoCommandRecorder implements CommandListener {
+
+    private static final List<String> SESSION_FIELDS = Arrays.asList("$db", "$clusterTime", "$readPreference", "lsid", "txnNumber");
+
+    private final List<BsonDocument> commands = new CopyOnWriteArrayList<>();
+
+    @Override
+    public void commandStarted(CommandStartedEvent event) {
+        // the command is only readable during the callback, and is immutable
+        BsonDocument command = new BsonDocumentCodec().decode(new BsonDocumentReader(event.getCommand()), DecoderContext.builder().build());
+        SESSION_FIELDS.forEach(command::remove);
+        commands.add(command);
+    }
+
+    @Override
+    public void commandSucceeded(CommandSucceededEvent event) {
+    }
+
+    @Override
+    public void commandFailed(CommandFailedEvent event) {
+    }
+
+    /**
+     * Forget the commands recorded so far.
+     */
+    public void clear() {
+        commands.clear();
+    }
+
+    /**
+     * Returns the commands recorded since the last {@link #clear()}, without their session fields.
+     *
+     * @param commandNames the names of the commands to keep, such as {@code find}.
+     * @return the commands, in the order they were sent.
+     */
+    public List<BsonDocument> getCommands(String... commandNames) {
+        List<BsonDocument> result = new ArrayList<>();
+        for (BsonDocument command : commands) {
+            if (Arrays.asList(commandNames).contains(command.getFirstKey())) {
+                result.add(command);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the commands recorded since the last {@link #clear()} on one collection, without their session fields.
+     *
+     * @param collectionName the name of the collection.
+     * @param commandNames the names of the commands to keep, such as {@code find}.
+     * @return the commands, in the order they were sent.
+     */
+    public List<BsonDocument> getCommandsOn(String collectionName, String... commandNames) {
+        List<BsonDocument> result = new ArrayList<>();
+        for (BsonDocument command : getCommands(commandNames)) {
+            if (new BsonString(collectionName).equals(command.get(command.getFirstKey()))) {
+                result.add(command);
+            }
+        }
+        return result;
+    }
+
+    @TestConfiguration
+    public static class Config {
+
+        @Bean
+        public MongoCommandRecorder mongoCommandRecorder() {
+            return new MongoCommandRecorder();
+        }
+
+        @Bean
+        public MongoClientSettingsBuilderCustomizer mongoCommandRecorderCustomizer(MongoCommandRecorder mongoCommandRecorder) {
+            return builder -> builder.addCommandListener(mongoCommandRecorder);
+        }
+
+        @Bean
+        public MongoClientOptions mongoClientOptions(MongoCommandRecorder mongoCommandRecorder) {
+            return MongoClientOptions.builder().addCommandListener(mongoCommandRecorder).build();
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package com.adriangraczyk.employeeservice.config;
+
+import com.adriangraczyk.employeeservice.domain.enumeration.AddressType;
+import com.adriangraczyk.employeeservice.domain.enumeration.Role;
+import com.adriangraczyk.employeeservice.service.dto.AddressDTO;
+import com.adriangraczyk.employeeservice.service.dto.EmployeeDTO;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.MapperFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.datatype.jdk8.Jdk8Module;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.fasterxml.jackson.module.afterburner.AfterburnerModule;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the time to encode and decode a listing of employees in JSON, CBOR and Smile, with the Jackson configuration
+ * of the application. The size of the payloads is logged by {@link JacksonBenchmarkIT}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(value = 1, jvmArgs = {"-Xms1g", "-Xmx1g"})
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class SerializationFormatsBenchmark {
+
+    static final String[] FORMATS = {"json", "cbor", "smile"};
+
+    private static final int EMPLOYEES = 1000;
+
+    @Param({"json", "cbor", "smile"})
+    String format;
+
+    private List<EmployeeDTO> employees;
+
+    private ObjectWriter writer;
+
+    private ObjectReader reader;
+
+    private byte[] payload;
+
+    @Setup
+    public void setUp() throws IOException {
+        Jackson2ObjectMapperBuilder builder = Jackson2ObjectMapperBuilder.json()
+            .modules(new JavaTimeModule(), new Jdk8Module(), new AfterburnerModule())
+            .featuresToEnable(MapperFeature.USE_STATIC_TYPING);
+        if ("cbor".equals(format)) {
+            builder.factory(new CBORFactory());
+        } else if ("smile".equals(format)) {
+            builder.factory(new SmileFactory());
+        }
+        ObjectMapper mapper = builder.build();
+        TypeReference<List<EmployeeDTO>> listType = new TypeReference<List<EmployeeDTO>>() {};
+        writer = mapper.writerFor(listType);
+        reader = mapper.readerFor(listType);
+        employees = new ArrayList<>();
+        for (int i = 0; i < EMPLOYEES; i++) {
+            employees.add(employee(i));
+        }
+        payload = writer.writeValueAsBytes(employees);
+    }
+
+    @Benchmark
+    public byte[] encode() throws IOException {
+        return writer.writeValueAsBytes(employees);
+    }
+
+    @Benchmark
+    public List<EmployeeDTO> decode() throws IOException {
+        return reader.readValue(payload);
+    }
+
+    int payloadSize() {
+        return payload.length;
+    }
+
+    static EmployeeDTO employee(int i) {
+        EmployeeDTO employee = new EmployeeDTO();
+        employee.setId(String.format("5ec3a2b1c9e77c0001%06x", i));
+        employee.setFirstName("John" + i);
+        employee.setLastName("Doe" + i);
+        employee.setAge(20 + i % 45);
+        employee.setpESEL(String.format("%011d", i));
+        employee.setRole(Role.values()[i % Role.values().length]);
+        employee.setAddresses(Collections.singletonList(address(i)));
+        return employee;
+    }
+
+    static AddressDTO address(int i) {
+        AddressDTO address = new AddressDTO();
+        address.setId(String.format("5ec3a2b1c9e77c0002%06x", i));
+        address.setAddressType(AddressType.HOME_ADDRESS);
+        address.setStreet("Marszałkowska");
+        address.setPostalCode("00-" + String.format("%03d", i % 1000));
+        address.setCity("Warszawa");
+        address.setCountry("Poland");
+        address.setStateProvince("mazowieckie");
+        address.setBuildingNumber(String.valueOf(1 + i % 200));
+        address.setFlatNumber(String.valueOf(1 + i % 50));
+        address.setEmployeeId(String.format("5ec3a2b1c9e77c0001%06x", i));
+        return address;
+    }
+}
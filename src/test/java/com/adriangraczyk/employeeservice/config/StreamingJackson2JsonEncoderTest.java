@@ -0,0 +1,128 @@
+package com.adriangraczyk.employeeservice.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.MediaType;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.UnicastProcessor;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class StreamingJackson2JsonEncoderTest {
+
+    private static final ResolvableType ELEMENT_TYPE = ResolvableType.forClass(Map.class);
+
+    private final StreamingJackson2JsonEncoder encoder = new StreamingJackson2JsonEncoder(new ObjectMapper());
+
+    private Flux<DataBuffer> encode(Flux<?> values, MediaType mediaType) {
+        return encoder.encode(values, new DefaultDataBufferFactory(), ELEMENT_TYPE, mediaType, Collections.emptyMap());
+    }
+
+    private static String read(DataBuffer buffer) {
+        String read = buffer.toString(StandardCharsets.UTF_8);
+        DataBufferUtils.release(buffer);
+        return read;
+    }
+
+    private static Map<String, Integer> element(int id) {
+        return Collections.singletonMap("id", id);
+    }
+
+    @Test
+    public void testFluxIsWrittenAsAnArray() {
+        String json = encode(Flux.just(element(1), element(2), element(3)), MediaType.APPLICATION_JSON)
+            .map(StreamingJackson2JsonEncoderTest::read)
+            .collectList()
+            .map(parts -> String.join("", parts))
+            .block();
+
+        assertThat(json).isEqualTo("[{\"id\":1},{\"id\":2},{\"id\":3}]");
+    }
+
+    @Test
+    public void testEmptyFluxIsAnEmptyArray() {
+        assertThat(encode(Flux.empty(), MediaType.APPLICATION_JSON).map(StreamingJackson2JsonEncoderTest::read).collectList().block())
+            .containsExactly("[]");
+    }
+
+    @Test
+    public void testElementIsWrittenBeforeTheNextOneIsEmitted() {
+        UnicastProcessor<Map<String, Integer>> elements = UnicastProcessor.create();
+        List<String> written = new ArrayList<>();
+        encode(elements, MediaType.APPLICATION_JSON).map(StreamingJackson2JsonEncoderTest::read).subscribe(written::add);
+
+        elements.onNext(element(1));
+        assertThat(written).containsExactly("[{\"id\":1}");
+        elements.onNext(element(2));
+        assertThat(written).containsExactly("[{\"id\":1}", ",{\"id\":2}");
+        elements.onComplete();
+        assertThat(written).containsExactly("[{\"id\":1}", ",{\"id\":2}", "]");
+    }
+
+    @Test
+    public void testFailureBeforeTheFirstElementWritesNothing() {
+        List<DataBuffer> written = new ArrayList<>();
+
+        assertThatThrownBy(() -> encode(Flux.error(new IllegalStateException()), MediaType.APPLICATION_JSON).doOnNext(written::add).blockLast())
+            .isInstanceOf(IllegalStateException.class);
+        assertThat(written).isEmpty();
+    }
+
+    @Test
+    public void testFluxIsWrittenAsLinesOfNewlineDelimitedJson() {
+        List<String> written = encode(Flux.just(element(1), element(2)), StreamingJackson2JsonEncoder.APPLICATION_NDJSON)
+            .map(StreamingJackson2JsonEncoderTest::read)
+            .collectList()
+            .block();
+
+        assertThat(written).containsExactly("{\"id\":1}\n", "{\"id\":2}\n");
+        assertThat(encode(Flux.empty(), StreamingJackson2JsonEncoder.APPLICATION_NDJSON).collectList().block()).isEmpty();
+    }
+
+    @Test
+    public void testMonoIsWrittenAsBefore() {
+        String json = encoder.encode(Mono.just(element(1)), new DefaultDataBufferFactory(), ELEMENT_TYPE, MediaType.APPLICATION_JSON,
+            Collections.emptyMap())
+            .map(StreamingJackson2JsonEncoderTest::read)
+            .collectList()
+            .map(parts -> String.join("", parts))
+            .block();
+
+        assertThat(json).isEqualTo("{\"id\":1}");
+    }
+
+    @Test
+    public void testElementsAreWrittenAsTheirOwnClass() {
+        String json = encoder.encode(Flux.just(element(1), Collections.singletonList(2), "three"), new DefaultDataBufferFactory(),
+            ResolvableType.forClass(Object.class), MediaType.APPLICATION_JSON, Collections.emptyMap())
+            .map(StreamingJackson2JsonEncoderTest::read)
+            .collectList()
+            .map(parts -> String.join("", parts))
+            .block();
+
+        assertThat(json).isEqualTo("[{\"id\":1},[2],\"three\"]");
+    }
+
+    @Test
+    public void testStreamingMediaTypeIsWrittenAsBefore() {
+        String json = encode(Flux.just(element(1), element(2)), MediaType.APPLICATION_STREAM_JSON)
+            .map(StreamingJackson2JsonEncoderTest::read)
+            .collectList()
+            .map(parts -> String.join("", parts))
+            .block();
+
+        assertThat(json).isEqualTo("{\"id\":1}\n{\"id\":2}\n");
+    }
+}
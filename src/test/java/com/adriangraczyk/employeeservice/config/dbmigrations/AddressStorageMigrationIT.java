@@ -0,0 +1,92 @@
+package com.adriangraczyk.employeeservice.config.dbmigrations;
+
+import com.adriangraczyk.employeeservice.EmployeeserviceApp;
+import com.adriangraczyk.employeeservice.domain.Address;
+import com.adriangraczyk.employeeservice.domain.Employee;
+import com.adriangraczyk.employeeservice.repository.AddressRepository;
+import com.adriangraczyk.employeeservice.repository.EmbeddedAddressRepository;
+import com.adriangraczyk.employeeservice.repository.EmployeeRepository;
+import com.adriangraczyk.employeeservice.service.mapper.AddressMapper;
+import com.adriangraczyk.employeeservice.web.rest.AddressResourceIT;
+import com.adriangraczyk.employeeservice.web.rest.EmployeeResourceIT;
+
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.mock.env.MockEnvironment;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Integration tests for {@link AddressStorageMigration}.
+ */
+@SpringBootTest(classes = EmployeeserviceApp.class)
+public class AddressStorageMigrationIT {
+
+    @Autowired
+    private AddressRepository addressRepository;
+
+    @Autowired
+    private EmbeddedAddressRepository embeddedAddressRepository;
+
+    @Autowired
+    private EmployeeRepository employeeRepository;
+
+    @Autowired
+    private AddressMapper addressMapper;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    private final AddressStorageMigration migration = new AddressStorageMigration();
+
+    private Employee employee;
+
+    private Address address;
+
+    private Address orphanAddress;
+
+    @BeforeEach
+    public void initTest() {
+        addressRepository.deleteAll().block();
+        employeeRepository.deleteAll().block();
+        employee = employeeRepository.save(EmployeeResourceIT.createEntity()).block();
+        address = addressRepository.save(AddressResourceIT.createEntity().employee(employee)).block();
+        Employee missingEmployee = new Employee();
+        missingEmployee.setId(new ObjectId().toHexString());
+        orphanAddress = addressRepository.save(AddressResourceIT.createEntity().employee(missingEmployee)).block();
+    }
+
+    @Test
+    public void convertToEmbeddedAndBack() {
+        migration.convertAddressStorage(mongoTemplate, new MockEnvironment().withProperty("application.addresses.storage", "embedded"));
+
+        Address embedded = embeddedAddressRepository.findById(address.getId()).block();
+        assertThat(embedded.getStreet()).isEqualTo(address.getStreet());
+        assertThat(embedded.getEmployee().getId()).isEqualTo(employee.getId());
+        assertThat(addressRepository.findAll().collectList().block()).containsExactly(orphanAddress);
+
+        migration.convertAddressStorage(mongoTemplate, new MockEnvironment());
+
+        assertThat(embeddedAddressRepository.count().block()).isZero();
+        Address referenced = addressRepository.findById(address.getId()).block();
+        assertThat(referenced.getStreet()).isEqualTo(address.getStreet());
+        assertThat(addressMapper.toDto(referenced).getEmployeeId()).isEqualTo(employee.getId());
+        assertThat(addressRepository.count().block()).isEqualTo(2);
+    }
+
+    @Test
+    public void convertToEmbeddedTwice() {
+        migration.embedAddresses(mongoTemplate);
+        // an interrupted run left the address in both places
+        addressRepository.save(address).block();
+
+        migration.embedAddresses(mongoTemplate);
+
+        assertThat(embeddedAddressRepository.count().block()).isEqualTo(1);
+        assertThat(addressRepository.findAll().collectList().block()).containsExactly(orphanAddress);
+    }
+}
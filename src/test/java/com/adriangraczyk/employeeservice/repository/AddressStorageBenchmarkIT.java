@@ -0,0 +1,125 @@
+package com.adriangraczyk.employeeservice.repository;
+
+import com.adriangraczyk.employeeservice.EmployeeserviceApp;
+import com.adriangraczyk.employeeservice.domain.Address;
+import com.adriangraczyk.employeeservice.domain.Employee;
+import com.adriangraczyk.employeeservice.web.rest.AddressResourceIT;
+import com.adriangraczyk.employeeservice.web.rest.EmployeeResourceIT;
+
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.mongodb.core.ReactiveMongoOperations;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+/**
+ * Compares the read and write latencies of the referenced and embedded address storages.
+ * <p>
+ * Only run on demand, against a real MongoDB:
+ * {@code ./mvnw verify -Dit.test=AddressStorageBenchmarkIT -Dbenchmark=true}.
+ */
+@SpringBootTest(classes = EmployeeserviceApp.class)
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+public class AddressStorageBenchmarkIT {
+
+    private static final Logger log = LoggerFactory.getLogger(AddressStorageBenchmarkIT.class);
+
+    private static final int EMPLOYEES = 200;
+
+    private static final int ADDRESSES_PER_EMPLOYEE = 5;
+
+    private static final int WARMUP_ITERATIONS = 200;
+
+    private static final int MEASURED_ITERATIONS = 2000;
+
+    @Autowired
+    private EmployeeRepository employeeRepository;
+
+    @Autowired
+    private AddressRepository addressRepository;
+
+    @Autowired
+    private EmbeddedAddressRepository embeddedAddressRepository;
+
+    @Autowired
+    private ReactiveMongoOperations mongoOperations;
+
+    private final List<Employee> employees = new ArrayList<>();
+
+    private final List<String> referencedAddressIds = new ArrayList<>();
+
+    private final List<String> embeddedAddressIds = new ArrayList<>();
+
+    @BeforeEach
+    public void initTest() {
+        addressRepository.deleteAll().block();
+        employeeRepository.deleteAll().block();
+        for (int i = 0; i < EMPLOYEES; i++) {
+            Employee employee = employeeRepository.save(EmployeeResourceIT.createEntity().pESEL(String.format("%011d", i))).block();
+            employees.add(employee);
+            for (int j = 0; j < ADDRESSES_PER_EMPLOYEE; j++) {
+                referencedAddressIds.add(addressRepository.save(AddressResourceIT.createEntity().employee(employee)).block().getId());
+                embeddedAddressIds.add(embeddedAddressRepository.save(AddressResourceIT.createEntity().employee(employee)).block().getId());
+            }
+        }
+    }
+
+    @Test
+    public void compareStorages() {
+        log.info("Address storage latencies in microseconds, {} employees with {} addresses each", EMPLOYEES, ADDRESSES_PER_EMPLOYEE);
+        measure("read employee addresses", "referenced", () -> mongoOperations.find(
+            Query.query(Criteria.where("employee.$id").is(new ObjectId(randomEmployee().getId()))), Address.class).collectList().block());
+        measure("read employee addresses", "embedded", () -> mongoOperations.findById(
+            new ObjectId(randomEmployee().getId()), Document.class, mongoOperations.getCollectionName(Employee.class)).block());
+        measure("read address by id", "referenced", () -> addressRepository.findById(random(referencedAddressIds)).block());
+        measure("read address by id", "embedded", () -> embeddedAddressRepository.findById(random(embeddedAddressIds)).block());
+        measure("update address", "referenced", () -> {
+            Address address = addressRepository.findById(random(referencedAddressIds)).block();
+            return addressRepository.save(address.street(AddressResourceIT.createUpdatedEntity().getStreet())).block();
+        });
+        measure("update address", "embedded", () -> {
+            Address address = embeddedAddressRepository.findById(random(embeddedAddressIds)).block();
+            return embeddedAddressRepository.save(address.street(AddressResourceIT.createUpdatedEntity().getStreet())).block();
+        });
+        measure("add address", "referenced", () -> addressRepository.save(AddressResourceIT.createEntity().employee(randomEmployee())).block());
+        measure("add address", "embedded", () -> embeddedAddressRepository.save(AddressResourceIT.createEntity().employee(randomEmployee())).block());
+    }
+
+    private void measure(String operation, String storage, Supplier<?> call) {
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            call.get();
+        }
+        long[] latencies = new long[MEASURED_ITERATIONS];
+        for (int i = 0; i < MEASURED_ITERATIONS; i++) {
+            long start = System.nanoTime();
+            call.get();
+            latencies[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(latencies);
+        log.info("{} ({}): mean {}, p50 {}, p99 {}", operation, storage,
+            Arrays.stream(latencies).sum() / MEASURED_ITERATIONS / 1000,
+            latencies[MEASURED_ITERATIONS / 2] / 1000,
+            latencies[MEASURED_ITERATIONS * 99 / 100] / 1000);
+    }
+
+    private Employee randomEmployee() {
+        return random(employees);
+    }
+
+    private static <T> T random(List<T> values) {
+        return values.get(ThreadLocalRandom.current().nextInt(values.size()));
+    }
+}
@@ -0,0 +1,259 @@
+package com.adriangraczyk.employeeservice.repository;
+
+import com.adriangraczyk.employeeservice.EmployeeserviceApp;
+import com.adriangraczyk.employeeservice.domain.Address;
+import com.adriangraczyk.employeeservice.domain.Employee;
+import com.adriangraczyk.employeeservice.domain.enumeration.AddressType;
+import com.adriangraczyk.employeeservice.web.rest.AddressResourceIT;
+import com.adriangraczyk.employeeservice.web.rest.EmployeeResourceIT;
+
+import com.mongodb.client.model.Filters;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Integration tests for {@link EmbeddedAddressRepository}.
+ */
+@SpringBootTest(classes = EmployeeserviceApp.class)
+public class EmbeddedAddressRepositoryIT {
+
+    private static final String UPDATED_STREET = "BBBBBBBBBB";
+
+    @Autowired
+    private EmbeddedAddressRepository embeddedAddressRepository;
+
+    @Autowired
+    private EmployeeRepository employeeRepository;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    private Employee employee;
+
+    private Employee otherEmployee;
+
+    @BeforeEach
+    public void initTest() {
+        employeeRepository.deleteAll().block();
+        employee = employeeRepository.save(EmployeeResourceIT.createEntity()).block();
+        otherEmployee = employeeRepository.save(EmployeeResourceIT.createEntity().pESEL("00000000001")).block();
+    }
+
+    @Test
+    public void saveNewAddressPushesItIntoItsEmployee() {
+        Address address = embeddedAddressRepository.save(AddressResourceIT.createEntity().employee(employee)).block();
+
+        assertThat(embeddedAddressIds(employee)).containsExactly(new ObjectId(address.getId()));
+        Address found = embeddedAddressRepository.findById(address.getId()).block();
+        assertThat(found.getStreet()).isEqualTo(address.getStreet());
+        assertThat(found.getEmployee().getId()).isEqualTo(employee.getId());
+    }
+
+    @Test
+    public void saveExistingAddressReplacesItInPlace() {
+        Address address = embeddedAddressRepository.save(AddressResourceIT.createEntity().employee(employee)).block();
+        embeddedAddressRepository.save(AddressResourceIT.createEntity().employee(employee)).block();
+
+        embeddedAddressRepository.save(address.street(UPDATED_STREET)).block();
+
+        assertThat(embeddedAddressIds(employee)).hasSize(2).contains(new ObjectId(address.getId()));
+        assertThat(embeddedAddressRepository.findById(address.getId()).block().getStreet()).isEqualTo(UPDATED_STREET);
+    }
+
+    @Test
+    public void saveAddressOfAnotherEmployeeMovesIt() {
+        Address address = embeddedAddressRepository.save(AddressResourceIT.createEntity().employee(employee)).block();
+
+        embeddedAddressRepository.save(address.employee(otherEmployee)).block();
+
+        assertThat(embeddedAddressIds(employee)).isEmpty();
+        assertThat(embeddedAddressIds(otherEmployee)).containsExactly(new ObjectId(address.getId()));
+        assertThat(embeddedAddressRepository.findById(address.getId()).block().getEmployee().getId()).isEqualTo(otherEmployee.getId());
+    }
+
+    @Test
+    public void saveAddressWithoutExistingEmployeeFails() {
+        assertThatThrownBy(() -> embeddedAddressRepository.save(AddressResourceIT.createEntity()).block())
+            .isInstanceOf(IllegalArgumentException.class);
+        Employee missingEmployee = new Employee();
+        missingEmployee.setId(new ObjectId().toHexString());
+        assertThatThrownBy(() -> embeddedAddressRepository.save(AddressResourceIT.createEntity().employee(missingEmployee)).block())
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void moveAddressToMissingEmployeeKeepsIt() {
+        Address address = embeddedAddressRepository.save(AddressResourceIT.createEntity().employee(employee)).block();
+        Employee missingEmployee = new Employee();
+        missingEmployee.setId(new ObjectId().toHexString());
+
+        assertThatThrownBy(() -> embeddedAddressRepository.save(address.employee(missingEmployee)).block())
+            .isInstanceOf(IllegalArgumentException.class);
+
+        assertThat(embeddedAddressIds(employee)).containsExactly(new ObjectId(address.getId()));
+    }
+
+    @Test
+    public void deleteAddressPullsIt() {
+        Address address = embeddedAddressRepository.save(AddressResourceIT.createEntity().employee(employee)).block();
+
+        embeddedAddressRepository.deleteById(address.getId()).block();
+
+        assertThat(embeddedAddressIds(employee)).isEmpty();
+        assertThat(embeddedAddressRepository.findById(address.getId()).block()).isNull();
+    }
+
+    @Test
+    public void conditionalWritesOnlyMatchTheRevisionRead() {
+        Address address = embeddedAddressRepository.save(AddressResourceIT.createEntity().employee(employee)).block();
+        String read = embeddedAddressRepository.findById(address.getId()).block().getRevision();
+        // Written in between, as by a concurrent request
+        embeddedAddressRepository.save(address).block();
+
+        assertThat(embeddedAddressRepository.saveIfRevision(address.street(UPDATED_STREET), read).block()).isFalse();
+        assertThat(embeddedAddressRepository.saveIfRevision(address.employee(otherEmployee), read).block()).isFalse();
+        assertThat(embeddedAddressRepository.deleteByIdAndRevision(address.getId(), read).block()).isFalse();
+        Address stored = embeddedAddressRepository.findById(address.getId()).block();
+        assertThat(stored.getStreet()).isNotEqualTo(UPDATED_STREET);
+        assertThat(stored.getEmployee().getId()).isEqualTo(employee.getId());
+
+        assertThat(embeddedAddressRepository.saveIfRevision(address.employee(employee), stored.getRevision()).block()).isTrue();
+        Address updated = embeddedAddressRepository.findById(address.getId()).block();
+        assertThat(updated.getStreet()).isEqualTo(UPDATED_STREET);
+        assertThat(updated.getRevision()).isNotEqualTo(stored.getRevision());
+
+        assertThat(embeddedAddressRepository.saveIfRevision(address.employee(otherEmployee), updated.getRevision()).block()).isTrue();
+        assertThat(embeddedAddressIds(employee)).isEmpty();
+        assertThat(embeddedAddressIds(otherEmployee)).containsExactly(new ObjectId(address.getId()));
+        assertThat(embeddedAddressRepository.findById(address.getId()).block().getStreet()).isEqualTo(UPDATED_STREET);
+    }
+
+    @Test
+    public void conditionalWritesMatchAddressesWithoutRevision() {
+        Address address = embeddedAddressRepository.save(AddressResourceIT.createEntity().employee(employee)).block();
+        mongoTemplate.getCollection("employee").updateOne(Filters.eq("_id", new ObjectId(employee.getId())),
+            new Document("$unset", new Document(EmbeddedAddressRepository.ADDRESSES_FIELD + ".0.revision", "")));
+        assertThat(embeddedAddressRepository.findById(address.getId()).block().getRevision()).isNull();
+
+        assertThat(embeddedAddressRepository.deleteByIdAndRevision(address.getId(), null).block()).isTrue();
+
+        assertThat(embeddedAddressIds(employee)).isEmpty();
+    }
+
+    @Test
+    public void findPagesOfAddressesAcrossEmployees() {
+        embeddedAddressRepository.save(AddressResourceIT.createEntity().city("B").employee(employee)).block();
+        embeddedAddressRepository.save(AddressResourceIT.createEntity().city("C").employee(otherEmployee)).block();
+        embeddedAddressRepository.save(AddressResourceIT.createEntity().city("A").employee(employee)).block();
+        // by id, that is in the order they were saved rather than in the order of the arrays
+        PageRequest firstPage = PageRequest.of(0, 2, Sort.by("id"));
+
+        Page<Address> page = embeddedAddressRepository.findPageWithCount(firstPage).block();
+        assertThat(page.getTotalElements()).isEqualTo(3);
+        assertThat(page.getContent()).extracting(Address::getCity).containsExactly("B", "C");
+        assertThat(page.getContent().get(1).getEmployee().getId()).isEqualTo(otherEmployee.getId());
+        Slice<Address> slice = embeddedAddressRepository.findSlice(firstPage.next()).block();
+        assertThat(slice.hasNext()).isFalse();
+        assertThat(slice.getContent()).extracting(Address::getCity).containsExactly("A");
+        assertThat(slice.getContent().get(0).getEmployee().getId()).isEqualTo(employee.getId());
+        assertThat(embeddedAddressRepository.count().block()).isEqualTo(3);
+        assertThatThrownBy(() -> embeddedAddressRepository.findPageWithCount(PageRequest.of(0, 2, Sort.by("city"))))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void findAddressesOfEmployees() {
+        Address address = embeddedAddressRepository.save(AddressResourceIT.createEntity().employee(employee)).block();
+        embeddedAddressRepository.save(AddressResourceIT.createEntity().employee(otherEmployee)).block();
+
+        List<Address> addresses = embeddedAddressRepository.findAllByEmployeeIdIn(Collections.singleton(employee.getId())).collectList().block();
+
+        assertThat(addresses).containsExactly(address);
+        assertThat(addresses.get(0).getEmployee().getId()).isEqualTo(employee.getId());
+    }
+
+    @Test
+    public void findAddressesOfOneEmployeeByType() {
+        Address home = embeddedAddressRepository.save(AddressResourceIT.createEntity().addressType(AddressType.HOME_ADDRESS).employee(employee)).block();
+        Address registered = embeddedAddressRepository.save(AddressResourceIT.createEntity().addressType(AddressType.REGISTERED_ADDRESS).employee(employee)).block();
+        embeddedAddressRepository.save(AddressResourceIT.createEntity().addressType(AddressType.HOME_ADDRESS).employee(otherEmployee)).block();
+
+        assertThat(embeddedAddressRepository.findAllByEmployeeId(employee.getId(), null).collectList().block()).containsExactly(home, registered);
+        assertThat(embeddedAddressRepository.findAllByEmployeeId(employee.getId(), AddressType.HOME_ADDRESS).collectList().block()).containsExactly(home);
+    }
+
+    @Test
+    public void findAddressesByIds() {
+        Address address = embeddedAddressRepository.save(AddressResourceIT.createEntity().employee(employee)).block();
+        Address otherAddress = embeddedAddressRepository.save(AddressResourceIT.createEntity().employee(otherEmployee)).block();
+        embeddedAddressRepository.save(AddressResourceIT.createEntity().employee(employee)).block();
+
+        List<Address> addresses = embeddedAddressRepository.findAllByIdIn(Arrays.asList(address.getId(), otherAddress.getId(),
+            new ObjectId().toHexString())).collectList().block();
+
+        assertThat(addresses).containsExactlyInAnyOrder(address, otherAddress);
+    }
+
+    @Test
+    public void insertEmployeeWithItsAddresses() {
+        Employee newEmployee = EmployeeResourceIT.createEntity().pESEL("00000000002");
+        newEmployee.setId(new ObjectId().toHexString());
+        Address address = AddressResourceIT.createEntity().employee(newEmployee);
+        address.setId(new ObjectId().toHexString());
+
+        embeddedAddressRepository.insertWithAddresses(newEmployee, Collections.singletonList(address)).block();
+
+        assertThat(embeddedAddressIds(newEmployee)).containsExactly(new ObjectId(address.getId()));
+        assertThat(employeeRepository.findById(newEmployee.getId()).block().getpESEL()).isEqualTo("00000000002");
+        assertThat(embeddedAddressRepository.findById(address.getId()).block().getEmployee().getId()).isEqualTo(newEmployee.getId());
+    }
+
+    @Test
+    public void saveEmployeeKeepsItsEmbeddedAddresses() {
+        embeddedAddressRepository.save(AddressResourceIT.createEntity().employee(employee)).block();
+
+        employeeRepository.saveKeepingEmbeddedAddresses(employee.firstName("BBBBBBBBBB")).block();
+
+        assertThat(embeddedAddressIds(employee)).hasSize(1);
+        assertThat(employeeRepository.findById(employee.getId()).block().getFirstName()).isEqualTo("BBBBBBBBBB");
+    }
+
+    @Test
+    public void streamAddressesInTheOrderOfTheirEmployees() {
+        Address first = embeddedAddressRepository.save(AddressResourceIT.createEntity().city("A").employee(employee)).block();
+        Address third = embeddedAddressRepository.save(AddressResourceIT.createEntity().city("C").employee(otherEmployee)).block();
+        Address second = embeddedAddressRepository.save(AddressResourceIT.createEntity().city("B").employee(employee)).block();
+
+        assertThat(embeddedAddressRepository.streamAllAfter(null, null, 1).collectList().block()).containsExactly(first, second, third);
+        List<Address> resumed = embeddedAddressRepository.streamAllAfter(first.getId(), Collections.singleton("city"), 1).collectList().block();
+        assertThat(resumed).extracting(Address::getCity).containsExactly("B", "C");
+        assertThat(resumed).extracting(Address::getStreet).containsOnlyNulls();
+        assertThat(resumed.get(1).getEmployee().getId()).isEqualTo(otherEmployee.getId());
+        assertThatThrownBy(() -> embeddedAddressRepository.streamAllAfter(new ObjectId().toHexString(), null, 1).blockLast())
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private List<Object> embeddedAddressIds(Employee owner) {
+        Document document = mongoTemplate.getCollection("employee").find(Filters.eq("_id", new ObjectId(owner.getId()))).first();
+        return document.getList(EmbeddedAddressRepository.ADDRESSES_FIELD, Document.class, Collections.emptyList()).stream()
+            .map(address -> address.get("_id"))
+            .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,50 @@
+package com.adriangraczyk.employeeservice.repository;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class IndexedSortTest {
+
+    @Test
+    public void testPrefixOfIndexIsCompleted() {
+        assertThat(IndexedSort.EMPLOYEE.complete(Sort.by("lastName")))
+            .isEqualTo(Sort.by("lastName", "firstName", "id"));
+        assertThat(IndexedSort.EMPLOYEE.complete(Sort.by(Sort.Direction.DESC, "lastName", "firstName")))
+            .isEqualTo(Sort.by(Sort.Direction.DESC, "lastName", "firstName", "id"));
+        assertThat(IndexedSort.EMPLOYEE.complete(Sort.by("lastName", "firstName", "id")))
+            .isEqualTo(Sort.by("lastName", "firstName", "id"));
+    }
+
+    @Test
+    public void testIdIsAlwaysIndexed() {
+        assertThat(IndexedSort.EMPLOYEE.complete(Sort.by(Sort.Direction.DESC, "id"))).isEqualTo(Sort.by(Sort.Direction.DESC, "id"));
+        assertThat(IndexedSort.ADDRESS.complete(Sort.by("id"))).isEqualTo(Sort.by("id"));
+    }
+
+    @Test
+    public void testUnsortedIsKept() {
+        assertThat(IndexedSort.EMPLOYEE.complete(Sort.unsorted())).isEqualTo(Sort.unsorted());
+        assertThat(IndexedSort.ADDRESS.complete(PageRequest.of(1, 20))).isEqualTo(PageRequest.of(1, 20));
+    }
+
+    @Test
+    public void testPageKeepsItsNumberAndSize() {
+        assertThat(IndexedSort.EMPLOYEE.complete(PageRequest.of(2, 10, Sort.by("lastName"))))
+            .isEqualTo(PageRequest.of(2, 10, Sort.by("lastName", "firstName", "id")));
+    }
+
+    @Test
+    public void testOtherSortsAreRejected() {
+        assertThatThrownBy(() -> IndexedSort.EMPLOYEE.complete(Sort.by("firstName"))).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> IndexedSort.EMPLOYEE.complete(Sort.by("id", "lastName"))).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> IndexedSort.EMPLOYEE.complete(Sort.by(Sort.Order.asc("lastName"), Sort.Order.desc("firstName"))))
+            .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> IndexedSort.EMPLOYEE.complete(Sort.by(Sort.Order.asc("lastName").ignoreCase())))
+            .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> IndexedSort.ADDRESS.complete(Sort.by("city"))).isInstanceOf(IllegalArgumentException.class);
+    }
+}
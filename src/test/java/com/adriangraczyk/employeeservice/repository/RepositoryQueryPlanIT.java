@@ -0,0 +1,232 @@
+package com.adriangraczyk.employeeservice.repository;
+
+import com.adriangraczyk.employeeservice.EmployeeserviceApp;
+import com.adriangraczyk.employeeservice.config.MongoCommandRecorder;
+import com.adriangraczyk.employeeservice.domain.Address;
+import com.adriangraczyk.employeeservice.domain.Employee;
+import com.adriangraczyk.employeeservice.domain.enumeration.AddressType;
+import com.adriangraczyk.employeeservice.web.rest.AddressResourceIT;
+import com.adriangraczyk.employeeservice.web.rest.EmployeeResourceIT;
+
+import com.mongodb.MongoCommandException;
+import org.bson.BsonDocument;
+import org.bson.BsonString;
+import org.bson.BsonValue;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.junit.jupiter.api.Assumptions.assumeFalse;
+
+/**
+ * Integration tests checking that the queries of the repositories are answered from the indexes created by
+ * {@link com.adriangraczyk.employeeservice.config.dbmigrations.InitialSetupMigration}, and that the listings in any
+ * other order are rejected.
+ * <p>
+ * The plans are checked with the {@code explain} command, so those checks are skipped on a server which does not
+ * support it, such as an in-memory one.
+ */
+@SpringBootTest(classes = {EmployeeserviceApp.class, MongoCommandRecorder.Config.class})
+public class RepositoryQueryPlanIT {
+
+    private static final String COLLECTION_SCAN = "COLLSCAN";
+
+    private static final int COMMAND_NOT_FOUND = 59;
+
+    private static final Collection<String> EMPLOYEE_PROPERTIES = Arrays.asList("firstName", "age");
+
+    private static final Collection<String> ADDRESS_PROPERTIES = Arrays.asList("city", "addressType");
+
+    @Autowired
+    private EmployeeRepository employeeRepository;
+
+    @Autowired
+    private AddressRepository addressRepository;
+
+    @Autowired
+    private EmbeddedAddressRepository embeddedAddressRepository;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private MongoCommandRecorder mongoCommandRecorder;
+
+    private Employee employee;
+
+    private Address address;
+
+    @BeforeEach
+    public void initTest() {
+        addressRepository.deleteAll().block();
+        employeeRepository.deleteAll().block();
+        employee = employeeRepository.save(EmployeeResourceIT.createEntity()).block();
+        address = addressRepository.save(AddressResourceIT.createEntity().employee(employee)).block();
+        mongoCommandRecorder.clear();
+    }
+
+    @Test
+    public void employeeQueriesUseIndexes() {
+        Pageable byName = PageRequest.of(0, 1, Sort.by("lastName", "firstName", "id"));
+        employeeRepository.findById(employee.getId()).block();
+        employeeRepository.findAllBy(byName).collectList().block();
+        employeeRepository.findAllBy(PageRequest.of(0, 1, Sort.by(Sort.Direction.DESC, "id"))).collectList().block();
+        employeeRepository.findPageWithCount(byName).block();
+        employeeRepository.findSliceBy(byName).block();
+        String cursor = employeeRepository.findSliceAfter(null, byName).block().getNextCursor();
+        employeeRepository.findSliceAfter(cursor, byName).block();
+        employeeRepository.findSliceAfter(null, PageRequest.of(0, 1, Sort.by("lastName"))).block();
+        Collection<String> ids = Collections.singleton(employee.getId());
+        employeeRepository.findAllByIdIn(ids).collectList().block();
+        employeeRepository.streamAllAfter(null, null, 10).collectList().block();
+        employeeRepository.streamAllAfter(employee.getId(), null, 10).collectList().block();
+
+        assertNoCollectionScan(mongoCommandRecorder.getCommands("find", "aggregate"));
+    }
+
+    @Test
+    public void projectedEmployeeQueriesUseIndexes() {
+        Pageable byName = PageRequest.of(0, 1, Sort.by("lastName", "firstName", "id"));
+        employeeRepository.findAllBy(byName, EMPLOYEE_PROPERTIES).collectList().block();
+        employeeRepository.findPageWithCount(byName, EMPLOYEE_PROPERTIES).block();
+        employeeRepository.findSliceBy(byName, EMPLOYEE_PROPERTIES).block();
+        String cursor = employeeRepository.findSliceAfter(null, byName, EMPLOYEE_PROPERTIES).block().getNextCursor();
+        employeeRepository.findSliceAfter(cursor, byName, EMPLOYEE_PROPERTIES).block();
+        employeeRepository.findAllByIdIn(Collections.singleton(employee.getId()), EMPLOYEE_PROPERTIES).collectList().block();
+        employeeRepository.streamAllAfter(employee.getId(), EMPLOYEE_PROPERTIES, 10).collectList().block();
+
+        assertNoCollectionScan(mongoCommandRecorder.getCommands("find", "aggregate"));
+    }
+
+    @Test
+    public void addressQueriesUseIndexes() {
+        addressRepository.findById(address.getId()).block();
+        addressRepository.findAllBy(PageRequest.of(0, 1, Sort.by("id"))).collectList().block();
+        addressRepository.findAllByEmployeeIdIn(Collections.singleton(employee.getId())).collectList().block();
+        String cursor = addressRepository.findSliceAfter(null, PageRequest.of(0, 1)).block().getNextCursor();
+        addressRepository.findSliceAfter(cursor, PageRequest.of(0, 1)).block();
+        addressRepository.findAllByIdIn(Collections.singleton(address.getId())).collectList().block();
+        addressRepository.findAllByEmployeeId(new ObjectId(employee.getId())).collectList().block();
+        addressRepository.findAllByEmployeeIdAndAddressType(new ObjectId(employee.getId()), AddressType.HOME_ADDRESS).collectList().block();
+        addressRepository.streamAllAfter(null, null, 10).collectList().block();
+        addressRepository.streamAllAfter(address.getId(), null, 10).collectList().block();
+        // last, as it deletes the address
+        addressRepository.deleteAllByEmployeeId(employee.getId()).block();
+
+        assertNoCollectionScan(mongoCommandRecorder.getCommands("find", "aggregate", "delete"));
+    }
+
+    @Test
+    public void projectedAddressQueriesUseIndexes() {
+        Pageable byId = PageRequest.of(0, 1, Sort.by("id"));
+        addressRepository.findAllBy(byId, ADDRESS_PROPERTIES).collectList().block();
+        addressRepository.findPageWithCount(byId, ADDRESS_PROPERTIES).block();
+        addressRepository.findSliceBy(byId, ADDRESS_PROPERTIES).block();
+        String cursor = addressRepository.findSliceAfter(null, PageRequest.of(0, 1), ADDRESS_PROPERTIES).block().getNextCursor();
+        addressRepository.findSliceAfter(cursor, PageRequest.of(0, 1), ADDRESS_PROPERTIES).block();
+        addressRepository.findAllByIdIn(Collections.singleton(address.getId()), ADDRESS_PROPERTIES).collectList().block();
+        addressRepository.streamAllAfter(address.getId(), ADDRESS_PROPERTIES, 10).collectList().block();
+
+        assertNoCollectionScan(mongoCommandRecorder.getCommands("find", "aggregate"));
+    }
+
+    /**
+     * The orphan sweep reads every address by design, so only its lookup of their employees has to use an index.
+     */
+    @Test
+    public void orphanSweepLooksUpEmployeesById() {
+        addressRepository.findOrphanIds().collectList().block();
+
+        List<BsonDocument> commands = mongoCommandRecorder.getCommands("aggregate");
+        assertThat(commands).hasSize(1);
+        BsonDocument lookup = commands.get(0).getArray("pipeline").get(0).asDocument().getDocument("$lookup");
+        assertThat(lookup.getString("foreignField").getValue()).isEqualTo("_id");
+        assertThat(explain(commands.get(0)).getNumber("ok").intValue()).isEqualTo(1);
+    }
+
+    @Test
+    public void listingsInOtherOrdersAreRejected() {
+        Pageable byFirstName = PageRequest.of(0, 1, Sort.by("firstName"));
+        Pageable byCity = PageRequest.of(0, 1, Sort.by("city"));
+
+        assertThatThrownBy(() -> employeeRepository.findAllBy(byFirstName)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> employeeRepository.findPageWithCount(byFirstName, EMPLOYEE_PROPERTIES)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> employeeRepository.findSliceAfter(null, PageRequest.of(0, 1, Sort.by("age"))).block())
+            .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> addressRepository.findSliceBy(byCity)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> addressRepository.findSliceAfter(null, byCity).block()).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> embeddedAddressRepository.findAll(byCity)).isInstanceOf(IllegalArgumentException.class);
+        assertThat(mongoCommandRecorder.getCommands("find", "aggregate")).isEmpty();
+    }
+
+    /**
+     * The listings and the count of all the embedded addresses unwind every employee, so they are not checked.
+     */
+    @Test
+    public void embeddedAddressQueriesUseIndexes() {
+        Address embedded = embeddedAddressRepository.save(AddressResourceIT.createEntity().employee(employee)).block();
+        mongoCommandRecorder.clear();
+
+        Collection<String> ids = Collections.singleton(embedded.getId());
+        embeddedAddressRepository.findById(embedded.getId()).block();
+        embeddedAddressRepository.findAllByIdIn(ids).collectList().block();
+        embeddedAddressRepository.findAllByIdIn(ids, ADDRESS_PROPERTIES).collectList().block();
+        embeddedAddressRepository.findAllByEmployeeIdIn(Collections.singleton(employee.getId())).collectList().block();
+        embeddedAddressRepository.findAllByEmployeeId(employee.getId(), null).collectList().block();
+        embeddedAddressRepository.findAllByEmployeeId(employee.getId(), AddressType.HOME_ADDRESS).collectList().block();
+        embeddedAddressRepository.streamAllAfter(null, null, 10).collectList().block();
+        embeddedAddressRepository.streamAllAfter(embedded.getId(), ADDRESS_PROPERTIES, 10).collectList().block();
+
+        assertNoCollectionScan(mongoCommandRecorder.getCommands("find", "aggregate"));
+    }
+
+    private void assertNoCollectionScan(List<BsonDocument> commands) {
+        assertThat(commands).isNotEmpty();
+        for (BsonDocument command : commands) {
+            assertThat(hasCollectionScan(explain(command))).as("plan of %s has a %s stage", command.toJson(), COLLECTION_SCAN).isFalse();
+        }
+    }
+
+    /**
+     * Explains a command, skipping the test if the server cannot.
+     */
+    private BsonDocument explain(BsonDocument command) {
+        try {
+            return mongoTemplate.getDb().runCommand(
+                new BsonDocument("explain", command).append("verbosity", new BsonString("queryPlanner")), BsonDocument.class);
+        } catch (MongoCommandException e) {
+            assumeFalse(e.getErrorCode() == COMMAND_NOT_FOUND, "the server cannot explain the queries");
+            throw e;
+        }
+    }
+
+    private static boolean hasCollectionScan(BsonValue value) {
+        if (value.isArray()) {
+            return value.asArray().stream().anyMatch(RepositoryQueryPlanIT::hasCollectionScan);
+        }
+        if (!value.isDocument()) {
+            return false;
+        }
+        BsonDocument document = value.asDocument();
+        if (new BsonString(COLLECTION_SCAN).equals(document.get("stage"))) {
+            return true;
+        }
+        // only the winning plan is run
+        return document.entrySet().stream()
+            .filter(entry -> !"rejectedPlans".equals(entry.getKey()))
+            .anyMatch(entry -> hasCollectionScan(entry.getValue()));
+    }
+}
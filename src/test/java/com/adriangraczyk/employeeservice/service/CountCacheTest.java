@@ -0,0 +1,47 @@
+package com.adriangraczyk.employeeservice.service;
+
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class CountCacheTest {
+
+    private final AtomicLong queries = new AtomicLong();
+
+    private Mono<Long> count() {
+        return Mono.fromCallable(queries::incrementAndGet);
+    }
+
+    @Test
+    public void testCountIsReusedUntilInvalidated() {
+        CountCache countCache = new CountCache(Duration.ofMinutes(1));
+
+        assertThat(countCache.get(this::count).block()).isEqualTo(1L);
+        assertThat(countCache.get(this::count).block()).isEqualTo(1L);
+
+        countCache.invalidate();
+        assertThat(countCache.get(this::count).block()).isEqualTo(2L);
+        assertThat(queries.get()).isEqualTo(2L);
+    }
+
+    @Test
+    public void testCountExpires() {
+        CountCache countCache = new CountCache(Duration.ZERO);
+
+        assertThat(countCache.get(this::count).block()).isEqualTo(1L);
+        assertThat(countCache.get(this::count).block()).isEqualTo(2L);
+    }
+
+    @Test
+    public void testCountStartedBeforeAWriteIsNotCached() {
+        CountCache countCache = new CountCache(Duration.ofMinutes(1));
+
+        // A write lands while the first count is running
+        assertThat(countCache.get(() -> Mono.fromRunnable(countCache::invalidate).then(count())).block()).isEqualTo(1L);
+        assertThat(countCache.get(this::count).block()).isEqualTo(2L);
+    }
+}
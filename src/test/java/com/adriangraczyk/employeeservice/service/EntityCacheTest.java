@@ -0,0 +1,142 @@
+package com.adriangraczyk.employeeservice.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoProcessor;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class EntityCacheTest {
+
+    private final AtomicLong queries = new AtomicLong();
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private Mono<String> load(String id) {
+        return Mono.fromCallable(() -> id + queries.incrementAndGet());
+    }
+
+    private Mono<String> loadMissing(String id) {
+        return Mono.fromRunnable(queries::incrementAndGet);
+    }
+
+    private double gets(String result) {
+        return meterRegistry.get("cache.gets").tag("result", result).functionCounter().count();
+    }
+
+    @Test
+    public void testEntityIsReusedUntilInvalidated() {
+        EntityCache<String> entityCache = new EntityCache<>("test", 10, Duration.ofMinutes(1), Duration.ofMinutes(1), meterRegistry);
+
+        assertThat(entityCache.get("a", this::load).block()).isEqualTo("a1");
+        assertThat(entityCache.get("a", this::load).block()).isEqualTo("a1");
+        entityCache.invalidate("a");
+        assertThat(entityCache.get("a", this::load).block()).isEqualTo("a2");
+
+        assertThat(gets("hit")).isEqualTo(1);
+        assertThat(gets("miss")).isEqualTo(2);
+    }
+
+    @Test
+    public void testMissingEntityExpiresFirst() {
+        EntityCache<String> entityCache = new EntityCache<>("test", 10, Duration.ofMinutes(1), Duration.ZERO, meterRegistry);
+
+        assertThat(entityCache.get("a", this::loadMissing).block()).isNull();
+        assertThat(entityCache.get("a", this::load).block()).isEqualTo("a2");
+        assertThat(entityCache.get("a", this::load).block()).isEqualTo("a2");
+    }
+
+    @Test
+    public void testMissingEntityIsReused() {
+        EntityCache<String> entityCache = new EntityCache<>("test", 10, Duration.ofMinutes(1), Duration.ofMinutes(1), meterRegistry);
+
+        assertThat(entityCache.get("a", this::loadMissing).block()).isNull();
+        assertThat(entityCache.get("a", this::load).block()).isNull();
+        assertThat(queries.get()).isEqualTo(1);
+    }
+
+    @Test
+    public void testSizeIsBounded() {
+        EntityCache<String> entityCache = new EntityCache<>("test", 2, Duration.ofMinutes(1), Duration.ofMinutes(1), meterRegistry);
+
+        entityCache.get("a", this::load).block();
+        entityCache.get("b", this::load).block();
+        entityCache.get("a", this::load).block();
+        entityCache.get("c", this::load).block();
+        entityCache.get("d", this::load).block();
+
+        assertThat(meterRegistry.get("cache.size").gauge().value()).isEqualTo(2);
+        assertThat(meterRegistry.get("cache.evictions").functionCounter().count()).isEqualTo(2);
+    }
+
+    @Test
+    public void testConcurrentReadsShareTheLoad() {
+        EntityCache<String> entityCache = new EntityCache<>("test", 10, Duration.ofMinutes(1), Duration.ofMinutes(1), meterRegistry);
+        MonoProcessor<String> loaded = MonoProcessor.create();
+
+        Mono<String> first = entityCache.get("a", id -> loaded.doOnSubscribe(subscription -> queries.incrementAndGet()));
+        Mono<String> second = entityCache.get("a", this::load);
+        first.subscribe();
+        second.subscribe();
+        loaded.onNext("a");
+
+        assertThat(first.block()).isEqualTo("a");
+        assertThat(second.block()).isEqualTo("a");
+        assertThat(queries.get()).isEqualTo(1);
+    }
+
+    @Test
+    public void testLoadStartedBeforeAWriteIsNotCached() {
+        EntityCache<String> entityCache = new EntityCache<>("test", 10, Duration.ofMinutes(1), Duration.ofMinutes(1), meterRegistry);
+
+        // A write lands while the first load is running
+        assertThat(entityCache.get("a", id -> Mono.fromRunnable(() -> entityCache.invalidate(id)).then(load(id))).block()).isEqualTo("a1");
+        assertThat(entityCache.get("a", this::load).block()).isEqualTo("a2");
+    }
+
+    @Test
+    public void testFailedLoadIsNotCached() {
+        EntityCache<String> entityCache = new EntityCache<>("test", 10, Duration.ofMinutes(1), Duration.ofMinutes(1), meterRegistry);
+
+        entityCache.get("a", id -> Mono.<String>error(new IllegalStateException())).onErrorResume(e -> Mono.empty()).block();
+        assertThat(entityCache.get("a", this::load).block()).isEqualTo("a1");
+    }
+
+    @Test
+    public void testDisabledCacheAlwaysLoads() {
+        EntityCache<String> entityCache = new EntityCache<>("test", 0, Duration.ofMinutes(1), Duration.ofMinutes(1), meterRegistry);
+
+        assertThat(entityCache.get("a", this::load).block()).isEqualTo("a1");
+        assertThat(entityCache.get("a", this::load).block()).isEqualTo("a2");
+    }
+
+    @Test
+    public void testChangesFromOtherInstancesInvalidateTheirEntities() {
+        EntityCache<String> entityCache = new EntityCache<>("test", 10, Duration.ofMinutes(1), Duration.ofMinutes(1), meterRegistry);
+        entityCache.get("a", this::load).block();
+        entityCache.get("b", this::load).block();
+
+        entityCache.watch(Mono.just(true), Flux.just("a").concatWith(Flux.never()));
+
+        // The subscription itself invalidates everything, in case changes were missed before it
+        assertThat(entityCache.get("a", this::load).block()).isEqualTo("a3");
+        assertThat(entityCache.get("b", this::load).block()).isEqualTo("b4");
+        entityCache.close();
+    }
+
+    @Test
+    public void testChangesAreNotWatchedWhenUnavailable() {
+        EntityCache<String> entityCache = new EntityCache<>("test", 10, Duration.ofMinutes(1), Duration.ofMinutes(1), meterRegistry);
+        entityCache.get("a", this::load).block();
+
+        entityCache.watch(Mono.just(false), Flux.just("a"));
+
+        assertThat(entityCache.get("a", this::load).block()).isEqualTo("a1");
+    }
+}
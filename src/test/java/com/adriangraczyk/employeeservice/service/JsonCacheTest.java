@@ -0,0 +1,136 @@
+package com.adriangraczyk.employeeservice.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class JsonCacheTest {
+
+    private final AtomicLong encodings = new AtomicLong();
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private Mono<EncodedJson> encode(String id) {
+        return Mono.fromCallable(() -> {
+            long n = encodings.incrementAndGet();
+            return new EncodedJson("r" + n, ("{\"id\":\"" + id + "\",\"n\":" + n + "}").getBytes(StandardCharsets.UTF_8));
+        });
+    }
+
+    private static String read(Mono<EncodedJson> json) {
+        EncodedJson encoded = json.block();
+        if (encoded == null) {
+            return null;
+        }
+        try {
+            return encoded.getContent().toString(StandardCharsets.UTF_8);
+        } finally {
+            DataBufferUtils.release(encoded.getContent());
+        }
+    }
+
+    private double memory() {
+        return meterRegistry.get("cache.memory").gauge().value();
+    }
+
+    @Test
+    public void testJsonIsReusedUntilInvalidated() {
+        JsonCache jsonCache = new JsonCache("test", 1024, Duration.ofMinutes(1), meterRegistry);
+
+        assertThat(read(jsonCache.get("a", "r1", this::encode))).isEqualTo("{\"id\":\"a\",\"n\":1}");
+        EncodedJson hit = jsonCache.get("a", "r1", this::encode).block();
+        assertThat(hit.getRevision()).isEqualTo("r1");
+        assertThat(hit.getContent().toString(StandardCharsets.UTF_8)).isEqualTo("{\"id\":\"a\",\"n\":1}");
+        DataBufferUtils.release(hit.getContent());
+        assertThat(memory()).isEqualTo(16);
+
+        jsonCache.invalidated("a");
+        assertThat(memory()).isZero();
+        assertThat(read(jsonCache.get("a", "r1", this::encode))).isEqualTo("{\"id\":\"a\",\"n\":2}");
+        assertThat(meterRegistry.get("cache.gets").tag("result", "hit").functionCounter().count()).isEqualTo(1);
+    }
+
+    @Test
+    public void testJsonAtAnotherRevisionIsEncodedAgain() {
+        JsonCache jsonCache = new JsonCache("test", 1024, Duration.ofMinutes(1), meterRegistry);
+        read(jsonCache.get("a", "r1", this::encode));
+
+        // Written without invalidating the cache
+        EncodedJson encoded = jsonCache.get("a", "r2", this::encode).block();
+        assertThat(encoded.getRevision()).isEqualTo("r2");
+        assertThat(encoded.getContent().toString(StandardCharsets.UTF_8)).contains("\"n\":2");
+        DataBufferUtils.release(encoded.getContent());
+        assertThat(read(jsonCache.get("a", "r2", this::encode))).contains("\"n\":2");
+        assertThat(memory()).isEqualTo(16);
+    }
+
+    @Test
+    public void testJsonIsEvictedBeyondTheMaximumBytes() {
+        JsonCache jsonCache = new JsonCache("test", 40, Duration.ofMinutes(1), meterRegistry);
+
+        read(jsonCache.get("a", "r1", this::encode));
+        read(jsonCache.get("b", "r1", this::encode));
+        read(jsonCache.get("a", "r1", this::encode));
+        read(jsonCache.get("c", "r1", this::encode));
+
+        assertThat(meterRegistry.get("cache.evictions").functionCounter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("cache.size").gauge().value()).isEqualTo(2);
+        assertThat(memory()).isEqualTo(32);
+    }
+
+    @Test
+    public void testJsonLargerThanTheMaximumBytesIsReadButNotCached() {
+        JsonCache jsonCache = new JsonCache("test", 10, Duration.ofMinutes(1), meterRegistry);
+
+        assertThat(read(jsonCache.get("a", "r1", this::encode))).isEqualTo("{\"id\":\"a\",\"n\":1}");
+        assertThat(read(jsonCache.get("a", "r1", this::encode))).isEqualTo("{\"id\":\"a\",\"n\":2}");
+        assertThat(memory()).isZero();
+    }
+
+    @Test
+    public void testEvictedJsonStaysReadableUntilReleased() {
+        JsonCache jsonCache = new JsonCache("test", 1024, Duration.ofMinutes(1), meterRegistry);
+        read(jsonCache.get("a", "r1", this::encode));
+
+        DataBuffer beingWritten = jsonCache.get("a", "r1", this::encode).block().getContent();
+        jsonCache.invalidatedAll();
+
+        assertThat(beingWritten.toString(StandardCharsets.UTF_8)).isEqualTo("{\"id\":\"a\",\"n\":1}");
+        assertThat(DataBufferUtils.release(beingWritten)).isTrue();
+    }
+
+    @Test
+    public void testJsonEncodedBeforeAnInvalidationIsNotCached() {
+        JsonCache jsonCache = new JsonCache("test", 1024, Duration.ofMinutes(1), meterRegistry);
+
+        // A write lands while the first encoding is running
+        read(jsonCache.get("a", "r1", id -> Mono.fromRunnable(() -> jsonCache.invalidated(id)).then(encode(id))));
+        assertThat(read(jsonCache.get("a", "r1", this::encode))).contains("\"n\":2");
+        assertThat(memory()).isEqualTo(16);
+    }
+
+    @Test
+    public void testMissingEntityIsNotCached() {
+        JsonCache jsonCache = new JsonCache("test", 1024, Duration.ofMinutes(1), meterRegistry);
+
+        assertThat(read(jsonCache.get("a", "r1", id -> Mono.empty()))).isNull();
+        assertThat(read(jsonCache.get("a", "r1", this::encode))).contains("\"n\":1");
+    }
+
+    @Test
+    public void testDisabledCacheAlwaysEncodes() {
+        JsonCache jsonCache = new JsonCache("test", 0, Duration.ofMinutes(1), meterRegistry);
+
+        assertThat(read(jsonCache.get("a", "r1", this::encode))).contains("\"n\":1");
+        assertThat(read(jsonCache.get("a", "r1", this::encode))).contains("\"n\":2");
+    }
+}
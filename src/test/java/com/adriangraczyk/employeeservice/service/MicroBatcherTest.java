@@ -0,0 +1,49 @@
+package com.adriangraczyk.employeeservice.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class MicroBatcherTest {
+
+    private final List<List<String>> batches = new CopyOnWriteArrayList<>();
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private Mono<List<Mono<String>>> send(List<String> requests) {
+        batches.add(requests);
+        return Mono.just(requests.stream().map(request -> Mono.just(request.toUpperCase())).collect(Collectors.toList()));
+    }
+
+    @Test
+    public void testPendingRequestsAreSentOnCompletion() {
+        MicroBatcher<String, String> batcher = new MicroBatcher<>("test", Duration.ofMinutes(1), 10, this::send, meterRegistry);
+
+        Mono<String> pending = batcher.submit("a").cache();
+        pending.subscribe();
+        batcher.complete();
+
+        assertThat(pending.block(Duration.ofSeconds(10))).isEqualTo("A");
+        assertThat(batches).hasSize(1);
+    }
+
+    @Test
+    public void testRequestAfterCompletionFails() {
+        MicroBatcher<String, String> batcher = new MicroBatcher<>("test", Duration.ofMillis(1), 10, this::send, meterRegistry);
+        batcher.complete();
+
+        assertThatThrownBy(() -> batcher.submit("a").block(Duration.ofSeconds(10)))
+            .isInstanceOf(IllegalStateException.class)
+            .hasMessageContaining("test");
+        assertThat(batches).isEmpty();
+    }
+}
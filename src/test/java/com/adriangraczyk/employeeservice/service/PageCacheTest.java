@@ -0,0 +1,132 @@
+package com.adriangraczyk.employeeservice.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoProcessor;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class PageCacheTest {
+
+    private static final List<Long> VERSION_1 = Collections.singletonList(1L);
+
+    private static final List<Long> VERSION_2 = Collections.singletonList(2L);
+
+    private final AtomicLong queries = new AtomicLong();
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private Mono<String> load() {
+        return Mono.fromCallable(() -> "page" + queries.incrementAndGet());
+    }
+
+    private double gets(String result) {
+        return meterRegistry.get("cache.gets").tag("result", result).functionCounter().count();
+    }
+
+    @Test
+    public void testPageIsReusedUntilTheVersionChanges() {
+        PageCache<String> pageCache = new PageCache<>("test", 10, meterRegistry);
+
+        assertThat(pageCache.get("a", VERSION_1, this::load).block()).isEqualTo("page1");
+        assertThat(pageCache.get("a", VERSION_1, this::load).block()).isEqualTo("page1");
+        assertThat(pageCache.get("a", VERSION_2, this::load).block()).isEqualTo("page2");
+        assertThat(pageCache.get("a", VERSION_2, this::load).block()).isEqualTo("page2");
+
+        assertThat(gets("hit")).isEqualTo(3);
+        assertThat(gets("miss")).isEqualTo(1);
+        assertThat(queries.get()).isEqualTo(2);
+        assertThat(meterRegistry.get("cache.size").gauge().value()).isEqualTo(1);
+    }
+
+    @Test
+    public void testEveryVersionOfThePageIsCompared() {
+        PageCache<String> pageCache = new PageCache<>("test", 10, meterRegistry);
+
+        pageCache.get("a", Arrays.asList(1L, 1L), this::load).block();
+
+        assertThat(pageCache.get("a", Arrays.asList(1L, 2L), this::load).block()).isEqualTo("page2");
+    }
+
+    @Test
+    public void testSizeIsBounded() {
+        PageCache<String> pageCache = new PageCache<>("test", 2, meterRegistry);
+
+        pageCache.get("a", VERSION_1, this::load).block();
+        pageCache.get("b", VERSION_1, this::load).block();
+        pageCache.get("a", VERSION_1, this::load).block();
+        pageCache.get("c", VERSION_1, this::load).block();
+        pageCache.get("d", VERSION_1, this::load).block();
+
+        assertThat(meterRegistry.get("cache.size").gauge().value()).isEqualTo(2);
+        assertThat(meterRegistry.get("cache.evictions").functionCounter().count()).isEqualTo(2);
+    }
+
+    @Test
+    public void testConcurrentReadsAtNewVersionsShareTheReload() {
+        PageCache<String> pageCache = new PageCache<>("test", 10, meterRegistry);
+        pageCache.get("a", VERSION_1, this::load).block();
+        MonoProcessor<String> loaded = MonoProcessor.create();
+
+        Mono<String> first = pageCache.get("a", VERSION_2, () -> loaded.doOnSubscribe(subscription -> queries.incrementAndGet()));
+        Mono<String> second = pageCache.get("a", VERSION_2, this::load);
+        first.subscribe();
+        second.subscribe();
+        loaded.onNext("page");
+
+        assertThat(first.block()).isEqualTo("page");
+        assertThat(second.block()).isEqualTo("page");
+        assertThat(queries.get()).isEqualTo(2);
+    }
+
+    @Test
+    public void testConcurrentReadsShareTheLoad() {
+        PageCache<String> pageCache = new PageCache<>("test", 10, meterRegistry);
+        MonoProcessor<String> loaded = MonoProcessor.create();
+
+        Mono<String> first = pageCache.get("a", VERSION_1, () -> loaded.doOnSubscribe(subscription -> queries.incrementAndGet()));
+        Mono<String> second = pageCache.get("a", VERSION_1, this::load);
+        first.subscribe();
+        second.subscribe();
+        loaded.onNext("page");
+
+        assertThat(first.block()).isEqualTo("page");
+        assertThat(second.block()).isEqualTo("page");
+        assertThat(queries.get()).isEqualTo(1);
+    }
+
+    @Test
+    public void testFailedLoadIsNotCached() {
+        PageCache<String> pageCache = new PageCache<>("test", 10, meterRegistry);
+
+        pageCache.get("a", VERSION_1, () -> Mono.<String>error(new IllegalStateException())).onErrorResume(e -> Mono.empty()).block();
+        assertThat(pageCache.get("a", VERSION_1, this::load).block()).isEqualTo("page1");
+    }
+
+    @Test
+    public void testDisabledCacheAlwaysLoads() {
+        PageCache<String> pageCache = new PageCache<>("test", 0, meterRegistry);
+
+        assertThat(pageCache.get("a", VERSION_1, this::load).block()).isEqualTo("page1");
+        assertThat(pageCache.get("a", VERSION_1, this::load).block()).isEqualTo("page2");
+    }
+
+    @Test
+    public void testKeyTellsPagesApart() {
+        PageRequest page = PageRequest.of(0, 20, Sort.by("lastName"));
+
+        assertThat(PageCache.key(page, true)).isEqualTo(PageCache.key(PageRequest.of(0, 20, Sort.by("lastName")), true));
+        assertThat(PageCache.key(page, true)).isNotEqualTo(PageCache.key(page, false));
+        assertThat(PageCache.key(page)).isNotEqualTo(PageCache.key(page.next()));
+        assertThat(PageCache.key(page)).isNotEqualTo(PageCache.key(PageRequest.of(0, 20, Sort.by(Sort.Direction.DESC, "lastName"))));
+    }
+}
@@ -0,0 +1,76 @@
+package com.adriangraczyk.employeeservice.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class ReadCoalescerTest {
+
+    private final List<List<String>> batches = new CopyOnWriteArrayList<>();
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private Flux<String> load(Collection<String> ids) {
+        batches.add(new ArrayList<>(ids));
+        return Flux.fromIterable(ids).filter(id -> !id.startsWith("missing"));
+    }
+
+    @Test
+    public void testConcurrentReadsAreSentTogether() {
+        ReadCoalescer<String> coalescer = new ReadCoalescer<>("test", Duration.ofMillis(100), 10, this::load, id -> id, meterRegistry);
+
+        List<String> read = Flux.just("a", "b", "a", "missing")
+            .flatMap(coalescer::read)
+            .collectList()
+            .block();
+
+        assertThat(read).containsExactlyInAnyOrder("a", "b", "a");
+        assertThat(batches).containsExactly(Arrays.asList("a", "b", "missing"));
+        assertThat(meterRegistry.summary("test.batch.size").max()).isEqualTo(4);
+        assertThat(meterRegistry.timer("test.batch.wait").count()).isEqualTo(4);
+    }
+
+    @Test
+    public void testFullBatchIsSentWithoutWaiting() {
+        ReadCoalescer<String> coalescer = new ReadCoalescer<>("test", Duration.ofMinutes(1), 2, this::load, id -> id, meterRegistry);
+
+        Flux.just("a", "b", "c", "d")
+            .flatMap(coalescer::read)
+            .blockLast(Duration.ofSeconds(10));
+
+        assertThat(batches).hasSize(2);
+    }
+
+    @Test
+    public void testObjectIdsAreMatchedWhateverTheirCase() {
+        ReadCoalescer<String> coalescer = new ReadCoalescer<>("test", Duration.ofMillis(1), 10,
+            ids -> Flux.just("5eb2a3f1c9e77c0001a1b2c3"), id -> id, meterRegistry);
+
+        assertThat(coalescer.read("5EB2A3F1C9E77C0001A1B2C3").block()).isEqualTo("5eb2a3f1c9e77c0001a1b2c3");
+    }
+
+    @Test
+    public void testEveryReadOfAFailedBatchFails() {
+        ReadCoalescer<String> coalescer = new ReadCoalescer<>("test", Duration.ofMillis(100), 10,
+            ids -> Flux.error(new IllegalStateException("down")), id -> id, meterRegistry);
+
+        Mono<String> first = coalescer.read("a").cache();
+        Mono<String> second = coalescer.read("b").cache();
+        Mono.when(first.onErrorResume(e -> Mono.empty()), second.onErrorResume(e -> Mono.empty())).block();
+
+        assertThatThrownBy(first::block).hasMessageContaining("down");
+        assertThatThrownBy(second::block).hasMessageContaining("down");
+    }
+}
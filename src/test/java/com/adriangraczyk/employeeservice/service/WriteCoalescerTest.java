@@ -0,0 +1,71 @@
+package com.adriangraczyk.employeeservice.service;
+
+import com.adriangraczyk.employeeservice.repository.BulkWrite;
+import com.adriangraczyk.employeeservice.repository.BulkWriteReport;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DuplicateKeyException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class WriteCoalescerTest {
+
+    private final List<List<BulkWrite<String>>> batches = new CopyOnWriteArrayList<>();
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private Mono<BulkWriteReport> write(List<BulkWrite<String>> writes) {
+        batches.add(writes);
+        int failed = writes.indexOf(writes.stream().filter(write -> write.getEntity().equals("duplicate")).findFirst().orElse(null));
+        return Mono.just(new BulkWriteReport(Collections.emptySet(),
+            failed < 0 ? Collections.emptyMap() : Collections.singletonMap(failed, new DuplicateKeyException("duplicate"))));
+    }
+
+    @Test
+    public void testConcurrentWritesAreSentTogether() {
+        WriteCoalescer<String> coalescer = new WriteCoalescer<>("test", Duration.ofMillis(100), 10, this::write, meterRegistry);
+
+        List<String> written = Flux.range(0, 3)
+            .flatMap(i -> coalescer.write(BulkWrite.insert(Integer.toString(i), "entity" + i)))
+            .collectList()
+            .block();
+
+        assertThat(written).containsExactlyInAnyOrder("entity0", "entity1", "entity2");
+        assertThat(batches).hasSize(1);
+        assertThat(meterRegistry.summary("test.batch.size").max()).isEqualTo(3);
+        assertThat(meterRegistry.timer("test.batch.wait").count()).isEqualTo(3);
+    }
+
+    @Test
+    public void testFullBatchIsSentWithoutWaiting() {
+        WriteCoalescer<String> coalescer = new WriteCoalescer<>("test", Duration.ofMinutes(1), 2, this::write, meterRegistry);
+
+        Flux.range(0, 4)
+            .flatMap(i -> coalescer.write(BulkWrite.insert(Integer.toString(i), "entity" + i)))
+            .blockLast(Duration.ofSeconds(10));
+
+        assertThat(batches).hasSize(2);
+    }
+
+    @Test
+    public void testEachCallerGetsItsOwnFailure() {
+        WriteCoalescer<String> coalescer = new WriteCoalescer<>("test", Duration.ofMillis(100), 10, this::write, meterRegistry);
+
+        Mono<String> valid = coalescer.write(BulkWrite.insert("1", "entity")).cache();
+        Mono<String> duplicate = coalescer.write(BulkWrite.insert("2", "duplicate")).cache();
+        Mono.when(valid.onErrorResume(e -> Mono.empty()), duplicate.onErrorResume(e -> Mono.empty())).block();
+
+        assertThat(valid.block()).isEqualTo("entity");
+        assertThatThrownBy(duplicate::block).isInstanceOf(DuplicateKeyException.class);
+        assertThat(batches).hasSize(1);
+    }
+}
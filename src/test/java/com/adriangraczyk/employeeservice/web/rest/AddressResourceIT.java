@@ -1,33 +1,47 @@
 package com.adriangraczyk.employeeservice.web.rest;
 
 import com.adriangraczyk.employeeservice.EmployeeserviceApp;
+import com.adriangraczyk.employeeservice.config.MongoCommandRecorder;
 import com.adriangraczyk.employeeservice.domain.Address;
+import com.adriangraczyk.employeeservice.domain.Employee;
 import com.adriangraczyk.employeeservice.repository.AddressRepository;
+import com.adriangraczyk.employeeservice.repository.EmployeeRepository;
+import com.adriangraczyk.employeeservice.security.AuthoritiesConstants;
 import com.adriangraczyk.employeeservice.service.AddressService;
 import com.adriangraczyk.employeeservice.service.dto.AddressDTO;
+import com.adriangraczyk.employeeservice.service.dto.BulkOperationDTO;
 import com.adriangraczyk.employeeservice.service.mapper.AddressMapper;
 
+import org.bson.types.ObjectId;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.reactive.server.WebTestClient;
 
 import java.time.Duration;
+import java.util.Arrays;
 import java.util.List;
+import java.util.stream.Collectors;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.everyItem;
 import static org.hamcrest.Matchers.hasItem;
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.notNullValue;
 
 import com.adriangraczyk.employeeservice.domain.enumeration.AddressType;
 /**
  * Integration tests for the {@link AddressResource} REST controller.
  */
-@SpringBootTest(classes = EmployeeserviceApp.class)
+@SpringBootTest(classes = {EmployeeserviceApp.class, MongoCommandRecorder.Config.class})
 @AutoConfigureWebTestClient
 @WithMockUser
 public class AddressResourceIT {
@@ -65,6 +79,12 @@ public class AddressResourceIT {
     @Autowired
     private AddressService addressService;
 
+    @Autowired
+    private EmployeeRepository employeeRepository;
+
+    @Autowired
+    private MongoCommandRecorder mongoCommandRecorder;
+
     @Autowired
     private WebTestClient webTestClient;
 
@@ -281,7 +301,205 @@ public class AddressResourceIT {
             .jsonPath("$.[*].buildingNumber").value(hasItem(DEFAULT_BUILDING_NUMBER))
             .jsonPath("$.[*].flatNumber").value(hasItem(DEFAULT_FLAT_NUMBER));
     }
+
+    @Test
+    public void getAllAddressesWithoutLoadingEmployees() {
+        // Initialize the database with an address of an employee
+        employeeRepository.deleteAll().block();
+        Employee employee = employeeRepository.save(EmployeeResourceIT.createEntity()).block();
+        addressRepository.save(address.employee(employee)).block();
+        int commandsForOneAddress = countCommandsForAddressesPage();
+
+        // Fill the page with addresses of other employees
+        for (int i = 1; i < 20; i++) {
+            Employee otherEmployee = employeeRepository.save(EmployeeResourceIT.createEntity().pESEL(String.format("%011d", i))).block();
+            addressRepository.save(createEntity().employee(otherEmployee)).block();
+        }
+
+        // The referenced employees are not queried, so a page costs the same whatever its size
+        assertThat(countCommandsForAddressesPage()).isEqualTo(commandsForOneAddress);
+    }
+
+    @Test
+    public void getAllAddressesWithFields() {
+        // Initialize the database with an address of an employee
+        employeeRepository.deleteAll().block();
+        Employee employee = employeeRepository.save(EmployeeResourceIT.createEntity()).block();
+        addressRepository.save(address.employee(employee)).block();
+
+        // Get only the selected properties, besides the id
+        webTestClient.get().uri("/api/addresses?sort=id,desc&fields=city,employeeId")
+            .accept(MediaType.APPLICATION_JSON)
+            .exchange()
+            .expectStatus().isOk()
+            .expectBody()
+            .jsonPath("$.[*].id").value(hasItem(address.getId()))
+            .jsonPath("$.[*].city").value(hasItem(DEFAULT_CITY))
+            .jsonPath("$.[*].employeeId").value(hasItem(employee.getId()))
+            .jsonPath("$.[0].street").doesNotExist()
+            .jsonPath("$.[0].postalCode").doesNotExist();
+    }
+
+    @Test
+    public void getAllAddressesWithUnknownFields() {
+        webTestClient.get().uri("/api/addresses?fields=city,employee")
+            .accept(MediaType.APPLICATION_JSON)
+            .exchange()
+            .expectStatus().isBadRequest()
+            .expectBody()
+            .jsonPath("$.message").isEqualTo("error.invalidfields");
+    }
+
+    @Test
+    public void exportAddresses() throws Exception {
+        // Initialize the database
+        employeeRepository.deleteAll().block();
+        Employee employee = employeeRepository.save(EmployeeResourceIT.createEntity()).block();
+        List<Address> addresses = addressRepository.saveAll(Arrays.asList(address.employee(employee), createEntity(), createEntity()))
+            .collectList().block();
+        List<String> ids = addresses.stream().map(Address::getId).sorted().collect(Collectors.toList());
+
+        // Export the last ones with only some fields, one per line in the order of their ids
+        String export = webTestClient.get().uri("/api/addresses/stream?after={after}&fields=city,employeeId", ids.get(0))
+            .accept(MediaType.valueOf("application/x-ndjson"))
+            .exchange()
+            .expectStatus().isOk()
+            .expectHeader().contentTypeCompatibleWith("application/x-ndjson")
+            .expectBody(String.class)
+            .returnResult().getResponseBody();
+        List<AddressDTO> exported = TestUtil.readJsonLines(export, AddressDTO.class);
+        assertThat(exported).extracting(AddressDTO::getId).containsExactlyElementsOf(ids.subList(1, 3));
+        assertThat(exported).extracting(AddressDTO::getCity).containsOnly(DEFAULT_CITY);
+        assertThat(exported).extracting(AddressDTO::getStreet).containsOnlyNulls();
+
+        // Export them all as events with the employee of the address
+        List<ServerSentEvent<AddressDTO>> events = webTestClient.get().uri("/api/addresses/stream?fields=employeeId")
+            .accept(MediaType.TEXT_EVENT_STREAM)
+            .exchange()
+            .expectStatus().isOk()
+            .returnResult(new ParameterizedTypeReference<ServerSentEvent<AddressDTO>>() { })
+            .getResponseBody()
+            .collectList()
+            .block();
+        assertThat(events).extracting(ServerSentEvent::id).containsExactlyElementsOf(ids);
+        assertThat(events).filteredOn(event -> event.id().equals(address.getId()))
+            .extracting(event -> event.data().getEmployeeId()).containsExactly(employee.getId());
+
+        // An unknown field is rejected
+        webTestClient.get().uri("/api/addresses/stream?fields=employee")
+            .accept(MediaType.valueOf("application/x-ndjson"))
+            .exchange()
+            .expectStatus().isBadRequest();
+    }
+
+    private int countCommandsForAddressesPage() {
+        mongoCommandRecorder.clear();
+        webTestClient.get().uri("/api/addresses?size=20")
+            .accept(MediaType.APPLICATION_JSON)
+            .exchange()
+            .expectStatus().isOk()
+            .expectBody()
+            .jsonPath("$.[*].employeeId").value(everyItem(notNullValue()));
+        return mongoCommandRecorder.getCommands("find", "aggregate", "getMore", "count").size();
+    }
+
+    @Test
+    public void getAllAddressesWithTotalCount() {
+        // Initialize the database
+        addressRepository.save(address).block();
+        addressRepository.save(createUpdatedEntity()).block();
+
+        // Get the second page of the addressList, counted with the default strategy
+        webTestClient.get().uri("/api/addresses?page=1&size=1&sort=id,asc")
+            .accept(MediaType.APPLICATION_JSON)
+            .exchange()
+            .expectStatus().isOk()
+            .expectHeader().valueEquals("X-Total-Count", "2")
+            .expectBody()
+            .jsonPath("$.length()").value(is(1))
+            .jsonPath("$.[0].city").value(is(UPDATED_CITY));
+    }
+
+    @Test
+    public void getAllAddressesAfterCursor() {
+        // Initialize the database
+        addressRepository.save(address).block();
+        addressRepository.save(createUpdatedEntity()).block();
+
+        // Get the first slice of the addressList
+        String nextCursor = webTestClient.get().uri("/api/addresses?cursor=&size=1&sort=id,desc")
+            .accept(MediaType.APPLICATION_JSON)
+            .exchange()
+            .expectStatus().isOk()
+            .expectHeader().valueMatches(HttpHeaders.LINK, ".*rel=\"next\".*")
+            .expectBody()
+            .jsonPath("$.length()").value(is(1))
+            .jsonPath("$.[0].city").value(is(UPDATED_CITY))
+            .returnResult()
+            .getResponseHeaders().getFirst("X-Next-Cursor");
+        assertThat(nextCursor).isNotEmpty();
+
+        // Resume after the cursor: this is the last slice
+        webTestClient.get().uri("/api/addresses?cursor={cursor}&size=1&sort=id,desc", nextCursor)
+            .accept(MediaType.APPLICATION_JSON)
+            .exchange()
+            .expectStatus().isOk()
+            .expectHeader().doesNotExist("X-Next-Cursor")
+            .expectBody()
+            .jsonPath("$.length()").value(is(1))
+            .jsonPath("$.[0].city").value(is(DEFAULT_CITY));
+    }
+
+    @Test
+    public void getAllAddressesSortedOnUnindexedProperty() {
+        // Only the order of an index can be listed without sorting the whole collection
+        webTestClient.get().uri("/api/addresses?sort=city,asc")
+            .accept(MediaType.APPLICATION_JSON)
+            .exchange()
+            .expectStatus().isBadRequest();
+    }
+
+    @Test
+    public void getAllAddressesAfterCursorSortedOnEmployee() {
+        // The employee is a reference, it cannot be compared in a range predicate
+        webTestClient.get().uri("/api/addresses?cursor=&sort=employee,asc")
+            .accept(MediaType.APPLICATION_JSON)
+            .exchange()
+            .expectStatus().isBadRequest();
+    }
     
+    @Test
+    public void getAddressIsNotModified() {
+        // Initialize the database
+        addressRepository.save(address).block();
+
+        String eTag = webTestClient.get().uri("/api/addresses/{id}", address.getId())
+            .exchange()
+            .expectStatus().isOk()
+            .returnResult(AddressDTO.class)
+            .getResponseHeaders().getETag();
+
+        webTestClient.get().uri("/api/addresses/{id}", address.getId())
+            .header(HttpHeaders.IF_NONE_MATCH, eTag)
+            .exchange()
+            .expectStatus().isNotModified();
+
+        // A patch with a stale tag is rejected
+        webTestClient.patch().uri("/api/addresses/{id}", address.getId())
+            .header(HttpHeaders.IF_MATCH, "\"stale\"")
+            .contentType(MediaType.valueOf("application/merge-patch+json"))
+            .bodyValue("{\"city\": \"" + UPDATED_CITY + "\"}")
+            .exchange()
+            .expectStatus().isEqualTo(HttpStatus.PRECONDITION_FAILED);
+        webTestClient.patch().uri("/api/addresses/{id}", address.getId())
+            .header(HttpHeaders.IF_MATCH, eTag)
+            .contentType(MediaType.valueOf("application/merge-patch+json"))
+            .bodyValue("{\"city\": \"" + UPDATED_CITY + "\"}")
+            .exchange()
+            .expectStatus().isOk()
+            .expectHeader().exists(HttpHeaders.ETAG);
+    }
+
     @Test
     public void getAddress() {
         // Initialize the database
@@ -304,6 +522,42 @@ public class AddressResourceIT {
             .jsonPath("$.buildingNumber").value(is(DEFAULT_BUILDING_NUMBER))
             .jsonPath("$.flatNumber").value(is(DEFAULT_FLAT_NUMBER));
     }
+    @Test
+    public void getAddressesByIds() {
+        // Initialize the database
+        addressRepository.save(address).block();
+        Address otherAddress = addressRepository.save(createUpdatedEntity()).block();
+        String missingId = new ObjectId().toHexString();
+
+        // Get the addresses in the requested order, reporting the missing one
+        webTestClient.get().uri("/api/addresses?ids={ids}", String.join(",", missingId, otherAddress.getId(), address.getId()))
+            .accept(MediaType.APPLICATION_JSON)
+            .exchange()
+            .expectStatus().isOk()
+            .expectHeader().valueEquals("X-Missing-Ids", missingId)
+            .expectBody()
+            .jsonPath("$.length()").value(is(2))
+            .jsonPath("$.[0].id").value(is(otherAddress.getId()))
+            .jsonPath("$.[0].street").value(is(UPDATED_STREET))
+            .jsonPath("$.[1].id").value(is(address.getId()));
+    }
+
+    @Test
+    public void getAddressWithFields() {
+        // Initialize the database
+        addressRepository.save(address).block();
+
+        webTestClient.get().uri("/api/addresses/{id}?fields=street,country", address.getId())
+            .accept(MediaType.APPLICATION_JSON)
+            .exchange()
+            .expectStatus().isOk()
+            .expectBody()
+            .jsonPath("$.id").value(is(address.getId()))
+            .jsonPath("$.street").value(is(DEFAULT_STREET))
+            .jsonPath("$.country").value(is(DEFAULT_COUNTRY))
+            .jsonPath("$.city").doesNotExist();
+    }
+
     @Test
     public void getNonExistingAddress() {
         // Get the address
@@ -353,6 +607,31 @@ public class AddressResourceIT {
         assertThat(testAddress.getFlatNumber()).isEqualTo(UPDATED_FLAT_NUMBER);
     }
 
+    @Test
+    public void partialUpdateAddress() throws Exception {
+        // Initialize the database
+        addressRepository.save(address).block();
+        employeeRepository.deleteAll().block();
+        Employee employee = employeeRepository.save(EmployeeResourceIT.createEntity()).block();
+
+        // Patch the street, remove the flat number and set the employee
+        webTestClient.patch().uri("/api/addresses/{id}", address.getId())
+            .contentType(MediaType.valueOf("application/merge-patch+json"))
+            .bodyValue("{\"street\": \"" + UPDATED_STREET + "\", \"flatNumber\": null, \"employeeId\": \"" + employee.getId() + "\"}")
+            .exchange()
+            .expectStatus().isOk()
+            .expectBody()
+            .jsonPath("$.street").value(is(UPDATED_STREET))
+            .jsonPath("$.employeeId").value(is(employee.getId()));
+
+        // Validate the Address in the database
+        Address testAddress = addressRepository.findById(address.getId()).block();
+        assertThat(testAddress.getStreet()).isEqualTo(UPDATED_STREET);
+        assertThat(testAddress.getFlatNumber()).isNull();
+        assertThat(testAddress.getCity()).isEqualTo(DEFAULT_CITY);
+        assertThat(addressMapper.toDto(testAddress).getEmployeeId()).isEqualTo(employee.getId());
+    }
+
     @Test
     public void updateNonExistingAddress() throws Exception {
         int databaseSizeBeforeUpdate = addressRepository.findAll().collectList().block().size();
@@ -389,4 +668,80 @@ public class AddressResourceIT {
         List<Address> addressList = addressRepository.findAll().collectList().block();
         assertThat(addressList).hasSize(databaseSizeBeforeDelete - 1);
     }
+
+    @Test
+    public void removeOrphanAddresses() {
+        // Initialize the database
+        employeeRepository.deleteAll().block();
+        Employee employee = employeeRepository.save(EmployeeResourceIT.createEntity()).block();
+        Employee deletedEmployee = new Employee();
+        deletedEmployee.setId(new ObjectId().toHexString());
+        Address kept = addressRepository.save(createEntity().employee(employee)).block();
+        addressRepository.save(createEntity().employee(deletedEmployee)).block();
+        addressRepository.save(createUpdatedEntity().employee(deletedEmployee)).block();
+
+        assertThat(addressService.removeOrphanAddressesReactively().block()).isEqualTo(2);
+
+        assertThat(addressRepository.findAll().collectList().block()).containsExactly(kept);
+    }
+
+    @Test
+    @WithMockUser(authorities = AuthoritiesConstants.ADMIN)
+    public void updateAddressesByFilter() throws Exception {
+        // Initialize the database
+        addressRepository.save(address).block();
+        addressRepository.save(createEntity()).block();
+        Address otherAddress = addressRepository.save(createUpdatedEntity()).block();
+
+        webTestClient.post().uri("/api/addresses/update-by-filter")
+            .contentType(MediaType.APPLICATION_JSON)
+            .bodyValue("{\"filter\": {\"city\": \"" + DEFAULT_CITY + "\"}, \"set\": {\"city\": \"" + UPDATED_CITY + "\"}}")
+            .exchange()
+            .expectStatus().isOk()
+            .expectBody()
+            .jsonPath("$.matched").isEqualTo(2)
+            .jsonPath("$.modified").isEqualTo(2);
+
+        assertThat(addressRepository.findAll().map(Address::getCity).collectList().block()).containsOnly(UPDATED_CITY);
+        assertThat(addressRepository.findById(otherAddress.getId()).block().getStreet()).isEqualTo(UPDATED_STREET);
+    }
+
+    @Test
+    public void bulkAddresses() throws Exception {
+        // Initialize the database
+        addressRepository.save(address).block();
+
+        AddressDTO updatedAddressDTO = addressMapper.toDto(address);
+        updatedAddressDTO.setStreet(UPDATED_STREET);
+        AddressDTO newAddressDTO = addressMapper.toDto(createEntity());
+        newAddressDTO.setId("existing_id");
+        List<BulkOperationDTO<AddressDTO>> operations = Arrays.asList(
+            bulkOperation(BulkOperationDTO.Action.UPDATE, updatedAddressDTO),
+            bulkOperation(BulkOperationDTO.Action.CREATE, addressMapper.toDto(createUpdatedEntity())),
+            bulkOperation(BulkOperationDTO.Action.CREATE, newAddressDTO));
+
+        webTestClient.post().uri("/api/addresses/bulk")
+            .contentType(MediaType.APPLICATION_JSON)
+            .bodyValue(TestUtil.convertObjectToJsonBytes(operations))
+            .exchange()
+            .expectStatus().isOk()
+            .expectBody()
+            .jsonPath("$.[0].status").value(is("UPDATED"))
+            .jsonPath("$.[1].status").value(is("CREATED"))
+            .jsonPath("$.[1].id").value(notNullValue())
+            .jsonPath("$.[2].status").value(is("FAILED"))
+            .jsonPath("$.[2].error").value(is("error.idexists"));
+
+        // Validate the Addresses in the database
+        List<Address> addressList = addressRepository.findAll().collectList().block();
+        assertThat(addressList).extracting(Address::getStreet).containsOnly(UPDATED_STREET);
+        assertThat(addressList).hasSize(2);
+    }
+
+    private static BulkOperationDTO<AddressDTO> bulkOperation(BulkOperationDTO.Action action, AddressDTO value) {
+        BulkOperationDTO<AddressDTO> operation = new BulkOperationDTO<>();
+        operation.setAction(action);
+        operation.setValue(value);
+        return operation;
+    }
 }
@@ -0,0 +1,128 @@
+package com.adriangraczyk.employeeservice.web.rest;
+
+import com.adriangraczyk.employeeservice.EmployeeserviceApp;
+import com.adriangraczyk.employeeservice.domain.Employee;
+import com.adriangraczyk.employeeservice.repository.AddressRepository;
+import com.adriangraczyk.employeeservice.repository.EmployeeRepository;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.is;
+
+/**
+ * Integration tests for the {@link EmployeeResource} REST controller with {@code application.json-cache} enabled.
+ */
+@SpringBootTest(classes = EmployeeserviceApp.class, properties = "application.json-cache.enabled=true")
+@AutoConfigureWebTestClient
+@WithMockUser
+public class EmployeeJsonCacheIT {
+
+    private static final String UPDATED_FIRST_NAME = "BBBBBBBBBB";
+
+    @Autowired
+    private EmployeeRepository employeeRepository;
+
+    @Autowired
+    private AddressRepository addressRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    private Employee employee;
+
+    @BeforeEach
+    public void initTest() {
+        addressRepository.deleteAll().block();
+        employeeRepository.deleteAll().block();
+        employee = EmployeeResourceIT.createEntity();
+    }
+
+    private double jsonCache(String meter) {
+        return meterRegistry.get(meter).tag("cache", "employee.json").gauge().value();
+    }
+
+    @Test
+    public void getEmployeeJsonIsCachedUntilUpdated() {
+        // Initialize the database
+        employeeRepository.save(employee).block();
+        // The JSON of the employees of the other tests is left to expire
+        double memory = jsonCache("cache.memory");
+
+        // The JSON of the employee is written from the cache the second time, as it was encoded
+        String encoded = webTestClient.get().uri("/api/employees/{id}", employee.getId())
+            .exchange()
+            .expectStatus().isOk()
+            .expectBody(String.class).returnResult().getResponseBody();
+        webTestClient.get().uri("/api/employees/{id}", employee.getId())
+            .exchange()
+            .expectStatus().isOk()
+            .expectHeader().contentType(MediaType.APPLICATION_JSON)
+            .expectBody(String.class).isEqualTo(encoded);
+        assertThat(meterRegistry.get("cache.gets").tag("cache", "employee.json").tag("result", "hit").functionCounter().count()).isPositive();
+        assertThat(jsonCache("cache.memory")).isEqualTo(memory + encoded.length());
+
+        // The update invalidates the cached JSON
+        webTestClient.patch().uri("/api/employees/{id}", employee.getId())
+            .contentType(MediaType.valueOf("application/merge-patch+json"))
+            .bodyValue("{\"firstName\": \"" + UPDATED_FIRST_NAME + "\"}")
+            .exchange()
+            .expectStatus().isOk();
+        webTestClient.get().uri("/api/employees/{id}", employee.getId())
+            .exchange()
+            .expectStatus().isOk()
+            .expectBody()
+            .jsonPath("$.firstName").value(is(UPDATED_FIRST_NAME));
+    }
+
+    @Test
+    public void getEmployeeJsonIsNotReusedAtAnotherRevision() {
+        // Initialize the database
+        employeeRepository.save(employee).block();
+        webTestClient.get().uri("/api/employees/{id}", employee.getId())
+            .exchange()
+            .expectStatus().isOk();
+
+        // Written without the services, so without invalidating the cached JSON, as a missed change event
+        employeeRepository.save(employee.firstName(UPDATED_FIRST_NAME)).block();
+        String revision = employeeRepository.findById(employee.getId()).block().getRevision();
+
+        webTestClient.get().uri("/api/employees/{id}", employee.getId())
+            .exchange()
+            .expectStatus().isOk()
+            .expectHeader().valueEquals("ETag", "\"" + revision + "\"")
+            .expectBody()
+            .jsonPath("$.firstName").value(is(UPDATED_FIRST_NAME));
+    }
+
+    @Test
+    public void getEmployeeFromTheCacheKeepsItsETag() {
+        // Initialize the database
+        employeeRepository.save(employee).block();
+
+        String eTag = webTestClient.get().uri("/api/employees/{id}", employee.getId())
+            .exchange()
+            .expectStatus().isOk()
+            .returnResult(String.class).getResponseHeaders().getETag();
+
+        webTestClient.get().uri("/api/employees/{id}", employee.getId())
+            .exchange()
+            .expectStatus().isOk()
+            .expectHeader().valueEquals("ETag", eTag);
+        webTestClient.get().uri("/api/employees/{id}", employee.getId())
+            .header("If-None-Match", eTag)
+            .exchange()
+            .expectStatus().isNotModified();
+    }
+}
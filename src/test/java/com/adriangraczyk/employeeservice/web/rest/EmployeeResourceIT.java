@@ -1,33 +1,63 @@
 package com.adriangraczyk.employeeservice.web.rest;
 
 import com.adriangraczyk.employeeservice.EmployeeserviceApp;
+import com.adriangraczyk.employeeservice.config.ApplicationProperties;
+import com.adriangraczyk.employeeservice.config.JacksonConfiguration;
+import com.adriangraczyk.employeeservice.config.MongoCommandRecorder;
+import com.adriangraczyk.employeeservice.domain.Address;
 import com.adriangraczyk.employeeservice.domain.Employee;
+import com.adriangraczyk.employeeservice.repository.AddressRepository;
 import com.adriangraczyk.employeeservice.repository.EmployeeRepository;
+import com.adriangraczyk.employeeservice.security.AuthoritiesConstants;
 import com.adriangraczyk.employeeservice.service.EmployeeService;
+import com.adriangraczyk.employeeservice.service.dto.BulkOperationDTO;
+import com.adriangraczyk.employeeservice.service.dto.BulkResultDTO;
+import com.adriangraczyk.employeeservice.service.dto.AddressDTO;
 import com.adriangraczyk.employeeservice.service.dto.EmployeeDTO;
+import com.adriangraczyk.employeeservice.service.mapper.AddressMapper;
 import com.adriangraczyk.employeeservice.service.mapper.EmployeeMapper;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.bson.BsonDocument;
+import org.bson.types.ObjectId;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.reactive.server.EntityExchangeResult;
 import org.springframework.test.web.reactive.server.WebTestClient;
 
+import java.nio.charset.StandardCharsets;
 import java.time.Duration;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collections;
 import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.everyItem;
 import static org.hamcrest.Matchers.hasItem;
 import static org.hamcrest.Matchers.is;
 
+import com.adriangraczyk.employeeservice.domain.enumeration.AddressType;
 import com.adriangraczyk.employeeservice.domain.enumeration.Role;
 /**
  * Integration tests for the {@link EmployeeResource} REST controller.
  */
-@SpringBootTest(classes = EmployeeserviceApp.class)
+@SpringBootTest(classes = {EmployeeserviceApp.class, MongoCommandRecorder.Config.class})
 @AutoConfigureWebTestClient
 @WithMockUser
 public class EmployeeResourceIT {
@@ -56,6 +86,18 @@ public class EmployeeResourceIT {
     @Autowired
     private EmployeeService employeeService;
 
+    @Autowired
+    private AddressRepository addressRepository;
+
+    @Autowired
+    private AddressMapper addressMapper;
+
+    @Autowired
+    private MongoCommandRecorder mongoCommandRecorder;
+
+    @Autowired
+    private ApplicationProperties applicationProperties;
+
     @Autowired
     private WebTestClient webTestClient;
 
@@ -94,6 +136,7 @@ public class EmployeeResourceIT {
 
     @BeforeEach
     public void initTest() {
+        addressRepository.deleteAll().block();
         employeeRepository.deleteAll().block();
         employee = createEntity();
     }
@@ -120,6 +163,109 @@ public class EmployeeResourceIT {
         assertThat(testEmployee.getRole()).isEqualTo(DEFAULT_ROLE);
     }
 
+    @Test
+    public void createAndGetEmployeesInBinaryFormats() throws Exception {
+        ObjectMapper cborMapper = new ObjectMapper(new CBORFactory());
+        ObjectMapper smileMapper = new ObjectMapper(new SmileFactory());
+
+        // Create the Employee from a CBOR body
+        byte[] created = webTestClient.post().uri("/api/employees")
+            .contentType(MediaType.APPLICATION_CBOR)
+            .accept(MediaType.APPLICATION_CBOR)
+            .bodyValue(cborMapper.writeValueAsBytes(employeeMapper.toDto(employee)))
+            .exchange()
+            .expectStatus().isCreated()
+            .expectHeader().contentTypeCompatibleWith(MediaType.APPLICATION_CBOR)
+            .expectBody(byte[].class)
+            .returnResult().getResponseBody();
+        String id = cborMapper.readValue(created, EmployeeDTO.class).getId();
+        assertThat(employeeRepository.findById(id).block().getpESEL()).isEqualTo(DEFAULT_P_ESEL);
+
+        // Get it in Smile, with the same tag as in JSON
+        String eTag = webTestClient.get().uri("/api/employees/{id}", id)
+            .accept(MediaType.APPLICATION_JSON)
+            .exchange()
+            .returnResult(EmployeeDTO.class)
+            .getResponseHeaders().getETag();
+        EntityExchangeResult<byte[]> smile = webTestClient.get().uri("/api/employees/{id}", id)
+            .accept(MediaType.valueOf(JacksonConfiguration.APPLICATION_SMILE_VALUE))
+            .exchange()
+            .expectStatus().isOk()
+            .expectHeader().valueEquals(HttpHeaders.ETAG, eTag)
+            .expectBody(byte[].class)
+            .returnResult();
+        assertThat(smileMapper.readValue(smile.getResponseBody(), EmployeeDTO.class).getFirstName()).isEqualTo(DEFAULT_FIRST_NAME);
+
+        // List the employees in CBOR
+        byte[] page = webTestClient.get().uri("/api/employees")
+            .accept(MediaType.APPLICATION_CBOR)
+            .exchange()
+            .expectStatus().isOk()
+            .expectBody(byte[].class)
+            .returnResult().getResponseBody();
+        assertThat(cborMapper.readValue(page, EmployeeDTO[].class)).extracting(EmployeeDTO::getId).containsExactly(id);
+
+        // Run bulk operations from a CBOR array
+        EmployeeDTO updatedEmployeeDTO = employeeMapper.toDto(employeeRepository.findById(id).block());
+        updatedEmployeeDTO.setFirstName(UPDATED_FIRST_NAME);
+        byte[] results = webTestClient.post().uri("/api/employees/bulk")
+            .contentType(MediaType.APPLICATION_CBOR)
+            .accept(MediaType.APPLICATION_CBOR)
+            .bodyValue(cborMapper.writeValueAsBytes(Collections.singletonList(
+                bulkOperation(BulkOperationDTO.Action.UPDATE, null, updatedEmployeeDTO))))
+            .exchange()
+            .expectStatus().isOk()
+            .expectBody(byte[].class)
+            .returnResult().getResponseBody();
+        assertThat(cborMapper.readValue(results, BulkResultDTO[].class)).extracting(BulkResultDTO::getStatus)
+            .containsExactly(BulkResultDTO.Status.UPDATED);
+        assertThat(employeeRepository.findById(id).block().getFirstName()).isEqualTo(UPDATED_FIRST_NAME);
+    }
+
+    @Test
+    public void createEmployeeWithAddresses() throws Exception {
+        mongoCommandRecorder.clear();
+        // Create the Employee with two Addresses
+        EmployeeDTO employeeDTO = employeeMapper.toDto(employee);
+        employeeDTO.setAddresses(Arrays.asList(addressMapper.toDto(AddressResourceIT.createEntity()),
+            addressMapper.toDto(AddressResourceIT.createUpdatedEntity())));
+
+        EmployeeDTO created = webTestClient.post().uri("/api/employees?include=addresses")
+            .contentType(MediaType.APPLICATION_JSON)
+            .bodyValue(TestUtil.convertObjectToJsonBytes(employeeDTO))
+            .exchange()
+            .expectStatus().isCreated()
+            .expectBody(EmployeeDTO.class)
+            .returnResult().getResponseBody();
+
+        // One insert per collection
+        assertThat(mongoCommandRecorder.getCommands("insert")).hasSize(2);
+        assertThat(created.getAddresses()).hasSize(2)
+            .allSatisfy(address -> assertThat(address.getEmployeeId()).isEqualTo(created.getId()));
+        Employee testEmployee = employeeRepository.findById(created.getId()).block();
+        assertThat(testEmployee.getpESEL()).isEqualTo(DEFAULT_P_ESEL);
+        List<Address> addressList = addressRepository.findAllByEmployeeIdIn(Arrays.asList(created.getId())).collectList().block();
+        assertThat(addressList).extracting(Address::getId)
+            .containsExactlyInAnyOrderElementsOf(created.getAddresses().stream().map(AddressDTO::getId).collect(Collectors.toList()));
+    }
+
+    @Test
+    public void createEmployeeWithExistingAddress() throws Exception {
+        int databaseSizeBeforeCreate = employeeRepository.findAll().collectList().block().size();
+        EmployeeDTO employeeDTO = employeeMapper.toDto(employee);
+        AddressDTO addressDTO = addressMapper.toDto(AddressResourceIT.createEntity());
+        addressDTO.setId("existing_id");
+        employeeDTO.setAddresses(Arrays.asList(addressDTO));
+
+        webTestClient.post().uri("/api/employees?include=addresses")
+            .contentType(MediaType.APPLICATION_JSON)
+            .bodyValue(TestUtil.convertObjectToJsonBytes(employeeDTO))
+            .exchange()
+            .expectStatus().isBadRequest();
+
+        assertThat(employeeRepository.findAll().collectList().block()).hasSize(databaseSizeBeforeCreate);
+    }
+
     @Test
     public void createEmployeeWithExistingId() throws Exception {
         int databaseSizeBeforeCreate = employeeRepository.findAll().collectList().block().size();
@@ -140,6 +286,27 @@ public class EmployeeResourceIT {
         assertThat(employeeList).hasSize(databaseSizeBeforeCreate);
     }
 
+    @Test
+    public void createEmployeeWithExistingPesel() throws Exception {
+        // Initialize the database
+        employeeRepository.save(employee).block();
+        int databaseSizeBeforeCreate = employeeRepository.findAll().collectList().block().size();
+
+        // Create another Employee with the same PESEL, which the unique index rejects
+        EmployeeDTO employeeDTO = employeeMapper.toDto(createUpdatedEntity().pESEL(DEFAULT_P_ESEL));
+        webTestClient.post().uri("/api/employees")
+            .contentType(MediaType.APPLICATION_JSON)
+            .bodyValue(TestUtil.convertObjectToJsonBytes(employeeDTO))
+            .exchange()
+            .expectStatus().isBadRequest()
+            .expectBody()
+            .jsonPath("$.message").isEqualTo("error.peselexists");
+
+        // Validate the Employee in the database
+        List<Employee> employeeList = employeeRepository.findAll().collectList().block();
+        assertThat(employeeList).hasSize(databaseSizeBeforeCreate);
+    }
+
 
     @Test
     public void checkFirstNameIsRequired() throws Exception {
@@ -260,6 +427,127 @@ public class EmployeeResourceIT {
             .jsonPath("$.[*].pESEL").value(hasItem(DEFAULT_P_ESEL))
             .jsonPath("$.[*].role").value(hasItem(DEFAULT_ROLE.toString()));
     }
+
+    @Test
+    public void getAllEmployeesIsNotModifiedUntilWritten() {
+        // Initialize the database
+        employeeRepository.save(employee).block();
+
+        String eTag = webTestClient.get().uri("/api/employees?sort=id,desc")
+            .exchange()
+            .expectStatus().isOk()
+            .returnResult(EmployeeDTO.class)
+            .getResponseHeaders().getETag();
+        assertThat(eTag).startsWith("W/");
+
+        // The page is not read again while the employees are not written
+        mongoCommandRecorder.clear();
+        webTestClient.get().uri("/api/employees?sort=id,desc")
+            .header(HttpHeaders.IF_NONE_MATCH, eTag)
+            .exchange()
+            .expectStatus().isNotModified()
+            .expectBody().isEmpty();
+        assertThat(mongoCommandRecorder.getCommands("aggregate", "count")).isEmpty();
+
+        webTestClient.patch().uri("/api/employees/{id}", employee.getId())
+            .contentType(MediaType.valueOf("application/merge-patch+json"))
+            .bodyValue("{\"firstName\": \"" + UPDATED_FIRST_NAME + "\"}")
+            .exchange()
+            .expectStatus().isOk();
+        webTestClient.get().uri("/api/employees?sort=id,desc")
+            .header(HttpHeaders.IF_NONE_MATCH, eTag)
+            .exchange()
+            .expectStatus().isOk()
+            .expectBody()
+            .jsonPath("$.[*].firstName").value(hasItem(UPDATED_FIRST_NAME));
+    }
+
+    @Test
+    public void getAllEmployeesWithTotalCount() {
+        // Initialize the database
+        employeeRepository.save(employee).block();
+        employeeRepository.save(createUpdatedEntity()).block();
+
+        // Get the second page of the employeeList, counted with the default strategy
+        webTestClient.get().uri("/api/employees?page=1&size=1&sort=lastName,asc")
+            .accept(MediaType.APPLICATION_JSON)
+            .exchange()
+            .expectStatus().isOk()
+            .expectHeader().valueEquals("X-Total-Count", "2")
+            .expectBody()
+            .jsonPath("$.length()").value(is(1))
+            .jsonPath("$.[0].lastName").value(is(UPDATED_LAST_NAME));
+    }
+
+    @Test
+    public void getAllEmployeesAfterCursor() {
+        // Initialize the database
+        employeeRepository.save(employee).block();
+        employeeRepository.save(createUpdatedEntity()).block();
+
+        // Get the first slice of the employeeList
+        String nextCursor = webTestClient.get().uri("/api/employees?cursor=&size=1&sort=lastName,asc")
+            .accept(MediaType.APPLICATION_JSON)
+            .exchange()
+            .expectStatus().isOk()
+            .expectHeader().valueMatches(HttpHeaders.LINK, ".*rel=\"next\".*")
+            .expectBody()
+            .jsonPath("$.length()").value(is(1))
+            .jsonPath("$.[0].lastName").value(is(DEFAULT_LAST_NAME))
+            .returnResult()
+            .getResponseHeaders().getFirst("X-Next-Cursor");
+        assertThat(nextCursor).isNotEmpty();
+
+        // Resume after the cursor: this is the last slice
+        webTestClient.get().uri("/api/employees?cursor={cursor}&size=1&sort=lastName,asc", nextCursor)
+            .accept(MediaType.APPLICATION_JSON)
+            .exchange()
+            .expectStatus().isOk()
+            .expectHeader().doesNotExist("X-Next-Cursor")
+            .expectBody()
+            .jsonPath("$.length()").value(is(1))
+            .jsonPath("$.[0].lastName").value(is(UPDATED_LAST_NAME));
+
+        // A cursor is only valid for the sort it was issued with
+        webTestClient.get().uri("/api/employees?cursor={cursor}&size=1&sort=id,asc", nextCursor)
+            .accept(MediaType.APPLICATION_JSON)
+            .exchange()
+            .expectStatus().isBadRequest();
+    }
+
+    @Test
+    public void getAllEmployeesWithMalformedCursor() {
+        webTestClient.get().uri("/api/employees?cursor=not-a-cursor")
+            .accept(MediaType.APPLICATION_JSON)
+            .exchange()
+            .expectStatus().isBadRequest();
+    }
+
+    @Test
+    public void getAllEmployeesWithOperatorInCursor() {
+        // A cursor holds values, a query document in it must not reach the range predicate
+        String cursor = Base64.getUrlEncoder().withoutPadding().encodeToString(
+            "{\"lastName\": {\"$ne\": null}, \"firstName\": \"A\", \"id\": \"5f0000000000000000000000\"}".getBytes(StandardCharsets.UTF_8));
+
+        webTestClient.get().uri("/api/employees?cursor={cursor}&sort=lastName,asc", cursor)
+            .accept(MediaType.APPLICATION_JSON)
+            .exchange()
+            .expectStatus().isBadRequest();
+    }
+
+    @Test
+    public void getAllEmployeesSortedOnUnindexedProperty() {
+        // Only the orders of the indexes can be listed without sorting the whole collection
+        webTestClient.get().uri("/api/employees?sort=firstName,asc")
+            .accept(MediaType.APPLICATION_JSON)
+            .exchange()
+            .expectStatus().isBadRequest();
+
+        webTestClient.get().uri("/api/employees?cursor=&sort=age,asc")
+            .accept(MediaType.APPLICATION_JSON)
+            .exchange()
+            .expectStatus().isBadRequest();
+    }
     
     @Test
     public void getEmployee() {
@@ -280,6 +568,364 @@ public class EmployeeResourceIT {
             .jsonPath("$.pESEL").value(is(DEFAULT_P_ESEL))
             .jsonPath("$.role").value(is(DEFAULT_ROLE.toString()));
     }
+
+    @Test
+    public void getEmployeeWithAddresses() {
+        // Initialize the database
+        employeeRepository.save(employee).block();
+        addressRepository.save(AddressResourceIT.createEntity().employee(employee)).block();
+
+        // Get the employee with its addresses
+        webTestClient.get().uri("/api/employees/{id}?include=addresses", employee.getId())
+            .accept(MediaType.APPLICATION_JSON)
+            .exchange()
+            .expectStatus().isOk()
+            .expectBody()
+            .jsonPath("$.id").value(is(employee.getId()))
+            .jsonPath("$.addresses.length()").value(is(1))
+            .jsonPath("$.addresses[0].employeeId").value(is(employee.getId()));
+
+        // The addresses are only there on request
+        webTestClient.get().uri("/api/employees/{id}", employee.getId())
+            .accept(MediaType.APPLICATION_JSON)
+            .exchange()
+            .expectStatus().isOk()
+            .expectBody()
+            .jsonPath("$.addresses").doesNotExist();
+    }
+
+    @Test
+    public void getAllEmployeesWithAddresses() {
+        // Initialize the database with an employee with two addresses and one without
+        employeeRepository.save(employee).block();
+        addressRepository.save(AddressResourceIT.createEntity().employee(employee)).block();
+        addressRepository.save(AddressResourceIT.createUpdatedEntity().employee(employee)).block();
+        employeeRepository.save(createUpdatedEntity()).block();
+
+        // Get the employees with their addresses
+        webTestClient.get().uri("/api/employees?sort=lastName,asc&include=addresses")
+            .accept(MediaType.APPLICATION_JSON)
+            .exchange()
+            .expectStatus().isOk()
+            .expectBody()
+            .jsonPath("$.[0].id").value(is(employee.getId()))
+            .jsonPath("$.[0].addresses.length()").value(is(2))
+            .jsonPath("$.[1].addresses.length()").value(is(0));
+    }
+
+    @Test
+    public void getAllEmployeesWithAddressesInConstantCommands() {
+        // Initialize the database with an employee with an address
+        employeeRepository.save(employee).block();
+        addressRepository.save(AddressResourceIT.createEntity().employee(employee)).block();
+        int commandsForOneEmployee = countCommandsForEmployeesWithAddressesPage();
+
+        // Fill the page with other employees with addresses
+        for (int i = 1; i < 20; i++) {
+            Employee otherEmployee = employeeRepository.save(createEntity().pESEL(String.format("%011d", i))).block();
+            addressRepository.save(AddressResourceIT.createEntity().employee(otherEmployee)).block();
+        }
+
+        // The addresses of the whole page are fetched at once
+        assertThat(countCommandsForEmployeesWithAddressesPage()).isEqualTo(commandsForOneEmployee);
+    }
+
+    private int countCommandsForEmployeesWithAddressesPage() {
+        mongoCommandRecorder.clear();
+        webTestClient.get().uri("/api/employees?size=20&include=addresses")
+            .accept(MediaType.APPLICATION_JSON)
+            .exchange()
+            .expectStatus().isOk()
+            .expectBody()
+            .jsonPath("$.[*].addresses.length()").value(everyItem(is(1)));
+        return mongoCommandRecorder.getCommands("find", "aggregate", "getMore", "count").size();
+    }
+
+    @Test
+    public void getAllEmployeesWithUnknownInclude() {
+        webTestClient.get().uri("/api/employees?include=managers")
+            .accept(MediaType.APPLICATION_JSON)
+            .exchange()
+            .expectStatus().isBadRequest()
+            .expectBody()
+            .jsonPath("$.message").isEqualTo("error.invalidinclude");
+    }
+
+    @Test
+    public void getEmployeesByIds() {
+        // Initialize the database
+        employeeRepository.save(employee).block();
+        Employee otherEmployee = employeeRepository.save(createUpdatedEntity()).block();
+        String missingId = new ObjectId().toHexString();
+        mongoCommandRecorder.clear();
+
+        // Get the employees in the requested order, reporting the missing one
+        webTestClient.get().uri("/api/employees?ids={ids}", String.join(",", otherEmployee.getId(), missingId, employee.getId(), otherEmployee.getId()))
+            .accept(MediaType.APPLICATION_JSON)
+            .exchange()
+            .expectStatus().isOk()
+            .expectHeader().valueEquals("X-Missing-Ids", missingId)
+            .expectBody()
+            .jsonPath("$.length()").value(is(2))
+            .jsonPath("$.[0].id").value(is(otherEmployee.getId()))
+            .jsonPath("$.[0].firstName").value(is(UPDATED_FIRST_NAME))
+            .jsonPath("$.[1].id").value(is(employee.getId()));
+
+        // With a single query
+        assertThat(mongoCommandRecorder.getCommands("find", "aggregate", "getMore", "count")).hasSize(1);
+    }
+
+    @Test
+    public void getEmployeesByIdsWithAddresses() {
+        // Initialize the database
+        employeeRepository.save(employee).block();
+        addressRepository.save(AddressResourceIT.createEntity().employee(employee)).block();
+
+        webTestClient.get().uri("/api/employees?ids={id}&include=addresses", employee.getId())
+            .accept(MediaType.APPLICATION_JSON)
+            .exchange()
+            .expectStatus().isOk()
+            .expectHeader().doesNotExist("X-Missing-Ids")
+            .expectBody()
+            .jsonPath("$.[0].addresses.length()").value(is(1));
+    }
+
+    @Test
+    public void getTooManyEmployeesByIds() {
+        String ids = IntStream.rangeClosed(0, applicationProperties.getBatch().getMaxIds())
+            .mapToObj(i -> new ObjectId().toHexString())
+            .collect(Collectors.joining(","));
+
+        webTestClient.get().uri("/api/employees?ids={ids}", ids)
+            .accept(MediaType.APPLICATION_JSON)
+            .exchange()
+            .expectStatus().isBadRequest()
+            .expectBody()
+            .jsonPath("$.message").isEqualTo("error.toomanyids");
+    }
+
+    @Test
+    public void getAllEmployeesWithFields() {
+        // Initialize the database
+        employeeRepository.save(employee).block();
+        mongoCommandRecorder.clear();
+
+        // Get only the selected properties, besides the id
+        webTestClient.get().uri("/api/employees?sort=id,desc&fields=firstName,role")
+            .accept(MediaType.APPLICATION_JSON)
+            .exchange()
+            .expectStatus().isOk()
+            .expectHeader().exists(HttpHeaders.ETAG)
+            .expectBody()
+            .jsonPath("$.[*].id").value(hasItem(employee.getId()))
+            .jsonPath("$.[*].firstName").value(hasItem(DEFAULT_FIRST_NAME))
+            .jsonPath("$.[*].role").value(hasItem(DEFAULT_ROLE.toString()))
+            .jsonPath("$.[0].lastName").doesNotExist()
+            .jsonPath("$.[0].pESEL").doesNotExist();
+
+        // The other properties are not read from the database
+        assertThat(mongoCommandRecorder.getCommands("find", "aggregate"))
+            .allMatch(command -> !command.toJson().contains("\"last_name\""))
+            .anyMatch(command -> command.toJson().contains("\"first_name\""));
+    }
+
+    @Test
+    public void getAllEmployeesWithFieldsAfterCursor() {
+        // Initialize the database
+        employeeRepository.save(employee).block();
+        employeeRepository.save(createUpdatedEntity()).block();
+
+        // The sort property is read for the cursor, though it is not returned
+        String nextCursor = webTestClient.get().uri("/api/employees?cursor=&size=1&sort=lastName,asc&fields=age")
+            .accept(MediaType.APPLICATION_JSON)
+            .exchange()
+            .expectStatus().isOk()
+            .expectBody()
+            .jsonPath("$.length()").value(is(1))
+            .jsonPath("$.[0].age").value(is(DEFAULT_AGE))
+            .jsonPath("$.[0].lastName").doesNotExist()
+            .returnResult()
+            .getResponseHeaders().getFirst("X-Next-Cursor");
+        assertThat(nextCursor).isNotEmpty();
+
+        webTestClient.get().uri("/api/employees?cursor={cursor}&size=1&sort=lastName,asc&fields=age", nextCursor)
+            .accept(MediaType.APPLICATION_JSON)
+            .exchange()
+            .expectStatus().isOk()
+            .expectHeader().doesNotExist("X-Next-Cursor")
+            .expectBody()
+            .jsonPath("$.length()").value(is(1))
+            .jsonPath("$.[0].age").value(is(UPDATED_AGE));
+    }
+
+    @Test
+    public void getEmployeesByIdsWithFields() {
+        // Initialize the database
+        employeeRepository.save(employee).block();
+
+        webTestClient.get().uri("/api/employees?ids={id}&fields=lastName", employee.getId())
+            .accept(MediaType.APPLICATION_JSON)
+            .exchange()
+            .expectStatus().isOk()
+            .expectBody()
+            .jsonPath("$.length()").value(is(1))
+            .jsonPath("$.[0].id").value(is(employee.getId()))
+            .jsonPath("$.[0].lastName").value(is(DEFAULT_LAST_NAME))
+            .jsonPath("$.[0].firstName").doesNotExist();
+    }
+
+    @Test
+    public void getAllEmployeesWithUnknownFields() {
+        webTestClient.get().uri("/api/employees?fields=firstName,salary")
+            .accept(MediaType.APPLICATION_JSON)
+            .exchange()
+            .expectStatus().isBadRequest()
+            .expectBody()
+            .jsonPath("$.message").isEqualTo("error.invalidfields");
+    }
+
+    @Test
+    public void getEmployeeIsNotModified() {
+        // Initialize the database
+        employeeRepository.save(employee).block();
+
+        String eTag = webTestClient.get().uri("/api/employees/{id}", employee.getId())
+            .exchange()
+            .expectStatus().isOk()
+            .returnResult(EmployeeDTO.class)
+            .getResponseHeaders().getETag();
+        assertThat(eTag).startsWith("\"");
+
+        webTestClient.get().uri("/api/employees/{id}", employee.getId())
+            .header(HttpHeaders.IF_NONE_MATCH, eTag)
+            .exchange()
+            .expectStatus().isNotModified()
+            .expectHeader().valueEquals(HttpHeaders.ETAG, eTag)
+            .expectBody().isEmpty();
+    }
+
+    @Test
+    public void updateEmployeeChecksIfMatch() throws Exception {
+        // Initialize the database
+        employeeRepository.save(employee).block();
+        String eTag = webTestClient.get().uri("/api/employees/{id}", employee.getId())
+            .exchange()
+            .returnResult(EmployeeDTO.class)
+            .getResponseHeaders().getETag();
+        assertThat(eTag).isEqualTo("\"" + employeeRepository.findById(employee.getId()).block().getRevision() + "\"");
+        EmployeeDTO employeeDTO = employeeMapper.toDto(employee.firstName(UPDATED_FIRST_NAME));
+
+        // A stale tag is rejected
+        webTestClient.put().uri("/api/employees")
+            .header(HttpHeaders.IF_MATCH, "\"stale\"")
+            .contentType(MediaType.APPLICATION_JSON)
+            .bodyValue(TestUtil.convertObjectToJsonBytes(employeeDTO))
+            .exchange()
+            .expectStatus().isEqualTo(HttpStatus.PRECONDITION_FAILED);
+        assertThat(employeeRepository.findById(employee.getId()).block().getFirstName()).isEqualTo(DEFAULT_FIRST_NAME);
+
+        // The current tag is accepted, and the tag of the update is the one of the next read
+        String updatedETag = webTestClient.put().uri("/api/employees")
+            .header(HttpHeaders.IF_MATCH, eTag)
+            .contentType(MediaType.APPLICATION_JSON)
+            .bodyValue(TestUtil.convertObjectToJsonBytes(employeeDTO))
+            .exchange()
+            .expectStatus().isOk()
+            .returnResult(EmployeeDTO.class)
+            .getResponseHeaders().getETag();
+        assertThat(updatedETag).isNotEqualTo(eTag);
+        webTestClient.get().uri("/api/employees/{id}", employee.getId())
+            .exchange()
+            .expectHeader().valueEquals(HttpHeaders.ETAG, updatedETag);
+
+        webTestClient.get().uri("/api/employees/{id}?fields=age", employee.getId())
+            .exchange()
+            .expectHeader().valueEquals(HttpHeaders.ETAG, updatedETag);
+
+        // The previous tag is now stale for a delete too, and a weak tag never matches
+        webTestClient.delete().uri("/api/employees/{id}", employee.getId())
+            .header(HttpHeaders.IF_MATCH, eTag + ", W/" + updatedETag)
+            .exchange()
+            .expectStatus().isEqualTo(HttpStatus.PRECONDITION_FAILED);
+        assertThat(employeeRepository.findById(employee.getId()).block()).isNotNull();
+
+        // Any tag of the list matches
+        webTestClient.patch().uri("/api/employees/{id}", employee.getId())
+            .header(HttpHeaders.IF_MATCH, eTag + ", " + updatedETag)
+            .contentType(MediaType.valueOf("application/merge-patch+json"))
+            .bodyValue("{\"age\": " + UPDATED_AGE + "}")
+            .exchange()
+            .expectStatus().isOk();
+
+        // And * as long as the employee exists
+        webTestClient.delete().uri("/api/employees/{id}", employee.getId())
+            .header(HttpHeaders.IF_MATCH, "*")
+            .exchange()
+            .expectStatus().isNoContent();
+        webTestClient.delete().uri("/api/employees/{id}", employee.getId())
+            .header(HttpHeaders.IF_MATCH, "*")
+            .exchange()
+            .expectStatus().isEqualTo(HttpStatus.PRECONDITION_FAILED);
+    }
+
+    @Test
+    public void conditionalWritesOnlyMatchTheRevisionRead() {
+        // Initialize the database
+        employeeRepository.save(employee).block();
+        String read = employeeRepository.findById(employee.getId()).block().getRevision();
+        // Written in between, as by a concurrent request
+        employeeRepository.save(employee.lastName(UPDATED_LAST_NAME)).block();
+        String current = employeeRepository.findById(employee.getId()).block().getRevision();
+        assertThat(current).isNotEqualTo(read);
+
+        assertThat(employeeRepository.replaceIfRevision(employee.firstName(UPDATED_FIRST_NAME), read).block()).isFalse();
+        assertThat(employeeRepository.saveKeepingEmbeddedAddressesIfRevision(employee, read).block()).isFalse();
+        assertThat(employeeRepository.findAndUpdateFieldsIfRevision(employee.getId(), Collections.singletonMap("age", UPDATED_AGE), read).block()).isNull();
+        assertThat(employeeRepository.deleteByIdAndRevision(employee.getId(), read).block()).isFalse();
+        Employee stored = employeeRepository.findById(employee.getId()).block();
+        assertThat(stored.getFirstName()).isEqualTo(DEFAULT_FIRST_NAME);
+        assertThat(stored.getAge()).isEqualTo(DEFAULT_AGE);
+
+        assertThat(employeeRepository.replaceIfRevision(employee, current).block()).isTrue();
+        Employee updated = employeeRepository.findById(employee.getId()).block();
+        assertThat(updated.getFirstName()).isEqualTo(UPDATED_FIRST_NAME);
+        assertThat(updated.getRevision()).isNotEqualTo(current);
+        assertThat(employeeRepository.deleteByIdAndRevision(employee.getId(), updated.getRevision()).block()).isTrue();
+        assertThat(employeeRepository.findById(employee.getId()).block()).isNull();
+    }
+
+    @Test
+    public void getEmployeeWithFields() {
+        // Initialize the database
+        employeeRepository.save(employee).block();
+
+        webTestClient.get().uri("/api/employees/{id}?fields=firstName,age", employee.getId())
+            .accept(MediaType.APPLICATION_JSON)
+            .exchange()
+            .expectStatus().isOk()
+            .expectHeader().exists(HttpHeaders.ETAG)
+            .expectBody()
+            .jsonPath("$.id").value(is(employee.getId()))
+            .jsonPath("$.firstName").value(is(DEFAULT_FIRST_NAME))
+            .jsonPath("$.age").value(is(DEFAULT_AGE))
+            .jsonPath("$.lastName").doesNotExist()
+            .jsonPath("$.role").doesNotExist();
+    }
+
+    @Test
+    public void getEmployeeWithFieldsAndAddresses() {
+        // Initialize the database
+        employeeRepository.save(employee).block();
+
+        // A fieldset does not select the included relationships
+        webTestClient.get().uri("/api/employees/{id}?fields=firstName&include=addresses", employee.getId())
+            .accept(MediaType.APPLICATION_JSON)
+            .exchange()
+            .expectStatus().isBadRequest()
+            .expectBody()
+            .jsonPath("$.message").isEqualTo("error.invalidfields");
+    }
+
     @Test
     public void getNonExistingEmployee() {
         // Get the employee
@@ -289,6 +935,32 @@ public class EmployeeResourceIT {
             .expectStatus().isNotFound();
     }
 
+    @Test
+    public void getEmployeeIsCachedUntilUpdated() {
+        // Initialize the database
+        employeeRepository.save(employee).block();
+        mongoCommandRecorder.clear();
+
+        // Get the employee twice, and a missing one twice
+        for (int i = 0; i < 2; i++) {
+            webTestClient.get().uri("/api/employees/{id}", employee.getId()).exchange().expectStatus().isOk();
+            webTestClient.get().uri("/api/employees/{id}", "missing-employee").exchange().expectStatus().isNotFound();
+        }
+        assertThat(mongoCommandRecorder.getCommands("find")).hasSize(2);
+
+        // The update invalidates the cached employee
+        webTestClient.patch().uri("/api/employees/{id}", employee.getId())
+            .contentType(MediaType.valueOf("application/merge-patch+json"))
+            .bodyValue("{\"firstName\": \"" + UPDATED_FIRST_NAME + "\"}")
+            .exchange()
+            .expectStatus().isOk();
+        webTestClient.get().uri("/api/employees/{id}", employee.getId())
+            .exchange()
+            .expectStatus().isOk()
+            .expectBody()
+            .jsonPath("$.firstName").value(is(UPDATED_FIRST_NAME));
+    }
+
     @Test
     public void updateEmployee() throws Exception {
         // Initialize the database
@@ -323,6 +995,108 @@ public class EmployeeResourceIT {
         assertThat(testEmployee.getRole()).isEqualTo(UPDATED_ROLE);
     }
 
+    @Test
+    public void updateEmployeeWithoutChangesSkipsTheWrite() throws Exception {
+        // Initialize the database
+        employeeRepository.save(employee).block();
+        mongoCommandRecorder.clear();
+
+        // Put the employee as it is stored
+        EmployeeDTO employeeDTO = employeeMapper.toDto(employeeRepository.findById(employee.getId()).block());
+
+        webTestClient.put().uri("/api/employees")
+            .contentType(MediaType.APPLICATION_JSON)
+            .bodyValue(TestUtil.convertObjectToJsonBytes(employeeDTO))
+            .exchange()
+            .expectStatus().isOk()
+            .expectHeader().valueEquals("X-Write-Elided", "true")
+            .expectBody()
+            .jsonPath("$.id").isEqualTo(employee.getId())
+            .jsonPath("$.firstName").isEqualTo(DEFAULT_FIRST_NAME);
+
+        assertThat(mongoCommandRecorder.getCommands("update", "findAndModify", "insert")).isEmpty();
+
+        // A changed employee is written
+        employeeDTO.setRole(UPDATED_ROLE);
+
+        webTestClient.put().uri("/api/employees")
+            .contentType(MediaType.APPLICATION_JSON)
+            .bodyValue(TestUtil.convertObjectToJsonBytes(employeeDTO))
+            .exchange()
+            .expectStatus().isOk()
+            .expectHeader().doesNotExist("X-Write-Elided");
+
+        assertThat(employeeRepository.findById(employee.getId()).block().getRole()).isEqualTo(UPDATED_ROLE);
+    }
+
+    @Test
+    public void partialUpdateEmployee() throws Exception {
+        // Initialize the database
+        employeeRepository.save(employee).block();
+        mongoCommandRecorder.clear();
+
+        // Patch the role only
+        webTestClient.patch().uri("/api/employees/{id}", employee.getId())
+            .contentType(MediaType.valueOf("application/merge-patch+json"))
+            .bodyValue("{\"role\": \"" + UPDATED_ROLE + "\", \"age\": " + UPDATED_AGE + "}")
+            .exchange()
+            .expectStatus().isOk()
+            .expectBody()
+            .jsonPath("$.role").value(is(UPDATED_ROLE.toString()))
+            .jsonPath("$.firstName").value(is(DEFAULT_FIRST_NAME));
+
+        // With a single findAndModify setting the patched fields and a new revision
+        List<BsonDocument> commands = mongoCommandRecorder.getCommandsOn("employee", "findAndModify", "update", "find");
+        assertThat(commands).hasSize(1);
+        BsonDocument set = commands.get(0).getDocument("update").getDocument("$set");
+        assertThat(set.keySet()).containsExactlyInAnyOrder("role", "age", "revision");
+
+        // Validate the Employee in the database
+        Employee testEmployee = employeeRepository.findById(employee.getId()).block();
+        assertThat(testEmployee.getRole()).isEqualTo(UPDATED_ROLE);
+        assertThat(testEmployee.getAge()).isEqualTo(UPDATED_AGE);
+        assertThat(testEmployee.getpESEL()).isEqualTo(DEFAULT_P_ESEL);
+        assertThat(testEmployee.getLastName()).isEqualTo(DEFAULT_LAST_NAME);
+    }
+
+    @Test
+    public void partialUpdateEmployeeValidatesPatchedFields() throws Exception {
+        // Initialize the database
+        employeeRepository.save(employee).block();
+
+        // A required field cannot be removed
+        webTestClient.patch().uri("/api/employees/{id}", employee.getId())
+            .contentType(MediaType.valueOf("application/merge-patch+json"))
+            .bodyValue("{\"firstName\": null}")
+            .exchange()
+            .expectStatus().isBadRequest()
+            .expectBody()
+            .jsonPath("$.message").isEqualTo("error.invalidpatch");
+
+        // Nor the id changed, nor an invalid value set
+        webTestClient.patch().uri("/api/employees/{id}", employee.getId())
+            .contentType(MediaType.valueOf("application/merge-patch+json"))
+            .bodyValue("{\"id\": \"other\"}")
+            .exchange()
+            .expectStatus().isBadRequest();
+        webTestClient.patch().uri("/api/employees/{id}", employee.getId())
+            .contentType(MediaType.valueOf("application/merge-patch+json"))
+            .bodyValue("{\"pESEL\": \"123\"}")
+            .exchange()
+            .expectStatus().isBadRequest();
+
+        assertThat(employeeRepository.findById(employee.getId()).block().getFirstName()).isEqualTo(DEFAULT_FIRST_NAME);
+    }
+
+    @Test
+    public void partialUpdateNonExistingEmployee() throws Exception {
+        webTestClient.patch().uri("/api/employees/{id}", new ObjectId().toHexString())
+            .contentType(MediaType.valueOf("application/merge-patch+json"))
+            .bodyValue("{\"role\": \"" + UPDATED_ROLE + "\"}")
+            .exchange()
+            .expectStatus().isNotFound();
+    }
+
     @Test
     public void updateNonExistingEmployee() throws Exception {
         int databaseSizeBeforeUpdate = employeeRepository.findAll().collectList().block().size();
@@ -342,6 +1116,69 @@ public class EmployeeResourceIT {
         assertThat(employeeList).hasSize(databaseSizeBeforeUpdate);
     }
 
+    @Test
+    public void getEmployeeAddresses() throws Exception {
+        // Initialize the database
+        employeeRepository.save(employee).block();
+        Employee otherEmployee = employeeRepository.save(createEntity().pESEL("00000000001")).block();
+        Address home = addressRepository.save(AddressResourceIT.createEntity().addressType(AddressType.HOME_ADDRESS).employee(employee)).block();
+        Address registered = addressRepository.save(AddressResourceIT.createEntity().addressType(AddressType.REGISTERED_ADDRESS).employee(employee)).block();
+        addressRepository.save(AddressResourceIT.createEntity().employee(otherEmployee)).block();
+
+        // Get all the addresses of the employee
+        String eTag = webTestClient.get().uri("/api/employees/{id}/addresses", employee.getId())
+            .accept(MediaType.APPLICATION_JSON)
+            .exchange()
+            .expectStatus().isOk()
+            .expectHeader().contentType(MediaType.APPLICATION_JSON)
+            .expectBody()
+            .jsonPath("$.[*].id").value(contains(home.getId(), registered.getId()))
+            .returnResult().getResponseHeaders().getETag();
+        assertThat(eTag).isNotNull();
+
+        // Get its registered addresses
+        webTestClient.get().uri("/api/employees/{id}/addresses?addressType={type}", employee.getId(), AddressType.REGISTERED_ADDRESS)
+            .accept(MediaType.APPLICATION_JSON)
+            .exchange()
+            .expectStatus().isOk()
+            .expectBody()
+            .jsonPath("$.[*].id").value(contains(registered.getId()));
+
+        // Stream them
+        webTestClient.get().uri("/api/employees/{id}/addresses", employee.getId())
+            .accept(MediaType.APPLICATION_STREAM_JSON)
+            .exchange()
+            .expectStatus().isOk()
+            .returnResult(AddressDTO.class)
+            .getResponseBody()
+            .map(AddressDTO::getId)
+            .collectList()
+            .doOnNext(ids -> assertThat(ids).containsExactly(home.getId(), registered.getId()))
+            .block();
+
+        // Get them again while unchanged
+        webTestClient.get().uri("/api/employees/{id}/addresses", employee.getId())
+            .accept(MediaType.APPLICATION_JSON)
+            .header(HttpHeaders.IF_NONE_MATCH, eTag)
+            .exchange()
+            .expectStatus().isNotModified();
+
+        // Get them again after a change
+        addressRepository.save(home.city("Changed")).block();
+        webTestClient.get().uri("/api/employees/{id}/addresses", employee.getId())
+            .accept(MediaType.APPLICATION_JSON)
+            .header(HttpHeaders.IF_NONE_MATCH, eTag)
+            .exchange()
+            .expectStatus().isOk();
+    }
+
+    @Test
+    public void getAddressesOfNonExistingEmployee() {
+        webTestClient.get().uri("/api/employees/{id}/addresses", new ObjectId().toHexString())
+            .exchange()
+            .expectStatus().isNotFound();
+    }
+
     @Test
     public void deleteEmployee() {
         // Initialize the database
@@ -359,4 +1196,242 @@ public class EmployeeResourceIT {
         List<Employee> employeeList = employeeRepository.findAll().collectList().block();
         assertThat(employeeList).hasSize(databaseSizeBeforeDelete - 1);
     }
+
+    @Test
+    public void deleteEmployeeDeletesItsAddresses() {
+        // Initialize the database
+        employeeRepository.save(employee).block();
+        Employee otherEmployee = employeeRepository.save(createEntity().pESEL("00000000001")).block();
+        addressRepository.save(AddressResourceIT.createEntity().employee(employee)).block();
+        addressRepository.save(AddressResourceIT.createUpdatedEntity().employee(employee)).block();
+        Address otherAddress = addressRepository.save(AddressResourceIT.createEntity().employee(otherEmployee)).block();
+        mongoCommandRecorder.clear();
+
+        // Delete the employee
+        webTestClient.delete().uri("/api/employees/{id}", employee.getId())
+            .accept(MediaType.APPLICATION_JSON)
+            .exchange()
+            .expectStatus().isNoContent();
+
+        // One delete of the employee, then one of all its addresses
+        assertThat(mongoCommandRecorder.getCommands("delete")).hasSize(2);
+        assertThat(addressRepository.findAll().collectList().block()).containsExactly(otherAddress);
+    }
+
+    @Test
+    @WithMockUser(authorities = AuthoritiesConstants.ADMIN)
+    public void updateEmployeesByFilter() throws Exception {
+        // Initialize the database
+        employeeRepository.save(employee).block();
+        employeeRepository.save(createEntity().pESEL("00000000001")).block();
+        Employee otherEmployee = employeeRepository.save(createEntity().lastName(UPDATED_LAST_NAME).pESEL("00000000002")).block();
+        String updateByFilter = "{\"filter\": {\"lastName\": \"" + DEFAULT_LAST_NAME + "\", \"role\": \"" + DEFAULT_ROLE + "\"}, "
+            + "\"set\": {\"role\": \"" + UPDATED_ROLE + "\"}";
+
+        // Count the matching employees
+        webTestClient.post().uri("/api/employees/update-by-filter")
+            .contentType(MediaType.APPLICATION_JSON)
+            .bodyValue(updateByFilter + ", \"dryRun\": true}")
+            .exchange()
+            .expectStatus().isOk()
+            .expectBody()
+            .jsonPath("$.matched").isEqualTo(2)
+            .jsonPath("$.modified").doesNotExist()
+            .jsonPath("$.dryRun").isEqualTo(true);
+        assertThat(employeeRepository.findAll().map(Employee::getRole).collectList().block()).containsOnly(DEFAULT_ROLE);
+
+        // Update them
+        mongoCommandRecorder.clear();
+        webTestClient.post().uri("/api/employees/update-by-filter")
+            .contentType(MediaType.APPLICATION_JSON)
+            .bodyValue(updateByFilter + "}")
+            .exchange()
+            .expectStatus().isOk()
+            .expectBody()
+            .jsonPath("$.matched").isEqualTo(2)
+            .jsonPath("$.modified").isEqualTo(2);
+
+        assertThat(mongoCommandRecorder.getCommandsOn("employee", "update")).hasSize(1);
+        assertThat(employeeRepository.findById(employee.getId()).block().getRole()).isEqualTo(UPDATED_ROLE);
+        assertThat(employeeRepository.findById(otherEmployee.getId()).block().getRole()).isEqualTo(DEFAULT_ROLE);
+    }
+
+    @Test
+    @WithMockUser(authorities = AuthoritiesConstants.ADMIN)
+    public void updateEmployeesByFilterOnlyUsesWhitelistedProperties() throws Exception {
+        // The PESEL cannot be updated
+        webTestClient.post().uri("/api/employees/update-by-filter")
+            .contentType(MediaType.APPLICATION_JSON)
+            .bodyValue("{\"filter\": {\"role\": \"" + DEFAULT_ROLE + "\"}, \"set\": {\"pESEL\": \"" + UPDATED_P_ESEL + "\"}}")
+            .exchange()
+            .expectStatus().isBadRequest()
+            .expectBody()
+            .jsonPath("$.message").isEqualTo("error.invalidupdate");
+
+        // A filter is required
+        webTestClient.post().uri("/api/employees/update-by-filter")
+            .contentType(MediaType.APPLICATION_JSON)
+            .bodyValue("{\"set\": {\"role\": \"" + UPDATED_ROLE + "\"}}")
+            .exchange()
+            .expectStatus().isBadRequest();
+    }
+
+    @Test
+    public void updateEmployeesByFilterIsForAdministrators() throws Exception {
+        webTestClient.post().uri("/api/employees/update-by-filter")
+            .contentType(MediaType.APPLICATION_JSON)
+            .bodyValue("{\"filter\": {\"role\": \"" + DEFAULT_ROLE + "\"}, \"set\": {\"role\": \"" + UPDATED_ROLE + "\"}}")
+            .exchange()
+            .expectStatus().isForbidden();
+    }
+
+    @Test
+    public void bulkEmployees() throws Exception {
+        // Initialize the database
+        employeeRepository.save(employee).block();
+        Employee employeeToDelete = employeeRepository.save(createEntity().pESEL("00000000001")).block();
+
+        EmployeeDTO updatedEmployeeDTO = employeeMapper.toDto(employee);
+        updatedEmployeeDTO.setFirstName(UPDATED_FIRST_NAME);
+        EmployeeDTO invalidEmployeeDTO = employeeMapper.toDto(createUpdatedEntity());
+        invalidEmployeeDTO.setFirstName(null);
+        List<BulkOperationDTO<EmployeeDTO>> operations = Arrays.asList(
+            bulkOperation(BulkOperationDTO.Action.CREATE, null, employeeMapper.toDto(createUpdatedEntity())),
+            bulkOperation(BulkOperationDTO.Action.CREATE, null, employeeMapper.toDto(createEntity())),
+            bulkOperation(BulkOperationDTO.Action.CREATE, null, invalidEmployeeDTO),
+            bulkOperation(BulkOperationDTO.Action.UPDATE, null, updatedEmployeeDTO),
+            bulkOperation(BulkOperationDTO.Action.DELETE, employeeToDelete.getId(), null));
+
+        // Run the operations, each one getting its result
+        webTestClient.post().uri("/api/employees/bulk")
+            .contentType(MediaType.APPLICATION_JSON)
+            .bodyValue(TestUtil.convertObjectToJsonBytes(operations))
+            .exchange()
+            .expectStatus().isOk()
+            .expectBody()
+            .jsonPath("$.length()").value(is(5))
+            .jsonPath("$.[*].index").value(contains(0, 1, 2, 3, 4))
+            .jsonPath("$.[0].status").value(is("CREATED"))
+            .jsonPath("$.[1].status").value(is("FAILED"))
+            .jsonPath("$.[1].error").value(is("error.peselexists"))
+            .jsonPath("$.[2].status").value(is("FAILED"))
+            .jsonPath("$.[2].error").value(is("error.validation"))
+            .jsonPath("$.[3].status").value(is("UPDATED"))
+            .jsonPath("$.[3].id").value(is(employee.getId()))
+            .jsonPath("$.[4].status").value(is("DELETED"));
+
+        // Validate the Employees in the database
+        List<Employee> employeeList = employeeRepository.findAll().collectList().block();
+        assertThat(employeeList).extracting(Employee::getpESEL).containsExactlyInAnyOrder(DEFAULT_P_ESEL, UPDATED_P_ESEL);
+        assertThat(employeeRepository.findById(employee.getId()).block().getFirstName()).isEqualTo(UPDATED_FIRST_NAME);
+    }
+
+    @Test
+    public void bulkDeleteEmployeesDeletesTheirAddresses() throws Exception {
+        // Initialize the database
+        employeeRepository.save(employee).block();
+        Employee otherEmployee = employeeRepository.save(createEntity().pESEL("00000000001")).block();
+        addressRepository.save(AddressResourceIT.createEntity().employee(employee)).block();
+        Address otherAddress = addressRepository.save(AddressResourceIT.createEntity().employee(otherEmployee)).block();
+        long addressVersion = employeeService.getVersions(true).block().get(1);
+
+        webTestClient.post().uri("/api/employees/bulk")
+            .contentType(MediaType.APPLICATION_JSON)
+            .bodyValue(TestUtil.convertObjectToJsonBytes(Collections.singletonList(
+                bulkOperation(BulkOperationDTO.Action.DELETE, employee.getId(), null))))
+            .exchange()
+            .expectStatus().isOk()
+            .expectBody()
+            .jsonPath("$.[0].status").value(is("DELETED"));
+
+        // The addresses of the deleted employee are deleted, as by a single delete, and the cached ones invalidated
+        assertThat(addressRepository.findAll().collectList().block()).containsExactly(otherAddress);
+        assertThat(employeeService.getVersions(true).block().get(1)).isGreaterThan(addressVersion);
+    }
+
+    @Test
+    public void exportEmployees() throws Exception {
+        // Initialize the database
+        List<Employee> employees = employeeRepository.saveAll(Arrays.asList(employee, createEntity().pESEL("00000000001"),
+            createEntity().pESEL("00000000002"))).collectList().block();
+        List<String> ids = employees.stream().map(Employee::getId).sorted().collect(Collectors.toList());
+
+        // Export all of them, one per line in the order of their ids
+        String export = webTestClient.get().uri("/api/employees/stream")
+            .accept(MediaType.valueOf("application/x-ndjson"))
+            .exchange()
+            .expectStatus().isOk()
+            .expectHeader().contentTypeCompatibleWith("application/x-ndjson")
+            .expectBody(String.class)
+            .returnResult().getResponseBody();
+        List<EmployeeDTO> exported = TestUtil.readJsonLines(export, EmployeeDTO.class);
+        assertThat(exported).extracting(EmployeeDTO::getId).containsExactlyElementsOf(ids);
+        assertThat(exported).extracting(EmployeeDTO::getFirstName).containsOnly(DEFAULT_FIRST_NAME);
+
+        // Resume after the first one, with only some fields
+        export = webTestClient.get().uri("/api/employees/stream?after={after}&fields=firstName,role", ids.get(0))
+            .accept(MediaType.valueOf("application/x-ndjson"))
+            .exchange()
+            .expectStatus().isOk()
+            .expectBody(String.class)
+            .returnResult().getResponseBody();
+        List<JsonNode> lines = TestUtil.readJsonLines(export, JsonNode.class);
+        assertThat(lines).extracting(line -> line.get("id").asText()).containsExactlyElementsOf(ids.subList(1, 3));
+        assertThat(lines).allSatisfy(line -> assertThat(line.fieldNames()).toIterable().containsExactly("id", "firstName", "role"));
+    }
+
+    @Test
+    public void exportEmployeesAsEvents() {
+        // Initialize the database
+        List<Employee> employees = employeeRepository.saveAll(Arrays.asList(employee, createEntity().pESEL("00000000001"),
+            createEntity().pESEL("00000000002"))).collectList().block();
+        List<String> ids = employees.stream().map(Employee::getId).sorted().collect(Collectors.toList());
+
+        // Each event has the id of its employee
+        List<String> eventIds = webTestClient.get().uri("/api/employees/stream")
+            .accept(MediaType.TEXT_EVENT_STREAM)
+            .exchange()
+            .expectStatus().isOk()
+            .returnResult(new ParameterizedTypeReference<ServerSentEvent<EmployeeDTO>>() { })
+            .getResponseBody()
+            .doOnNext(event -> assertThat(event.data().getId()).isEqualTo(event.id()))
+            .map(ServerSentEvent::id)
+            .collectList()
+            .block();
+        assertThat(eventIds).containsExactlyElementsOf(ids);
+
+        // A reconnection resumes after the last event received
+        eventIds = webTestClient.get().uri("/api/employees/stream")
+            .accept(MediaType.TEXT_EVENT_STREAM)
+            .header("Last-Event-ID", ids.get(1))
+            .exchange()
+            .expectStatus().isOk()
+            .returnResult(new ParameterizedTypeReference<ServerSentEvent<EmployeeDTO>>() { })
+            .getResponseBody()
+            .map(ServerSentEvent::id)
+            .collectList()
+            .block();
+        assertThat(eventIds).containsExactly(ids.get(2));
+    }
+
+    @Test
+    public void exportEmployeesWithInvalidParameters() {
+        webTestClient.get().uri("/api/employees/stream?fields=addresses")
+            .accept(MediaType.valueOf("application/x-ndjson"))
+            .exchange()
+            .expectStatus().isBadRequest();
+
+        webTestClient.get().uri("/api/employees/stream?after=invalid")
+            .accept(MediaType.valueOf("application/x-ndjson"))
+            .exchange()
+            .expectStatus().isBadRequest();
+    }
+
+    private static BulkOperationDTO<EmployeeDTO> bulkOperation(BulkOperationDTO.Action action, String id, EmployeeDTO value) {
+        BulkOperationDTO<EmployeeDTO> operation = new BulkOperationDTO<>();
+        operation.setAction(action);
+        operation.setId(id);
+        operation.setValue(value);
+        return operation;
+    }
 }
@@ -1,6 +1,7 @@
 package com.adriangraczyk.employeeservice.web.rest;
 
 import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.MappingIterator;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
@@ -10,6 +11,8 @@ import org.hamcrest.TypeSafeDiagnosingMatcher;
 import java.io.IOException;
 import java.time.ZonedDateTime;
 import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
@@ -39,6 +42,23 @@ public final class TestUtil {
         return mapper.writeValueAsBytes(object);
     }
 
+    /**
+     * Read newline delimited JSON, one object per line.
+     *
+     * @param ndjson the lines to read.
+     * @param type the type of each object.
+     * @param <T> the type of object.
+     * @return the objects, in the order of the lines.
+     * @throws IOException
+     */
+    public static <T> List<T> readJsonLines(String ndjson, Class<T> type) throws IOException {
+        List<T> values = new ArrayList<>();
+        try (MappingIterator<T> iterator = mapper.readerFor(type).readValues(ndjson)) {
+            iterator.forEachRemaining(values::add);
+        }
+        return values;
+    }
+
     /**
      * Create a byte array with a specific size filled with specified data.
      *
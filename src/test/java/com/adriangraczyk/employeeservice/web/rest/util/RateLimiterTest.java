@@ -0,0 +1,30 @@
+package com.adriangraczyk.employeeservice.web.rest.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class RateLimiterTest {
+
+    @Test
+    public void testRequestsAreLimitedPerWindow() {
+        RateLimiter rateLimiter = new RateLimiter(2, Duration.ofMinutes(1));
+
+        assertThat(rateLimiter.tryAcquire()).isTrue();
+        assertThat(rateLimiter.tryAcquire()).isTrue();
+        assertThat(rateLimiter.tryAcquire()).isFalse();
+        assertThat(rateLimiter.getRetryAfter()).isBetween(Duration.ofSeconds(1), Duration.ofMinutes(1));
+    }
+
+    @Test
+    public void testRequestsAreAllowedAgainInTheNextWindow() throws InterruptedException {
+        RateLimiter rateLimiter = new RateLimiter(1, Duration.ofMillis(10));
+
+        assertThat(rateLimiter.tryAcquire()).isTrue();
+        assertThat(rateLimiter.tryAcquire()).isFalse();
+        Thread.sleep(20);
+        assertThat(rateLimiter.tryAcquire()).isTrue();
+    }
+}